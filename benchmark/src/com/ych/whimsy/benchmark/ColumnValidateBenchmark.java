@@ -0,0 +1,88 @@
+package src.com.ych.whimsy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.com.ych.whimsy.number.Number;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整列判断的基准测试,对比逐个调用Number.isNumber(String message, int flag)和Number.validateColumn(...)<br/>
+ * 运行方式: mvn -P jmh package && java -jar target/benchmarks.jar ColumnValidateBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnValidateBenchmark {
+
+    /**
+     * 列的行数
+     */
+    @Param({"1000000"})
+    public int rows;
+
+    /**
+     * 字符串形式的列
+     */
+    private String[] column;
+
+    /**
+     * 字节数组形式的列
+     */
+    private byte[] data;
+
+    /**
+     * 字节数组形式的列中每个值的开始位置
+     */
+    private int[] offsets;
+
+    @Setup
+    public void setup ( ) {
+        Random random = new Random(20200105L);
+        column = new String[rows];
+        offsets = new int[rows + 1];
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            column[i] = random.nextInt(10) == 0 ? "n/a" : Long.toString(random.nextLong() >>> 20) + "." + random.nextInt(100);
+            all.append(column[i]);
+            offsets[i + 1] = all.length();
+        }
+        data = all.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public BitSet isNumberLoop ( ) {
+        BitSet result = new BitSet(rows);
+        for (int i = 0; i < rows; i++) {
+            if (Number.isNumber(column[i], 0)) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BitSet validateStrings ( ) {
+        return Number.validateColumn(column, 0);
+    }
+
+    @Benchmark
+    public BitSet validateBytes ( ) {
+        return Number.validateColumn(data, offsets, 0);
+    }
+}
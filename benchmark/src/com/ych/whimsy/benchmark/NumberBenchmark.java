@@ -0,0 +1,56 @@
+package src.com.ych.whimsy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.com.ych.whimsy.number.Number;
+import src.com.ych.whimsy.number.NumberValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Number.isNumber(String message, int flag)和Number.parse(...)在各个判断模式下的基准测试<br/>
+ * 运行方式: mvn -P jmh package && java -jar target/benchmarks.jar NumberBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberBenchmark {
+
+    /**
+     * 判断模式
+     */
+    @Param({"-2", "-1", "0", "1", "2"})
+    public int flag;
+
+    /**
+     * 被判断的字符串
+     */
+    @Param({"1234567890", "-1234567890", "12345.6789", "-12345.6789", "12a45"})
+    public String message;
+
+    /**
+     * 复用的解析结果
+     */
+    private final NumberValue value = new NumberValue();
+
+    @Benchmark
+    public boolean isNumber ( ) {
+        return Number.isNumber(message, flag);
+    }
+
+    @Benchmark
+    public double parse ( ) {
+        return Number.parse(message, 0, message.length(), flag, value) ? value.getDouble() : 0;
+    }
+}
@@ -0,0 +1,91 @@
+package src.com.ych.whimsy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.com.ych.whimsy.mysql.Field;
+import src.com.ych.whimsy.mysql.Type;
+import src.com.ych.whimsy.mysql.temporary.SqlClause;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端拼接SQL语句的基准测试,不连接数据库<br/>
+ * 只依赖Field、Type和SqlClause,不依赖LoadDatabase,jmh配置只编译基准测试需要的源码.<br/>
+ * setColumns、setValues是Property.setColumns (...)和setValues (...)的拼接,updateSql、updateTemplate是Update.commit ( )的set子句拼接.<br/>
+ * 运行方式: mvn -P jmh package && java -jar target/benchmarks.jar SqlBuildBenchmark -prof gc<br/>
+ * 加上 -prof gc 可以看到每次操作分配的字节数(gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlBuildBenchmark {
+
+    /**
+     * 列名
+     */
+    private final String[] columns = {"id", "name", "age", "email", "phone", "address", "created", "updated"};
+
+    /**
+     * 每一列的值
+     */
+    private final String[] values = {"1", "'ych'", "18", "'ych@qq.com'", "'13800000000'", "'beijing'", "'2020-01-05'", "'2020-01-06'"};
+
+    /**
+     * 建表时的列定义
+     */
+    private Field[] fields;
+
+    @Setup
+    public void setup ( ) {
+        fields = new Field[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            fields[i] = new Field(columns[i], i % 2 == 0 ? Type.INT : Type.VARCHAR);
+        }
+    }
+
+    @Benchmark
+    public String createTableSql ( ) {
+        return Field.createTableSql("user", fields);
+    }
+
+    @Benchmark
+    public String setColumns ( ) {
+        return SqlClause.list(columns);
+    }
+
+    @Benchmark
+    public String setValues ( ) {
+        return SqlClause.list(values);
+    }
+
+    @Benchmark
+    public String updateSql ( ) {
+        return SqlClause.assignments(columns, values);
+    }
+
+    @Benchmark
+    public String updateTemplate ( ) {
+        return SqlClause.assignments(columns, null);
+    }
+
+    @Benchmark
+    public String fieldToString ( ) {
+        return fields[1].toString();
+    }
+
+    @Benchmark
+    public String typeToString ( ) {
+        return Type.VARCHAR.toString();
+    }
+}
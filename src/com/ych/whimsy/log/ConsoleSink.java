@@ -0,0 +1,60 @@
+package src.com.ych.whimsy.log;
+
+import java.io.PrintStream;
+
+/**
+ * 输出到控制台,一批日志拼接后只调用一次print,只获取一次PrintStream的锁
+ */
+public class ConsoleSink implements LogSink {
+
+    /**
+     * 输出流
+     */
+    private final PrintStream out;
+
+    /**
+     * 当前这一批日志
+     */
+    private final StringBuilder batch = new StringBuilder();
+
+    /**
+     * 输出到System.out
+     */
+    public ConsoleSink ( ) {
+        this(System.out);
+    }
+
+    /**
+     * 输出到指定的输出流
+     *
+     * @param out 输出流
+     */
+    public ConsoleSink (PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write (String message) {
+        batch.append(message);
+    }
+
+    @Override
+    public void flush ( ) {
+        if (batch.length() > 0) {
+            out.print(batch);
+            out.flush();
+            batch.setLength(0);
+        }
+    }
+
+    @Override
+    public boolean isTerminal ( ) {
+        // 标准输出被重定向到文件或者管道时System.console ( )返回null
+        return (out == System.out || out == System.err) && System.console() != null;
+    }
+
+    @Override
+    public void close ( ) {
+        flush();
+    }
+}
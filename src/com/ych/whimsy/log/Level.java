@@ -0,0 +1,49 @@
+package src.com.ych.whimsy.log;
+
+/**
+ * 日志级别,从低到高排列,低于Logger阈值的日志不会被格式化和输出
+ */
+public enum Level {
+    /**
+     * 最详细的跟踪信息
+     */
+    TRACE("\033[37m"),
+    /**
+     * 调试信息
+     */
+    DEBUG("\033[35m"),
+    /**
+     * 一般信息
+     */
+    INFO("\033[34m"),
+    /**
+     * 警告
+     */
+    WARN("\033[33m"),
+    /**
+     * 错误
+     */
+    ERROR("\033[31m"),
+    /**
+     * 作为阈值时关闭所有日志
+     */
+    OFF("");
+
+    /**
+     * 输出到终端时使用的ANSI颜色
+     */
+    private final String color;
+
+    Level (String color) {
+        this.color = color;
+    }
+
+    /**
+     * 获取输出到终端时使用的ANSI颜色
+     *
+     * @return 返回ANSI颜色转义序列
+     */
+    String getColor ( ) {
+        return color;
+    }
+}
@@ -1,13 +1,319 @@
 package src.com.ych.whimsy.log;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日志输出<br/>
+ * 1.日志先放进LogAppender的无锁环形缓冲区,由后台线程批量写出,写日志的线程不会竞争System.out的锁;<br/>
+ * 默认输出到控制台,缓冲区写满时等待,可以通过setFile(...)改为输出到内存映射文件.<br/>
+ * 2.通过getLogger(...)获取按名称区分的Logger,每个Logger的阈值取名称前缀最长的那条配置,都没有时使用根阈值.<br/>
+ * 3.只有输出目标是终端时才加上ANSI颜色.
+ */
 public class Log {
+
+    /**
+     * 换行符
+     */
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * 恢复默认颜色
+     */
+    private static final String RESET = "\033[m";
+
+    /**
+     * 默认的缓冲区容量
+     */
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * 关闭追加器时等待剩余日志写出的最长时间,单位毫秒
+     */
+    private static final long CLOSE_TIMEOUT = 5_000L;
+
+    /**
+     * 格式化日志时复用的StringBuilder,超过该长度后不再复用
+     */
+    private static final int MAX_REUSED_BUILDER = 4096;
+
+    /**
+     * 当前使用的追加器
+     */
+    private static volatile LogAppender appender;
+
+    /**
+     * 当前追加器的输出目标是否是终端
+     */
+    private static volatile boolean ansi;
+
+    /**
+     * 根阈值,没有匹配的配置时使用
+     */
+    private static volatile Level rootLevel = Level.INFO;
+
+    /**
+     * 按名称前缀配置的阈值
+     */
+    private static final Map<String, Level> thresholds = new ConcurrentHashMap<>();
+
+    /**
+     * 已经创建的Logger
+     */
+    private static final ConcurrentHashMap<String, Logger> loggers = new ConcurrentHashMap<>();
+
+    /**
+     * 每个线程格式化日志时复用的StringBuilder
+     */
+    private static final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(( ) -> new StringBuilder(256));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(( ) -> {
+            LogAppender current = appender;
+            if (current != null) {
+                current.close(CLOSE_TIMEOUT);
+            }
+        }, "whimsy-log-shutdown"));
+    }
+
+    /**
+     * 获取以类的全限定名命名的Logger
+     *
+     * @param type 类
+     * @return 返回Logger
+     */
+    public static Logger getLogger (Class<?> type) {
+        return getLogger(type.getName());
+    }
+
+    /**
+     * 获取指定名称的Logger,同名的Logger只创建一次
+     *
+     * @param name 名称
+     * @return 返回Logger
+     */
+    public static Logger getLogger (String name) {
+        Logger logger = loggers.get(name);
+        if (logger == null) {
+            synchronized (Log.class) {
+                logger = loggers.computeIfAbsent(name, n -> new Logger(n, resolve(n)));
+            }
+        }
+        return logger;
+    }
+
+    /**
+     * 设置根阈值
+     *
+     * @param level 阈值
+     */
+    public static synchronized void setLevel (Level level) {
+        if (level == null) {
+            throw new NullPointerException("日志级别不能为空");
+        }
+        rootLevel = level;
+        refresh();
+    }
+
+    /**
+     * 设置名称为name或者以 name. 开头的Logger的阈值
+     *
+     * @param name  名称或者包名
+     * @param level 阈值,为null时删除该配置
+     */
+    public static synchronized void setLevel (String name, Level level) {
+        if (level == null) {
+            thresholds.remove(name);
+        } else {
+            thresholds.put(name, level);
+        }
+        refresh();
+    }
+
+    /**
+     * 替换当前使用的追加器,原来的追加器写出剩余日志后关闭
+     *
+     * @param logAppender 新的追加器
+     */
+    public static synchronized void setAppender (LogAppender logAppender) {
+        if (logAppender == null) {
+            throw new NullPointerException("日志追加器不能为空");
+        }
+        LogAppender old = appender;
+        ansi = logAppender.isTerminal();
+        appender = logAppender;
+        if (old != null) {
+            old.close(CLOSE_TIMEOUT);
+        }
+    }
+
+    /**
+     * 改为输出到按照大小滚动的内存映射文件
+     *
+     * @param path        日志文件路径
+     * @param maxFileSize 单个日志文件的最大字节数
+     * @param maxFiles    最多保留的旧文件个数
+     * @param policy      缓冲区写满时的处理方式
+     * @return 返回false日志文件打开失败, 继续使用原来的追加器
+     */
+    public static boolean setFile (String path, int maxFileSize, int maxFiles, OverflowPolicy policy) {
+        try {
+            setAppender(new LogAppender(new MappedFileSink(Paths.get(path), maxFileSize, maxFiles), DEFAULT_CAPACITY, policy));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("--> Log--> setFile (String path, int maxFileSize, int maxFiles, OverflowPolicy policy): 日志文件 \"" + path + "\" 打开失败: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 获取当前使用的追加器,第一次调用时创建输出到控制台的追加器
+     *
+     * @return 返回追加器
+     */
+    public static LogAppender getAppender ( ) {
+        LogAppender current = appender;
+        if (current == null) {
+            synchronized (Log.class) {
+                if (appender == null) {
+                    LogAppender console = new LogAppender(new ConsoleSink(), DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+                    ansi = console.isTerminal();
+                    appender = console;
+                }
+                current = appender;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 等待已经写入的日志全部输出
+     *
+     * @param timeout 最长等待时间,单位毫秒
+     * @return 返回true全部输出了
+     */
+    public static boolean flush (long timeout) {
+        return getAppender().flush(timeout);
+    }
+
+    /**
+     * 格式化日志并交给追加器,由Logger在判断级别之后调用
+     *
+     * @param logger    Logger
+     * @param level     日志级别
+     * @param pattern   日志内容或者日志模板
+     * @param arg1      第一个参数
+     * @param arg2      第二个参数
+     * @param arg3      第三个参数
+     * @param argCount  参数个数,为0时pattern原样输出
+     * @param throwable 异常,可以为null
+     */
+    static void publish (Logger logger, Level level, String pattern, Object arg1, Object arg2, Object arg3,
+                         int argCount, Throwable throwable) {
+        LogAppender current = getAppender();
+        StringBuilder builder = builders.get();
+        builder.setLength(0);
+        boolean color = ansi;
+        if (color) {
+            builder.append(level.getColor());
+        }
+        builder.append(level.name()).append(' ').append(logger.getShortName()).append(' ');
+        if (argCount == 0) {
+            builder.append(pattern);
+        } else {
+            format(builder, pattern, arg1, arg2, arg3, argCount);
+        }
+        if (throwable != null) {
+            builder.append(": ").append(throwable);
+        }
+        if (color) {
+            builder.append(RESET);
+        }
+        builder.append(LINE_SEPARATOR);
+        String message = builder.toString();
+        if (builder.capacity() > MAX_REUSED_BUILDER) {
+            builders.remove();
+        }
+        current.append(message);
+    }
+
+    /**
+     * 依次用参数替换日志模板中的 {} ,多余的 {} 原样保留
+     *
+     * @param builder  输出
+     * @param pattern  日志模板
+     * @param arg1     第一个参数
+     * @param arg2     第二个参数
+     * @param arg3     第三个参数
+     * @param argCount 参数个数
+     */
+    private static void format (StringBuilder builder, String pattern, Object arg1, Object arg2, Object arg3, int argCount) {
+        int from = 0;
+        for (int i = 0; i < argCount; i++) {
+            int index = pattern.indexOf("{}", from);
+            if (index < 0) {
+                break;
+            }
+            builder.append(pattern, from, index).append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+            from = index + 2;
+        }
+        builder.append(pattern, from, pattern.length());
+    }
+
+    /**
+     * 在根阈值和按前缀配置的阈值中找到对Logger生效的那个
+     *
+     * @param name Logger的名称
+     * @return 返回生效的阈值
+     */
+    private static Level resolve (String name) {
+        Level level = rootLevel;
+        int matched = -1;
+        for (Map.Entry<String, Level> entry : thresholds.entrySet()) {
+            String prefix = entry.getKey();
+            if (prefix.length() > matched && (name.equals(prefix) || name.startsWith(prefix + "."))) {
+                level = entry.getValue();
+                matched = prefix.length();
+            }
+        }
+        return level;
+    }
+
+    /**
+     * 配置改变后重新计算所有Logger的阈值
+     */
+    private static void refresh ( ) {
+        for (Logger logger : loggers.values()) {
+            logger.setThreshold(resolve(logger.getName()));
+        }
+    }
+
+    /**
+     * 输出带颜色的内容,输出目标不是终端时不加颜色
+     *
+     * @param color   ANSI颜色
+     * @param out     输出内容
+     * @param reset   恢复颜色的转义序列
+     * @param newLine 是否换行
+     */
+    private static void out (String color, Object out, String reset, boolean newLine) {
+        LogAppender current = getAppender();
+        String text = String.valueOf(out);
+        if (ansi) {
+            text = color + text + reset;
+        }
+        current.append(newLine ? text + LINE_SEPARATOR : text);
+    }
+
     /**
      * 红色输出
      *
      * @param out 输出内容
      */
     public static void outRedGreenLn (Object out) {
-        System.out.println("\033[31;46m" + out + "\033[m");
+        out("\033[31;46m", out, "\033[m", true);
     }
 
     /**
@@ -16,7 +322,7 @@ public class Log {
      * @param out 输出内容
      */
     public static void outRedLn (Object out) {
-        System.out.println("\033[31m" + out + "\033[30m");
+        out("\033[31m", out, "\033[30m", true);
     }
 
     /**
@@ -25,7 +331,7 @@ public class Log {
      * @param out 输出内容
      */
     public static void outBlueLn (Object out) {
-        System.out.println("\033[34m" + out + "\033[30m");
+        out("\033[34m", out, "\033[30m", true);
     }
 
     /**
@@ -34,7 +340,7 @@ public class Log {
      * @param out 输出内容
      */
     public static void outRedGreen (Object out) {
-        System.out.print("\033[31;46m" + out + "\033[30m");
+        out("\033[31;46m", out, "\033[30m", false);
     }
 
     /**
@@ -43,7 +349,7 @@ public class Log {
      * @param out 输出内容
      */
     public static void outRed (Object out) {
-        System.out.print("\033[31m" + out + "\033[30m");
+        out("\033[31m", out, "\033[30m", false);
     }
 
     /**
@@ -52,7 +358,7 @@ public class Log {
      * @param out 输出内容
      */
     public static void outBlue (Object out) {
-        System.out.print("\033[34m" + out + "\033[30m");
+        out("\033[34m", out, "\033[30m", false);
     }
 
     /**
@@ -61,7 +367,7 @@ public class Log {
      * @param out 输出内容
      */
     public static void outPurpleLn (Object out) {
-        System.out.println("\033[35m" + out + "\033[30m");
+        out("\033[35m", out, "\033[30m", true);
 
     }
 
@@ -71,7 +377,7 @@ public class Log {
      * @param out 输出内容
      */
     public static void outPurple (Object out) {
-        System.out.print("\033[35m" + out + "\033[30m");
+        out("\033[35m", out, "\033[30m", false);
 
     }
 }
@@ -0,0 +1,307 @@
+package src.com.ych.whimsy.log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步日志追加器,写日志的线程只把日志放进无锁的环形缓冲区,由一个后台线程批量写出到LogSink<br/>
+ * 1.环形缓冲区的每个槽位有一个序号,写日志的线程通过CAS抢占槽位,互相之间不加锁.<br/>
+ * 2.后台线程每次取出所有已经写好的日志,逐条交给LogSink后只flush一次.<br/>
+ * 3.缓冲区写满时按照OverflowPolicy丢弃日志或者等待.
+ */
+public class LogAppender {
+
+    /**
+     * 每批最多写出的日志条数,避免一直不flush
+     */
+    private static final int MAX_BATCH = 1024;
+
+    /**
+     * 后台线程没有日志可写时最长的休眠时间,单位纳秒
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * 日志槽位
+     */
+    private final String[] buffer;
+
+    /**
+     * 每个槽位的序号:等于写入位置时可以写,等于写入位置+1时可以读
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * 槽位下标掩码,缓冲区长度是2的幂
+     */
+    private final int mask;
+
+    /**
+     * 下一个写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置,只有后台线程访问
+     */
+    private long head;
+
+    /**
+     * 丢弃的日志条数
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * 已经写出的日志条数
+     */
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * 日志输出目标
+     */
+    private final LogSink sink;
+
+    /**
+     * 缓冲区写满时的处理方式
+     */
+    private final OverflowPolicy policy;
+
+    /**
+     * 后台写出线程
+     */
+    private final Thread writer;
+
+    /**
+     * 后台线程是否正在休眠,写日志的线程发现它在休眠时唤醒它
+     */
+    private volatile boolean parked;
+
+    /**
+     * 是否已经关闭
+     */
+    private volatile boolean closed;
+
+    /**
+     * 创建异步日志追加器并启动后台线程
+     *
+     * @param sink     日志输出目标
+     * @param capacity 缓冲区能容纳的日志条数,会向上取整到2的幂
+     * @param policy   缓冲区写满时的处理方式
+     */
+    public LogAppender (LogSink sink, int capacity, OverflowPolicy policy) {
+        if (sink == null || policy == null) {
+            throw new NullPointerException("日志输出目标和写满时的处理方式不能为空");
+        }
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("缓冲区容量不合法: capacity = " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new String[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.sink = sink;
+        this.policy = policy;
+        this.writer = new Thread(this::drainLoop, "whimsy-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 追加一条日志
+     *
+     * @param message 日志内容,已经包含换行符
+     * @return 返回false日志被丢弃了, 或者追加器已经关闭
+     */
+    public boolean append (String message) {
+        if (closed) {
+            return false;
+        }
+        while (!offer(message)) {
+            if (policy == OverflowPolicy.DROP || closed) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(1_000L);
+        }
+        if (parked) {
+            wakeWriter();
+        }
+        return true;
+    }
+
+    /**
+     * 等待当前已经追加的日志全部写出
+     *
+     * @param timeout 最长等待时间,单位毫秒
+     * @return 返回true全部写出了
+     */
+    public boolean flush (long timeout) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (written.get() + dropped.get() < target && writer.isAlive()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(100_000L);
+        }
+        return true;
+    }
+
+    /**
+     * 关闭追加器,写出缓冲区中剩余的日志后关闭LogSink
+     *
+     * @param timeout 等待后台线程结束的最长时间,单位毫秒
+     */
+    public void close (long timeout) {
+        closed = true;
+        wakeWriter();
+        try {
+            writer.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 获取丢弃的日志条数
+     *
+     * @return 返回丢弃的日志条数
+     */
+    public long getDropped ( ) {
+        return dropped.get();
+    }
+
+    /**
+     * 日志输出目标是否是终端
+     *
+     * @return 返回true是终端
+     */
+    public boolean isTerminal ( ) {
+        return sink.isTerminal();
+    }
+
+    /**
+     * 获取缓冲区写满时的处理方式
+     *
+     * @return 返回处理方式
+     */
+    public OverflowPolicy getPolicy ( ) {
+        return policy;
+    }
+
+    /**
+     * 尝试把日志放进缓冲区
+     *
+     * @param message 日志内容
+     * @return 返回false缓冲区已满
+     */
+    private boolean offer (String message) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // 该槽位还没有被后台线程读走,缓冲区已满
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        buffer[index] = message;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * 取出下一条已经写好的日志,只有后台线程调用
+     *
+     * @return 返回日志, 没有时返回null
+     */
+    private String poll ( ) {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        String message = buffer[index];
+        buffer[index] = null;
+        // 槽位的序号推进一圈,写日志的线程下一圈才能再用
+        sequences.lazySet(index, head + buffer.length);
+        head++;
+        return message;
+    }
+
+    /**
+     * 后台线程的主循环
+     */
+    private void drainLoop ( ) {
+        while (true) {
+            int count = drain();
+            if (count == 0) {
+                if (closed && tail.get() == head) {
+                    break;
+                }
+                parked = true;
+                // 休眠前再检查一次,避免错过刚写入的日志
+                if (sequences.get((int) head & mask) != head + 1 && !closed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+        try {
+            sink.close();
+        } catch (IOException e) {
+            System.err.println("--> LogAppender--> drainLoop ( ): 关闭日志输出目标失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 写出一批日志
+     *
+     * @return 返回写出的条数
+     */
+    private int drain ( ) {
+        int count = 0;
+        int failed = 0;
+        String message;
+        while (count < MAX_BATCH && (message = poll()) != null) {
+            count++;
+            try {
+                sink.write(message);
+            } catch (IOException e) {
+                failed++;
+            }
+        }
+        if (count > 0) {
+            try {
+                sink.flush();
+            } catch (IOException e) {
+                System.err.println("--> LogAppender--> drain ( ): 日志写出失败: " + e.getMessage());
+            }
+            written.addAndGet(count - failed);
+            dropped.addAndGet(failed);
+        }
+        return count;
+    }
+
+    /**
+     * 唤醒后台线程
+     */
+    private void wakeWriter ( ) {
+        LockSupport.unpark(writer);
+    }
+}
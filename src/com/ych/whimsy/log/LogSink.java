@@ -0,0 +1,40 @@
+package src.com.ych.whimsy.log;
+
+import java.io.IOException;
+
+/**
+ * 日志的输出目标,只会被LogAppender的后台线程调用,实现类不需要考虑线程安全
+ */
+public interface LogSink {
+
+    /**
+     * 写出一条日志,可以先缓存起来,flush ( )时再统一输出
+     *
+     * @param message 日志内容,已经包含换行符
+     * @throws IOException 写出失败
+     */
+    void write (String message) throws IOException;
+
+    /**
+     * 一批日志写完后调用,输出缓存的日志
+     *
+     * @throws IOException 写出失败
+     */
+    void flush ( ) throws IOException;
+
+    /**
+     * 输出目标是否是终端,只有输出到终端时才使用ANSI颜色
+     *
+     * @return 返回true是终端
+     */
+    default boolean isTerminal ( ) {
+        return false;
+    }
+
+    /**
+     * 关闭输出目标
+     *
+     * @throws IOException 关闭失败
+     */
+    void close ( ) throws IOException;
+}
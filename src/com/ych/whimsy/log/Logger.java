@@ -0,0 +1,378 @@
+package src.com.ych.whimsy.log;
+
+import java.util.function.Supplier;
+
+/**
+ * 按名称区分的日志记录器,通过Log.getLogger(...)获取<br/>
+ * 1.阈值以下的日志在调用处直接返回,不拼接字符串、不创建数组.<br/>
+ * 2.参数化的日志使用 {} 占位,只有在输出时才格式化;Supplier只有在输出时才调用.<br/>
+ * 3.参数是基本类型时会被自动装箱,频繁调用的地方应先判断isEnabled (Level level).
+ */
+public class Logger {
+
+    /**
+     * 完整名称,一般是类的全限定名
+     */
+    private final String name;
+
+    /**
+     * 输出时显示的简短名称
+     */
+    private final String shortName;
+
+    /**
+     * 当前生效的阈值,由Log在修改配置时更新
+     */
+    private volatile Level threshold;
+
+    /**
+     * 创建日志记录器
+     *
+     * @param name      完整名称
+     * @param threshold 阈值
+     */
+    Logger (String name, Level threshold) {
+        this.name = name;
+        this.shortName = name.substring(name.lastIndexOf('.') + 1);
+        this.threshold = threshold;
+    }
+
+    /**
+     * 获取完整名称
+     *
+     * @return 返回完整名称
+     */
+    public String getName ( ) {
+        return name;
+    }
+
+    /**
+     * 获取简短名称
+     *
+     * @return 返回最后一个 . 之后的名称
+     */
+    String getShortName ( ) {
+        return shortName;
+    }
+
+    /**
+     * 获取当前生效的阈值
+     *
+     * @return 返回阈值
+     */
+    public Level getThreshold ( ) {
+        return threshold;
+    }
+
+    /**
+     * 设置阈值
+     *
+     * @param threshold 阈值
+     */
+    void setThreshold (Level threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * 判断指定级别的日志是否会输出
+     *
+     * @param level 日志级别
+     * @return 返回true会输出
+     */
+    public boolean isEnabled (Level level) {
+        return level != Level.OFF && level.ordinal() >= threshold.ordinal();
+    }
+
+    /**
+     * 输出日志
+     *
+     * @param level   日志级别
+     * @param message 日志内容
+     */
+    public void log (Level level, String message) {
+        if (isEnabled(level)) {
+            Log.publish(this, level, message, null, null, null, 0, null);
+        }
+    }
+
+    /**
+     * 输出日志,只有在输出时才调用Supplier
+     *
+     * @param level    日志级别
+     * @param supplier 日志内容
+     */
+    public void log (Level level, Supplier<String> supplier) {
+        if (isEnabled(level)) {
+            Log.publish(this, level, supplier.get(), null, null, null, 0, null);
+        }
+    }
+
+    /**
+     * 输出带一个参数的日志
+     *
+     * @param level   日志级别
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg     参数
+     */
+    public void log (Level level, String pattern, Object arg) {
+        if (isEnabled(level)) {
+            Log.publish(this, level, pattern, arg, null, null, 1, null);
+        }
+    }
+
+    /**
+     * 输出带两个参数的日志
+     *
+     * @param level   日志级别
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     */
+    public void log (Level level, String pattern, Object arg1, Object arg2) {
+        if (isEnabled(level)) {
+            Log.publish(this, level, pattern, arg1, arg2, null, 2, null);
+        }
+    }
+
+    /**
+     * 输出带三个参数的日志
+     *
+     * @param level   日志级别
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     * @param arg3    第三个参数
+     */
+    public void log (Level level, String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(level)) {
+            Log.publish(this, level, pattern, arg1, arg2, arg3, 3, null);
+        }
+    }
+
+    /**
+     * 输出日志和异常信息
+     *
+     * @param level     日志级别
+     * @param message   日志内容
+     * @param throwable 异常
+     */
+    public void log (Level level, String message, Throwable throwable) {
+        if (isEnabled(level)) {
+            Log.publish(this, level, message, null, null, null, 0, throwable);
+        }
+    }
+
+    /**
+     * 输出ERROR级别的日志
+     *
+     * @param message 日志内容
+     */
+    public void error (String message) {
+        log(Level.ERROR, message);
+    }
+
+    /**
+     * 输出ERROR级别的日志,只有在输出时才调用Supplier
+     *
+     * @param supplier 日志内容
+     */
+    public void error (Supplier<String> supplier) {
+        log(Level.ERROR, supplier);
+    }
+
+    /**
+     * 输出ERROR级别带一个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg     参数
+     */
+    public void error (String pattern, Object arg) {
+        log(Level.ERROR, pattern, arg);
+    }
+
+    /**
+     * 输出ERROR级别带两个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     */
+    public void error (String pattern, Object arg1, Object arg2) {
+        log(Level.ERROR, pattern, arg1, arg2);
+    }
+
+    /**
+     * 输出ERROR级别带三个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     * @param arg3    第三个参数
+     */
+    public void error (String pattern, Object arg1, Object arg2, Object arg3) {
+        log(Level.ERROR, pattern, arg1, arg2, arg3);
+    }
+
+    /**
+     * 输出ERROR级别的日志和异常信息,日志内容中的 {} 不会被替换
+     *
+     * @param message   日志内容
+     * @param throwable 异常
+     */
+    public void error (String message, Throwable throwable) {
+        log(Level.ERROR, message, throwable);
+    }
+
+    /**
+     * 输出WARN级别的日志
+     *
+     * @param message 日志内容
+     */
+    public void warn (String message) {
+        log(Level.WARN, message);
+    }
+
+    /**
+     * 输出WARN级别的日志,只有在输出时才调用Supplier
+     *
+     * @param supplier 日志内容
+     */
+    public void warn (Supplier<String> supplier) {
+        log(Level.WARN, supplier);
+    }
+
+    /**
+     * 输出WARN级别带一个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg     参数
+     */
+    public void warn (String pattern, Object arg) {
+        log(Level.WARN, pattern, arg);
+    }
+
+    /**
+     * 输出WARN级别带两个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     */
+    public void warn (String pattern, Object arg1, Object arg2) {
+        log(Level.WARN, pattern, arg1, arg2);
+    }
+
+    /**
+     * 输出WARN级别带三个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     * @param arg3    第三个参数
+     */
+    public void warn (String pattern, Object arg1, Object arg2, Object arg3) {
+        log(Level.WARN, pattern, arg1, arg2, arg3);
+    }
+
+    /**
+     * 输出INFO级别的日志
+     *
+     * @param message 日志内容
+     */
+    public void info (String message) {
+        log(Level.INFO, message);
+    }
+
+    /**
+     * 输出INFO级别的日志,只有在输出时才调用Supplier
+     *
+     * @param supplier 日志内容
+     */
+    public void info (Supplier<String> supplier) {
+        log(Level.INFO, supplier);
+    }
+
+    /**
+     * 输出INFO级别带一个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg     参数
+     */
+    public void info (String pattern, Object arg) {
+        log(Level.INFO, pattern, arg);
+    }
+
+    /**
+     * 输出INFO级别带两个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     */
+    public void info (String pattern, Object arg1, Object arg2) {
+        log(Level.INFO, pattern, arg1, arg2);
+    }
+
+    /**
+     * 输出INFO级别带三个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     * @param arg3    第三个参数
+     */
+    public void info (String pattern, Object arg1, Object arg2, Object arg3) {
+        log(Level.INFO, pattern, arg1, arg2, arg3);
+    }
+
+    /**
+     * 输出DEBUG级别的日志
+     *
+     * @param message 日志内容
+     */
+    public void debug (String message) {
+        log(Level.DEBUG, message);
+    }
+
+    /**
+     * 输出DEBUG级别的日志,只有在输出时才调用Supplier
+     *
+     * @param supplier 日志内容
+     */
+    public void debug (Supplier<String> supplier) {
+        log(Level.DEBUG, supplier);
+    }
+
+    /**
+     * 输出DEBUG级别带一个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg     参数
+     */
+    public void debug (String pattern, Object arg) {
+        log(Level.DEBUG, pattern, arg);
+    }
+
+    /**
+     * 输出DEBUG级别带两个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     */
+    public void debug (String pattern, Object arg1, Object arg2) {
+        log(Level.DEBUG, pattern, arg1, arg2);
+    }
+
+    /**
+     * 输出DEBUG级别带三个参数的日志
+     *
+     * @param pattern 日志模板,参数使用 {} 占位
+     * @param arg1    第一个参数
+     * @param arg2    第二个参数
+     * @param arg3    第三个参数
+     */
+    public void debug (String pattern, Object arg1, Object arg2, Object arg3) {
+        log(Level.DEBUG, pattern, arg1, arg2, arg3);
+    }
+}
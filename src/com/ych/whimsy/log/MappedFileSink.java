@@ -0,0 +1,150 @@
+package src.com.ych.whimsy.log;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 输出到内存映射文件,按照文件大小滚动<br/>
+ * 1.整个日志文件一次映射到内存,写日志只是内存拷贝,由操作系统负责写回磁盘.<br/>
+ * 2.文件写满后截断到实际长度,依次重命名为 name.1、name.2 ... 最多保留maxFiles个旧文件.<br/>
+ * 3.进程异常退出时当前文件末尾会留下未写入的0字节,正常关闭时会截断.
+ */
+public class MappedFileSink implements LogSink {
+
+    /**
+     * 日志文件
+     */
+    private final Path file;
+
+    /**
+     * 单个日志文件的最大字节数
+     */
+    private final int maxFileSize;
+
+    /**
+     * 最多保留的旧文件个数
+     */
+    private final int maxFiles;
+
+    /**
+     * 当前日志文件的通道
+     */
+    private FileChannel channel;
+
+    /**
+     * 当前日志文件的内存映射
+     */
+    private MappedByteBuffer mapped;
+
+    /**
+     * 创建输出到内存映射文件的输出目标,文件已经存在时接着写
+     *
+     * @param file        日志文件
+     * @param maxFileSize 单个日志文件的最大字节数
+     * @param maxFiles    最多保留的旧文件个数,为0时写满直接删除
+     * @throws IOException 打开文件失败
+     */
+    public MappedFileSink (Path file, int maxFileSize, int maxFiles) throws IOException {
+        if (maxFileSize < 1024 || maxFiles < 0) {
+            throw new IllegalArgumentException("日志文件大小不能小于1024字节,旧文件个数不能小于0");
+        }
+        this.file = file;
+        this.maxFileSize = maxFileSize;
+        this.maxFiles = maxFiles;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    @Override
+    public void write (String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > mapped.remaining()) {
+            rotate();
+        }
+        // 超过单个文件大小的日志只写入能放下的部分
+        mapped.put(bytes, 0, Math.min(bytes.length, mapped.remaining()));
+    }
+
+    @Override
+    public void flush ( ) {
+        // 内存映射的内容由操作系统写回磁盘
+    }
+
+    @Override
+    public void close ( ) throws IOException {
+        if (channel != null) {
+            mapped.force();
+            channel.truncate(mapped.position());
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * 打开日志文件并映射到内存,已经写满时先滚动
+     *
+     * @throws IOException 打开文件失败
+     */
+    private void open ( ) throws IOException {
+        long size = Files.exists(file) ? Files.size(file) : 0;
+        if (size >= maxFileSize) {
+            shift();
+            size = 0;
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, maxFileSize);
+        mapped.position((int) size);
+    }
+
+    /**
+     * 关闭当前文件,重命名旧文件后打开新文件
+     *
+     * @throws IOException 滚动失败
+     */
+    private void rotate ( ) throws IOException {
+        close();
+        shift();
+        open();
+    }
+
+    /**
+     * 把 name.i 重命名为 name.(i + 1),当前文件重命名为 name.1,超出个数的旧文件删除
+     *
+     * @throws IOException 重命名失败
+     */
+    private void shift ( ) throws IOException {
+        if (maxFiles == 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(backup(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path backup = backup(i);
+            if (Files.exists(backup)) {
+                Files.move(backup, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (Files.exists(file)) {
+            Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 获取第i个旧文件
+     *
+     * @param i 序号,从1开始
+     * @return 返回旧文件路径
+     */
+    private Path backup (int i) {
+        return file.resolveSibling(file.getFileName() + "." + i);
+    }
+}
@@ -0,0 +1,15 @@
+package src.com.ych.whimsy.log;
+
+/**
+ * 日志环形缓冲区写满时的处理方式
+ */
+public enum OverflowPolicy {
+    /**
+     * 丢弃新的日志,只记录丢弃的条数,写日志的线程不会等待
+     */
+    DROP,
+    /**
+     * 等待后台线程写出日志腾出空间,日志不会丢失
+     */
+    BLOCK
+}
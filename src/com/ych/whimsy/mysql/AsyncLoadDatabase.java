@@ -0,0 +1,260 @@
+package src.com.ych.whimsy.mysql;
+
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+import src.com.ych.whimsy.mysql.pool.ConnectionPool;
+import src.com.ych.whimsy.mysql.temporary.InsertInto;
+import src.com.ych.whimsy.mysql.temporary.Property;
+
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * LoadDatabase的异步门面,每个操作都在专用的线程池中执行并返回CompletableFuture<br/>
+ * 1.默认使用有界的平台线程池,线程数等于连接池的最大连接数,任务队列满时返回的CompletableFuture以RejectedExecutionException结束.<br/>
+ * 2.运行在JDK21及以上版本时可以选择使用虚拟线程,并发度由连接池的借出等待来限制.<br/>
+ * 3.多个互不依赖的查询可以同时提交,再通过CompletableFuture组合结果,不占用调用方的线程.
+ */
+public class AsyncLoadDatabase {
+
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(AsyncLoadDatabase.class);
+
+    /**
+     * 每个工作线程对应的任务队列长度
+     */
+    private static final int QUEUE_PER_THREAD = 64;
+
+    /**
+     * 被包装的LoadDatabase对象
+     */
+    private final LoadDatabase loadDatabase;
+
+    /**
+     * 执行数据库操作的线程池
+     */
+    private final ExecutorService executor;
+
+    /**
+     * 是否使用虚拟线程
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * 使用有界的平台线程池创建异步门面
+     *
+     * @param loadDatabase 已经连接数据库的LoadDatabase对象
+     * @throws NullPointerException LoadDatabase对象为空了
+     */
+    public AsyncLoadDatabase (LoadDatabase loadDatabase) throws NullPointerException {
+        this(loadDatabase, false);
+    }
+
+    /**
+     * 创建异步门面
+     *
+     * @param loadDatabase   已经连接数据库的LoadDatabase对象
+     * @param virtualThreads 为true时在JDK21及以上版本使用虚拟线程,低版本JDK使用有界的平台线程池
+     * @throws NullPointerException LoadDatabase对象为空了
+     */
+    public AsyncLoadDatabase (LoadDatabase loadDatabase, boolean virtualThreads) throws NullPointerException {
+        if (Objects.isNull(loadDatabase)) {
+            throw new NullPointerException("数据库对象为空");
+        }
+        this.loadDatabase = loadDatabase;
+        ExecutorService virtual = virtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = !Objects.isNull(virtual);
+        this.executor = this.virtualThreads ? virtual : newBoundedExecutor(threadCount(loadDatabase));
+    }
+
+    /**
+     * 异步执行DDL语句或者DML语句
+     *
+     * @param sql      要执行的DDL语句或者DML语句
+     * @param ddlOrDml "ddl"或者"dml"
+     * @return 返回执行结果, false执行失败, true执行成功
+     */
+    public CompletableFuture<Boolean> executeUpdate (String sql, String ddlOrDml) {
+        return submit(db -> db.executeUpdate(sql, ddlOrDml));
+    }
+
+    /**
+     * 在指定的数据库上异步执行DDL语句或者DML语句
+     *
+     * @param dbName   数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql      要执行的DDL语句或者DML语句
+     * @param ddlOrDml "ddl"或者"dml"
+     * @return 返回执行结果, false执行失败, true执行成功
+     */
+    public CompletableFuture<Boolean> executeUpdate (String dbName, String sql, String ddlOrDml) {
+        return submit(db -> db.executeUpdate(dbName, sql, ddlOrDml));
+    }
+
+    /**
+     * 异步创建表
+     *
+     * @param tableName 表名
+     * @param fields    列定义
+     * @return 返回执行结果, false创建失败, true创建成功
+     */
+    public CompletableFuture<Boolean> createTable (String tableName, Field... fields) {
+        return submit(db -> db.createTable(tableName, fields));
+    }
+
+    /**
+     * 异步查询指定表的所有数据
+     *
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @return 返回已经全部读入内存的结果集, 查询失败时结果为null
+     */
+    public CompletableFuture<ResultSet> inquireResultSet (String databaseName, String tableName) {
+        return submit(db -> db.inquireResultSet(databaseName, tableName));
+    }
+
+    /**
+     * 异步查询指定表的所有数据并按列名转换成指定类的对象
+     *
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @param type         目标类,必须有无参构造器
+     * @param <T>          目标类的类型
+     * @return 返回转换结果, 查询失败时结果为null
+     */
+    public <T> CompletableFuture<List<T>> inquireList (String databaseName, String tableName, Class<T> type) {
+        return submit(db -> db.inquireList(databaseName, tableName, type));
+    }
+
+    /**
+     * 异步逐行遍历指定表的数据,回调在线程池的线程中执行
+     *
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @param consumer     每一行的回调
+     * @return 返回遍历的行数, 查询失败时结果为-1
+     */
+    public CompletableFuture<Long> forEachRow (String databaseName, String tableName, RowConsumer consumer) {
+        return submit(db -> db.forEachRow(databaseName, tableName, consumer));
+    }
+
+    /**
+     * 异步提交InsertInto、Update或者Delete对象,提交完成前不能再修改该对象
+     *
+     * @param property InsertInto、Update或者Delete对象
+     * @return 返回执行结果, false提交失败, true提交成功
+     */
+    public CompletableFuture<Boolean> commit (Property property) {
+        return submit(db -> property.commit());
+    }
+
+    /**
+     * 异步批量提交InsertInto对象暂存的数据,提交完成前不能再修改该对象
+     *
+     * @param insertInto InsertInto对象
+     * @return 返回每一批插入的行数
+     */
+    public CompletableFuture<int[]> commitBatch (InsertInto insertInto) {
+        return submit(db -> insertInto.commitBatch());
+    }
+
+    /**
+     * 在线程池中执行任意的数据库操作
+     *
+     * @param operation 数据库操作
+     * @param <T>       操作结果的类型
+     * @return 返回操作结果, 线程池已满或者已经关闭时以RejectedExecutionException结束
+     */
+    public <T> CompletableFuture<T> submit (Function<LoadDatabase, T> operation) {
+        try {
+            return CompletableFuture.supplyAsync(() -> operation.apply(loadDatabase), executor);
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    /**
+     * 是否使用虚拟线程
+     *
+     * @return 返回true使用的是虚拟线程
+     */
+    public boolean isVirtualThreads ( ) {
+        return virtualThreads;
+    }
+
+    /**
+     * 关闭线程池,已经提交的操作会继续执行,不会关闭LoadDatabase
+     */
+    public void close ( ) {
+        executor.shutdown();
+    }
+
+    /**
+     * 关闭线程池并等待已经提交的操作执行完毕
+     *
+     * @param timeout 最长等待时间,单位毫秒
+     * @return 返回true所有操作都已执行完毕
+     * @throws InterruptedException 等待时线程被中断
+     */
+    public boolean close (long timeout) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 线程数等于连接池的最大连接数,线程再多也只能等待连接
+     *
+     * @param loadDatabase LoadDatabase对象
+     * @return 返回线程数
+     */
+    private static int threadCount (LoadDatabase loadDatabase) {
+        ConnectionPool pool = loadDatabase.getConnectionPool();
+        return Objects.isNull(pool) ? Math.max(4, Runtime.getRuntime().availableProcessors() * 2) : pool.getMaxSize();
+    }
+
+    /**
+     * 创建有界的平台线程池
+     *
+     * @param threads 线程数
+     * @return 返回线程池
+     */
+    private static ExecutorService newBoundedExecutor (int threads) {
+        AtomicInteger number = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), r -> {
+            Thread thread = new Thread(r, "whimsy-async-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 通过反射创建虚拟线程线程池,项目按照JDK8编译,不能直接引用JDK21的API
+     *
+     * @return 返回虚拟线程线程池, 当前JDK不支持虚拟线程时返回null
+     */
+    private static ExecutorService newVirtualThreadExecutor ( ) {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            LOGGER.error("--> newVirtualThreadExecutor ( ): 当前JDK不支持虚拟线程,使用平台线程池");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package src.com.ych.whimsy.mysql;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按列名给JavaBean属性赋值的映射器<br/>
+ * 1.目标类只在第一次使用时解析一次,无参构造器和每个属性的setter都转换成MethodHandle,优先使用public的setXxx方法,没有时直接给字段赋值.<br/>
+ * 2.每一种列的排列(列名和列类型)编译一次映射计划并缓存,计划中按列下标取值,取值方法按属性类型选择:<br/>
+ * int、long、double、boolean属性使用getInt、getLong、getDouble、getBoolean,不经过字符串转换;<br/>
+ * Object类型的属性按列对应的Type选择,Type.INT的列使用getLong,Type.VARCHAR的列使用getString.<br/>
+ * 3.同一个RowCursor的每一行都使用同一个计划,每一行的开销只有构造器和每个属性的setter调用.
+ *
+ * @param <T> 目标类的类型
+ */
+final class BeanRowMapper<T> implements RowMapper<T> {
+
+    /**
+     * 已经解析过的类
+     */
+    private static final ConcurrentHashMap<Class<?>, BeanRowMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+
+    /**
+     * 按int读取,用于int、short、byte属性
+     */
+    private static final int INT = 0;
+
+    /**
+     * 按long读取
+     */
+    private static final int LONG = 1;
+
+    /**
+     * 按double读取,用于double、float属性
+     */
+    private static final int DOUBLE = 2;
+
+    /**
+     * 按boolean读取
+     */
+    private static final int BOOLEAN = 3;
+
+    /**
+     * 按int读取,NULL时赋值null
+     */
+    private static final int BOXED_INT = 4;
+
+    /**
+     * 按long读取,NULL时赋值null
+     */
+    private static final int BOXED_LONG = 5;
+
+    /**
+     * 按double读取,NULL时赋值null
+     */
+    private static final int BOXED_DOUBLE = 6;
+
+    /**
+     * 按boolean读取,NULL时赋值null
+     */
+    private static final int BOXED_BOOLEAN = 7;
+
+    /**
+     * 按字符串读取
+     */
+    private static final int STRING = 8;
+
+    /**
+     * 按BigDecimal读取
+     */
+    private static final int BIG_DECIMAL = 9;
+
+    /**
+     * 按getObject读取
+     */
+    private static final int OBJECT = 10;
+
+    /**
+     * 目标类
+     */
+    private final Class<T> type;
+
+    /**
+     * 无参构造器,类型为()Object
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * 规范化后的属性名到属性的映射
+     */
+    private final Map<String, Property> properties;
+
+    /**
+     * 列的排列到映射计划的缓存,键由列名和列类型拼接而成
+     */
+    private final ConcurrentHashMap<String, Plan> plans = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次使用的计划,同一个RowCursor的后续行直接使用
+     */
+    private volatile Plan last;
+
+    private BeanRowMapper (Class<T> type) throws IllegalArgumentException {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Constructor<T> noArgs = type.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException(type.getName() + "没有可以访问的无参构造器", e);
+        }
+        this.properties = properties(lookup, type);
+    }
+
+    /**
+     * 获取指定类的映射器
+     *
+     * @param type 目标类
+     * @param <T>  目标类的类型
+     * @return 返回映射器
+     * @throws IllegalArgumentException 目标类没有无参构造器或者无法访问
+     */
+    @SuppressWarnings("unchecked")
+    static <T> BeanRowMapper<T> of (Class<T> type) throws IllegalArgumentException {
+        if (Objects.isNull(type)) {
+            throw new NullPointerException("目标类为空了");
+        }
+        BeanRowMapper<?> mapper = MAPPERS.get(type);
+        if (Objects.isNull(mapper)) {
+            mapper = MAPPERS.computeIfAbsent(type, BeanRowMapper::new);
+        }
+        return (BeanRowMapper<T>) mapper;
+    }
+
+    @Override
+    public T map (RowCursor row) throws SQLException {
+        Plan plan = last;
+        if (Objects.isNull(plan) || plan.layout != row.getColumnNames()) {
+            plan = plan(row);
+            last = plan;
+        }
+        try {
+            Object bean = constructor.invokeExact();
+            int[] columns = plan.columns;
+            int[] kinds = plan.kinds;
+            MethodHandle[] setters = plan.setters;
+            for (int i = 0; i < columns.length; i++) {
+                int column = columns[i];
+                MethodHandle setter = setters[i];
+                switch (kinds[i]) {
+                    case INT:
+                        setter.invokeExact(bean, row.getInt(column));
+                        break;
+                    case LONG:
+                        setter.invokeExact(bean, row.getLong(column));
+                        break;
+                    case DOUBLE:
+                        setter.invokeExact(bean, row.getDouble(column));
+                        break;
+                    case BOOLEAN:
+                        setter.invokeExact(bean, row.getBoolean(column));
+                        break;
+                    case BOXED_INT:
+                        int intValue = row.getInt(column);
+                        setter.invokeExact(bean, row.wasNull() ? null : (Object) intValue);
+                        break;
+                    case BOXED_LONG:
+                        long longValue = row.getLong(column);
+                        setter.invokeExact(bean, row.wasNull() ? null : (Object) longValue);
+                        break;
+                    case BOXED_DOUBLE:
+                        double doubleValue = row.getDouble(column);
+                        setter.invokeExact(bean, row.wasNull() ? null : (Object) doubleValue);
+                        break;
+                    case BOXED_BOOLEAN:
+                        boolean booleanValue = row.getBoolean(column);
+                        setter.invokeExact(bean, row.wasNull() ? null : (Object) booleanValue);
+                        break;
+                    case STRING:
+                        setter.invokeExact(bean, (Object) row.getString(column));
+                        break;
+                    case BIG_DECIMAL:
+                        setter.invokeExact(bean, (Object) row.getBigDecimal(column));
+                        break;
+                    default:
+                        setter.invokeExact(bean, row.getObject(column));
+                }
+            }
+            return type.cast(bean);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new SQLException("给" + type.getName() + "赋值时出现异常", throwable);
+        }
+    }
+
+    /**
+     * 获取当前列排列的映射计划,没有时编译一个
+     *
+     * @param row 当前行
+     * @return 返回映射计划
+     */
+    private Plan plan (RowCursor row) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 1; i <= row.getColumnCount(); i++) {
+            key.append(row.getColumnName(i)).append(':').append(row.getColumnType(i)).append(',');
+        }
+        Plan cached = plans.computeIfAbsent(key.toString(), k -> compile(row));
+        // 缓存的计划可能来自另一个RowCursor,换成当前游标的列名数组,后续行可以按引用比较
+        return cached.layout == row.getColumnNames() ? cached : new Plan(row.getColumnNames(), cached);
+    }
+
+    /**
+     * 编译当前列排列的映射计划,没有对应属性的列不读取
+     *
+     * @param row 当前行
+     * @return 返回映射计划
+     */
+    private Plan compile (RowCursor row) {
+        int count = row.getColumnCount();
+        int[] columns = new int[count];
+        int[] kinds = new int[count];
+        MethodHandle[] setters = new MethodHandle[count];
+        int size = 0;
+        for (int i = 1; i <= count; i++) {
+            Property property = properties.get(normalize(row.getColumnName(i)));
+            if (Objects.isNull(property)) {
+                continue;
+            }
+            int kind = kind(property.type, typeOf(row.getColumnType(i)));
+            columns[size] = i;
+            kinds[size] = kind;
+            setters[size] = MethodHandles.explicitCastArguments(property.setter, setterType(kind));
+            size++;
+        }
+        return new Plan(row.getColumnNames(), Arrays.copyOf(columns, size),
+                Arrays.copyOf(kinds, size), Arrays.copyOf(setters, size));
+    }
+
+    /**
+     * 根据属性类型和列类型选择取值方法
+     *
+     * @param propertyType 属性类型
+     * @param columnType   列对应的Type,不是INT或者VARCHAR时为null
+     * @return 返回取值方法
+     */
+    private static int kind (Class<?> propertyType, Type columnType) {
+        if (propertyType == int.class || propertyType == short.class || propertyType == byte.class) {
+            return INT;
+        }
+        if (propertyType == long.class) {
+            return LONG;
+        }
+        if (propertyType == double.class || propertyType == float.class) {
+            return DOUBLE;
+        }
+        if (propertyType == boolean.class) {
+            return BOOLEAN;
+        }
+        if (propertyType == Integer.class) {
+            return BOXED_INT;
+        }
+        if (propertyType == Long.class) {
+            return BOXED_LONG;
+        }
+        if (propertyType == Double.class) {
+            return BOXED_DOUBLE;
+        }
+        if (propertyType == Boolean.class) {
+            return BOXED_BOOLEAN;
+        }
+        if (propertyType == String.class) {
+            return STRING;
+        }
+        if (propertyType == BigDecimal.class) {
+            return BIG_DECIMAL;
+        }
+        if (propertyType.isAssignableFrom(Long.class) && columnType == Type.INT) {
+            return BOXED_LONG;
+        }
+        if (propertyType.isAssignableFrom(String.class) && columnType == Type.VARCHAR) {
+            return STRING;
+        }
+        return OBJECT;
+    }
+
+    /**
+     * 取值方法对应的setter类型
+     *
+     * @param kind 取值方法
+     * @return 返回setter类型
+     */
+    private static MethodType setterType (int kind) {
+        switch (kind) {
+            case INT:
+                return MethodType.methodType(void.class, Object.class, int.class);
+            case LONG:
+                return MethodType.methodType(void.class, Object.class, long.class);
+            case DOUBLE:
+                return MethodType.methodType(void.class, Object.class, double.class);
+            case BOOLEAN:
+                return MethodType.methodType(void.class, Object.class, boolean.class);
+            default:
+                return MethodType.methodType(void.class, Object.class, Object.class);
+        }
+    }
+
+    /**
+     * 把java.sql.Types转换成Type,整数类型对应INT,字符类型对应VARCHAR
+     *
+     * @param sqlType 列的SQL类型
+     * @return 返回对应的Type, 其它类型返回null
+     */
+    static Type typeOf (int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return Type.INT;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return Type.VARCHAR;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 解析目标类及其父类的所有非静态、非final字段
+     *
+     * @param lookup MethodHandle查找对象
+     * @param type   目标类
+     * @return 返回规范化后的属性名到属性的映射, 子类的字段覆盖父类的同名字段
+     */
+    private static Map<String, Property> properties (MethodHandles.Lookup lookup, Class<?> type) {
+        Map<String, Property> properties = new HashMap<>();
+        for (Class<?> c = type; !Objects.isNull(c) && c != Object.class; c = c.getSuperclass()) {
+            for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                String key = normalize(field.getName());
+                if (properties.containsKey(key)) {
+                    continue;
+                }
+                MethodHandle setter = setter(lookup, type, field);
+                if (!Objects.isNull(setter)) {
+                    properties.put(key, new Property(field.getType(), setter));
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * 获取字段的setter,优先使用public的setXxx方法
+     *
+     * @param lookup MethodHandle查找对象
+     * @param type   目标类
+     * @param field  字段
+     * @return 返回setter, 类型为(Object, 字段类型)void;无法访问时返回null
+     */
+    private static MethodHandle setter (MethodHandles.Lookup lookup, Class<?> type, java.lang.reflect.Field field) {
+        String name = field.getName();
+        String setterName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        MethodType setterType = MethodType.methodType(void.class, Object.class, field.getType());
+        try {
+            Method method = type.getMethod(setterName, field.getType());
+            return lookup.unreflect(method).asType(setterType);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // 没有public的setter,直接给字段赋值
+        }
+        try {
+            field.setAccessible(true);
+            return lookup.unreflectSetter(field).asType(setterType);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 规范化列名或者属性名,忽略大小写和下划线,user_name和userName规范化后相同
+     *
+     * @param name 列名或者属性名
+     * @return 返回规范化后的名字
+     */
+    private static String normalize (String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 目标类的一个属性
+     */
+    private static final class Property {
+
+        /**
+         * 属性类型
+         */
+        private final Class<?> type;
+
+        /**
+         * setter,类型为(Object, 属性类型)void
+         */
+        private final MethodHandle setter;
+
+        private Property (Class<?> type, MethodHandle setter) {
+            this.type = type;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * 一种列排列的映射计划,第i个被映射的列是columns[i],按kinds[i]取值后通过setters[i]赋值
+     */
+    private static final class Plan {
+
+        /**
+         * 编译该计划时RowCursor的列名数组,按引用判断后续行是否来自同一个游标
+         */
+        private final String[] layout;
+
+        /**
+         * 被映射的列的下标,从1开始
+         */
+        private final int[] columns;
+
+        /**
+         * 每一列的取值方法
+         */
+        private final int[] kinds;
+
+        /**
+         * 每一列对应属性的setter
+         */
+        private final MethodHandle[] setters;
+
+        private Plan (String[] layout, int[] columns, int[] kinds, MethodHandle[] setters) {
+            this.layout = layout;
+            this.columns = columns;
+            this.kinds = kinds;
+            this.setters = setters;
+        }
+
+        private Plan (String[] layout, Plan plan) {
+            this(layout, plan.columns, plan.kinds, plan.setters);
+        }
+    }
+}
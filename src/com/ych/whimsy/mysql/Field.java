@@ -8,7 +8,7 @@ import java.util.Objects;
  * 该对象有四个实例变量分别代表字段名,字段类型,字段值,字段默认值.<br/>
  * 我们有两种方式生成字段对象:<br/>
  * 1.我们可以通过该类三个重载的构造器,分别传入不同的参数创建不同的字段对象<br/>
- * 例如:Fileld field=new Field("id",Field.Type.INT.getType(8),"12345678",Field.DefaultValue.XXX);<br/>
+ * 例如:Fileld field=new Field("id",Type.INT.getType(8),"12345678",Field.DefaultValue.XXX);<br/>
  * 2.可以通过选着合适的构造器,在通过一些列set方法来设置字段名等属性值
  */
 public class Field implements Restriction {
@@ -20,7 +20,7 @@ public class Field implements Restriction {
     /**
      * 字段类型,也就是数据库表的列定义的类型
      */
-    private Type type;
+    private TypeDescriptor type;
 
     /**
      * 字段对应的值,也就是数据库表的列定义的值
@@ -52,6 +52,20 @@ public class Field implements Restriction {
         this.setType(type);
     }
 
+    /**
+     * 使用字段名和设置好宽度或默认值的字段类型创建一个字段
+     *
+     * @param name 字段名
+     * @param type 字段类型
+     * @throws NullPointerException 抛出该异常时代表字段名或者字段类型为空了
+     */
+    public Field (String name, TypeDescriptor type) throws NullPointerException {
+        // 设置字段名
+        this.setName(name);
+        // 设置字段类型
+        this.setType(type);
+    }
+
     /**
      * 使用字段名、字段类型、和字段值创建一个字段实例
      *
@@ -67,6 +81,21 @@ public class Field implements Restriction {
         this.setValue(value);
     }
 
+    /**
+     * 使用字段名、设置好宽度或默认值的字段类型、和字段值创建一个字段实例
+     *
+     * @param name  字段名
+     * @param type  字段类型
+     * @param value 字段值
+     * @throws NullPointerException 抛出该异常时代表字段名或者字段类型为空了
+     */
+    public Field (String name, TypeDescriptor type, String value) throws NullPointerException {
+        // 调用重载构造器来初始化前两的参数对应的实例变量
+        this(name, type);
+        // 设置字段值
+        this.setValue(value);
+    }
+
 
     /**
      * 给字段对象设置字段名
@@ -83,12 +112,26 @@ public class Field implements Restriction {
     }
 
     /**
-     * 设置字段类型
+     * 设置字段类型,使用该类型的默认宽度并且没有默认值
      *
      * @param type 字段类型
      * @throws NullPointerException 抛出该异常代表字段类型为空了
      */
     public void setType (Type type) throws NullPointerException {
+        // 如果字段类型为空抛出异常
+        if (Objects.isNull(type)) {
+            throw new NullPointerException("l字段类型为空了");
+        }
+        this.type = type.getType();
+    }
+
+    /**
+     * 设置字段类型
+     *
+     * @param type 通过Type的getType(...)方法获取的字段类型
+     * @throws NullPointerException 抛出该异常代表字段类型为空了
+     */
+    public void setType (TypeDescriptor type) throws NullPointerException {
         // 如果字段类型为空抛出异常
         if (Objects.isNull(type)) {
             throw new NullPointerException("l字段类型为空了");
@@ -148,7 +191,7 @@ public class Field implements Restriction {
      *
      * @return 返回字段类型
      */
-    public Type getType ( ) {
+    public TypeDescriptor getType ( ) {
         return type;
     }
 
@@ -162,6 +205,15 @@ public class Field implements Restriction {
     }
 
 
+    /**
+     * 获取字段的约束
+     *
+     * @return 返回Restriction中的约束, 没有设置约束时返回null
+     */
+    public String getRestriction ( ) {
+        return restriction;
+    }
+
     /**
      * 获取字段默认值
      *
@@ -172,6 +224,38 @@ public class Field implements Restriction {
     }
 
 
+    /**
+     * 拼接创建表的SQL语句,不需要连接数据库
+     *
+     * @param tableName 表名 .
+     * @param fields    列定义,该参数是可变参数说明可以是多个列定义.
+     * @return 返回创建表的SQL语句
+     */
+    public static String createTableSql (String tableName, Field... fields) {
+        // 拼接SQL语句
+        StringBuffer sql = new StringBuffer();
+        // 创建表语法
+        sql.append("create table ");
+        // 判断是否创建过
+        sql.append("if not exists ");
+        // 表名
+        sql.append(tableName);
+        //拼接列定义
+        sql.append("(");
+        for (int i = 0; i < fields.length; i++) {
+            // 将每一个列定义拼接上去
+            sql.append(fields[i]);
+            // 拼接最后一个列定义时不需要拼接 ","
+            if (i == fields.length - 1) {
+                continue;
+            }
+            // 每个列定义之间用 "," 隔开
+            sql.append(",");
+        }
+        sql.append(");");
+        return sql.toString();
+    }
+
     /**
      * 获取 字段名 字段类型 字段默认值的拼接的字符串
      *
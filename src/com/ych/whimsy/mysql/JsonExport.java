@@ -0,0 +1,258 @@
+package src.com.ych.whimsy.mysql;
+
+import com.alibaba.fastjson.serializer.SerializeWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+
+/**
+ * 把查询结果逐行写成JSON的回调,配合LoadDatabase的exportJson(...)和exportNdjson(...)方法使用<br/>
+ * 1.每一行直接写入fastjson的SerializeWriter,不生成每一行的String或者JSONObject,写满缓冲区后刷到输出流.<br/>
+ * 2.列的写法在第一行时按列的SQL类型确定一次:INT及以下的整数和浮点数按基本类型读取,BIGINT和DECIMAL按数据库返回的文本原样写出,<br/>
+ * 二进制写成Base64字符串,其它类型写成JSON字符串.<br/>
+ * 3.json格式写出一个数组,ndjson格式每行一个对象,以'\n'结尾.
+ */
+final class JsonExport implements RowConsumer {
+
+    /**
+     * 按int读取后写出
+     */
+    private static final int INT = 0;
+
+    /**
+     * 按long读取后写出
+     */
+    private static final int LONG = 1;
+
+    /**
+     * 按数据库返回的文本原样写出,不加引号
+     */
+    private static final int NUMBER = 2;
+
+    /**
+     * 按double读取后写出,NaN和无穷大写成null
+     */
+    private static final int DOUBLE = 3;
+
+    /**
+     * 写成true或者false
+     */
+    private static final int BOOLEAN = 4;
+
+    /**
+     * 写成Base64字符串
+     */
+    private static final int BINARY = 5;
+
+    /**
+     * 写成JSON字符串
+     */
+    private static final int STRING = 6;
+
+    /**
+     * 字符编码后的输出
+     */
+    private final Writer writer;
+
+    /**
+     * fastjson的流式写出器
+     */
+    private final SerializeWriter out;
+
+    /**
+     * 是否是ndjson格式
+     */
+    private final boolean ndjson;
+
+    /**
+     * 每一列的写法,下标从0开始,第一行时创建
+     */
+    private int[] kinds;
+
+    /**
+     * 已经写出的行数
+     */
+    private long rows;
+
+    /**
+     * 创建一个JSON导出回调
+     *
+     * @param stream 输出流,导出结束后不会关闭
+     * @param ndjson 为true时每行一个对象, 为false时写出一个数组
+     */
+    JsonExport (OutputStream stream, boolean ndjson) {
+        this.writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        this.out = new SerializeWriter(writer);
+        this.ndjson = ndjson;
+    }
+
+    @Override
+    public boolean accept (RowCursor row) throws SQLException {
+        if (rows == 0) {
+            kinds = kinds(row);
+            if (!ndjson) {
+                out.write('[');
+            }
+        } else if (!ndjson) {
+            out.write(',');
+        }
+        out.write('{');
+        for (int i = 1; i <= kinds.length; i++) {
+            if (i > 1) {
+                out.write(',');
+            }
+            out.writeFieldName(row.getColumnName(i));
+            writeValue(row, i, kinds[i - 1]);
+        }
+        out.write('}');
+        if (ndjson) {
+            out.write('\n');
+        }
+        rows++;
+        return true;
+    }
+
+    /**
+     * 写出当前行的一列
+     *
+     * @param row   当前行
+     * @param index 列下标,从1开始
+     * @param kind  列的写法
+     * @throws SQLException 读取数据出现异常
+     */
+    private void writeValue (RowCursor row, int index, int kind) throws SQLException {
+        switch (kind) {
+            case INT:
+                int intValue = row.getInt(index);
+                if (row.wasNull()) {
+                    out.writeNull();
+                } else {
+                    out.writeInt(intValue);
+                }
+                return;
+            case LONG:
+                long longValue = row.getLong(index);
+                if (row.wasNull()) {
+                    out.writeNull();
+                } else {
+                    out.writeLong(longValue);
+                }
+                return;
+            case DOUBLE:
+                double doubleValue = row.getDouble(index);
+                if (row.wasNull()) {
+                    out.writeNull();
+                } else {
+                    out.writeDouble(doubleValue, false);
+                }
+                return;
+            case BOOLEAN:
+                boolean booleanValue = row.getResultSet().getBoolean(index);
+                if (row.wasNull()) {
+                    out.writeNull();
+                } else {
+                    out.write(booleanValue);
+                }
+                return;
+            case BINARY:
+                byte[] bytes = row.getResultSet().getBytes(index);
+                if (Objects.isNull(bytes)) {
+                    out.writeNull();
+                } else {
+                    out.writeByteArray(bytes);
+                }
+                return;
+            case NUMBER:
+                // BIGINT UNSIGNED可能超出long的范围,DECIMAL按文本写出不丢精度
+                String number = row.getString(index);
+                if (Objects.isNull(number)) {
+                    out.writeNull();
+                } else {
+                    out.write(number);
+                }
+                return;
+            default:
+                out.writeString(row.getString(index));
+        }
+    }
+
+    /**
+     * 写出结尾并把缓冲区刷到输出流
+     *
+     * @throws IOException 写出数据出现异常
+     */
+    void finish ( ) throws IOException {
+        if (!ndjson) {
+            out.write(rows == 0 ? "[]" : "]");
+        }
+        out.flush();
+        writer.flush();
+    }
+
+    /**
+     * 释放fastjson的缓冲区,不关闭输出流
+     */
+    void close ( ) {
+        out.close();
+    }
+
+    /**
+     * 获取已经写出的行数
+     *
+     * @return 返回行数
+     */
+    long getRows ( ) {
+        return rows;
+    }
+
+    /**
+     * 按列的SQL类型确定每一列的写法
+     *
+     * @param row 第一行
+     * @return 返回每一列的写法
+     */
+    private static int[] kinds (RowCursor row) {
+        int[] kinds = new int[row.getColumnCount()];
+        for (int i = 0; i < kinds.length; i++) {
+            switch (row.getColumnType(i + 1)) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                    kinds[i] = INT;
+                    break;
+                case Types.INTEGER:
+                    // INT UNSIGNED超出int的范围
+                    kinds[i] = LONG;
+                    break;
+                case Types.BIGINT:
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    kinds[i] = NUMBER;
+                    break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                    kinds[i] = DOUBLE;
+                    break;
+                case Types.BIT:
+                case Types.BOOLEAN:
+                    kinds[i] = BOOLEAN;
+                    break;
+                case Types.BINARY:
+                case Types.VARBINARY:
+                case Types.LONGVARBINARY:
+                case Types.BLOB:
+                    kinds[i] = BINARY;
+                    break;
+                default:
+                    kinds[i] = STRING;
+            }
+        }
+        return kinds;
+    }
+}
@@ -1,16 +1,44 @@
 package src.com.ych.whimsy.mysql;
 
 import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+import src.com.ych.whimsy.mysql.temporary.BulkLoad;
 import src.com.ych.whimsy.mysql.temporary.Delete;
 import src.com.ych.whimsy.mysql.temporary.InsertInto;
 import src.com.ych.whimsy.mysql.temporary.Update;
+import src.com.ych.whimsy.mysql.pool.ConnectionPool;
+import src.com.ych.whimsy.mysql.pool.PooledConnection;
+import src.com.ych.whimsy.mysql.cache.ResultCache;
+import src.com.ych.whimsy.mysql.column.ColumnarBuilder;
+import src.com.ych.whimsy.mysql.column.ColumnarResult;
+import src.com.ych.whimsy.mysql.metrics.LoadDatabaseMetrics;
+import src.com.ych.whimsy.mysql.metrics.Operation;
+import src.com.ych.whimsy.mysql.operation.SchemaDiff;
+import src.com.ych.whimsy.mysql.meta.ColumnMetadata;
+import src.com.ych.whimsy.mysql.meta.MetadataCache;
+import src.com.ych.whimsy.mysql.meta.TableMetadata;
 
+import com.alibaba.fastjson.JSONException;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 该类用于加载用户数据库<br/>
- * 1.拿到指定数据库的Connection连接.<br/>
+ * 1.拿到指定数据库的Connection连接,连接由内部的连接池管理,各个操作会自动借出和归还连接.<br/>
  * 2.通过Connection连接执行DDL语句,创建用户数据表,数据表存在则不创建.<br/>
  * 3.提供操作用户数据表的方法.
  */
@@ -19,6 +47,14 @@ public class LoadDatabase {
      * 本类类名
      */
     public static final String loadDatabaseName = "--> " + LoadDatabase.class.getSimpleName();
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(LoadDatabase.class);
+    /**
+     * 预热时校验连接的超时时间,单位秒
+     */
+    private static final int PREWARM_VALIDATION_TIMEOUT = 5;
     /**
      * 数据库驱动名,默认驱动名"com.mysql.cj.jdbc.Driver"
      */
@@ -40,20 +76,95 @@ public class LoadDatabase {
     private String password;
 
     /**
-     * 数据库Connection连接对象
+     * 数据库连接池,由initConnection(...)方法创建
+     */
+    private volatile ConnectionPool connectionPool;
+
+    /**
+     * 连接池最小连接数
+     */
+    private int poolMinSize = 1;
+
+    /**
+     * 连接池最大连接数,默认是CPU核数的两倍,最少4个
+     */
+    private int poolMaxSize = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 借出连接的最长等待时间,单位毫秒
+     */
+    private long borrowTimeout = 30_000L;
+
+    /**
+     * 连接的最长空闲时间,单位毫秒
+     */
+    private long idleTimeout = 600_000L;
+
+    /**
+     * 逐行遍历结果集时每次从数据库读取的行数
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * 逐行遍历MySQL结果集时是否使用流式读取,流式读取时驱动逐行从网络读取数据,不在内存中缓存结果集
      */
-    private Connection connection;
+    private boolean streamingResults = true;
+
+    /**
+     * 当前使用的数据库名,由useDatabase (String dbName)方法设置,借出连接时会切换到该数据库
+     */
+    private volatile String databaseName;
 
     /**
      * 是否准备,变量代表该实例的数据库的Connection是否连接成功<br/>
-     * 为true标识连接成功
+     * 为true标识连接成功,也就是连接池已经启动;之后单个连接断开时由连接池丢弃并重新创建,不会重置该变量
      */
-    private boolean isAlready = false;
+    private volatile boolean isAlready = false;
 
     /**
-     * Statement对象,用来执行DDL语句或者DML语句,该变量的值由getStatement ( )方法获取
+     * 创建CachedRowSet的工厂
      */
-    private Statement statement;
+    private static volatile RowSetFactory rowSetFactory;
+
+    /**
+     * 各个操作的耗时和成功/失败次数统计
+     */
+    private final LoadDatabaseMetrics metrics = new LoadDatabaseMetrics();
+
+    /**
+     * 数据表结构信息的缓存
+     */
+    private final MetadataCache metadataCache = new MetadataCache();
+
+    /**
+     * inquireResultSet(...)方法的查询结果缓存,为null时不缓存
+     */
+    private volatile ResultCache resultCache;
+
+    /**
+     * 是否延迟连接,为true时第一次访问数据库时才连接,或者由prewarm ( )方法提前在后台连接
+     */
+    private volatile boolean lazy = false;
+
+    /**
+     * 后台连接数据库的结果,为true连接成功;没有开始预热时为null
+     */
+    private volatile CompletableFuture<Boolean> connecting;
+
+    /**
+     * 后台预热的结果,连接数据库、校验连接和填充缓存都完成后结束;没有开始预热时为null
+     */
+    private volatile CompletableFuture<Boolean> warmup;
+
+    /**
+     * 预热时读取结构信息的表
+     */
+    private volatile String[] prewarmTables = new String[0];
+
+    /**
+     * 预热时在每个连接上预编译的SQL模板
+     */
+    private volatile String[] prewarmStatements = new String[0];
 
 
     /**
@@ -119,6 +230,31 @@ public class LoadDatabase {
         this.password = password;
     }
 
+    /**
+     * 创建一个LoadDatabase对象,lazy为true时构造时只加载驱动,不连接数据库<br/>
+     * 1.延迟连接时第一次访问数据库才连接,也可以调用prewarm ( )方法提前在后台连接并填充缓存.<br/>
+     * 2.后台连接还没有完成时,访问数据库的方法最多等待borrowTimeout毫秒.
+     *
+     * @param driverName 数据库驱动名
+     * @param sqlUrl     MySQL数据库URL,例如:jdbc:mysql://localhost/mysql?serverTimezone=UTC
+     * @param userName   数据库用户名,为null时说明用户名和密码已经拼接在URL中
+     * @param password   数据库用户名密码
+     * @param lazy       是否延迟连接,为false时和LoadDatabase (driverName, sqlUrl, userName, password)相同
+     * @throws SQLException           不延迟连接时数据库URL有误或者数据库用户名/密码有误
+     * @throws ClassNotFoundException 驱动加载失败
+     */
+    public LoadDatabase (String driverName, String sqlUrl, String userName, String password, boolean lazy) throws SQLException, ClassNotFoundException {
+        // 初始化MySQL数据驱动
+        this(driverName);
+        this.sqlUrl = sqlUrl;
+        this.userName = userName;
+        this.password = password;
+        this.lazy = lazy;
+        if (!lazy && !initConnection(sqlUrl, userName, password)) {
+            throw new SQLException("数据库URL有误或者数据库用户名/密码有误");
+        }
+    }
+
     /**
      * 设置MySQL数据库URL
      *
@@ -158,6 +294,211 @@ public class LoadDatabase {
         this.password = password;
     }
 
+    /**
+     * 设置连接池的最小连接数和最大连接数,在下一次调用initConnection(...)方法时生效
+     *
+     * @param minSize 最小连接数
+     * @param maxSize 最大连接数
+     * @throws IllegalArgumentException 连接数不合法
+     */
+    public void setPoolSize (int minSize, int maxSize) throws IllegalArgumentException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("连接数不合法: minSize = " + minSize + ", maxSize = " + maxSize);
+        }
+        this.poolMinSize = minSize;
+        this.poolMaxSize = maxSize;
+    }
+
+    /**
+     * 设置借出连接的最长等待时间
+     *
+     * @param borrowTimeout 最长等待时间,单位毫秒
+     */
+    public void setBorrowTimeout (long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+        if (!Objects.isNull(connectionPool)) {
+            connectionPool.setBorrowTimeout(borrowTimeout);
+        }
+    }
+
+    /**
+     * 设置连接的最长空闲时间,空闲超过该时间的连接会被连接池回收
+     *
+     * @param idleTimeout 最长空闲时间,单位毫秒
+     */
+    public void setIdleTimeout (long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        if (!Objects.isNull(connectionPool)) {
+            connectionPool.setIdleTimeout(idleTimeout);
+        }
+    }
+
+
+    /**
+     * 设置逐行遍历结果集时每次从数据库读取的行数<br/>
+     * MySQL数据库在关闭流式读取并且URL中加上useCursorFetch=true时,按该行数分批读取.
+     *
+     * @param fetchSize 每次读取的行数
+     * @throws IllegalArgumentException 行数小于1
+     */
+    public void setFetchSize (int fetchSize) throws IllegalArgumentException {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("每次读取的行数不能小于1");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 设置逐行遍历MySQL结果集时是否使用流式读取,默认使用
+     *
+     * @param streamingResults 为true时使用MySQL的流式读取,为false时按照setFetchSize (int fetchSize)设置的行数读取
+     */
+    public void setStreamingResults (boolean streamingResults) {
+        this.streamingResults = streamingResults;
+    }
+
+    /**
+     * 设置预热时读取结构信息的表,在prewarm ( )方法之前调用
+     *
+     * @param tables 表名,表在useDatabase (String dbName)方法设置的数据库中
+     */
+    public void setPrewarmTables (String... tables) {
+        this.prewarmTables = Objects.isNull(tables) ? new String[0] : tables.clone();
+    }
+
+    /**
+     * 设置预热时在每个连接上预编译的SQL模板,在prewarm ( )方法之前调用<br/>
+     * 预编译的PreparedStatement放在连接的PreparedStatement缓存中,之后执行相同的SQL模板时不再预编译.
+     *
+     * @param statements SQL模板,参数使用 ? 占位
+     */
+    public void setPrewarmStatements (String... statements) {
+        this.prewarmStatements = Objects.isNull(statements) ? new String[0] : statements.clone();
+    }
+
+    /**
+     * 在后台线程中预热,调用后立即返回<br/>
+     * 1.还没有连接时创建连接池,打开最小连接数个连接.<br/>
+     * 2.借出最小连接数个连接逐个校验,并预编译setPrewarmStatements(...)设置的SQL模板.<br/>
+     * 3.读取setPrewarmTables(...)设置的表的结构信息.<br/>
+     * 连接失败时下一次访问数据库会重新连接;已经开始预热时返回同一个结果.
+     *
+     * @return 返回预热的结果, 为true所有步骤都成功
+     */
+    public synchronized CompletableFuture<Boolean> prewarm ( ) {
+        if (!Objects.isNull(warmup)) {
+            return warmup;
+        }
+        CompletableFuture<Boolean> connected = new CompletableFuture<>();
+        CompletableFuture<Boolean> warmed = new CompletableFuture<>();
+        connecting = connected;
+        warmup = warmed;
+        Thread thread = new Thread(() -> runPrewarm(connected, warmed), "whimsy-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+        return warmed;
+    }
+
+    /**
+     * 在后台线程中执行预热
+     *
+     * @param connected 连接数据库的结果
+     * @param warmed    预热的结果
+     */
+    private void runPrewarm (CompletableFuture<Boolean> connected, CompletableFuture<Boolean> warmed) {
+        long start = System.currentTimeMillis();
+        if (!isAlready) {
+            try {
+                startPool(sqlUrl, userName, password);
+                isAlready = true;
+            } catch (SQLException | RuntimeException e) {
+                LOGGER.error("--> runPrewarm (...): 连接数据库失败,下一次访问数据库时重新连接 {}", e.getMessage());
+                synchronized (this) {
+                    if (warmup == warmed) {
+                        warmup = null;
+                        connecting = null;
+                    }
+                }
+                connected.complete(false);
+                warmed.complete(false);
+                return;
+            }
+        }
+        connected.complete(true);
+        boolean success = prewarmConnections();
+        for (String table : prewarmTables) {
+            success &= !Objects.isNull(getTableMetadata(databaseName, table));
+        }
+        LOGGER.info("--> runPrewarm (...): 预热完成,耗时{}ms,结果{}", System.currentTimeMillis() - start, success);
+        warmed.complete(success);
+    }
+
+    /**
+     * 同时借出最小连接数个连接,逐个校验并预编译SQL模板
+     *
+     * @return 返回true所有连接都可用并且所有SQL模板都预编译成功
+     */
+    private boolean prewarmConnections ( ) {
+        int count = Math.max(1, poolMinSize);
+        List<PooledConnection> borrowed = new ArrayList<>(count);
+        boolean success = true;
+        try {
+            for (int i = 0; i < count; i++) {
+                PooledConnection pooled = borrowConnection(databaseName);
+                borrowed.add(pooled);
+                if (!pooled.getConnection().isValid(PREWARM_VALIDATION_TIMEOUT)) {
+                    // 不可用的连接归还时关闭,由连接池补充
+                    pooled.markBroken();
+                    success = false;
+                    continue;
+                }
+                for (String sql : prewarmStatements) {
+                    try {
+                        pooled.prepareStatement(sql);
+                    } catch (SQLException e) {
+                        LOGGER.error("--> prewarmConnections ( ): SQL模板 \"{}\" 预编译失败 {}", sql, e.getMessage());
+                        pooled.evictStatement(sql);
+                        success = false;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("--> prewarmConnections ( ): 借出连接失败 {}", e.getMessage());
+            success = false;
+        } finally {
+            for (PooledConnection pooled : borrowed) {
+                pooled.release();
+            }
+        }
+        return success;
+    }
+
+    /**
+     * 还没有连接数据库时,等待后台连接完成;延迟连接并且还没有开始预热时开始预热
+     *
+     * @return 返回true已经连接数据库
+     */
+    private boolean awaitConnection ( ) {
+        if (isAlready) {
+            return true;
+        }
+        if (lazy && Objects.isNull(connecting)) {
+            prewarm();
+        }
+        CompletableFuture<Boolean> future = connecting;
+        if (Objects.isNull(future)) {
+            return false;
+        }
+        try {
+            return future.get(borrowTimeout, TimeUnit.MILLISECONDS) && isAlready;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.error("--> awaitConnection ( ): 在{}毫秒内没有连接上数据库", borrowTimeout);
+            return false;
+        }
+    }
 
     /**
      * 初始化MySQL数据库驱动
@@ -173,7 +514,7 @@ public class LoadDatabase {
             Class<?> aClass = Class.forName(driverName);
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
-            System.err.println(loadDatabaseName + "\n--> initDriver (String driverName): 驱动名有误 -> MySQL数据库驱动加载失败");
+            LOGGER.error("--> initDriver (String driverName): 驱动名有误 -> MySQL数据库驱动加载失败");
             return false;
         }
         return true;
@@ -187,11 +528,11 @@ public class LoadDatabase {
      */
     public boolean initConnection (String sqlUrl) {
         try {
-            // 创建MySQL数据库Connection连接
-            connection = DriverManager.getConnection(sqlUrl);
+            // 创建MySQL数据库连接池
+            startPool(sqlUrl, null, null);
         } catch (SQLException throwables) {
             // 捕获异常出现异常说明传入的数据有误
-            System.err.println(loadDatabaseName + "\n--> initConnection(String sqlUrl): \n完整的MySQL数据库URL有误-> MySQL数据库Connection连接对象初始化失败");
+            LOGGER.error("--> initConnection(String sqlUrl): \n完整的MySQL数据库URL有误-> MySQL数据库Connection连接对象初始化失败");
             return false;
         }
         isAlready = true;
@@ -208,12 +549,12 @@ public class LoadDatabase {
      */
     public boolean initConnection (String url, String userName, String password) {
         try {
-            // 创建MySQL数据库Connection连接
-            connection = DriverManager.getConnection(url, userName, password);
+            // 创建MySQL数据库连接池
+            startPool(url, userName, password);
         } catch (SQLException throwables) {
             throwables.printStackTrace();
             // 捕获异常出现异常说明传入的数据有误
-            System.err.println(loadDatabaseName + "\n--> initConnection(String url, String userName, String password): \nMySQL数据库URL有误或者数据库用户名/密码有误 -> MySQL数据库Connection连接对象初始化失败");
+            LOGGER.error("--> initConnection(String url, String userName, String password): \nMySQL数据库URL有误或者数据库用户名/密码有误 -> MySQL数据库Connection连接对象初始化失败");
             return false;
         }
         isAlready = true;
@@ -229,59 +570,133 @@ public class LoadDatabase {
      */
     public boolean initConnection ( ) {
         try {
-            // 创建MySQL数据库Connection连接
-            connection = DriverManager.getConnection(sqlUrl, userName, password);
+            // 创建MySQL数据库连接池
+            startPool(sqlUrl, userName, password);
         } catch (SQLException throwables) {
             throwables.printStackTrace();
             // 捕获异常出现异常说明传入的数据有误
-            System.err.println(loadDatabaseName + "\n--> initConnection():\n MySQL数据库URL有误或者数据库用户名/密码有误 -> MySQL数据库Connection连接对象初始化失败");
+            LOGGER.error("--> initConnection():\n MySQL数据库URL有误或者数据库用户名/密码有误 -> MySQL数据库Connection连接对象初始化失败");
             return false;
         }
         isAlready = true;
         return true;
     }
 
+    /**
+     * 创建并启动连接池,已经存在的连接池会被关闭
+     *
+     * @param url      MySQL数据库URL
+     * @param userName 数据库用户名,为null时说明用户名和密码已经拼接在URL中
+     * @param password 数据库用户名密码
+     * @throws SQLException 数据库URL有误或者数据库用户名/密码有误
+     */
+    private synchronized void startPool (String url, String userName, String password) throws SQLException {
+        ConnectionPool pool = new ConnectionPool(url, userName, password);
+        pool.setSize(poolMinSize, poolMaxSize);
+        pool.setBorrowTimeout(borrowTimeout);
+        pool.setIdleTimeout(idleTimeout);
+        pool.start();
+        // 最小连接数为0时借出一个连接,用来检查数据库URL和用户名/密码
+        if (poolMinSize == 0) {
+            try {
+                pool.borrow().release();
+            } catch (SQLException e) {
+                pool.close();
+                throw e;
+            }
+        }
+        ConnectionPool old = connectionPool;
+        connectionPool = pool;
+        // 新的连接可能指向另一个数据库服务器
+        metadataCache.clear();
+        invalidateResultCache(null, null);
+        if (!Objects.isNull(old)) {
+            old.close();
+        }
+    }
+
+    /**
+     * 从连接池借出一个连接,并切换到指定的数据库
+     *
+     * @param dbName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @return 返回借出的连接,使用完毕后需要调用release ( )方法归还
+     * @throws SQLException 1.LoadDatabase实例的Connection未连接数据库<br/>
+     *                      2.借出连接超时或者数据库切换失败
+     */
+    public PooledConnection borrowConnection (String dbName) throws SQLException {
+        // 判断是否Connection是否连接,延迟连接时等待后台连接完成
+        ConnectionPool pool = awaitConnection() ? connectionPool : null;
+        if (Objects.isNull(pool)) {
+            throw new SQLException("LoadDatabase实例的Connection未连接数据库");
+        }
+        if (Objects.isNull(dbName) || dbName.isEmpty()) {
+            dbName = this.databaseName;
+        }
+        PooledConnection pooled = pool.borrow();
+        if (!Objects.isNull(dbName)) {
+            try {
+                // 连接已经在该数据库上时不会访问数据库
+                pooled.setCatalog(dbName);
+            } catch (SQLException e) {
+                pooled.checkFailure(e);
+                pooled.release();
+                throw e;
+            }
+        }
+        return pooled;
+    }
+
 //--------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------
 
     /**
-     * 使用那个数据库,也就是我们接下来要操作那个数据库里的数据
+     * 使用那个数据库,也就是我们接下来要操作那个数据库里的数据<br/>
+     * 延迟连接并且还没有连接上数据库时只记录数据库名,不检查数据库是否存在.
      *
      * @param dbName 数据库名
      * @return 返回false使用失败, 返回false需要考录两种情况1.Connection未连接或者数据库使用失败; 返回true使用成功
      */
     public boolean useDatabase (String dbName) {
+        // 判断数据库名是否为空
+        if (Objects.isNull(dbName) || dbName.isEmpty()) {
+            throw new NullPointerException("数据库名为空了");
+        }
+        // 延迟连接并且还没有连接时只记录数据库名,借出连接时再切换
+        if (lazy && !isAlready) {
+            this.databaseName = dbName;
+            return true;
+        }
         // 判断是否Connection是否连接
         if (!isAlready) {
             // 没有连接直接返回
             return false;
         }
-        // 判断数据库名是否为空
-        if (Objects.isNull(dbName) || dbName.isEmpty()) {
-            throw new NullPointerException("数据库名为空了");
+        // 借出连接时会切换到该数据库,切换失败说明数据库不存在
+        try {
+            borrowConnection(dbName).release();
+        } catch (SQLException throwables) {
+            LOGGER.error("--> useDatabase (String dbName): 数据库 \"{}\" 使用失败,请检查该数据库是否存在", dbName);
+            return false;
         }
-        // 拼接DDL语句
-        String sqlUseDdta = "use " + dbName + ";";
-        return executeUpdate(sqlUseDdta, "ddl");
+        this.databaseName = dbName;
+        return true;
     }
 
     /**
-     * 获取Statement对象
+     * 获取Statement对象,该Statement对象独占一个连接池连接
      *
-     * @return Statement对象
+     * @return Statement对象, 使用完毕后必须调用close ( )方法,关闭时连接会归还到连接池
      * @throws SQLException 1.LoadDatabase实例的Connection未连接数据库<br/>
      *                      2.数据库访问错误,在获取Statement对象时
      */
     public Statement getStatement ( ) throws SQLException {
-        // 判断是否Connection是否连接
-        if (!isAlready) {
-            throw new SQLException("LoadDatabase实例的Connection未连接数据库");
-        }
-        if (Objects.isNull(statement)) {
-            // statement为空通过Connection对象创建一个Statement对象
-            statement = connection.createStatement();
+        PooledConnection pooled = borrowConnection(databaseName);
+        try {
+            return pooled.asStatement(pooled.getConnection().createStatement());
+        } catch (SQLException e) {
+            pooled.checkFailure(e);
+            pooled.release();
+            throw e;
         }
-        // 不为空直接返回statement
-        return statement;
     }
 
     /**
@@ -291,8 +706,47 @@ public class LoadDatabase {
      * @return 返回false执行失败, 返回true执行成功
      */
     public boolean executeUpdate (String sql, String ddlOrDml) {
+        return executeUpdate(databaseName, sql, ddlOrDml);
+    }
+
+    /**
+     * 在指定的数据库上执行DDL语句或者DML语句
+     *
+     * @param dbName   数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql      要执行的DDL语句或者DML语句
+     * @param ddlOrDml "ddl"或者"dml"
+     * @return 返回false执行失败, 返回true执行成功
+     */
+    public boolean executeUpdate (String dbName, String sql, String ddlOrDml) {
+        long start = metrics.start();
+        boolean success = update(dbName, sql, ddlOrDml);
+        // 不知道语句修改了哪些表,清空所有缓存的查询结果
+        invalidateResultCache(null, null);
+        metrics.record(Operation.EXECUTE_UPDATE, null, start, success);
+        return success;
+    }
+
+    /**
+     * 在指定的数据库上执行DDL语句或者DML语句,不记录统计数据
+     *
+     * @param dbName   数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql      要执行的DDL语句或者DML语句
+     * @param ddlOrDml "ddl"或者"dml"
+     * @return 返回false执行失败, 返回true执行成功
+     */
+    private boolean update (String dbName, String sql, String ddlOrDml) {
         try {
-            int i = this.getStatement().executeUpdate(sql);
+            PooledConnection pooled = borrowConnection(dbName);
+            int i;
+            try (Statement statement = pooled.getConnection().createStatement()) {
+                i = statement.executeUpdate(sql);
+                pooled.afterExecute(sql);
+            } catch (SQLException e) {
+                pooled.checkFailure(e);
+                throw e;
+            } finally {
+                pooled.release();
+            }
             if (i == 0 && "ddl".equals(ddlOrDml)) {
                 return true;
             }
@@ -300,12 +754,193 @@ public class LoadDatabase {
                 return true;
             }
         } catch (SQLException throwables) {
-            System.err.println(loadDatabaseName + "--> executeSQL (String ddl): SQL_DDL_Or_DML指令 \"" + sql + "\" 执行过程出现异常,请检查该指令是否有误,或者检查相关的类或者对象是否出现问题");
+            LOGGER.error("--> executeSQL (String ddl): SQL_DDL_Or_DML指令 \"{}\" 执行过程出现异常,请检查该指令是否有误,或者检查相关的类或者对象是否出现问题", sql);
             return false;
         }
         return false;
     }
 
+    /**
+     * 在指定的数据库上执行带参数的DDL语句或者DML语句<br/>
+     * 每个连接会缓存SQL模板对应的PreparedStatement,相同的SQL模板只预编译一次;<br/>
+     * 数据库URL中加上useServerPrepStmts=true时预编译在服务端进行,服务端也不会重复解析SQL语句.
+     *
+     * @param dbName     数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql        SQL模板,参数使用 ? 占位
+     * @param parameters 参数,支持null、String、Integer、Long、BigDecimal以及JDBC驱动支持的其它类型
+     * @param ddlOrDml   "ddl"或者"dml"
+     * @return 返回false执行失败, 返回true执行成功
+     */
+    public boolean executePreparedUpdate (String dbName, String sql, Object[] parameters, String ddlOrDml) {
+        int i = executeUpdateCount(dbName, sql, parameters);
+        if (i == 0 && "ddl".equals(ddlOrDml)) {
+            return true;
+        }
+        return i == 1 && "dml".equals(ddlOrDml);
+    }
+
+    /**
+     * 在指定的数据库上执行带参数的DML语句,并返回受影响的行数
+     *
+     * @param dbName     数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql        SQL模板,参数使用 ? 占位;参数为null时按照普通SQL语句执行
+     * @param parameters 参数,为null时说明SQL语句中没有参数
+     * @return 返回受影响的行数, 执行失败返回Statement.EXECUTE_FAILED
+     */
+    public int executeUpdateCount (String dbName, String sql, Object[] parameters) {
+        try {
+            PooledConnection pooled = borrowConnection(dbName);
+            try {
+                if (Objects.isNull(parameters)) {
+                    try (Statement statement = pooled.getConnection().createStatement()) {
+                        int i = statement.executeUpdate(sql);
+                        pooled.afterExecute(sql);
+                        return i;
+                    }
+                }
+                PreparedStatement statement = pooled.prepareStatement(sql);
+                bindParameters(statement, parameters);
+                int i = statement.executeUpdate();
+                statement.clearParameters();
+                return i;
+            } catch (SQLException e) {
+                // 出错的PreparedStatement不再复用
+                pooled.evictStatement(sql);
+                pooled.checkFailure(e);
+                throw e;
+            } finally {
+                pooled.release();
+            }
+        } catch (SQLException throwables) {
+            LOGGER.error("--> executeUpdateCount (String dbName, String sql, Object[] parameters): SQL_DDL_Or_DML指令 \"{}\" 执行过程出现异常,请检查该指令和参数是否有误", sql);
+            return Statement.EXECUTE_FAILED;
+        }
+    }
+
+    /**
+     * 在指定的数据库上以JDBC批处理的方式执行同一个SQL模板的多组参数<br/>
+     * 参数按照batchSize分成多批,每批一次网络往返;数据库URL中加上rewriteBatchedStatements=true时<br/>
+     * MySQL驱动会把一批insert语句改写成一条多行insert语句.
+     *
+     * @param dbName    数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql       SQL模板,参数使用 ? 占位
+     * @param rows      每一行的参数
+     * @param batchSize 每一批的行数
+     * @return 返回每一批受影响的行数, 执行失败的批次为Statement.EXECUTE_FAILED
+     */
+    public int[] executeBatch (String dbName, String sql, List<Object[]> rows, int batchSize) {
+        int[] counts = new int[(rows.size() + batchSize - 1) / batchSize];
+        Arrays.fill(counts, Statement.EXECUTE_FAILED);
+        try {
+            PooledConnection pooled = borrowConnection(dbName);
+            try {
+                for (int batch = 0; batch < counts.length; batch++) {
+                    try {
+                        PreparedStatement statement = pooled.prepareStatement(sql);
+                        int end = Math.min(rows.size(), (batch + 1) * batchSize);
+                        for (int row = batch * batchSize; row < end; row++) {
+                            bindParameters(statement, rows.get(row));
+                            statement.addBatch();
+                        }
+                        counts[batch] = sum(statement.executeBatch());
+                    } catch (SQLException e) {
+                        pooled.evictStatement(sql);
+                        LOGGER.error("--> executeBatch (String dbName, String sql, List<Object[]> rows, int batchSize): 第{}批SQL指令 \"{}\" 执行过程出现异常: {}", batch + 1, sql, e.getMessage());
+                        // 连接已经断开,剩余的批次不再执行
+                        if (pooled.checkFailure(e)) {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                pooled.release();
+            }
+        } catch (SQLException throwables) {
+            LOGGER.error("--> executeBatch (String dbName, String sql, List<Object[]> rows, int batchSize): 批处理执行失败,请检查数据库连接");
+        }
+        return counts;
+    }
+
+    /**
+     * 在指定的数据库上以JDBC批处理的方式执行多条SQL语句
+     *
+     * @param dbName    数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sqls      要执行的SQL语句
+     * @param batchSize 每一批的语句条数
+     * @return 返回每一批受影响的行数, 执行失败的批次为Statement.EXECUTE_FAILED
+     */
+    public int[] executeBatch (String dbName, List<String> sqls, int batchSize) {
+        int[] counts = new int[(sqls.size() + batchSize - 1) / batchSize];
+        Arrays.fill(counts, Statement.EXECUTE_FAILED);
+        try {
+            PooledConnection pooled = borrowConnection(dbName);
+            try (Statement statement = pooled.getConnection().createStatement()) {
+                for (int batch = 0; batch < counts.length; batch++) {
+                    try {
+                        int end = Math.min(sqls.size(), (batch + 1) * batchSize);
+                        for (int i = batch * batchSize; i < end; i++) {
+                            statement.addBatch(sqls.get(i));
+                            pooled.afterExecute(sqls.get(i));
+                        }
+                        counts[batch] = sum(statement.executeBatch());
+                    } catch (SQLException e) {
+                        LOGGER.error("--> executeBatch (String dbName, List<String> sqls, int batchSize): 第{}批SQL指令执行过程出现异常: {}", batch + 1, e.getMessage());
+                        // 连接已经断开,剩余的批次不再执行
+                        if (pooled.checkFailure(e)) {
+                            break;
+                        }
+                        statement.clearBatch();
+                    }
+                }
+            } finally {
+                pooled.release();
+            }
+        } catch (SQLException throwables) {
+            LOGGER.error("--> executeBatch (String dbName, List<String> sqls, int batchSize): 批处理执行失败,请检查数据库连接");
+        }
+        return counts;
+    }
+
+    /**
+     * 统计一批语句受影响的总行数,驱动返回Statement.SUCCESS_NO_INFO时按1行计算
+     *
+     * @param counts 每条语句受影响的行数
+     * @return 返回受影响的总行数
+     */
+    private static int sum (int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+        }
+        return total;
+    }
+
+    /**
+     * 按照参数的类型把参数绑定到PreparedStatement上
+     *
+     * @param statement  PreparedStatement对象
+     * @param parameters 参数
+     * @throws SQLException 参数绑定失败
+     */
+    static void bindParameters (PreparedStatement statement, Object[] parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            Object parameter = parameters[i];
+            if (Objects.isNull(parameter)) {
+                statement.setNull(i + 1, Types.NULL);
+            } else if (parameter instanceof String) {
+                statement.setString(i + 1, (String) parameter);
+            } else if (parameter instanceof Long) {
+                statement.setLong(i + 1, (Long) parameter);
+            } else if (parameter instanceof Integer) {
+                statement.setInt(i + 1, (Integer) parameter);
+            } else if (parameter instanceof BigDecimal) {
+                statement.setBigDecimal(i + 1, (BigDecimal) parameter);
+            } else {
+                statement.setObject(i + 1, parameter);
+            }
+        }
+    }
+
     //****************************************************************************************************************************************************************************************************************************************
 
 
@@ -317,29 +952,13 @@ public class LoadDatabase {
      * @return 返回false创建失败, 返回true创建成功.
      */
     public boolean createTable (String tableName, Field... fields) {
-        // 拼接SQL语句
-        StringBuffer sql = new StringBuffer();
-        // 创建表语法
-        sql.append("create table ");
-        // 判断是否创建过
-        sql.append("if not exists ");
-        // 表名
-        sql.append(tableName);
-        //拼接列定义
-        sql.append("(");
-        for (int i = 0; i < fields.length; i++) {
-            // 将每一个列定义拼接上去
-            sql.append(fields[i]);
-            // 拼接最后一个列定义时不需要拼接 ","
-            if (i == fields.length - 1) {
-                continue;
-            }
-            // 每个列定义之间用 "," 隔开
-            sql.append(",");
-        }
-        sql.append(");");
         // 执行sql语句
-        return executeUpdate(sql.toString(), "ddl");
+        long start = metrics.start();
+        boolean success = update(databaseName, Field.createTableSql(tableName, fields), "ddl");
+        metadataCache.invalidate(databaseName, tableName);
+        invalidateResultCache(databaseName, tableName);
+        metrics.record(Operation.CREATE_TABLE, tableName, start, success);
+        return success;
     }
 
     /**
@@ -377,7 +996,72 @@ public class LoadDatabase {
         }
         sql.append(");");
         // 执行sql语句
-        return executeUpdate(sql.toString(), "ddl");
+        long start = metrics.start();
+        boolean success = update(databaseName, sql.toString(), "ddl");
+        metadataCache.invalidate(databaseName, tableName);
+        invalidateResultCache(databaseName, tableName);
+        metrics.record(Operation.CREATE_TABLE, tableName, start, success);
+        return success;
+    }
+
+    /**
+     * 生成把已有的表修改成列定义的SQL语句,不执行,不删除列定义中没有的列
+     *
+     * @param tableName 表名
+     * @param fields    列定义
+     * @return 返回合并后的alter table语句, 表不存在时返回建表语句,不需要修改时返回null
+     */
+    public String diffTable (String tableName, Field... fields) {
+        return diffTable(tableName, false, fields);
+    }
+
+    /**
+     * 生成把已有的表修改成列定义的SQL语句,不执行<br/>
+     * 比较前会重新读取表结构,不使用缓存的表结构.
+     *
+     * @param tableName   表名
+     * @param dropColumns 是否删除列定义中没有的列
+     * @param fields      列定义
+     * @return 返回合并后的alter table语句, 表不存在时返回建表语句,不需要修改时返回null
+     */
+    public String diffTable (String tableName, boolean dropColumns, Field... fields) {
+        if (Objects.isNull(fields) || fields.length == 0) {
+            throw new NullPointerException("列定义为空了");
+        }
+        return SchemaDiff.diff(refreshTableMetadata(databaseName, tableName), tableName, fields, dropColumns);
+    }
+
+    /**
+     * 把已有的表修改成列定义,只执行需要的修改,不删除列定义中没有的列;表不存在时创建表
+     *
+     * @param tableName 表名
+     * @param fields    列定义
+     * @return 返回false修改失败, 返回true修改成功或者不需要修改
+     */
+    public boolean alterTable (String tableName, Field... fields) {
+        return alterTable(tableName, false, fields);
+    }
+
+    /**
+     * 把已有的表修改成列定义,所有修改合并成一条alter table语句执行;表不存在时创建表
+     *
+     * @param tableName   表名
+     * @param dropColumns 是否删除列定义中没有的列
+     * @param fields      列定义
+     * @return 返回false修改失败, 返回true修改成功或者不需要修改
+     */
+    public boolean alterTable (String tableName, boolean dropColumns, Field... fields) {
+        long start = metrics.start();
+        String sql = diffTable(tableName, dropColumns, fields);
+        if (Objects.isNull(sql)) {
+            return true;
+        }
+        // alter table复制数据时返回复制的行数,不能按照ddl判断是否成功
+        boolean success = executeUpdateCount(databaseName, sql, null) != Statement.EXECUTE_FAILED;
+        metadataCache.invalidate(databaseName, tableName);
+        invalidateResultCache(databaseName, tableName);
+        metrics.record(Operation.ALTER_TABLE, tableName, start, success);
+        return success;
     }
 
     /**
@@ -393,7 +1077,12 @@ public class LoadDatabase {
         sql.append("drop table if not exists ");
         // 删除那个表
         sql.append(tableName + ";");
-        return executeUpdate(sql.toString(), "ddl");
+        long start = metrics.start();
+        boolean success = update(databaseName, sql.toString(), "ddl");
+        metadataCache.invalidate(databaseName, tableName);
+        invalidateResultCache(databaseName, tableName);
+        metrics.record(Operation.DROP_TABLE, tableName, start, success);
+        return success;
     }
 
     /**
@@ -404,44 +1093,175 @@ public class LoadDatabase {
      * @return 返回false查询失败, 返回true查询成功
      */
     public boolean inquireTable (String databaseName, String tableName) {
-        String log = loadDatabaseName + "->\n" + "inquireTable (String databaseName, String tableName)->\n";
+        long start = metrics.start();
         if (!useDatabase(databaseName)) {
-            Log.outRedLn(log + "数据库: " + databaseName + "使用失败,请检查操作");
+            LOGGER.error("--> inquireTable (String databaseName, String tableName): 数据库: {}使用失败,请检查操作", databaseName);
+            metrics.record(Operation.QUERY, tableName, start, false);
             return false;
         }
         // 拼接SQL语句
         // 查询语法
         String sql = "select * from " + tableName + ";";
         // 执行sql查询语句
+        StringBuilder builder = new StringBuilder();
+        long rows = forEachQuery(databaseName, sql, row -> {
+            // 每一行复用同一个StringBuilder
+            builder.setLength(0);
+            builder.append("{ ");
+            for (int i = 1; i <= row.getColumnCount(); i++) {
+                builder.append(row.getColumnName(i)).append(": ").append(row.getString(i)).append("    ");
+            }
+            builder.append("}");
+            System.out.println(builder);
+            return true;
+        });
+        metrics.record(Operation.QUERY, tableName, start, rows >= 0);
+        if (rows < 0) {
+            LOGGER.error("--> inquireTable(String databaseName, String tableName): 查询出现异常,可能找不到对应的 \"{}\" 数据库,或者找不到对应的 \"{}\" 数据表找不到,请检查信息", databaseName, tableName);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 逐行遍历当前使用的数据库中指定表的数据,结果集不会全部读入内存
+     *
+     * @param tableName 表名
+     * @param consumer  每一行的回调
+     * @return 返回遍历的行数, 查询失败返回-1
+     */
+    public long forEachRow (String tableName, RowConsumer consumer) {
+        return forEachRow(databaseName, tableName, consumer);
+    }
+
+    /**
+     * 逐行遍历指定数据库中指定表的数据<br/>
+     * 使用只能向前移动的只读结果集,MySQL数据库默认使用流式读取,遍历千万行的表也只占用固定的内存;<br/>
+     * 遍历期间会一直占用一个连接,流式读取时提前停止遍历,驱动仍会读完剩余的数据.
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @param consumer     每一行的回调
+     * @return 返回遍历的行数, 查询失败返回-1
+     */
+    public long forEachRow (String databaseName, String tableName, RowConsumer consumer) {
+        if (Objects.isNull(tableName) || tableName.isEmpty()) {
+            throw new NullPointerException("表名为空了");
+        }
+        long start = metrics.start();
+        long rows = forEachQuery(databaseName, "select * from " + tableName, consumer);
+        metrics.record(Operation.QUERY, tableName, start, rows >= 0);
+        if (rows < 0) {
+            LOGGER.error("--> forEachRow (String databaseName, String tableName, RowConsumer consumer): 查询出现异常,可能找不到对应的 \"{}\" 数据库,或者找不到对应的 \"{}\" 数据表找不到,请检查信息", databaseName, tableName);
+        }
+        return rows;
+    }
+
+    /**
+     * 把指定表的数据导出成一个JSON数组,每一行是一个以列名为键的对象<br/>
+     * 数据通过只能向前移动的结果集逐行读取,直接写入fastjson的SerializeWriter,导出任意大的表也只占用固定的内存.
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @param out          输出流,以UTF-8编码写出,导出结束后不会关闭
+     * @return 返回导出的行数, 导出失败返回-1,此时输出流中可能已经写出了部分数据
+     */
+    public long exportJson (String databaseName, String tableName, OutputStream out) {
+        return export(databaseName, tableName, out, false);
+    }
+
+    /**
+     * 把指定表的数据导出成NDJSON,每一行是一个以列名为键的对象,以'\n'结尾
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @param out          输出流,以UTF-8编码写出,导出结束后不会关闭
+     * @return 返回导出的行数, 导出失败返回-1,此时输出流中可能已经写出了部分数据
+     */
+    public long exportNdjson (String databaseName, String tableName, OutputStream out) {
+        return export(databaseName, tableName, out, true);
+    }
+
+    /**
+     * 把指定表的数据导出成JSON
+     *
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @param out          输出流
+     * @param ndjson       为true时导出NDJSON, 为false时导出JSON数组
+     * @return 返回导出的行数, 导出失败返回-1
+     */
+    private long export (String databaseName, String tableName, OutputStream out, boolean ndjson) {
+        if (Objects.isNull(tableName) || tableName.isEmpty()) {
+            throw new NullPointerException("表名为空了");
+        }
+        if (Objects.isNull(out)) {
+            throw new NullPointerException("输出流为空了");
+        }
+        long start = metrics.start();
+        JsonExport export = new JsonExport(out, ndjson);
+        long rows;
         try {
-            ResultSet resultSet = getStatement().executeQuery(sql);
-            resultSet.beforeFirst();
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            while (resultSet.next()) {
-                StringBuilder builder = new StringBuilder();
-                builder.append("{ ");
-                for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                    String columnName = metaData.getColumnName(i);
-                    String str = resultSet.getString(columnName);
-                    builder.append(columnName + ": " + str + "    ");
+            rows = forEachQuery(databaseName, "select * from " + tableName, export);
+            if (rows >= 0) {
+                export.finish();
+            } else {
+                LOGGER.error("--> export (String databaseName, String tableName, OutputStream out, boolean ndjson): 查询出现异常,可能找不到对应的 \"{}\" 数据库,或者找不到对应的 \"{}\" 数据表找不到,请检查信息", databaseName, tableName);
+            }
+        } catch (IOException | JSONException e) {
+            LOGGER.error("--> export (String databaseName, String tableName, OutputStream out, boolean ndjson): 写出第{}行时出现异常: {}", export.getRows() + 1, e);
+            rows = -1;
+        } finally {
+            export.close();
+        }
+        metrics.record(Operation.QUERY, tableName, start, rows >= 0);
+        return rows;
+    }
+
+    /**
+     * 执行查询语句并逐行遍历结果集
+     *
+     * @param dbName   数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql      查询语句
+     * @param consumer 每一行的回调
+     * @return 返回遍历的行数, 查询失败返回-1
+     */
+    private long forEachQuery (String dbName, String sql, RowConsumer consumer) {
+        try {
+            PooledConnection pooled = borrowConnection(dbName);
+            try (Statement statement = pooled.getConnection().createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // MySQL驱动只有在fetchSize为Integer.MIN_VALUE时才逐行流式读取
+                boolean mysql = connectionPool.getSqlUrl().startsWith("jdbc:mysql:");
+                statement.setFetchSize(mysql && streamingResults ? Integer.MIN_VALUE : fetchSize);
+                try (ResultSet resultSet = statement.executeQuery(sql)) {
+                    RowCursor cursor = new RowCursor(resultSet);
+                    while (cursor.next()) {
+                        if (!consumer.accept(cursor)) {
+                            break;
+                        }
+                    }
+                    return cursor.getRowNumber();
                 }
-                builder.append("}");
-                System.out.println(builder.toString());
+            } catch (SQLException e) {
+                pooled.checkFailure(e);
+                throw e;
+            } finally {
+                pooled.release();
             }
         } catch (SQLException throwables) {
-            System.err.println(loadDatabaseName + "--> inquireTable(String databaseName, String tableName): 查询出现异常,可能找不到对应的 \"" + databaseName + "\" 数据库,或者找不到对应的 \"" + tableName + "\" 数据表找不到,请检查信息");
-            return false;
+            return -1;
         }
-        return true;
     }
 
     /**
-     * 返回Connection连接
+     * 从连接池借出一个Connection连接
      *
-     * @return 返回Connection连接
+     * @return 返回Connection连接, 使用完毕后必须调用close ( )方法,关闭时连接会归还到连接池
+     * @throws SQLException 1.LoadDatabase实例的Connection未连接数据库<br/>
+     *                      2.借出连接超时
      */
-    public Connection getConnection ( ) {
-        return connection;
+    public Connection getConnection ( ) throws SQLException {
+        return borrowConnection(databaseName).asConnection();
     }
 
     /**
@@ -449,24 +1269,126 @@ public class LoadDatabase {
      *
      * @param databaseName 数据库名
      * @param tableName    表名
-     * @return 返回ResultSet结果集, 返回null没有查询到
+     * @return 返回ResultSet结果集, 返回null没有查询到;结果集已经全部读入内存,不占用连接
      */
     public ResultSet inquireResultSet (String databaseName, String tableName) {
-        String log = loadDatabaseName + "->\n" + "inquireResultSet (String databaseName, String tableName)->\n";
+        long start = metrics.start();
         if (!useDatabase(databaseName)) {
-            Log.outRedLn(log + "数据库: " + databaseName + "使用失败,请检查操作");
+            LOGGER.error("--> inquireResultSet (String databaseName, String tableName): 数据库: {}使用失败,请检查操作", databaseName);
+            metrics.record(Operation.QUERY, tableName, start, false);
             return null;
         }
         // 拼接SQL语句
         // 查询语法
         String sql = "select * from " + tableName + ";";
+        ResultCache cache = resultCache;
+        long generation = 0;
+        if (!Objects.isNull(cache)) {
+            CachedRowSet cached = cache.get(databaseName, sql);
+            if (!Objects.isNull(cached)) {
+                metrics.record(Operation.QUERY, tableName, start, true);
+                return cached;
+            }
+            generation = cache.getGeneration();
+        }
         try {
-            return getStatement().executeQuery(sql);
+            PooledConnection pooled = borrowConnection(databaseName);
+            try (Statement statement = pooled.getConnection().createStatement();
+                 ResultSet resultSet = statement.executeQuery(sql)) {
+                // 结果集读入CachedRowSet后连接就可以归还到连接池
+                CachedRowSet rowSet = getRowSetFactory().createCachedRowSet();
+                rowSet.populate(resultSet);
+                if (!Objects.isNull(cache)) {
+                    cache.put(databaseName, tableName, sql, rowSet, generation);
+                }
+                metrics.record(Operation.QUERY, tableName, start, true);
+                return rowSet;
+            } catch (SQLException e) {
+                pooled.checkFailure(e);
+                throw e;
+            } finally {
+                pooled.release();
+            }
         } catch (SQLException throwables) {
             // throwables.printStackTrace();
+            metrics.record(Operation.QUERY, tableName, start, false);
+            return null;
+        }
+
+    }
+
+    /**
+     * 查询指定表的所有数据并按列名转换成指定类的对象,不需要逐个单元格按列名取值
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @param type         目标类,必须有无参构造器
+     * @param <T>          目标类的类型
+     * @return 返回转换结果, 查询失败返回null
+     * @throws IllegalArgumentException 目标类没有无参构造器或者无法访问
+     */
+    public <T> List<T> inquireList (String databaseName, String tableName, Class<T> type) throws IllegalArgumentException {
+        return inquireList(databaseName, tableName, RowMapper.of(type));
+    }
+
+    /**
+     * 查询指定表的所有数据并通过映射器转换成对象,结果集逐行读取,不经过CachedRowSet
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @param mapper       每一行的映射器
+     * @param <T>          转换结果的类型
+     * @return 返回转换结果, 查询失败返回null
+     */
+    public <T> List<T> inquireList (String databaseName, String tableName, RowMapper<T> mapper) {
+        if (Objects.isNull(tableName) || tableName.isEmpty()) {
+            throw new NullPointerException("表名为空了");
+        }
+        long start = metrics.start();
+        List<T> list = new ArrayList<>();
+        long rows = forEachQuery(databaseName, "select * from " + tableName, row -> list.add(mapper.map(row)));
+        metrics.record(Operation.QUERY, tableName, start, rows >= 0);
+        if (rows < 0) {
+            LOGGER.error("--> inquireList (String databaseName, String tableName, RowMapper<T> mapper): 查询出现异常,可能找不到对应的 \"{}\" 数据库,或者找不到对应的 \"{}\" 数据表找不到,请检查信息", databaseName, tableName);
             return null;
         }
+        return list;
+    }
 
+    /**
+     * 查询指定表的所有数据并按列保存,用于在内存中对大量行做扫描、过滤和聚合<br/>
+     * 整数和小数保存在基本类型数组中,字符串字典编码,占用的内存远小于CachedRowSet或者每行一个Map.
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @return 返回列式结果, 查询失败返回null
+     */
+    public ColumnarResult inquireColumnar (String databaseName, String tableName) {
+        if (Objects.isNull(tableName) || tableName.isEmpty()) {
+            throw new NullPointerException("表名为空了");
+        }
+        long start = metrics.start();
+        ColumnarBuilder builder = new ColumnarBuilder();
+        long rows = forEachQuery(databaseName, "select * from " + tableName, builder);
+        metrics.record(Operation.QUERY, tableName, start, rows >= 0);
+        if (rows < 0) {
+            LOGGER.error("--> inquireColumnar (String databaseName, String tableName): 查询出现异常,可能找不到对应的 \"{}\" 数据库,或者找不到对应的 \"{}\" 数据表找不到,请检查信息", databaseName, tableName);
+            return null;
+        }
+        return builder.build();
+    }
+
+    /**
+     * 获取创建CachedRowSet的工厂
+     *
+     * @return 返回RowSetFactory
+     * @throws SQLException 工厂创建失败
+     */
+    private static RowSetFactory getRowSetFactory ( ) throws SQLException {
+        if (Objects.isNull(rowSetFactory)) {
+            rowSetFactory = RowSetProvider.newFactory();
+        }
+        return rowSetFactory;
     }
 
 
@@ -477,40 +1399,124 @@ public class LoadDatabase {
      * @param tableName    指定表
      */
     public void inquireTableMessage (String databaseName, String tableName) {
-        String sqlUseDdta = "use " + databaseName + ";";
-        // 拼接SQL语句
-        // 查询语法
-        String sql = "select * from " + tableName + ";";
-        // 执行sql查询语句
-        try {
-            if (!(Objects.isNull(databaseName) || databaseName.isEmpty())) {
-                executeUpdate(sqlUseDdta, "ddl");
-            }
-            ResultSet resultSet = getStatement().executeQuery(sql);
-            resultSet.beforeFirst();
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            StringBuilder builder = new StringBuilder();
-            StringBuilder line = null;
-            for (int i = 1; i <= metaData.getColumnCount(); i++) {
-                String columnName = metaData.getColumnName(i);
-//                String schemaName = metaData.getSchemaName(i);
-                String columnTypeName = metaData.getColumnTypeName(i);
-                int precision = metaData.getPrecision(i);
-                int num = 1;
-                if (Objects.isNull(line)) {
-                    line = new StringBuilder();
-                    while (num <= -5 + (3 * (columnName.length() + columnTypeName.length() + /*schemaName.length() +*/ (precision + "").length()))) {
-                        line.append("—");
-                        num++;
-                    }
+        long start = metrics.start();
+        // 表结构来自缓存,不需要查询表中的数据
+        TableMetadata metadata = getTableMetadata(databaseName, tableName);
+        if (Objects.isNull(metadata)) {
+            metrics.record(Operation.QUERY, tableName, start, false);
+            LOGGER.error("--> inquireTableMessage(String databaseName, String tableName): 查询出现异常,可能找不到对应的 \"{}\" 数据库,或者找不到对应的 \"{}\" 数据表找不到,请检查信息", databaseName, tableName);
+            return;
+        }
+        metrics.record(Operation.QUERY, tableName, start, true);
+        StringBuilder builder = new StringBuilder();
+        StringBuilder line = null;
+        for (ColumnMetadata column : metadata.getColumns()) {
+            String columnName = column.getName();
+            String columnTypeName = column.getTypeName();
+            int precision = column.getPrecision();
+            int num = 1;
+            if (Objects.isNull(line)) {
+                line = new StringBuilder();
+                while (num <= -5 + (3 * (columnName.length() + columnTypeName.length() + (precision + "").length()))) {
+                    line.append("—");
+                    num++;
                 }
-                builder.append(line);
-                builder.append("\n" + i + ".列名: " + columnName + "     类型: " + columnTypeName + /*"     模式: " + schemaName +*/ "     数据长度: " + precision + "\n");
             }
             builder.append(line);
-            System.out.println(builder.toString());
+            builder.append("\n" + column.getPosition() + ".列名: " + columnName + "     类型: " + columnTypeName + "     数据长度: " + precision + "\n");
+        }
+        builder.append(line);
+        System.out.println(builder.toString());
+    }
+
+    /**
+     * 获取数据表的结构信息,第一次获取时通过DatabaseMetaData读取,之后从缓存中获取<br/>
+     * 通过本对象的createTable、createTableKey、deleteTable修改表时缓存会自动失效,<br/>
+     * 通过executeUpdate(...)执行alter table等语句后需要调用refreshTableMetadata(...)刷新.
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @return 返回表结构, 表不存在或者读取失败时返回null
+     */
+    public TableMetadata getTableMetadata (String databaseName, String tableName) {
+        if (Objects.isNull(tableName) || tableName.isEmpty()) {
+            throw new NullPointerException("表名为空了");
+        }
+        String dbName = Objects.isNull(databaseName) || databaseName.isEmpty() ? this.databaseName : databaseName;
+        if (!Objects.isNull(dbName)) {
+            TableMetadata metadata = metadataCache.getIfPresent(dbName, tableName);
+            if (!Objects.isNull(metadata)) {
+                return metadata;
+            }
+        }
+        try {
+            PooledConnection pooled = borrowConnection(dbName);
+            try {
+                return metadataCache.get(pooled.getConnection(), dbName, tableName);
+            } catch (SQLException e) {
+                pooled.checkFailure(e);
+                throw e;
+            } finally {
+                pooled.release();
+            }
         } catch (SQLException throwables) {
-            System.err.println(loadDatabaseName + "--> inquireTableMessage(String databaseName, String tableName): 查询出现异常,可能找不到对应的 \"" + databaseName + "\" 数据库,或者找不到对应的 \"" + tableName + "\" 数据表找不到,请检查信息");
+            LOGGER.error("--> getTableMetadata (String databaseName, String tableName): 读取 \"{}\" 数据表的结构信息失败: {}", tableName, throwables.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 丢弃缓存的表结构并重新读取
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @return 返回表结构, 表不存在或者读取失败时返回null
+     */
+    public TableMetadata refreshTableMetadata (String databaseName, String tableName) {
+        String dbName = Objects.isNull(databaseName) || databaseName.isEmpty() ? this.databaseName : databaseName;
+        metadataCache.invalidate(dbName, tableName);
+        return getTableMetadata(dbName, tableName);
+    }
+
+    /**
+     * 获取数据表结构信息的缓存
+     *
+     * @return 返回缓存
+     */
+    public MetadataCache getMetadataCache ( ) {
+        return metadataCache;
+    }
+
+    /**
+     * 设置inquireResultSet(...)方法的查询结果缓存<br/>
+     * InsertInto、Update、Delete、BulkLoad提交以及createTable(...)、deleteTable(...)会使对应表的结果失效,executeUpdate(...)会清空缓存;<br/>
+     * 直接调用executePreparedUpdate(...)、executeUpdateCount(...)、executeBatch(...)修改数据后,需要调用invalidateResultCache(...)方法.
+     *
+     * @param resultCache 查询结果缓存,为null时不缓存
+     */
+    public void setResultCache (ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * 获取查询结果缓存
+     *
+     * @return 返回查询结果缓存, 没有设置时返回null
+     */
+    public ResultCache getResultCache ( ) {
+        return resultCache;
+    }
+
+    /**
+     * 使指定表的缓存的查询结果失效,没有设置查询结果缓存时不做任何事
+     *
+     * @param databaseName 数据库名,为null时匹配所有数据库
+     * @param tableName    表名,为null时匹配所有表
+     */
+    public void invalidateResultCache (String databaseName, String tableName) {
+        ResultCache cache = resultCache;
+        if (!Objects.isNull(cache)) {
+            cache.invalidate(databaseName, tableName);
         }
     }
 
@@ -526,9 +1532,19 @@ public class LoadDatabase {
 
 
     /**
-     * 需要优化
+     * 创建批量导入数据的BulkLoad对象
      *
-     * @return
+     * @return 返回BulkLoad对象
+     */
+    public BulkLoad createBulkLoad ( ) {
+        return new BulkLoad(this);
+    }
+
+
+    /**
+     * 创建删除数据的Delete对象
+     *
+     * @return 返回Delete对象
      */
     public Delete createDelete ( ) {
         return new Delete(this);
@@ -544,21 +1560,79 @@ public class LoadDatabase {
         return new Update(this);
     }
 
+    /**
+     * 打开一个组提交的写会话,会话独占一个连接直到调用它的close ( )方法<br/>
+     * 把会话传给InsertInto、Update、Delete的setWriteSession (WriteSession writeSession)后,它们的提交在会话中执行.
+     *
+     * @param dbName         数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param maxStatements  累计多少条语句提交一次
+     * @param maxDelayMillis 第一条未提交的语句最多等待多少毫秒后提交,为0时只按条数提交
+     * @return 返回写会话
+     * @throws SQLException 1.LoadDatabase实例的Connection未连接数据库<br/>
+     *                      2.借出连接超时或者关闭自动提交失败
+     */
+    public WriteSession openWriteSession (String dbName, int maxStatements, long maxDelayMillis) throws SQLException {
+        PooledConnection pooled = borrowConnection(dbName);
+        try {
+            return new WriteSession(this, pooled, maxStatements, maxDelayMillis);
+        } catch (SQLException | RuntimeException e) {
+            pooled.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 创建LoadDatabase的异步门面,使用完毕后需要调用它的close ( )方法关闭线程池
+     *
+     * @param virtualThreads 为true时在JDK21及以上版本使用虚拟线程
+     * @return 返回AsyncLoadDatabase对象
+     */
+    public AsyncLoadDatabase createAsync (boolean virtualThreads) {
+        return new AsyncLoadDatabase(this, virtualThreads);
+    }
+
 
     /**
-     * 关闭MySQL数据库Connection连接
+     * 获取当前使用的数据库名
+     *
+     * @return 返回当前使用的数据库名,没有调用过useDatabase (String dbName)方法时返回null
+     */
+    public String getDatabaseName ( ) {
+        return databaseName;
+    }
+
+    /**
+     * 获取连接池
+     *
+     * @return 返回连接池,未连接数据库时返回null
+     */
+    public ConnectionPool getConnectionPool ( ) {
+        return connectionPool;
+    }
+
+    /**
+     * 获取各个操作的耗时和成功/失败次数统计,可以调用它的registerMBean (String name)方法注册到JMX
+     *
+     * @return 返回统计对象
+     */
+    public LoadDatabaseMetrics getMetrics ( ) {
+        return metrics;
+    }
+
+    /**
+     * 关闭MySQL数据库连接池,已经借出的连接会在归还时关闭
      */
     public void close ( ) {
-        try {
-            if (!Objects.isNull(this.statement)) {
-                this.statement.close();
-            }
-            if (!Objects.isNull(this.connection)) {
-                this.connection.close();
-            }
-            isAlready = false;
-        } catch (SQLException throwables) {
-            throwables.printStackTrace();
+        isAlready = false;
+        // 关闭后不再延迟连接
+        lazy = false;
+        synchronized (this) {
+            warmup = null;
+            connecting = null;
+        }
+        metrics.unregisterMBean();
+        if (!Objects.isNull(this.connectionPool)) {
+            this.connectionPool.close();
         }
     }
 }
@@ -0,0 +1,137 @@
+package src.com.ych.whimsy.mysql;
+
+import src.com.ych.whimsy.mysql.metrics.Operation;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 写会话中已经执行、还未提交的一条语句,创建后不能修改<br/>
+ * 这一组语句被回滚时,写会话把它们交给回滚监听器,调用方可以据此知道哪些写入丢失了,需要重新执行.
+ */
+public final class PendingWrite {
+
+    /**
+     * 操作类型,不是InsertInto、Update或者Delete提交的语句为null
+     */
+    private final Operation operation;
+
+    /**
+     * 数据库名,为null时是会话当前的数据库
+     */
+    private final String databaseName;
+
+    /**
+     * 表名,不知道修改了哪张表时为null
+     */
+    private final String tableName;
+
+    /**
+     * SQL模板或者SQL语句
+     */
+    private final String sql;
+
+    /**
+     * 参数,为null时说明SQL语句中没有参数
+     */
+    private final Object[] parameters;
+
+    /**
+     * 执行时返回的受影响的行数
+     */
+    private final int count;
+
+    /**
+     * LoadDatabaseMetrics.start ( )方法返回的开始时间
+     */
+    private final long start;
+
+    /**
+     * 创建一条未提交的语句
+     *
+     * @param operation    操作类型
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @param sql          SQL模板或者SQL语句
+     * @param parameters   参数
+     * @param count        执行时返回的受影响的行数
+     * @param start        开始时间
+     */
+    PendingWrite (Operation operation, String databaseName, String tableName, String sql, Object[] parameters, int count, long start) {
+        this.operation = operation;
+        this.databaseName = databaseName;
+        this.tableName = tableName;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.count = count;
+        this.start = start;
+    }
+
+    /**
+     * 获取操作类型
+     *
+     * @return 返回操作类型, 不是InsertInto、Update或者Delete提交的语句返回null
+     */
+    public Operation getOperation ( ) {
+        return operation;
+    }
+
+    /**
+     * 获取数据库名
+     *
+     * @return 返回数据库名, 为null时是会话当前的数据库
+     */
+    public String getDatabaseName ( ) {
+        return databaseName;
+    }
+
+    /**
+     * 获取表名
+     *
+     * @return 返回表名, 不知道修改了哪张表时返回null
+     */
+    public String getTableName ( ) {
+        return tableName;
+    }
+
+    /**
+     * 获取SQL模板或者SQL语句
+     *
+     * @return 返回SQL模板或者SQL语句
+     */
+    public String getSql ( ) {
+        return sql;
+    }
+
+    /**
+     * 获取参数
+     *
+     * @return 返回参数的副本, SQL语句中没有参数时返回null
+     */
+    public Object[] getParameters ( ) {
+        return Objects.isNull(parameters) ? null : parameters.clone();
+    }
+
+    /**
+     * 获取执行时返回的受影响的行数,被回滚后这些行已经不存在
+     *
+     * @return 返回受影响的行数
+     */
+    public int getCount ( ) {
+        return count;
+    }
+
+    /**
+     * 获取开始时间
+     *
+     * @return 返回LoadDatabaseMetrics.start ( )方法返回的开始时间
+     */
+    long getStart ( ) {
+        return start;
+    }
+
+    @Override
+    public String toString ( ) {
+        return Objects.isNull(parameters) ? sql : sql + " " + Arrays.toString(parameters);
+    }
+}
@@ -0,0 +1,518 @@
+package src.com.ych.whimsy.mysql;
+
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+import src.com.ych.whimsy.mysql.column.ColumnarResult;
+import src.com.ych.whimsy.mysql.meta.TableMetadata;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 读写分离的门面,持有一个主库和多个从库的LoadDatabase对象<br/>
+ * 1.写操作和DDL都在主库上执行;读操作发送到当前未完成请求最少的从库,请求数相同时轮流选择.<br/>
+ * 2.读自己的写:一个线程写主库之后的stickyWindow毫秒内,该线程的读操作都发送到主库,避免从库复制延迟读到旧数据.<br/>
+ * 3.从库查询出现异常时改为查询主库,该从库在RETRY_DELAY毫秒内不再被选择;没有可用的从库时读主库.<br/>
+ * 4.通过getPrimary ( )取得的InsertInto、Update、WriteSession等对象写入后,需要调用markWrite ( )才能读到自己的写.<br/>
+ * 5.表结构总是从主库读取,从库可能还没有执行主库上的DDL.<br/>
+ * 6.主库上的写操作会使从库中对应的查询结果缓存和表结构缓存失效,stickyWindow毫秒后再失效一次,<br/>
+ * 丢弃从库在复制完成之前缓存的旧数据.
+ */
+public class RoutingLoadDatabase {
+
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(RoutingLoadDatabase.class);
+
+    /**
+     * 默认的读自己的写的时间窗口,单位毫秒
+     */
+    public static final long DEFAULT_STICKY_WINDOW = 1_000L;
+
+    /**
+     * 从库查询失败后多久之内不再选择该从库,单位毫秒
+     */
+    private static final long RETRY_DELAY = 5_000L;
+
+    /**
+     * 所有门面共用的延迟失效线程
+     */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "whimsy-routing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 主库
+     */
+    private final LoadDatabase primary;
+
+    /**
+     * 从库
+     */
+    private final LoadDatabase[] replicas;
+
+    /**
+     * 每个从库当前未完成的请求数
+     */
+    private final AtomicInteger[] outstanding;
+
+    /**
+     * 每个从库恢复可用的时间,单位毫秒,为0时可用
+     */
+    private final AtomicLongArray downUntil;
+
+    /**
+     * 请求数相同时开始比较的从库下标,每次选择后加一
+     */
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * 每个线程最后一次写主库的时间,单位毫秒
+     */
+    private final ThreadLocal<long[]> lastWrite = ThreadLocal.withInitial(( ) -> new long[1]);
+
+    /**
+     * 读自己的写的时间窗口,单位毫秒
+     */
+    private volatile long stickyWindow = DEFAULT_STICKY_WINDOW;
+
+    /**
+     * 发送到主库的读操作次数
+     */
+    private final AtomicLong primaryReads = new AtomicLong();
+
+    /**
+     * 发送到从库的读操作次数
+     */
+    private final AtomicLong replicaReads = new AtomicLong();
+
+    /**
+     * 创建读写分离的门面
+     *
+     * @param primary  已经连接数据库的主库LoadDatabase对象
+     * @param replicas 已经连接数据库的从库LoadDatabase对象,可以没有
+     * @throws NullPointerException 主库或者某个从库为空了
+     */
+    public RoutingLoadDatabase (LoadDatabase primary, LoadDatabase... replicas) throws NullPointerException {
+        if (Objects.isNull(primary)) {
+            throw new NullPointerException("主库为空了");
+        }
+        this.primary = primary;
+        this.replicas = Objects.isNull(replicas) ? new LoadDatabase[0] : replicas.clone();
+        this.outstanding = new AtomicInteger[this.replicas.length];
+        for (int i = 0; i < this.replicas.length; i++) {
+            if (Objects.isNull(this.replicas[i])) {
+                throw new NullPointerException("第" + (i + 1) + "个从库为空了");
+            }
+            outstanding[i] = new AtomicInteger();
+        }
+        this.downUntil = new AtomicLongArray(this.replicas.length);
+    }
+
+    /**
+     * 设置读自己的写的时间窗口,应该大于从库的复制延迟;从库的缓存在写之后经过这段时间再失效一次
+     *
+     * @param stickyWindow 时间窗口,单位毫秒,为0时写之后的读也发送到从库,从库的缓存只在写之后立即失效
+     * @throws IllegalArgumentException 时间窗口小于0
+     */
+    public void setStickyWindow (long stickyWindow) throws IllegalArgumentException {
+        if (stickyWindow < 0) {
+            throw new IllegalArgumentException("时间窗口不能小于0");
+        }
+        this.stickyWindow = stickyWindow;
+    }
+
+    /**
+     * 记录当前线程刚刚写过主库,之后stickyWindow毫秒内当前线程的读操作发送到主库
+     */
+    public void markWrite ( ) {
+        lastWrite.get()[0] = System.currentTimeMillis();
+    }
+
+    /**
+     * 切换主库和所有从库使用的数据库
+     *
+     * @param dbName 数据库名
+     * @return 返回false主库切换失败, 从库切换失败只记录日志,查询该从库失败时会改为查询主库
+     */
+    public boolean useDatabase (String dbName) {
+        for (int i = 0; i < replicas.length; i++) {
+            if (!replicas[i].useDatabase(dbName)) {
+                LOGGER.error("--> useDatabase (String dbName): 第{}个从库使用数据库 \"{}\" 失败", i + 1, dbName);
+            }
+        }
+        return primary.useDatabase(dbName);
+    }
+
+//--------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 在主库上执行DDL语句或者DML语句,从库的查询结果缓存全部失效
+     *
+     * @param sql      要执行的DDL语句或者DML语句
+     * @param ddlOrDml "ddl"或者"dml"
+     * @return 返回false执行失败, 返回true执行成功
+     */
+    public boolean executeUpdate (String sql, String ddlOrDml) {
+        return executeUpdate(null, sql, ddlOrDml);
+    }
+
+    /**
+     * 在主库的指定数据库上执行DDL语句或者DML语句,从库的查询结果缓存全部失效
+     *
+     * @param dbName   数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql      要执行的DDL语句或者DML语句
+     * @param ddlOrDml "ddl"或者"dml"
+     * @return 返回false执行失败, 返回true执行成功
+     */
+    public boolean executeUpdate (String dbName, String sql, String ddlOrDml) {
+        boolean success = primary.executeUpdate(dbName, sql, ddlOrDml);
+        afterWrite(null, null);
+        return success;
+    }
+
+    /**
+     * 在主库上执行带参数的DDL语句或者DML语句
+     *
+     * @param dbName     数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql        SQL模板,参数使用 ? 占位
+     * @param parameters 参数
+     * @param ddlOrDml   "ddl"或者"dml"
+     * @return 返回false执行失败, 返回true执行成功
+     */
+    public boolean executePreparedUpdate (String dbName, String sql, Object[] parameters, String ddlOrDml) {
+        boolean success = primary.executePreparedUpdate(dbName, sql, parameters, ddlOrDml);
+        markWrite();
+        return success;
+    }
+
+    /**
+     * 在主库上执行带参数的DML语句,并返回受影响的行数
+     *
+     * @param dbName     数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql        SQL模板,参数使用 ? 占位;参数为null时按照普通SQL语句执行
+     * @param parameters 参数,为null时说明SQL语句中没有参数
+     * @return 返回受影响的行数, 执行失败返回Statement.EXECUTE_FAILED
+     */
+    public int executeUpdateCount (String dbName, String sql, Object[] parameters) {
+        int count = primary.executeUpdateCount(dbName, sql, parameters);
+        markWrite();
+        return count;
+    }
+
+    /**
+     * 在主库上以JDBC批处理的方式执行同一个SQL模板的多组参数
+     *
+     * @param dbName    数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sql       SQL模板,参数使用 ? 占位
+     * @param rows      每一行的参数
+     * @param batchSize 每一批的行数
+     * @return 返回每一批受影响的行数, 执行失败的批次为Statement.EXECUTE_FAILED
+     */
+    public int[] executeBatch (String dbName, String sql, List<Object[]> rows, int batchSize) {
+        int[] counts = primary.executeBatch(dbName, sql, rows, batchSize);
+        markWrite();
+        return counts;
+    }
+
+    /**
+     * 在主库上以JDBC批处理的方式执行多条SQL语句
+     *
+     * @param dbName    数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param sqls      要执行的SQL语句
+     * @param batchSize 每一批的语句条数
+     * @return 返回每一批受影响的行数, 执行失败的批次为Statement.EXECUTE_FAILED
+     */
+    public int[] executeBatch (String dbName, List<String> sqls, int batchSize) {
+        int[] counts = primary.executeBatch(dbName, sqls, batchSize);
+        markWrite();
+        return counts;
+    }
+
+    /**
+     * 在主库上创建表
+     *
+     * @param tableName 表名
+     * @param fields    列定义
+     * @return 返回false创建失败, 返回true创建成功
+     */
+    public boolean createTable (String tableName, Field... fields) {
+        boolean success = primary.createTable(tableName, fields);
+        afterWrite(primary.getDatabaseName(), tableName);
+        return success;
+    }
+
+    /**
+     * 在主库上把表修改成列定义,不删除列定义中没有的列
+     *
+     * @param tableName 表名
+     * @param fields    列定义
+     * @return 返回false修改失败, 返回true修改成功或者不需要修改
+     */
+    public boolean alterTable (String tableName, Field... fields) {
+        boolean success = primary.alterTable(tableName, fields);
+        afterWrite(primary.getDatabaseName(), tableName);
+        return success;
+    }
+
+    /**
+     * 在主库上删除表
+     *
+     * @param tableName 表名
+     * @return 返回false删除失败, 返回true删除成功
+     */
+    public boolean deleteTable (String tableName) {
+        boolean success = primary.deleteTable(tableName);
+        afterWrite(primary.getDatabaseName(), tableName);
+        return success;
+    }
+
+//--------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 遍历表数据,从库查询失败时改为查询主库
+     *
+     * @param databaseName 指定数据库
+     * @param tableName    指定表
+     * @return 返回false查询失败, 返回true查询成功
+     */
+    public boolean inquireTable (String databaseName, String tableName) {
+        return read(db -> db.inquireTable(databaseName, tableName), success -> success);
+    }
+
+    /**
+     * 返回通过查询所有数据返回结果集,从库查询失败时改为查询主库
+     *
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @return 返回ResultSet结果集, 返回null没有查询到;结果集已经全部读入内存,不占用连接
+     */
+    public ResultSet inquireResultSet (String databaseName, String tableName) {
+        return read(db -> db.inquireResultSet(databaseName, tableName), Objects::nonNull);
+    }
+
+    /**
+     * 查询指定表的所有数据并通过映射器转换成对象,从库查询失败时改为查询主库
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @param mapper       每一行的映射器
+     * @param <T>          转换结果的类型
+     * @return 返回转换结果, 查询失败返回null
+     */
+    public <T> List<T> inquireList (String databaseName, String tableName, RowMapper<T> mapper) {
+        return read(db -> db.inquireList(databaseName, tableName, mapper), Objects::nonNull);
+    }
+
+    /**
+     * 查询指定表的所有数据并按列保存,从库查询失败时改为查询主库
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @return 返回列式结果, 查询失败返回null
+     */
+    public ColumnarResult inquireColumnar (String databaseName, String tableName) {
+        return read(db -> db.inquireColumnar(databaseName, tableName), Objects::nonNull);
+    }
+
+    /**
+     * 逐行遍历指定表的数据<br/>
+     * 回调可能已经处理了部分行,所以从库查询失败时不改为查询主库.
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @param consumer     每一行的回调
+     * @return 返回遍历的行数, 查询失败返回-1
+     */
+    public long forEachRow (String databaseName, String tableName, RowConsumer consumer) {
+        return read(db -> db.forEachRow(databaseName, tableName, consumer), null);
+    }
+
+    /**
+     * 打印指定数据库的指定表的结构信息,表结构从主库读取
+     *
+     * @param databaseName 指定数据库
+     * @param tableName    指定表
+     */
+    public void inquireTableMessage (String databaseName, String tableName) {
+        primaryReads.incrementAndGet();
+        primary.inquireTableMessage(databaseName, tableName);
+    }
+
+    /**
+     * 获取数据表的结构信息,表结构从主库读取<br/>
+     * 从库可能还没有执行主库上的DDL,读到的表结构会被缓存下来;表不存在时也不能和从库故障区分.
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param tableName    表名
+     * @return 返回表结构, 表不存在或者读取失败时返回null
+     */
+    public TableMetadata getTableMetadata (String databaseName, String tableName) {
+        primaryReads.incrementAndGet();
+        return primary.getTableMetadata(databaseName, tableName);
+    }
+
+//--------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 把读操作发送到主库或者未完成请求最少的从库
+     *
+     * @param query   在选中的LoadDatabase上执行的读操作
+     * @param success 判断读操作是否成功,只能在读操作出现SQLException时返回false,
+     *                不能把查询到的空结果当成失败;为null时从库失败也不改为查询主库
+     * @param <T>     读操作的结果类型
+     * @return 返回读操作的结果
+     */
+    private <T> T read (Function<LoadDatabase, T> query, Predicate<T> success) {
+        int index = readsPrimary() ? -1 : selectReplica();
+        if (index < 0) {
+            primaryReads.incrementAndGet();
+            return query.apply(primary);
+        }
+        replicaReads.incrementAndGet();
+        T result;
+        outstanding[index].incrementAndGet();
+        try {
+            result = query.apply(replicas[index]);
+        } finally {
+            outstanding[index].decrementAndGet();
+        }
+        if (Objects.isNull(success) || success.test(result)) {
+            return result;
+        }
+        LOGGER.error("--> read (...): 第{}个从库查询失败,改为查询主库,{}毫秒内不再选择该从库", index + 1, RETRY_DELAY);
+        downUntil.set(index, System.currentTimeMillis() + RETRY_DELAY);
+        primaryReads.incrementAndGet();
+        return query.apply(primary);
+    }
+
+    /**
+     * 判断当前线程的读操作是否需要发送到主库
+     *
+     * @return 返回true没有从库或者当前线程刚刚写过主库
+     */
+    private boolean readsPrimary ( ) {
+        if (replicas.length == 0) {
+            return true;
+        }
+        long window = stickyWindow;
+        return window > 0 && System.currentTimeMillis() - lastWrite.get()[0] < window;
+    }
+
+    /**
+     * 选择未完成请求最少的可用从库,请求数相同时从cursor开始轮流选择
+     *
+     * @return 返回从库下标, 所有从库都不可用时返回-1
+     */
+    private int selectReplica ( ) {
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(cursor.getAndIncrement(), replicas.length);
+        int selected = -1;
+        int least = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.length; i++) {
+            int index = (start + i) % replicas.length;
+            if (downUntil.get(index) > now) {
+                continue;
+            }
+            int requests = outstanding[index].get();
+            if (requests < least) {
+                least = requests;
+                selected = index;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 写主库之后记录写的时间,并使从库中被修改的表的缓存失效<br/>
+     * 从库复制完成之前的读可能又缓存了旧数据,所以stickyWindow毫秒后再失效一次.
+     *
+     * @param databaseName 数据库名,为null时匹配所有数据库
+     * @param tableName    表名,为null时匹配所有表
+     */
+    private void afterWrite (String databaseName, String tableName) {
+        markWrite();
+        invalidateReplicas(databaseName, tableName);
+        long window = stickyWindow;
+        if (window > 0 && replicas.length > 0) {
+            timer.schedule(( ) -> invalidateReplicas(databaseName, tableName), window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 使从库中被修改的表的查询结果缓存和表结构缓存失效
+     *
+     * @param databaseName 数据库名,为null时匹配所有数据库
+     * @param tableName    表名,为null时匹配所有表
+     */
+    private void invalidateReplicas (String databaseName, String tableName) {
+        for (LoadDatabase replica : replicas) {
+            replica.invalidateResultCache(databaseName, tableName);
+            if (Objects.isNull(tableName)) {
+                replica.getMetadataCache().clear();
+            } else {
+                replica.getMetadataCache().invalidate(databaseName, tableName);
+            }
+        }
+    }
+
+//--------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * 获取主库,通过主库创建的InsertInto、Update、BulkLoad、WriteSession等对象写入后需要调用markWrite ( )
+     *
+     * @return 返回主库
+     */
+    public LoadDatabase getPrimary ( ) {
+        return primary;
+    }
+
+    /**
+     * 获取从库
+     *
+     * @return 返回从库数组的副本
+     */
+    public LoadDatabase[] getReplicas ( ) {
+        return replicas.clone();
+    }
+
+    /**
+     * 获取发送到主库的读操作次数,包括读自己的写和从库失败后改为查询主库的次数
+     *
+     * @return 返回发送到主库的读操作次数
+     */
+    public long getPrimaryReads ( ) {
+        return primaryReads.get();
+    }
+
+    /**
+     * 获取发送到从库的读操作次数
+     *
+     * @return 返回发送到从库的读操作次数
+     */
+    public long getReplicaReads ( ) {
+        return replicaReads.get();
+    }
+
+    /**
+     * 关闭主库和所有从库的连接池
+     */
+    public void close ( ) {
+        for (LoadDatabase replica : replicas) {
+            replica.close();
+        }
+        primary.close();
+    }
+}
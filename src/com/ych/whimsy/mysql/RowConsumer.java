@@ -0,0 +1,20 @@
+package src.com.ych.whimsy.mysql;
+
+import java.sql.SQLException;
+
+/**
+ * 逐行访问查询结果的回调接口,配合LoadDatabase的forEachRow(...)方法使用<br/>
+ * 回调中拿到的RowCursor只在本次回调中有效,不能保存到回调之外.
+ */
+@FunctionalInterface
+public interface RowConsumer {
+
+    /**
+     * 访问一行数据
+     *
+     * @param row 当前行
+     * @return 返回true继续访问下一行, 返回false停止遍历
+     * @throws SQLException 读取数据出现异常
+     */
+    boolean accept (RowCursor row) throws SQLException;
+}
@@ -0,0 +1,251 @@
+package src.com.ych.whimsy.mysql;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 只能向前移动的行游标,包装了一个流式读取的ResultSet<br/>
+ * 列名、列类型在创建游标时只读取一次,按列名取值时先通过indexOf (String columnName)拿到列下标,<br/>
+ * 之后每一行都按下标取值,避免每个单元格都按列名查找.
+ */
+public class RowCursor {
+
+    /**
+     * 被包装的结果集
+     */
+    private final ResultSet resultSet;
+
+    /**
+     * 列名,下标从0开始
+     */
+    private final String[] columnNames;
+
+    /**
+     * 列的SQL类型,取值参考java.sql.Types,下标从0开始
+     */
+    private final int[] columnTypes;
+
+    /**
+     * 列是否是有符号数字,下标从0开始
+     */
+    private final boolean[] columnSigned;
+
+    /**
+     * 列名到列下标的映射,第一次按列名查找时创建
+     */
+    private Map<String, Integer> columnIndexes;
+
+    /**
+     * 当前行号,从1开始
+     */
+    private long rowNumber;
+
+    /**
+     * 创建一个行游标,读取结果集的列信息
+     *
+     * @param resultSet 结果集
+     * @throws SQLException 读取列信息出现异常
+     */
+    RowCursor (ResultSet resultSet) throws SQLException {
+        this.resultSet = resultSet;
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        this.columnNames = new String[columnCount];
+        this.columnTypes = new int[columnCount];
+        this.columnSigned = new boolean[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = metaData.getColumnLabel(i + 1);
+            columnTypes[i] = metaData.getColumnType(i + 1);
+            columnSigned[i] = metaData.isSigned(i + 1);
+        }
+    }
+
+    /**
+     * 移动到下一行
+     *
+     * @return 返回false没有下一行了
+     * @throws SQLException 读取数据出现异常
+     */
+    boolean next ( ) throws SQLException {
+        if (resultSet.next()) {
+            rowNumber++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取列数
+     *
+     * @return 返回列数
+     */
+    public int getColumnCount ( ) {
+        return columnNames.length;
+    }
+
+    /**
+     * 获取列名
+     *
+     * @param index 列下标,从1开始
+     * @return 返回列名
+     */
+    public String getColumnName (int index) {
+        return columnNames[index - 1];
+    }
+
+    /**
+     * 获取列的SQL类型
+     *
+     * @param index 列下标,从1开始
+     * @return 返回列的SQL类型, 取值参考java.sql.Types
+     */
+    public int getColumnType (int index) {
+        return columnTypes[index - 1];
+    }
+
+    /**
+     * 列是否是有符号数字,INT UNSIGNED等无符号列返回false
+     *
+     * @param index 列下标,从1开始
+     * @return 返回true是有符号数字
+     */
+    public boolean isSigned (int index) {
+        return columnSigned[index - 1];
+    }
+
+    /**
+     * 根据列名获取列下标,列名不区分大小写
+     *
+     * @param columnName 列名
+     * @return 返回列下标, 从1开始;没有找到该列返回-1
+     */
+    public int indexOf (String columnName) {
+        if (Objects.isNull(columnIndexes)) {
+            columnIndexes = new HashMap<>(columnNames.length * 2);
+            for (int i = columnNames.length - 1; i >= 0; i--) {
+                columnIndexes.put(columnNames[i].toLowerCase(), i + 1);
+            }
+        }
+        Integer index = columnIndexes.get(columnName.toLowerCase());
+        return Objects.isNull(index) ? -1 : index;
+    }
+
+    /**
+     * 获取列名数组,同一个游标的每一行返回同一个数组,不能修改
+     *
+     * @return 返回列名数组
+     */
+    String[] getColumnNames ( ) {
+        return columnNames;
+    }
+
+    /**
+     * 获取当前行号
+     *
+     * @return 返回当前行号, 从1开始
+     */
+    public long getRowNumber ( ) {
+        return rowNumber;
+    }
+
+    /**
+     * 获取当前行指定列的字符串值
+     *
+     * @param index 列下标,从1开始
+     * @return 返回字符串值, 值为NULL时返回null
+     * @throws SQLException 读取数据出现异常
+     */
+    public String getString (int index) throws SQLException {
+        return resultSet.getString(index);
+    }
+
+    /**
+     * 获取当前行指定列的int值
+     *
+     * @param index 列下标,从1开始
+     * @return 返回int值, 值为NULL时返回0,需要通过wasNull ( )判断
+     * @throws SQLException 读取数据出现异常
+     */
+    public int getInt (int index) throws SQLException {
+        return resultSet.getInt(index);
+    }
+
+    /**
+     * 获取当前行指定列的long值
+     *
+     * @param index 列下标,从1开始
+     * @return 返回long值, 值为NULL时返回0,需要通过wasNull ( )判断
+     * @throws SQLException 读取数据出现异常
+     */
+    public long getLong (int index) throws SQLException {
+        return resultSet.getLong(index);
+    }
+
+    /**
+     * 获取当前行指定列的double值
+     *
+     * @param index 列下标,从1开始
+     * @return 返回double值, 值为NULL时返回0,需要通过wasNull ( )判断
+     * @throws SQLException 读取数据出现异常
+     */
+    public double getDouble (int index) throws SQLException {
+        return resultSet.getDouble(index);
+    }
+
+    /**
+     * 获取当前行指定列的boolean值
+     *
+     * @param index 列下标,从1开始
+     * @return 返回boolean值, 值为NULL时返回false,需要通过wasNull ( )判断
+     * @throws SQLException 读取数据出现异常
+     */
+    public boolean getBoolean (int index) throws SQLException {
+        return resultSet.getBoolean(index);
+    }
+
+    /**
+     * 获取当前行指定列的BigDecimal值
+     *
+     * @param index 列下标,从1开始
+     * @return 返回BigDecimal值, 值为NULL时返回null
+     * @throws SQLException 读取数据出现异常
+     */
+    public BigDecimal getBigDecimal (int index) throws SQLException {
+        return resultSet.getBigDecimal(index);
+    }
+
+    /**
+     * 获取当前行指定列的值
+     *
+     * @param index 列下标,从1开始
+     * @return 返回列的值, 值为NULL时返回null
+     * @throws SQLException 读取数据出现异常
+     */
+    public Object getObject (int index) throws SQLException {
+        return resultSet.getObject(index);
+    }
+
+    /**
+     * 最后一次读取的值是否是NULL
+     *
+     * @return 返回true最后一次读取的值是NULL
+     * @throws SQLException 读取数据出现异常
+     */
+    public boolean wasNull ( ) throws SQLException {
+        return resultSet.wasNull();
+    }
+
+    /**
+     * 获取被包装的结果集,只能在回调中读取当前行,不能移动游标
+     *
+     * @return 返回结果集
+     */
+    public ResultSet getResultSet ( ) {
+        return resultSet;
+    }
+}
@@ -0,0 +1,54 @@
+package src.com.ych.whimsy.mysql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把查询结果的一行转换成一个对象的接口,配合LoadDatabase的inquireList(...)方法使用<br/>
+ * 通过RowMapper.of (Class&lt;T&gt; type)可以拿到按列名给JavaBean属性赋值的映射器,每个类只解析一次.
+ *
+ * @param <T> 转换结果的类型
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * 把当前行转换成一个对象
+     *
+     * @param row 当前行,只在本次调用中有效
+     * @return 返回转换结果
+     * @throws SQLException 读取数据出现异常
+     */
+    T map (RowCursor row) throws SQLException;
+
+    /**
+     * 把结果集从当前位置开始的剩余行全部转换成对象,可以用于inquireResultSet(...)返回的结果集
+     *
+     * @param resultSet 结果集,转换结束后不会关闭
+     * @return 返回转换结果
+     * @throws SQLException 读取数据出现异常
+     */
+    default List<T> mapAll (ResultSet resultSet) throws SQLException {
+        List<T> list = new ArrayList<>();
+        RowCursor cursor = new RowCursor(resultSet);
+        while (cursor.next()) {
+            list.add(map(cursor));
+        }
+        return list;
+    }
+
+    /**
+     * 获取指定类的映射器,列名与属性名忽略大小写和下划线后相同时给该属性赋值<br/>
+     * 同一个类返回同一个映射器.
+     *
+     * @param type 目标类,必须有无参构造器
+     * @param <T>  目标类的类型
+     * @return 返回映射器
+     * @throws IllegalArgumentException 目标类没有无参构造器或者无法访问
+     */
+    static <T> RowMapper<T> of (Class<T> type) throws IllegalArgumentException {
+        return BeanRowMapper.of(type);
+    }
+}
@@ -3,19 +3,22 @@ package src.com.ych.whimsy.mysql;
 import com.mysql.cj.exceptions.NumberOutOfRange;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * 该类是一个枚举类，每个枚举实例代表一个数据类型，每个数据类型实例可以调用它的<br/>
  * getType(...)方法获取类型并指定该类型的长度或者宽度
  * <p>目前支持类型只有两个:int、varchar<p/>
+ * <p>getType(...)方法不会修改枚举实例,而是返回不可修改的TypeDescriptor,<br/>
+ * 相同的宽度和默认值返回同一个实例,可以在多个线程中同时调用.<p/>
  */
 public enum Type {
     /**
      * int 类型<br/>
      * 如果没有使用getType方法获取类型并指定宽度则使用该实例的<br/>
-     * 默认int类型,它的宽度为11位
+     * 默认int类型,不指定宽度
      */
-    INT("int") {
+    INT(0, 10) {
         /**
          * 获取INT类型并设置int类型的宽度，不指定宽度或者宽度指定为零会使用默认宽度
          * @param width int类型的宽度
@@ -23,17 +26,16 @@ public enum Type {
          * @return 返回设置过宽度的int类型
          */
         @Override
-        public Type getType (int width) throws NumberOutOfRange {
+        public TypeDescriptor getType (int width) throws NumberOutOfRange {
             // 如果宽度超出了范围
             if (width < 0 || width > 10) {
                 throw new NumberOutOfRange("宽度超出了范围");
             }
-            INT.type = INT.type + "(" + width + ")";
-            return this;
+            return descriptor(width);
         }
 
         /**
-         * 给int类型设置宽度和默认值后返回当前类型
+         * 给int类型设置宽度和默认值后返回该类型
          * @param width            int类型的宽度
          * @param defaultValue int类型默认值
          * @NumberOutOfRange 当前类型的宽度超出的范围, 或者默认值超出的限定范围
@@ -42,20 +44,21 @@ public enum Type {
          * @return 返回设置好的int类型
          */
         @Override
-        public Type getType (int width, Object defaultValue) throws NumberOutOfRange, NullPointerException, ClassCastException {
+        public TypeDescriptor getType (int width, Object defaultValue) throws NumberOutOfRange, NullPointerException, ClassCastException {
             // 判断默认值是否为空为空了会抛出异常
             if (Objects.isNull(defaultValue) || defaultValue.toString().isEmpty()) {
                 throw new NullPointerException("整数型默认值为空了");
             }
+            String value = defaultValue.toString();
             // 判断默认值是否是数字
-            if (!defaultValue.toString().matches("\\d*")) {
+            if (!isDigits(value)) {
                 throw new ClassCastException("默认值不是数组无法转成数字");
             }
             // 初始化宽度
-            this.getType(width);
+            TypeDescriptor type = this.getType(width);
 
             // 判断默认值的位宽是否超出限定范围
-            int length = String.valueOf(defaultValue).length();
+            int length = value.length();
             if (width == 0) {
                 if (length > 10) {
                     throw new NumberOutOfRange("默认值位数超出了限定范围");
@@ -63,8 +66,22 @@ public enum Type {
             } else if (length > width) {
                 throw new NumberOutOfRange("默认值位数超出了限定范围");
             }
-            INT.defaulteValue = defaultValue.toString();
-            return this;
+            return type.withDefault(value);
+        }
+
+        @Override
+        String typeName (int width) {
+            return width == 0 ? "int" : "int(" + width + ")";
+        }
+
+        @Override
+        String defaultLiteral (Object key) {
+            return (String) key;
+        }
+
+        @Override
+        public String toLiteral (String value) {
+            return Objects.isNull(value) ? "null" : value;
         }
     },
     /**
@@ -72,77 +89,118 @@ public enum Type {
      * 如果该实例没有使用getType获取类型并指定长度,<br/>
      * 使用该实例默认的255长度.
      */
-    VARCHAR("varchar(255)") {
+    VARCHAR(255, 65535) {
         /**
          * 获取VARCHAR类型并指定长度
-         * @param length varchar长度\
+         * @param length varchar长度
          * @NumberOutOfRange 当前类型的长度超出的范围
          * @return 返回设置过长度的VARCHAR
          */
         @Override
-        public Type getType (int length) throws NumberOutOfRange {
+        public TypeDescriptor getType (int length) throws NumberOutOfRange {
             // 判断length的取值范围,范围超出抛出异常
             if (length < 0 || length > 65535) {
-                throw new NumberOutOfRange("");
+                throw new NumberOutOfRange("长度超出了范围");
             }
-            VARCHAR.type = "varchar(" + length + ")";
-            return this;
+            return descriptor(length);
         }
 
         /**
-         * 设置字符类型的长度和默认值后返回当前类型实例
+         * 设置字符类型的长度和默认值后返回该类型
          * @param length 字符长度
-         * @param defaultValue 类型默认值
+         * @param defaultValue 类型默认值,为null时默认值为null
          * @NumberOutOfRange 当前类型的长度超出的范围, 或者默认值超出的限定范围
          * @return 返回设置好长度的字符类型
          */
         @Override
-        public Type getType (int length, Object defaultValue) {
-//                // 判断默认值是否为空为空了会抛出异常
-//                Type.isNull(defaultValue);
+        public TypeDescriptor getType (int length, Object defaultValue) {
             // 初始化宽度
-            this.getType(length);
-            if (!Objects.isNull(defaultValue)) {
-                // 判断默认值长度是否超出范围
-                int l = defaultValue.toString().length();
-                if (l > length) {
-                    throw new NumberOutOfRange("字符默认值超出范围");
+            TypeDescriptor type = this.getType(length);
+            if (Objects.isNull(defaultValue)) {
+                return type.withDefault(NULL_DEFAULT);
+            }
+            String value = defaultValue.toString();
+            // 判断默认值长度是否超出范围
+            if (value.length() > length) {
+                throw new NumberOutOfRange("字符默认值超出范围");
+            }
+            return type.withDefault(value);
+        }
+
+        @Override
+        String typeName (int length) {
+            return "varchar(" + length + ")";
+        }
+
+        @Override
+        String defaultLiteral (Object key) {
+            return key == NULL_DEFAULT ? "null" : toLiteral((String) key);
+        }
+
+        @Override
+        public String toLiteral (String value) {
+            if (Objects.isNull(value)) {
+                return "null";
+            }
+            StringBuilder literal = new StringBuilder(value.length() + 2).append('\'');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\'' || c == '\\') {
+                    literal.append(c);
                 }
-                if (defaultValue.toString().isEmpty()) {
-                    VARCHAR.defaulteValue = "''";
-                } else
-                    VARCHAR.defaulteValue = "'" + defaultValue + "'";
-            } else
-                VARCHAR.defaulteValue = "" + defaultValue;
-            return this;
+                literal.append(c);
+            }
+            return literal.append('\'').toString();
         }
     };
+
+    /**
+     * 默认值为null时的缓存键,和字符串"null"区分
+     */
+    static final Object NULL_DEFAULT = new Object();
+
+    /**
+     * 按宽度缓存的没有默认值的类型每一块的大小
+     */
+    private static final int CHUNK_SIZE = 256;
+
     /**
-     * 数据类型
+     * 没有指定宽度时使用的宽度
      */
-    private String type;
+    private final int defaultWidth;
 
     /**
-     * 类型默认值
+     * 按宽度缓存的没有默认值的类型,每CHUNK_SIZE个宽度一块,第一次使用时创建
      */
-    private String defaulteValue;
+    private final AtomicReferenceArray<AtomicReferenceArray<TypeDescriptor>> descriptors;
 
     /**
      * 初始化数据类型
      *
-     * @param type 类型名
+     * @param defaultWidth 没有指定宽度时使用的宽度
+     * @param maxWidth     最大宽度
+     */
+    Type (int defaultWidth, int maxWidth) {
+        this.defaultWidth = defaultWidth;
+        this.descriptors = new AtomicReferenceArray<>(maxWidth / CHUNK_SIZE + 1);
+    }
+
+    /**
+     * 获取使用默认宽度并且没有默认值的类型
+     *
+     * @return 返回默认的类型, int为"int",varchar为"varchar(255)"
      */
-    Type (String type) {
-        this.type = type;
+    public TypeDescriptor getType ( ) {
+        return descriptor(defaultWidth);
     }
 
     /**
      * 该方法用来指定数据类型行的精度,是字符型指长度,是整形指宽度
      *
      * @param i 长度或者宽度
-     * @return 返回当前设置好的类型
+     * @return 返回设置好的类型
      */
-    public abstract Type getType (int i);
+    public abstract TypeDescriptor getType (int i);
 
     /**
      * 该方法用来指定数据类型行的精度,是字符型指长度,是整形指宽度<br/>
@@ -150,20 +208,69 @@ public enum Type {
      *
      * @param i            长度或者宽度
      * @param defaultValue 类型默认值
-     * @return 返回当前设置好的类型
+     * @return 返回设置好的类型
      */
-    public abstract Type getType (int i, Object defaultValue);
+    public abstract TypeDescriptor getType (int i, Object defaultValue);
 
+    /**
+     * 把字段值转换成该类型的SQL字面量
+     *
+     * @param value 字段值
+     * @return 返回SQL字面量, 字段值为null时返回"null"
+     */
+    public abstract String toLiteral (String value);
+
+    /**
+     * 拼接指定宽度的类型名
+     *
+     * @param width 宽度或者长度
+     * @return 返回类型名, 例如"int(5)"
+     */
+    abstract String typeName (int width);
 
     /**
-     * 当前类的默认值
+     * 把默认值的缓存键拼接成SQL中的默认值
      *
-     * @return 返回默认值
+     * @param key 默认值的缓存键
+     * @return 返回拼接好的默认值
      */
-    public String getDefaultValue ( ) {
-        if (Objects.isNull(defaulteValue))
-            return "";
-        return "default " + defaulteValue;
+    abstract String defaultLiteral (Object key);
+
+    /**
+     * 获取指定宽度并且没有默认值的类型,已经创建过时返回缓存的实例
+     *
+     * @param width 宽度或者长度,调用前已经检查过范围
+     * @return 返回类型
+     */
+    TypeDescriptor descriptor (int width) {
+        int index = width / CHUNK_SIZE;
+        AtomicReferenceArray<TypeDescriptor> chunk = descriptors.get(index);
+        if (Objects.isNull(chunk)) {
+            descriptors.compareAndSet(index, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+            chunk = descriptors.get(index);
+        }
+        TypeDescriptor descriptor = chunk.get(width % CHUNK_SIZE);
+        if (Objects.isNull(descriptor)) {
+            chunk.compareAndSet(width % CHUNK_SIZE, null, new TypeDescriptor(this, width, typeName(width), null));
+            descriptor = chunk.get(width % CHUNK_SIZE);
+        }
+        return descriptor;
+    }
+
+    /**
+     * 判断字符串是否只由数字组成
+     *
+     * @param value 字符串
+     * @return 返回true只由数字组成
+     */
+    private static boolean isDigits (String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -172,8 +279,8 @@ public enum Type {
      * @return 返回默认字段类型
      */
     public String toString ( ) {
-        return Objects.isNull(defaulteValue) ? this.type : this.type + " " + this.getDefaultValue();
+        return getType().toString();
     }
 
 
-}
\ No newline at end of file
+}
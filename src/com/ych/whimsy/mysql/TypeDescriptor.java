@@ -0,0 +1,127 @@
+package src.com.ych.whimsy.mysql;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 该类代表一个设置好宽度(或长度)和默认值的数据类型,由Type的getType(...)方法创建<br/>
+ * 1.创建后不能修改,可以在多个线程之间共享.<br/>
+ * 2.相同的类型、宽度和默认值只会创建一个实例:没有默认值的实例保存在Type中按宽度缓存,<br/>
+ * 有默认值的实例保存在对应的没有默认值的实例中按默认值缓存,重复获取时不会创建新的对象.
+ */
+public final class TypeDescriptor {
+
+    /**
+     * 基础数据类型
+     */
+    private final Type base;
+
+    /**
+     * 宽度或者长度
+     */
+    private final int width;
+
+    /**
+     * 拼接好的默认值,例如"12"或者"'abc'",没有默认值时为null
+     */
+    private final String defaultValue;
+
+    /**
+     * 拼接好的类型定义,例如"int(5) default 12"
+     */
+    private final String sql;
+
+    /**
+     * 相同基础类型和宽度、带有默认值的实例,键是未拼接的默认值,只在没有默认值的实例中创建
+     */
+    private final ConcurrentMap<Object, TypeDescriptor> defaults;
+
+    /**
+     * 创建一个类型
+     *
+     * @param base         基础数据类型
+     * @param width        宽度或者长度
+     * @param name         类型名,例如"int(5)"
+     * @param defaultValue 拼接好的默认值,没有默认值时为null
+     */
+    TypeDescriptor (Type base, int width, String name, String defaultValue) {
+        this.base = base;
+        this.width = width;
+        this.defaultValue = defaultValue;
+        this.sql = Objects.isNull(defaultValue) ? name : name + " default " + defaultValue;
+        this.defaults = Objects.isNull(defaultValue) ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * 获取当前类型设置了默认值后的类型,已经创建过时返回缓存的实例
+     *
+     * @param key 未拼接的默认值,默认值为null时是Type.NULL_DEFAULT
+     * @return 返回设置了默认值的类型
+     */
+    TypeDescriptor withDefault (Object key) {
+        TypeDescriptor descriptor = defaults.get(key);
+        if (Objects.isNull(descriptor)) {
+            descriptor = defaults.computeIfAbsent(key, k -> new TypeDescriptor(base, width, sql, base.defaultLiteral(k)));
+        }
+        return descriptor;
+    }
+
+    /**
+     * 获取基础数据类型
+     *
+     * @return 返回基础数据类型
+     */
+    public Type getBase ( ) {
+        return base;
+    }
+
+    /**
+     * 获取宽度或者长度
+     *
+     * @return 返回宽度或者长度, int类型没有指定宽度时返回0
+     */
+    public int getWidth ( ) {
+        return width;
+    }
+
+    /**
+     * 当前类型的默认值
+     *
+     * @return 返回默认值子句, 例如"default 12",没有默认值返回""
+     */
+    public String getDefaultValue ( ) {
+        if (Objects.isNull(defaultValue))
+            return "";
+        return "default " + defaultValue;
+    }
+
+    /**
+     * 获取拼接好的默认值
+     *
+     * @return 返回默认值, 例如"12"、"'abc'"或者"null",没有默认值返回null
+     */
+    public String getDefaultLiteral ( ) {
+        return defaultValue;
+    }
+
+    /**
+     * 把字段值转换成当前类型的SQL字面量,整数原样返回,字符串加上单引号并转义
+     *
+     * @param value 字段值
+     * @return 返回SQL字面量, 字段值为null时返回"null"
+     */
+    public String toLiteral (String value) {
+        return base.toLiteral(value);
+    }
+
+    /**
+     * 返回类型定义
+     *
+     * @return 返回类型定义, 例如"varchar(20) default 'abc'"
+     */
+    @Override
+    public String toString ( ) {
+        return sql;
+    }
+}
@@ -0,0 +1,340 @@
+package src.com.ych.whimsy.mysql;
+
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+import src.com.ych.whimsy.mysql.metrics.Operation;
+import src.com.ych.whimsy.mysql.pool.PooledConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 组提交的写会话,由LoadDatabase.openWriteSession(...)创建<br/>
+ * 1.会话独占一个关闭了自动提交的连接,每条语句立即执行,执行失败的语句单独返回失败,不影响同一组的其它语句.<br/>
+ * 2.累计maxStatements条语句,或者第一条未提交的语句已经等待了maxDelay毫秒,就提交一次事务.<br/>
+ * 3.提交失败,或者语句执行时数据库回滚了整个事务(死锁等),回滚这一组未提交的语句,<br/>
+ * 并把被回滚的每一条语句交给回滚监听器;执行时返回的行数只有在这一组提交之后才有效.<br/>
+ * 4.InsertInto、Update、Delete在会话中提交时,耗时和结果在这一组提交或者回滚之后才记录到LoadDatabaseMetrics,<br/>
+ * 修改过的表缓存的查询结果也在这一组提交或者回滚之后才失效.<br/>
+ * 5.使用完毕后必须调用close ( ),提交剩余的语句并归还连接.
+ */
+public class WriteSession implements AutoCloseable {
+
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(WriteSession.class);
+
+    /**
+     * 所有会话共用的定时提交线程
+     */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "whimsy-write-session");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 创建该会话的LoadDatabase对象,用于记录耗时和使缓存的查询结果失效
+     */
+    private final LoadDatabase loadDatabase;
+
+    /**
+     * 会话独占的连接
+     */
+    private final PooledConnection pooled;
+
+    /**
+     * 每组最多的语句条数
+     */
+    private final int maxStatements;
+
+    /**
+     * 第一条未提交的语句最长的等待时间,单位毫秒,为0时只按条数提交
+     */
+    private final long maxDelay;
+
+    /**
+     * 已经执行还未提交的语句
+     */
+    private final List<PendingWrite> pending = new ArrayList<>();
+
+    /**
+     * 已经提交的语句条数
+     */
+    private long committed;
+
+    /**
+     * 被回滚的语句条数
+     */
+    private long rolledBack;
+
+    /**
+     * 回滚监听器,为null时被回滚的语句只记录日志
+     */
+    private Consumer<List<PendingWrite>> rollbackListener;
+
+    /**
+     * 等待中的定时提交任务
+     */
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * 会话是否已经关闭
+     */
+    private boolean closed;
+
+    /**
+     * 创建写会话并关闭连接的自动提交
+     *
+     * @param loadDatabase  创建该会话的LoadDatabase对象
+     * @param pooled        会话独占的连接
+     * @param maxStatements 每组最多的语句条数
+     * @param maxDelay      第一条未提交的语句最长的等待时间,单位毫秒
+     * @throws SQLException 关闭自动提交失败
+     */
+    WriteSession (LoadDatabase loadDatabase, PooledConnection pooled, int maxStatements, long maxDelay) throws SQLException {
+        if (maxStatements < 1 || maxDelay < 0) {
+            throw new IllegalArgumentException("每组语句条数不能小于1,等待时间不能小于0");
+        }
+        this.loadDatabase = loadDatabase;
+        this.pooled = pooled;
+        this.maxStatements = maxStatements;
+        this.maxDelay = maxDelay;
+        pooled.setAutoCommit(false);
+    }
+
+    /**
+     * 设置回滚监听器,这一组语句被回滚时调用,参数是按执行顺序排列的被回滚的语句<br/>
+     * 监听器在触发回滚的线程中调用,可能是定时提交线程,调用期间持有会话的锁.
+     *
+     * @param rollbackListener 回滚监听器,为null时被回滚的语句只记录日志
+     */
+    public synchronized void setRollbackListener (Consumer<List<PendingWrite>> rollbackListener) {
+        this.rollbackListener = rollbackListener;
+    }
+
+    /**
+     * 在会话中执行一条DML语句,达到提交条件时提交
+     *
+     * @param dbName     数据库名,为空时使用会话当前的数据库
+     * @param sql        SQL模板,参数使用 ? 占位;参数为null时按照普通SQL语句执行
+     * @param parameters 参数,为null时说明SQL语句中没有参数
+     * @return 返回受影响的行数, 执行失败返回Statement.EXECUTE_FAILED;这一组被回滚时该行数作废,由回滚监听器报告
+     */
+    public int executeUpdate (String dbName, String sql, Object[] parameters) {
+        return executeUpdate(null, dbName, null, sql, parameters);
+    }
+
+    /**
+     * 在会话中执行一条DML语句,达到提交条件时提交;耗时和结果在这一组提交或者回滚之后记录
+     *
+     * @param operation  操作类型,为null时不记录耗时
+     * @param dbName     数据库名,为空时使用会话当前的数据库
+     * @param tableName  修改的表名
+     * @param sql        SQL模板,参数使用 ? 占位;参数为null时按照普通SQL语句执行
+     * @param parameters 参数,为null时说明SQL语句中没有参数
+     * @return 返回受影响的行数, 执行失败返回Statement.EXECUTE_FAILED;这一组被回滚时该行数作废,由回滚监听器报告
+     */
+    public synchronized int executeUpdate (Operation operation, String dbName, String tableName, String sql, Object[] parameters) {
+        long start = loadDatabase.getMetrics().start();
+        if (closed) {
+            LOGGER.error("--> executeUpdate (...): 写会话已经关闭,SQL指令 \"{}\" 没有执行", sql);
+            record(operation, tableName, start, false);
+            return Statement.EXECUTE_FAILED;
+        }
+        int count;
+        try {
+            if (!Objects.isNull(dbName) && !dbName.isEmpty()) {
+                pooled.setCatalog(dbName);
+            }
+            if (Objects.isNull(parameters)) {
+                try (Statement statement = pooled.getConnection().createStatement()) {
+                    count = statement.executeUpdate(sql);
+                    pooled.afterExecute(sql);
+                }
+            } else {
+                PreparedStatement statement = pooled.prepareStatement(sql);
+                LoadDatabase.bindParameters(statement, parameters);
+                count = statement.executeUpdate();
+                statement.clearParameters();
+            }
+        } catch (SQLException e) {
+            pooled.evictStatement(sql);
+            pooled.checkFailure(e);
+            LOGGER.error("--> executeUpdate (...): SQL指令 \"{}\" 执行过程出现异常: {}", sql, e.getMessage());
+            record(operation, tableName, start, false);
+            // SQLState以40开头时数据库已经回滚了整个事务
+            if (!Objects.isNull(e.getSQLState()) && e.getSQLState().startsWith("40")) {
+                rollback();
+            }
+            return Statement.EXECUTE_FAILED;
+        }
+        pending.add(new PendingWrite(operation, dbName, tableName, sql, Objects.isNull(parameters) ? null : parameters.clone(), count, start));
+        if (pending.size() >= maxStatements) {
+            flush();
+        } else if (pending.size() == 1 && maxDelay > 0) {
+            scheduled = timer.schedule(this::flush, maxDelay, TimeUnit.MILLISECONDS);
+        }
+        return count;
+    }
+
+    /**
+     * 提交已经执行的语句,提交失败时回滚
+     *
+     * @return 返回false提交失败, 这一组语句已经回滚
+     */
+    public synchronized boolean flush ( ) {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        cancelScheduled();
+        try {
+            pooled.getConnection().commit();
+        } catch (SQLException e) {
+            LOGGER.error("--> flush ( ): 提交事务失败: {}", e.getMessage());
+            pooled.checkFailure(e);
+            rollback();
+            return false;
+        }
+        for (PendingWrite write : pending) {
+            record(write.getOperation(), write.getTableName(), write.getStart(), true);
+        }
+        invalidateResultCache(pending);
+        committed += pending.size();
+        pending.clear();
+        return true;
+    }
+
+    /**
+     * 回滚还未提交的语句,被回滚的语句交给回滚监听器
+     */
+    public synchronized void rollback ( ) {
+        cancelScheduled();
+        try {
+            pooled.getConnection().rollback();
+        } catch (SQLException e) {
+            // 回滚失败的连接状态未知,归还时直接关闭
+            pooled.markBroken();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PendingWrite> lost = Collections.unmodifiableList(new ArrayList<>(pending));
+        pending.clear();
+        rolledBack += lost.size();
+        LOGGER.error("--> rollback ( ): {}条未提交的语句已经回滚", lost.size());
+        for (PendingWrite write : lost) {
+            record(write.getOperation(), write.getTableName(), write.getStart(), false);
+            if (Objects.isNull(rollbackListener)) {
+                LOGGER.error("--> rollback ( ): 被回滚的SQL指令 \"{}\"", write);
+            }
+        }
+        invalidateResultCache(lost);
+        if (!Objects.isNull(rollbackListener)) {
+            try {
+                rollbackListener.accept(lost);
+            } catch (RuntimeException e) {
+                LOGGER.error("--> rollback ( ): 回滚监听器出现异常 {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 记录一条语句的耗时和结果
+     *
+     * @param operation 操作类型,为null时不记录
+     * @param tableName 表名
+     * @param start     开始时间
+     * @param success   是否成功
+     */
+    private void record (Operation operation, String tableName, long start, boolean success) {
+        if (!Objects.isNull(operation)) {
+            loadDatabase.getMetrics().record(operation, tableName, start, success);
+        }
+    }
+
+    /**
+     * 使这一组语句修改过的表缓存的查询结果失效,每个数据库和表只失效一次<br/>
+     * 不知道修改了哪张表的语句使该数据库所有表的结果失效.
+     *
+     * @param writes 已经提交或者回滚的语句
+     */
+    private void invalidateResultCache (List<PendingWrite> writes) {
+        LinkedHashSet<List<String>> tables = new LinkedHashSet<>();
+        for (PendingWrite write : writes) {
+            tables.add(Arrays.asList(write.getDatabaseName(), write.getTableName()));
+        }
+        for (List<String> table : tables) {
+            loadDatabase.invalidateResultCache(table.get(0), table.get(1));
+        }
+    }
+
+    /**
+     * 获取已经执行还未提交的语句条数
+     *
+     * @return 返回语句条数
+     */
+    public synchronized int getPending ( ) {
+        return pending.size();
+    }
+
+    /**
+     * 获取已经提交的语句条数
+     *
+     * @return 返回语句条数
+     */
+    public synchronized long getCommitted ( ) {
+        return committed;
+    }
+
+    /**
+     * 获取被回滚的语句条数
+     *
+     * @return 返回语句条数
+     */
+    public synchronized long getRolledBack ( ) {
+        return rolledBack;
+    }
+
+    /**
+     * 提交剩余的语句,恢复自动提交并归还连接
+     */
+    @Override
+    public synchronized void close ( ) {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        try {
+            // 已经没有未提交的语句,直接恢复自动提交,归还时不需要再回滚
+            pooled.setAutoCommit(true);
+        } catch (SQLException e) {
+            pooled.markBroken();
+        }
+        pooled.release();
+    }
+
+    /**
+     * 取消等待中的定时提交任务
+     */
+    private void cancelScheduled ( ) {
+        if (!Objects.isNull(scheduled)) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package src.com.ych.whimsy.mysql.cache;
+
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 堆外的查询结果缓存,配合LoadDatabase的inquireResultSet(...)方法使用<br/>
+ * 1.结果集编码后保存在堆外的直接内存中,直接内存按slab分配,每个slab切分成固定大小的页,一个结果集占用若干个不需要连续的页,<br/>
+ * 释放的页放回空闲列表重复使用,不会产生内存碎片,缓存的数据不占用堆内存,也不会被GC扫描.<br/>
+ * 2.占用的直接内存不超过maxBytes,空间不够时按最近最少使用的顺序淘汰,每个结果集超过存活时间后失效.<br/>
+ * 3.缓存的键是数据库名加上规范化后的SQL语句,同一个表的结果在表数据变化时通过invalidate(...)方法失效.<br/>
+ * 4.命中时把数据解码成一个新的CachedRowSet返回,调用方可以随意移动和修改,不会影响缓存中的数据.
+ */
+public class ResultCache {
+
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(ResultCache.class);
+
+    /**
+     * 每一页的字节数
+     */
+    static final int PAGE_SIZE = 8 * 1024;
+
+    /**
+     * 每个slab的页数,每个slab是1MB
+     */
+    private static final int PAGES_PER_SLAB = 128;
+
+    /**
+     * 编码用的输出缓冲区,每个线程复用同一个
+     */
+    private static final ThreadLocal<ResultCodec.Buffer> ENCODE_BUFFER = ThreadLocal.withInitial(ResultCodec.Buffer::new);
+
+    /**
+     * 解码用的堆内缓冲区,每个线程复用同一个
+     */
+    private static final ThreadLocal<byte[][]> DECODE_BUFFER = ThreadLocal.withInitial(() -> new byte[][]{new byte[PAGE_SIZE]});
+
+    /**
+     * 最多占用的页数
+     */
+    private final int maxPages;
+
+    /**
+     * 默认的存活时间,单位纳秒
+     */
+    private final long ttlNanos;
+
+    /**
+     * 已经分配的slab
+     */
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+
+    /**
+     * 已经从slab中切分出来的页数
+     */
+    private int carvedPages;
+
+    /**
+     * 空闲页的编号,作为栈使用
+     */
+    private int[] freePages = new int[PAGES_PER_SLAB];
+
+    /**
+     * 空闲页的个数
+     */
+    private int freeCount;
+
+    /**
+     * 缓存的结果,按访问顺序排列,第一个是最近最少使用的
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * 失效次数,每次invalidate(...)或者clear ( )加1,查询期间有表失效时查询结果不缓存
+     */
+    private long generation;
+
+    /**
+     * 命中次数
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * 未命中次数
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 因为空间不够被淘汰的结果数
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 创建CachedRowSet的工厂
+     */
+    private volatile RowSetFactory rowSetFactory;
+
+    /**
+     * 创建一个查询结果缓存
+     *
+     * @param maxBytes  最多占用的直接内存字节数,最少一页(8KB)
+     * @param ttlMillis 每个结果的默认存活时间,单位毫秒
+     * @throws IllegalArgumentException 参数不合法
+     */
+    public ResultCache (long maxBytes, long ttlMillis) throws IllegalArgumentException {
+        if (maxBytes < PAGE_SIZE || ttlMillis <= 0) {
+            throw new IllegalArgumentException("参数不合法: maxBytes = " + maxBytes + ", ttlMillis = " + ttlMillis);
+        }
+        this.maxPages = (int) Math.min(Integer.MAX_VALUE, maxBytes / PAGE_SIZE);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * 获取缓存的结果
+     *
+     * @param databaseName 数据库名
+     * @param sql          查询语句
+     * @return 返回新的CachedRowSet, 没有缓存或者已经失效时返回null
+     */
+    public CachedRowSet get (String databaseName, String sql) {
+        String key = key(databaseName, sql);
+        byte[] bytes;
+        int length;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (Objects.isNull(entry)) {
+                misses.increment();
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt >= 0) {
+                entries.remove(key);
+                free(entry);
+                misses.increment();
+                return null;
+            }
+            length = entry.length;
+            bytes = decodeBuffer(length);
+            read(entry, bytes);
+        }
+        try {
+            CachedRowSet rowSet = getRowSetFactory().createCachedRowSet();
+            rowSet.populate(ResultCodec.decode(ByteBuffer.wrap(bytes, 0, length)));
+            hits.increment();
+            return rowSet;
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.error("--> get (String databaseName, String sql): 缓存的结果解码失败: {}", e.getMessage());
+            remove(key);
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * 获取当前的失效次数,查询数据库之前获取,缓存结果时传给put(...)方法
+     *
+     * @return 返回失效次数
+     */
+    public synchronized long getGeneration ( ) {
+        return generation;
+    }
+
+    /**
+     * 使用默认的存活时间缓存一个结果
+     *
+     * @param databaseName 数据库名
+     * @param tableName    结果所属的表,该表的数据变化时结果失效
+     * @param sql          查询语句
+     * @param resultSet    结果集,从第一行之前开始编码,编码结束后回到第一行之前
+     * @param generation   查询数据库之前通过getGeneration ( )获取的失效次数
+     * @return 返回false结果太大、有无法编码的类型或者查询期间有表失效, 没有缓存
+     */
+    public boolean put (String databaseName, String tableName, String sql, CachedRowSet resultSet, long generation) {
+        return put(databaseName, tableName, sql, resultSet, generation, TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+    }
+
+    /**
+     * 缓存一个结果
+     *
+     * @param databaseName 数据库名
+     * @param tableName    结果所属的表,该表的数据变化时结果失效
+     * @param sql          查询语句
+     * @param resultSet    结果集,从第一行之前开始编码,编码结束后回到第一行之前
+     * @param generation   查询数据库之前通过getGeneration ( )获取的失效次数
+     * @param ttlMillis    存活时间,单位毫秒
+     * @return 返回false结果太大、有无法编码的类型或者查询期间有表失效, 没有缓存
+     */
+    public boolean put (String databaseName, String tableName, String sql, CachedRowSet resultSet, long generation, long ttlMillis) {
+        ResultCodec.Buffer buffer = ENCODE_BUFFER.get();
+        buffer.reset();
+        try {
+            boolean encoded = ResultCodec.encode(resultSet, buffer);
+            resultSet.beforeFirst();
+            if (!encoded) {
+                return false;
+            }
+        } catch (SQLException e) {
+            LOGGER.error("--> put (String databaseName, String tableName, String sql, CachedRowSet resultSet, long generation, long ttlMillis): 结果集编码失败: {}", e.getMessage());
+            return false;
+        }
+        int length = buffer.size();
+        int pages = (length + PAGE_SIZE - 1) / PAGE_SIZE;
+        if (pages > maxPages) {
+            return false;
+        }
+        String key = key(databaseName, sql);
+        synchronized (this) {
+            if (generation != this.generation) {
+                // 查询期间有表失效,查询结果可能已经过期
+                return false;
+            }
+            Entry old = entries.remove(key);
+            if (!Objects.isNull(old)) {
+                free(old);
+            }
+            while (available() < pages) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                free(eldest.next());
+                eldest.remove();
+                evictions.increment();
+            }
+            Entry entry = new Entry(normalizeName(databaseName), normalizeName(tableName), allocate(pages), length,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+            write(entry, buffer.array());
+            entries.put(key, entry);
+        }
+        return true;
+    }
+
+    /**
+     * 使指定表的结果失效
+     *
+     * @param databaseName 数据库名,为null时匹配所有数据库
+     * @param tableName    表名,为null时匹配该数据库的所有表
+     */
+    public synchronized void invalidate (String databaseName, String tableName) {
+        String db = normalizeName(databaseName);
+        String table = normalizeName(tableName);
+        generation++;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if ((Objects.isNull(db) || db.equals(entry.database) || Objects.isNull(entry.database))
+                    && (Objects.isNull(table) || table.equals(entry.table))) {
+                free(entry);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 删除一个缓存的结果
+     *
+     * @param key 缓存的键
+     */
+    private synchronized void remove (String key) {
+        Entry entry = entries.remove(key);
+        if (!Objects.isNull(entry)) {
+            free(entry);
+        }
+    }
+
+    /**
+     * 清空缓存,已经分配的直接内存保留下来重复使用
+     */
+    public synchronized void clear ( ) {
+        generation++;
+        for (Entry entry : entries.values()) {
+            free(entry);
+        }
+        entries.clear();
+    }
+
+    /**
+     * 获取缓存的结果数
+     *
+     * @return 返回结果数
+     */
+    public synchronized int size ( ) {
+        return entries.size();
+    }
+
+    /**
+     * 获取缓存的结果占用的字节数,按页计算
+     *
+     * @return 返回占用的字节数
+     */
+    public synchronized long getUsedBytes ( ) {
+        return (long) (carvedPages - freeCount) * PAGE_SIZE;
+    }
+
+    /**
+     * 获取已经分配的直接内存字节数
+     *
+     * @return 返回已经分配的字节数
+     */
+    public synchronized long getAllocatedBytes ( ) {
+        return (long) carvedPages * PAGE_SIZE;
+    }
+
+    /**
+     * 获取命中次数
+     *
+     * @return 返回命中次数
+     */
+    public long getHits ( ) {
+        return hits.sum();
+    }
+
+    /**
+     * 获取未命中次数
+     *
+     * @return 返回未命中次数
+     */
+    public long getMisses ( ) {
+        return misses.sum();
+    }
+
+    /**
+     * 获取因为空间不够被淘汰的结果数
+     *
+     * @return 返回淘汰的结果数
+     */
+    public long getEvictions ( ) {
+        return evictions.sum();
+    }
+
+    /**
+     * 规范化SQL语句:去掉首尾空白和末尾的分号,引号外的连续空白合并成一个空格并转换成小写
+     *
+     * @param sql SQL语句
+     * @return 返回规范化后的SQL语句
+     */
+    static String normalize (String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean space = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                builder.append(c);
+                if (c == '\\' && i + 1 < sql.length()) {
+                    builder.append(sql.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && builder.length() > 0) {
+                builder.append(' ');
+            }
+            space = false;
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+                builder.append(c);
+            } else {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        int end = builder.length();
+        while (end > 0 && (builder.charAt(end - 1) == ';' || builder.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        builder.setLength(end);
+        return builder.toString();
+    }
+
+    /**
+     * 生成缓存的键
+     *
+     * @param databaseName 数据库名
+     * @param sql          查询语句
+     * @return 返回缓存的键
+     */
+    private static String key (String databaseName, String sql) {
+        return normalizeName(databaseName) + '\0' + normalize(sql);
+    }
+
+    /**
+     * 规范化数据库名或者表名,去掉反引号并转换成小写
+     *
+     * @param name 数据库名或者表名
+     * @return 返回规范化后的名字, 为空时返回null
+     */
+    private static String normalizeName (String name) {
+        if (Objects.isNull(name) || name.isEmpty()) {
+            return null;
+        }
+        return name.replace("`", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 获取当前可以分配的页数,包括空闲页和还没有切分的页
+     *
+     * @return 返回可以分配的页数
+     */
+    private int available ( ) {
+        return freeCount + (maxPages - carvedPages);
+    }
+
+    /**
+     * 分配页,调用前必须确认可以分配的页数足够
+     *
+     * @param count 页数
+     * @return 返回分配的页的编号
+     */
+    private int[] allocate (int count) {
+        int[] pages = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (freeCount > 0) {
+                pages[i] = freePages[--freeCount];
+                continue;
+            }
+            if (carvedPages % PAGES_PER_SLAB == 0) {
+                int slabPages = Math.min(PAGES_PER_SLAB, maxPages - carvedPages);
+                slabs.add(ByteBuffer.allocateDirect(slabPages * PAGE_SIZE));
+            }
+            pages[i] = carvedPages++;
+        }
+        return pages;
+    }
+
+    /**
+     * 释放一个结果占用的页
+     *
+     * @param entry 缓存的结果
+     */
+    private void free (Entry entry) {
+        int[] pages = entry.pages;
+        if (freeCount + pages.length > freePages.length) {
+            int capacity = Math.max(freeCount + pages.length, freePages.length * 2);
+            freePages = Arrays.copyOf(freePages, capacity);
+        }
+        System.arraycopy(pages, 0, freePages, freeCount, pages.length);
+        freeCount += pages.length;
+    }
+
+    /**
+     * 把编码后的数据写入结果占用的页
+     *
+     * @param entry 缓存的结果
+     * @param bytes 编码后的数据
+     */
+    private void write (Entry entry, byte[] bytes) {
+        int offset = 0;
+        for (int page : entry.pages) {
+            int length = Math.min(PAGE_SIZE, entry.length - offset);
+            ByteBuffer slab = slabs.get(page / PAGES_PER_SLAB);
+            slab.position((page % PAGES_PER_SLAB) * PAGE_SIZE);
+            slab.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * 从结果占用的页中读取编码后的数据
+     *
+     * @param entry 缓存的结果
+     * @param bytes 读取的目标数组,长度不小于结果的字节数
+     */
+    private void read (Entry entry, byte[] bytes) {
+        int offset = 0;
+        for (int page : entry.pages) {
+            int length = Math.min(PAGE_SIZE, entry.length - offset);
+            ByteBuffer slab = slabs.get(page / PAGES_PER_SLAB);
+            slab.position((page % PAGES_PER_SLAB) * PAGE_SIZE);
+            slab.get(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * 获取当前线程的解码缓冲区
+     *
+     * @param length 需要的字节数
+     * @return 返回长度不小于length的数组
+     */
+    private static byte[] decodeBuffer (int length) {
+        byte[][] holder = DECODE_BUFFER.get();
+        if (holder[0].length < length) {
+            holder[0] = new byte[Math.max(length, holder[0].length * 2)];
+        }
+        return holder[0];
+    }
+
+    /**
+     * 获取创建CachedRowSet的工厂
+     *
+     * @return 返回RowSetFactory
+     * @throws SQLException 工厂创建失败
+     */
+    private RowSetFactory getRowSetFactory ( ) throws SQLException {
+        if (Objects.isNull(rowSetFactory)) {
+            rowSetFactory = RowSetProvider.newFactory();
+        }
+        return rowSetFactory;
+    }
+
+    /**
+     * 一个缓存的结果
+     */
+    private static final class Entry {
+
+        /**
+         * 规范化后的数据库名,可能为null
+         */
+        private final String database;
+
+        /**
+         * 规范化后的表名,可能为null
+         */
+        private final String table;
+
+        /**
+         * 占用的页的编号
+         */
+        private final int[] pages;
+
+        /**
+         * 编码后的字节数
+         */
+        private final int length;
+
+        /**
+         * 失效时间,System.nanoTime ( )的值
+         */
+        private final long expiresAt;
+
+        private Entry (String database, String table, int[] pages, int length, long expiresAt) {
+            this.database = database;
+            this.table = table;
+            this.pages = pages;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package src.com.ych.whimsy.mysql.cache;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * 结果集的二进制编码<br/>
+ * 1.先写出列数和每一列的信息,再逐行写出每个值,每个值以一个字节的类型标记开头.<br/>
+ * 2.支持JDBC驱动常见的getObject(...)返回类型,遇到Blob、Clob等无法编码的类型时整个结果集不缓存.<br/>
+ * 3.解码时返回一个只支持getMetaData ( )、next ( )和getObject (int)的结果集,用于填充CachedRowSet.
+ */
+final class ResultCodec {
+
+    /**
+     * 值的类型标记: NULL值
+     */
+    private static final byte NULL = 0;
+
+    /**
+     * 值的类型标记: String,UTF-8编码
+     */
+    private static final byte STRING = 1;
+
+    /**
+     * 值的类型标记: Integer
+     */
+    private static final byte INTEGER = 2;
+
+    /**
+     * 值的类型标记: Long
+     */
+    private static final byte LONG = 3;
+
+    /**
+     * 值的类型标记: Short
+     */
+    private static final byte SHORT = 4;
+
+    /**
+     * 值的类型标记: Byte
+     */
+    private static final byte BYTE = 5;
+
+    /**
+     * 值的类型标记: Boolean
+     */
+    private static final byte BOOLEAN = 6;
+
+    /**
+     * 值的类型标记: Float
+     */
+    private static final byte FLOAT = 7;
+
+    /**
+     * 值的类型标记: Double
+     */
+    private static final byte DOUBLE = 8;
+
+    /**
+     * 值的类型标记: BigDecimal,按字符串保存
+     */
+    private static final byte BIG_DECIMAL = 9;
+
+    /**
+     * 值的类型标记: BigInteger,按字符串保存,用于BIGINT UNSIGNED
+     */
+    private static final byte BIG_INTEGER = 10;
+
+    /**
+     * 值的类型标记: byte[]
+     */
+    private static final byte BYTES = 11;
+
+    /**
+     * 值的类型标记: java.sql.Date
+     */
+    private static final byte DATE = 12;
+
+    /**
+     * 值的类型标记: java.sql.Time
+     */
+    private static final byte TIME = 13;
+
+    /**
+     * 值的类型标记: java.sql.Timestamp,毫秒数加纳秒数
+     */
+    private static final byte TIMESTAMP = 14;
+
+    /**
+     * 值的类型标记: LocalDate
+     */
+    private static final byte LOCAL_DATE = 15;
+
+    /**
+     * 值的类型标记: LocalTime
+     */
+    private static final byte LOCAL_TIME = 16;
+
+    /**
+     * 值的类型标记: LocalDateTime
+     */
+    private static final byte LOCAL_DATE_TIME = 17;
+
+    /**
+     * 行的开始标记
+     */
+    private static final byte ROW = 1;
+
+    /**
+     * 结果集的结束标记
+     */
+    private static final byte END = 0;
+
+    /**
+     * 该类不允许有实例
+     */
+    private ResultCodec ( ) {
+    }
+
+    /**
+     * 编码结果集的剩余行,编码结束后结果集停在最后一行之后
+     *
+     * @param resultSet 结果集
+     * @param out       输出缓冲区
+     * @return 返回false结果集中有无法编码的类型
+     * @throws SQLException 读取数据出现异常
+     */
+    static boolean encode (ResultSet resultSet, Buffer out) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        out.writeInt(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            out.writeString(metaData.getColumnLabel(i));
+            out.writeString(metaData.getColumnName(i));
+            out.writeString(metaData.getTableName(i));
+            out.writeString(metaData.getColumnTypeName(i));
+            out.writeInt(metaData.getColumnType(i));
+            out.writeInt(metaData.getPrecision(i));
+            out.writeInt(metaData.getScale(i));
+            out.writeInt(metaData.isNullable(i));
+            out.writeInt(metaData.getColumnDisplaySize(i));
+            out.write(metaData.isSigned(i) ? 1 : 0);
+            out.write(metaData.isAutoIncrement(i) ? 1 : 0);
+        }
+        while (resultSet.next()) {
+            out.write(ROW);
+            for (int i = 1; i <= columnCount; i++) {
+                if (!writeValue(out, resultSet.getObject(i))) {
+                    return false;
+                }
+            }
+        }
+        out.write(END);
+        return true;
+    }
+
+    /**
+     * 编码一个值
+     *
+     * @param out   输出缓冲区
+     * @param value 值
+     * @return 返回false无法编码该值的类型
+     */
+    private static boolean writeValue (Buffer out, Object value) {
+        if (Objects.isNull(value)) {
+            out.write(NULL);
+        } else if (value instanceof String) {
+            out.write(STRING);
+            out.writeString((String) value);
+        } else if (value instanceof Integer) {
+            out.write(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.write(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Short) {
+            out.write(SHORT);
+            out.writeInt((Short) value);
+        } else if (value instanceof Byte) {
+            out.write(BYTE);
+            out.write((Byte) value);
+        } else if (value instanceof Boolean) {
+            out.write(BOOLEAN);
+            out.write((Boolean) value ? 1 : 0);
+        } else if (value instanceof Float) {
+            out.write(FLOAT);
+            out.writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Double) {
+            out.write(DOUBLE);
+            out.writeLong(Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof BigDecimal) {
+            out.write(BIG_DECIMAL);
+            out.writeString(value.toString());
+        } else if (value instanceof BigInteger) {
+            out.write(BIG_INTEGER);
+            out.writeString(value.toString());
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.write(BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        } else if (value instanceof Timestamp) {
+            // Timestamp是java.util.Date的子类,必须在Date和Time之前判断
+            Timestamp timestamp = (Timestamp) value;
+            out.write(TIMESTAMP);
+            out.writeLong(timestamp.getTime());
+            out.writeInt(timestamp.getNanos());
+        } else if (value instanceof Date) {
+            out.write(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.write(TIME);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof LocalDateTime) {
+            out.write(LOCAL_DATE_TIME);
+            out.writeString(value.toString());
+        } else if (value instanceof LocalDate) {
+            out.write(LOCAL_DATE);
+            out.writeString(value.toString());
+        } else if (value instanceof LocalTime) {
+            out.write(LOCAL_TIME);
+            out.writeString(value.toString());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 解码结果集
+     *
+     * @param in 编码后的数据
+     * @return 返回只能向前移动的结果集, 只支持getMetaData ( )、next ( )和getObject (int)
+     * @throws SQLException 列信息不合法
+     */
+    static ResultSet decode (ByteBuffer in) throws SQLException {
+        int columnCount = in.getInt();
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            metaData.setColumnLabel(i, readString(in));
+            metaData.setColumnName(i, readString(in));
+            metaData.setTableName(i, readString(in));
+            metaData.setColumnTypeName(i, readString(in));
+            metaData.setColumnType(i, in.getInt());
+            metaData.setPrecision(i, Math.max(0, in.getInt()));
+            metaData.setScale(i, Math.max(0, in.getInt()));
+            metaData.setNullable(i, in.getInt());
+            metaData.setColumnDisplaySize(i, Math.max(0, in.getInt()));
+            metaData.setSigned(i, in.get() != 0);
+            metaData.setAutoIncrement(i, in.get() != 0);
+        }
+        return (ResultSet) Proxy.newProxyInstance(ResultCodec.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, new Decoder(in, metaData, columnCount));
+    }
+
+    /**
+     * 解码一个值
+     *
+     * @param in 编码后的数据
+     * @return 返回值
+     */
+    private static Object readValue (ByteBuffer in) {
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case SHORT:
+                return (short) in.getInt();
+            case BYTE:
+                return in.get();
+            case BOOLEAN:
+                return in.get() != 0;
+            case FLOAT:
+                return Float.intBitsToFloat(in.getInt());
+            case DOUBLE:
+                return Double.longBitsToDouble(in.getLong());
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case BYTES:
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                return bytes;
+            case DATE:
+                return new Date(in.getLong());
+            case TIME:
+                return new Time(in.getLong());
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.getLong());
+                timestamp.setNanos(in.getInt());
+                return timestamp;
+            case LOCAL_DATE:
+                return LocalDate.parse(readString(in));
+            case LOCAL_TIME:
+                return LocalTime.parse(readString(in));
+            case LOCAL_DATE_TIME:
+                return LocalDateTime.parse(readString(in));
+            default:
+                throw new IllegalStateException("缓存数据已损坏,未知的类型标记: " + tag);
+        }
+    }
+
+    /**
+     * 解码一个字符串
+     *
+     * @param in 编码后的数据
+     * @return 返回字符串, 长度为-1时返回null
+     */
+    private static String readString (ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * 编码用的输出缓冲区,每个线程复用同一个
+     */
+    static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer ( ) {
+            super(8192);
+        }
+
+        /**
+         * 获取内部数组,有效数据是[0, size ( ))
+         *
+         * @return 返回内部数组
+         */
+        byte[] array ( ) {
+            return buf;
+        }
+
+        void writeInt (int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        void writeLong (long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString (String value) {
+            if (Objects.isNull(value)) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * 解码结果集的实现,每次next ( )解码一行
+     */
+    private static final class Decoder implements InvocationHandler {
+
+        /**
+         * 编码后的数据
+         */
+        private final ByteBuffer in;
+
+        /**
+         * 列信息
+         */
+        private final RowSetMetaDataImpl metaData;
+
+        /**
+         * 当前行的值
+         */
+        private final Object[] row;
+
+        /**
+         * 最后一次读取的值是否是NULL
+         */
+        private boolean wasNull;
+
+        private Decoder (ByteBuffer in, RowSetMetaDataImpl metaData, int columnCount) {
+            this.in = in;
+            this.metaData = metaData;
+            this.row = new Object[columnCount];
+        }
+
+        @Override
+        public Object invoke (Object proxy, Method method, Object[] args) throws SQLException {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "next":
+                    if (in.get() != ROW) {
+                        return false;
+                    }
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = readValue(in);
+                    }
+                    return true;
+                case "getObject":
+                    if (args.length == 1 && args[0] instanceof Integer) {
+                        Object value = row[(Integer) args[0] - 1];
+                        wasNull = Objects.isNull(value);
+                        return value;
+                    }
+                    break;
+                case "wasNull":
+                    return wasNull;
+                case "close":
+                    return null;
+                case "toString":
+                    return "ResultCodec.Decoder";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    break;
+            }
+            throw new SQLException("缓存的结果集不支持该方法: " + method.getName());
+        }
+    }
+}
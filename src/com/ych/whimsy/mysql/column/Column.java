@@ -0,0 +1,199 @@
+package src.com.ych.whimsy.mysql.column;
+
+import src.com.ych.whimsy.mysql.RowCursor;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * 列式结果中的一列,行下标从0开始<br/>
+ * 1.每一列的值保存在基本类型数组中,NULL值保存在位图中,第i位为1表示第i行是NULL.<br/>
+ * 2.位图在出现第一个NULL时才创建,没有NULL的列不占用位图的内存.<br/>
+ * 3.filter(...)方法返回符合条件的行的位图,可以通过BitSet的and、or组合多个条件,再传给聚合方法只计算选中的行.
+ */
+public abstract class Column {
+
+    /**
+     * 数组的初始容量
+     */
+    static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * 列名
+     */
+    private final String name;
+
+    /**
+     * 列的SQL类型,取值参考java.sql.Types
+     */
+    private final int sqlType;
+
+    /**
+     * 行数
+     */
+    int size;
+
+    /**
+     * NULL值位图,每个long保存64行,没有NULL时为null
+     */
+    private long[] nulls;
+
+    Column (String name, int sqlType) {
+        this.name = name;
+        this.sqlType = sqlType;
+    }
+
+    /**
+     * 获取列名
+     *
+     * @return 返回列名
+     */
+    public String getName ( ) {
+        return name;
+    }
+
+    /**
+     * 获取列的SQL类型
+     *
+     * @return 返回列的SQL类型, 取值参考java.sql.Types
+     */
+    public int getSqlType ( ) {
+        return sqlType;
+    }
+
+    /**
+     * 获取行数
+     *
+     * @return 返回行数
+     */
+    public int size ( ) {
+        return size;
+    }
+
+    /**
+     * 指定行是否是NULL
+     *
+     * @param row 行下标,从0开始
+     * @return 返回true是NULL
+     */
+    public boolean isNull (int row) {
+        return !Objects.isNull(nulls) && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * 获取NULL值的行数
+     *
+     * @return 返回NULL值的行数
+     */
+    public int getNullCount ( ) {
+        if (Objects.isNull(nulls)) {
+            return 0;
+        }
+        int count = 0;
+        for (long word : nulls) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * 获取所有NULL值的行
+     *
+     * @return 返回NULL值的行的位图
+     */
+    public BitSet filterNull ( ) {
+        return Objects.isNull(nulls) ? new BitSet() : BitSet.valueOf(nulls);
+    }
+
+    /**
+     * 获取指定行的值
+     *
+     * @param row 行下标,从0开始
+     * @return 返回包装后的值, NULL返回null
+     */
+    public abstract Object get (int row);
+
+    /**
+     * 读取当前行的值并追加到列的末尾
+     *
+     * @param cursor 当前行
+     * @param index  列下标,从1开始
+     * @throws SQLException 读取数据出现异常
+     */
+    abstract void append (RowCursor cursor, int index) throws SQLException;
+
+    /**
+     * 读取结束后把数组缩小到实际的行数
+     */
+    void trim ( ) {
+        if (!Objects.isNull(nulls)) {
+            nulls = Arrays.copyOf(nulls, words(size));
+        }
+    }
+
+    /**
+     * 把当前追加的行标记为NULL,位图在第一次标记时创建
+     */
+    final void appendNull ( ) {
+        int row = size;
+        if (Objects.isNull(nulls)) {
+            nulls = new long[words(Math.max(row + 1, INITIAL_CAPACITY))];
+        } else if ((row >>> 6) >= nulls.length) {
+            // 只有NULL行才会调用,两次NULL之间可能相隔很多行,一次扩容不一定够
+            nulls = Arrays.copyOf(nulls, Math.max(words(row + 1), grow(nulls.length)));
+        }
+        nulls[row >>> 6] |= 1L << row;
+    }
+
+    /**
+     * 获取保存指定行数需要的long个数
+     *
+     * @param rows 行数
+     * @return 返回long个数
+     */
+    static int words (int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    /**
+     * 计算数组扩容后的容量
+     *
+     * @param capacity 当前容量
+     * @return 返回新的容量
+     */
+    static int grow (int capacity) {
+        return capacity + (capacity >>> 1) + 1;
+    }
+
+    /**
+     * 获取要计算的第一行
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @return 返回第一行的下标, 没有时返回-1
+     */
+    static int first (BitSet rows) {
+        return Objects.isNull(rows) ? 0 : rows.nextSetBit(0);
+    }
+
+    /**
+     * 获取要计算的下一行
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @param row  当前行
+     * @return 返回下一行的下标, 没有时返回-1
+     */
+    static int next (BitSet rows, int row) {
+        return Objects.isNull(rows) ? row + 1 : rows.nextSetBit(row + 1);
+    }
+
+    /**
+     * 创建一个保存当前列结果的位图,每个long保存64行
+     *
+     * @return 返回空的位图
+     */
+    final long[] newWords ( ) {
+        return new long[words(size)];
+    }
+}
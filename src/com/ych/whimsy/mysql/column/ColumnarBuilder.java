@@ -0,0 +1,93 @@
+package src.com.ych.whimsy.mysql.column;
+
+import src.com.ych.whimsy.mysql.RowConsumer;
+import src.com.ych.whimsy.mysql.RowCursor;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+
+/**
+ * 把逐行遍历的查询结果按列保存的回调,可以传给LoadDatabase的forEachRow(...)方法<br/>
+ * 1.列的保存方式在第一行时按列的SQL类型确定:TINYINT、SMALLINT和有符号的INT保存为IntColumn,<br/>
+ * 无符号的INT和有符号的BIGINT保存为LongColumn,FLOAT、DOUBLE和DECIMAL保存为DoubleColumn,其它类型保存为字典编码的StringColumn.<br/>
+ * 2.遍历结束后调用build ( )方法把数组缩小到实际的行数并返回结果,之后不能再使用该对象.
+ */
+public final class ColumnarBuilder implements RowConsumer {
+
+    /**
+     * 每一列,第一行时创建
+     */
+    private Column[] columns;
+
+    /**
+     * 已经读取的行数
+     */
+    private int rowCount;
+
+    @Override
+    public boolean accept (RowCursor row) throws SQLException {
+        if (Objects.isNull(columns)) {
+            columns = columns(row);
+        }
+        if (rowCount == Integer.MAX_VALUE - 8) {
+            throw new SQLException("列式结果最多保存" + rowCount + "行");
+        }
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].append(row, i + 1);
+        }
+        rowCount++;
+        return true;
+    }
+
+    /**
+     * 结束读取并返回列式结果
+     *
+     * @return 返回列式结果, 没有读取到任何行时列数为0
+     */
+    public ColumnarResult build ( ) {
+        Column[] built = Objects.isNull(columns) ? new Column[0] : columns;
+        for (Column column : built) {
+            column.trim();
+        }
+        columns = null;
+        return new ColumnarResult(built, rowCount);
+    }
+
+    /**
+     * 按列的SQL类型创建每一列
+     *
+     * @param row 第一行
+     * @return 返回每一列
+     */
+    private static Column[] columns (RowCursor row) {
+        Column[] columns = new Column[row.getColumnCount()];
+        for (int i = 1; i <= columns.length; i++) {
+            String name = row.getColumnName(i);
+            int sqlType = row.getColumnType(i);
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                    columns[i - 1] = new IntColumn(name, sqlType);
+                    break;
+                case Types.INTEGER:
+                    columns[i - 1] = row.isSigned(i) ? new IntColumn(name, sqlType) : new LongColumn(name, sqlType);
+                    break;
+                case Types.BIGINT:
+                    // BIGINT UNSIGNED可能超出long的范围
+                    columns[i - 1] = row.isSigned(i) ? new LongColumn(name, sqlType) : new StringColumn(name, sqlType);
+                    break;
+                case Types.REAL:
+                case Types.FLOAT:
+                case Types.DOUBLE:
+                case Types.DECIMAL:
+                case Types.NUMERIC:
+                    columns[i - 1] = new DoubleColumn(name, sqlType);
+                    break;
+                default:
+                    columns[i - 1] = new StringColumn(name, sqlType);
+            }
+        }
+        return columns;
+    }
+}
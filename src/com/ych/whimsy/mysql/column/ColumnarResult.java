@@ -0,0 +1,141 @@
+package src.com.ych.whimsy.mysql.column;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按列保存的查询结果,由ColumnarBuilder创建,创建后不能修改<br/>
+ * 1.整数列保存在int[]或者long[]中,小数列保存在double[]中,字符串列字典编码后保存在int[]中,NULL值保存在位图中.<br/>
+ * 2.列下标和JDBC一样从1开始,行下标从0开始.
+ */
+public final class ColumnarResult {
+
+    /**
+     * 每一列,下标从0开始
+     */
+    private final Column[] columns;
+
+    /**
+     * 行数
+     */
+    private final int rowCount;
+
+    ColumnarResult (Column[] columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * 获取行数
+     *
+     * @return 返回行数
+     */
+    public int getRowCount ( ) {
+        return rowCount;
+    }
+
+    /**
+     * 获取列数
+     *
+     * @return 返回列数
+     */
+    public int getColumnCount ( ) {
+        return columns.length;
+    }
+
+    /**
+     * 获取指定下标的列
+     *
+     * @param index 列下标,从1开始
+     * @return 返回列
+     */
+    public Column getColumn (int index) {
+        return columns[index - 1];
+    }
+
+    /**
+     * 根据列名获取列,列名不区分大小写
+     *
+     * @param name 列名
+     * @return 返回列, 没有找到该列返回null
+     */
+    public Column getColumn (String name) {
+        for (Column column : columns) {
+            if (column.getName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取所有的列
+     *
+     * @return 返回不可修改的列的列表
+     */
+    public List<Column> getColumns ( ) {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * 根据列名获取整数列
+     *
+     * @param name 列名
+     * @return 返回整数列
+     * @throws IllegalArgumentException 没有找到该列或者该列不是IntColumn
+     */
+    public IntColumn getIntColumn (String name) throws IllegalArgumentException {
+        return getColumn(name, IntColumn.class);
+    }
+
+    /**
+     * 根据列名获取长整数列
+     *
+     * @param name 列名
+     * @return 返回长整数列
+     * @throws IllegalArgumentException 没有找到该列或者该列不是LongColumn
+     */
+    public LongColumn getLongColumn (String name) throws IllegalArgumentException {
+        return getColumn(name, LongColumn.class);
+    }
+
+    /**
+     * 根据列名获取小数列
+     *
+     * @param name 列名
+     * @return 返回小数列
+     * @throws IllegalArgumentException 没有找到该列或者该列不是DoubleColumn
+     */
+    public DoubleColumn getDoubleColumn (String name) throws IllegalArgumentException {
+        return getColumn(name, DoubleColumn.class);
+    }
+
+    /**
+     * 根据列名获取字符串列
+     *
+     * @param name 列名
+     * @return 返回字符串列
+     * @throws IllegalArgumentException 没有找到该列或者该列不是StringColumn
+     */
+    public StringColumn getStringColumn (String name) throws IllegalArgumentException {
+        return getColumn(name, StringColumn.class);
+    }
+
+    /**
+     * 根据列名获取指定类型的列
+     *
+     * @param name 列名
+     * @param type 列的类型
+     * @param <C>  列的类型
+     * @return 返回列
+     * @throws IllegalArgumentException 没有找到该列或者该列不是指定的类型
+     */
+    private <C extends Column> C getColumn (String name, Class<C> type) throws IllegalArgumentException {
+        Column column = getColumn(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("列 \"" + name + "\" 不存在或者不是" + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+}
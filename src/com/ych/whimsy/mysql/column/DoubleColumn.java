@@ -0,0 +1,149 @@
+package src.com.ych.whimsy.mysql.column;
+
+import src.com.ych.whimsy.mysql.RowCursor;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.function.DoublePredicate;
+
+/**
+ * 保存在double[]中的小数列,用于FLOAT、DOUBLE和DECIMAL列<br/>
+ * DECIMAL列按double保存,超出double精度的部分会丢失;NULL行的值保存为0,求和时不需要跳过NULL行.
+ */
+public final class DoubleColumn extends Column {
+
+    /**
+     * 每一行的值
+     */
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    DoubleColumn (String name, int sqlType) {
+        super(name, sqlType);
+    }
+
+    /**
+     * 获取指定行的值
+     *
+     * @param row 行下标,从0开始
+     * @return 返回double值, NULL返回0,需要通过isNull (int row)判断
+     */
+    public double getDouble (int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object get (int row) {
+        return isNull(row) ? null : (Object) values[row];
+    }
+
+    /**
+     * 获取值符合条件的行,NULL行不会被选中
+     *
+     * @param predicate 条件
+     * @return 返回符合条件的行的位图
+     */
+    public BitSet filter (DoublePredicate predicate) {
+        long[] words = newWords();
+        for (int i = 0; i < size; i++) {
+            if (predicate.test(values[i]) && !isNull(i)) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * 获取值在[from, to]区间内的行,NULL行不会被选中
+     *
+     * @param from 最小值,包含
+     * @param to   最大值,包含
+     * @return 返回符合条件的行的位图
+     */
+    public BitSet filterRange (double from, double to) {
+        long[] words = newWords();
+        for (int i = 0; i < size; i++) {
+            double value = values[i];
+            if (value >= from && value <= to && !isNull(i)) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * 求和,NULL行不参与计算
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @return 返回和
+     */
+    public double sum (BitSet rows) {
+        double sum = 0;
+        if (Objects.isNull(rows)) {
+            for (int i = 0; i < size; i++) {
+                sum += values[i];
+            }
+        } else {
+            for (int i = rows.nextSetBit(0); i >= 0 && i < size; i = rows.nextSetBit(i + 1)) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 求最小值,NULL行不参与计算
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @return 返回最小值, 没有非NULL的行时为空
+     */
+    public OptionalDouble min (BitSet rows) {
+        boolean found = false;
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = first(rows); i >= 0 && i < size; i = next(rows, i)) {
+            if (!isNull(i)) {
+                found = true;
+                min = Math.min(min, values[i]);
+            }
+        }
+        return found ? OptionalDouble.of(min) : OptionalDouble.empty();
+    }
+
+    /**
+     * 求最大值,NULL行不参与计算
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @return 返回最大值, 没有非NULL的行时为空
+     */
+    public OptionalDouble max (BitSet rows) {
+        boolean found = false;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = first(rows); i >= 0 && i < size; i = next(rows, i)) {
+            if (!isNull(i)) {
+                found = true;
+                max = Math.max(max, values[i]);
+            }
+        }
+        return found ? OptionalDouble.of(max) : OptionalDouble.empty();
+    }
+
+    @Override
+    void append (RowCursor cursor, int index) throws SQLException {
+        double value = cursor.getDouble(index);
+        if (cursor.wasNull()) {
+            appendNull();
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[size++] = value;
+    }
+
+    @Override
+    void trim ( ) {
+        super.trim();
+        values = Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,149 @@
+package src.com.ych.whimsy.mysql.column;
+
+import src.com.ych.whimsy.mysql.RowCursor;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.function.IntPredicate;
+
+/**
+ * 保存在int[]中的整数列,用于TINYINT、SMALLINT和有符号的INT列<br/>
+ * NULL行的值保存为0,求和时不需要跳过NULL行.
+ */
+public final class IntColumn extends Column {
+
+    /**
+     * 每一行的值
+     */
+    private int[] values = new int[INITIAL_CAPACITY];
+
+    IntColumn (String name, int sqlType) {
+        super(name, sqlType);
+    }
+
+    /**
+     * 获取指定行的值
+     *
+     * @param row 行下标,从0开始
+     * @return 返回int值, NULL返回0,需要通过isNull (int row)判断
+     */
+    public int getInt (int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object get (int row) {
+        return isNull(row) ? null : (Object) values[row];
+    }
+
+    /**
+     * 获取值符合条件的行,NULL行不会被选中
+     *
+     * @param predicate 条件
+     * @return 返回符合条件的行的位图
+     */
+    public BitSet filter (IntPredicate predicate) {
+        long[] words = newWords();
+        for (int i = 0; i < size; i++) {
+            if (predicate.test(values[i]) && !isNull(i)) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * 获取值在[from, to]区间内的行,NULL行不会被选中
+     *
+     * @param from 最小值,包含
+     * @param to   最大值,包含
+     * @return 返回符合条件的行的位图
+     */
+    public BitSet filterRange (int from, int to) {
+        long[] words = newWords();
+        for (int i = 0; i < size; i++) {
+            int value = values[i];
+            if (value >= from && value <= to && !isNull(i)) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * 求和,NULL行不参与计算
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @return 返回和
+     */
+    public long sum (BitSet rows) {
+        long sum = 0;
+        if (Objects.isNull(rows)) {
+            for (int i = 0; i < size; i++) {
+                sum += values[i];
+            }
+        } else {
+            for (int i = rows.nextSetBit(0); i >= 0 && i < size; i = rows.nextSetBit(i + 1)) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 求最小值,NULL行不参与计算
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @return 返回最小值, 没有非NULL的行时为空
+     */
+    public OptionalInt min (BitSet rows) {
+        boolean found = false;
+        int min = Integer.MAX_VALUE;
+        for (int i = first(rows); i >= 0 && i < size; i = next(rows, i)) {
+            if (!isNull(i)) {
+                found = true;
+                min = Math.min(min, values[i]);
+            }
+        }
+        return found ? OptionalInt.of(min) : OptionalInt.empty();
+    }
+
+    /**
+     * 求最大值,NULL行不参与计算
+     *
+     * @param rows 要计算的行,为null时计算所有行
+     * @return 返回最大值, 没有非NULL的行时为空
+     */
+    public OptionalInt max (BitSet rows) {
+        boolean found = false;
+        int max = Integer.MIN_VALUE;
+        for (int i = first(rows); i >= 0 && i < size; i = next(rows, i)) {
+            if (!isNull(i)) {
+                found = true;
+                max = Math.max(max, values[i]);
+            }
+        }
+        return found ? OptionalInt.of(max) : OptionalInt.empty();
+    }
+
+    @Override
+    void append (RowCursor cursor, int index) throws SQLException {
+        int value = cursor.getInt(index);
+        if (cursor.wasNull()) {
+            appendNull();
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grow(values.length));
+        }
+        values[size++] = value;
+    }
+
+    @Override
+    void trim ( ) {
+        super.trim();
+        values = Arrays.copyOf(values, size);
+    }
+}
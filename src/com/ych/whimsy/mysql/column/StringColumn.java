@@ -0,0 +1,186 @@
+package src.com.ych.whimsy.mysql.column;
+
+import src.com.ych.whimsy.mysql.RowCursor;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * 字典编码的字符串列,用于VARCHAR以及其它没有对应基本类型的列<br/>
+ * 1.每个不同的值只在字典中保存一次,每一行只保存该值在字典中的编号,重复值多的列只占用很少的内存.<br/>
+ * 2.按值过滤时条件只对字典中的每个值判断一次,再扫描编号数组,不需要对每一行比较字符串.<br/>
+ * 3.NULL行的编号为-1.
+ */
+public final class StringColumn extends Column {
+
+    /**
+     * 每一行的值在字典中的编号
+     */
+    private int[] codes = new int[INITIAL_CAPACITY];
+
+    /**
+     * 字典,编号为下标
+     */
+    private String[] dictionary = new String[64];
+
+    /**
+     * 字典中值的个数
+     */
+    private int dictionarySize;
+
+    /**
+     * 值到编号的映射,只在读取数据时使用,读取结束后释放
+     */
+    private HashMap<String, Integer> encoder = new HashMap<>();
+
+    StringColumn (String name, int sqlType) {
+        super(name, sqlType);
+    }
+
+    /**
+     * 获取指定行的值
+     *
+     * @param row 行下标,从0开始
+     * @return 返回字符串值, NULL返回null
+     */
+    public String getString (int row) {
+        int code = codes[row];
+        return code < 0 ? null : dictionary[code];
+    }
+
+    @Override
+    public Object get (int row) {
+        return getString(row);
+    }
+
+    /**
+     * 获取指定行的值在字典中的编号
+     *
+     * @param row 行下标,从0开始
+     * @return 返回编号, NULL返回-1
+     */
+    public int getCode (int row) {
+        return codes[row];
+    }
+
+    /**
+     * 获取字典,编号为下标
+     *
+     * @return 返回不可修改的字典
+     */
+    public List<String> getDictionary ( ) {
+        return Collections.unmodifiableList(Arrays.asList(dictionary).subList(0, dictionarySize));
+    }
+
+    /**
+     * 获取字典中值的个数,也就是该列不同值的个数
+     *
+     * @return 返回不同值的个数
+     */
+    public int getDictionarySize ( ) {
+        return dictionarySize;
+    }
+
+    /**
+     * 获取值等于指定字符串的行
+     *
+     * @param value 字符串
+     * @return 返回符合条件的行的位图
+     */
+    public BitSet filterEquals (String value) {
+        int code = -1;
+        for (int i = 0; i < dictionarySize; i++) {
+            if (dictionary[i].equals(value)) {
+                code = i;
+                break;
+            }
+        }
+        long[] words = newWords();
+        if (code >= 0) {
+            for (int i = 0; i < size; i++) {
+                if (codes[i] == code) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * 获取值符合条件的行,条件对字典中的每个值只判断一次,NULL行不会被选中
+     *
+     * @param predicate 条件
+     * @return 返回符合条件的行的位图
+     */
+    public BitSet filter (Predicate<String> predicate) {
+        boolean[] matches = new boolean[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            matches[i] = predicate.test(dictionary[i]);
+        }
+        long[] words = newWords();
+        for (int i = 0; i < size; i++) {
+            int code = codes[i];
+            if (code >= 0 && matches[code]) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * 统计每个值出现的行数,NULL行不参与统计
+     *
+     * @param rows 要统计的行,为null时统计所有行
+     * @return 返回每个值出现的行数, 编号为下标
+     */
+    public int[] countByCode (BitSet rows) {
+        int[] counts = new int[dictionarySize];
+        for (int i = first(rows); i >= 0 && i < size; i = next(rows, i)) {
+            int code = codes[i];
+            if (code >= 0) {
+                counts[code]++;
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    void append (RowCursor cursor, int index) throws SQLException {
+        String value = cursor.getString(index);
+        int code;
+        if (Objects.isNull(value)) {
+            appendNull();
+            code = -1;
+        } else {
+            Integer known = encoder.get(value);
+            if (Objects.isNull(known)) {
+                if (dictionarySize == dictionary.length) {
+                    dictionary = Arrays.copyOf(dictionary, grow(dictionary.length));
+                }
+                code = dictionarySize;
+                dictionary[dictionarySize++] = value;
+                encoder.put(value, code);
+            } else {
+                code = known;
+            }
+        }
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, grow(codes.length));
+        }
+        codes[size++] = code;
+    }
+
+    @Override
+    void trim ( ) {
+        super.trim();
+        codes = Arrays.copyOf(codes, size);
+        dictionary = Arrays.copyOf(dictionary, dictionarySize);
+        encoder = null;
+    }
+}
@@ -0,0 +1,106 @@
+package src.com.ych.whimsy.mysql.meta;
+
+/**
+ * 数据表中一列的结构信息,来自DatabaseMetaData.getColumns(...)
+ */
+public class ColumnMetadata {
+
+    /**
+     * 列名
+     */
+    private final String name;
+
+    /**
+     * 列的位置,从1开始
+     */
+    private final int position;
+
+    /**
+     * java.sql.Types中的类型
+     */
+    private final int sqlType;
+
+    /**
+     * 数据库中的类型名,例如VARCHAR
+     */
+    private final String typeName;
+
+    /**
+     * 数据长度,字符类型是最大字符数,数字类型是精度
+     */
+    private final int precision;
+
+    /**
+     * 小数位数
+     */
+    private final int scale;
+
+    /**
+     * 是否允许为null
+     */
+    private final boolean nullable;
+
+    /**
+     * 默认值,来自COLUMN_DEF,字符串不带引号,没有默认值时为null
+     */
+    private final String defaultValue;
+
+    /**
+     * 是否自动增长
+     */
+    private final boolean autoIncrement;
+
+    ColumnMetadata (String name, int position, int sqlType, String typeName, int precision, int scale, boolean nullable,
+                    String defaultValue, boolean autoIncrement) {
+        this.name = name;
+        this.position = position;
+        this.sqlType = sqlType;
+        this.typeName = typeName;
+        this.precision = precision;
+        this.scale = scale;
+        this.nullable = nullable;
+        this.defaultValue = defaultValue;
+        this.autoIncrement = autoIncrement;
+    }
+
+    public String getName ( ) {
+        return name;
+    }
+
+    public int getPosition ( ) {
+        return position;
+    }
+
+    public int getSqlType ( ) {
+        return sqlType;
+    }
+
+    public String getTypeName ( ) {
+        return typeName;
+    }
+
+    public int getPrecision ( ) {
+        return precision;
+    }
+
+    public int getScale ( ) {
+        return scale;
+    }
+
+    public boolean isNullable ( ) {
+        return nullable;
+    }
+
+    public String getDefaultValue ( ) {
+        return defaultValue;
+    }
+
+    public boolean isAutoIncrement ( ) {
+        return autoIncrement;
+    }
+
+    @Override
+    public String toString ( ) {
+        return name + " " + typeName + "(" + precision + (scale > 0 ? "," + scale : "") + ")" + (nullable ? "" : " not null");
+    }
+}
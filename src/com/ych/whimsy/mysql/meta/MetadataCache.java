@@ -0,0 +1,256 @@
+package src.com.ych.whimsy.mysql.meta;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据表结构信息的缓存<br/>
+ * 1.第一次查找一张表时通过DatabaseMetaData的getColumns(...)、getPrimaryKeys(...)和getIndexInfo(...)读取,不需要查询表中的数据.<br/>
+ * 2.表结构改变后需要调用invalidate(...)使缓存失效,LoadDatabase的createTable、deleteTable会自动调用.<br/>
+ * 3.不存在的表不缓存,表创建后可以直接查到.
+ */
+public class MetadataCache {
+
+    /**
+     * 缓存的表结构,key为 数据库名.表名
+     */
+    private final ConcurrentHashMap<String, TableMetadata> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 每次失效时加1,读取期间发生过失效的结果不放进缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 获取缓存的表结构,没有缓存时不读取
+     *
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @return 返回表结构, 没有缓存时返回null
+     */
+    public TableMetadata getIfPresent (String databaseName, String tableName) {
+        return tables.get(key(databaseName, tableName));
+    }
+
+    /**
+     * 获取表结构,没有缓存时通过连接读取并缓存
+     *
+     * @param connection   用来读取的连接
+     * @param databaseName 数据库名,为null时使用连接当前的数据库
+     * @param tableName    表名
+     * @return 返回表结构, 表不存在时返回null
+     * @throws SQLException 读取失败
+     */
+    public TableMetadata get (Connection connection, String databaseName, String tableName) throws SQLException {
+        if (Objects.isNull(databaseName)) {
+            databaseName = connection.getCatalog();
+        }
+        String key = key(databaseName, tableName);
+        TableMetadata metadata = tables.get(key);
+        if (!Objects.isNull(metadata)) {
+            return metadata;
+        }
+        long current = generation.get();
+        metadata = load(connection.getMetaData(), databaseName, tableName);
+        if (!Objects.isNull(metadata) && generation.get() == current) {
+            TableMetadata existing = tables.putIfAbsent(key, metadata);
+            return Objects.isNull(existing) ? metadata : existing;
+        }
+        return metadata;
+    }
+
+    /**
+     * 使一张表的缓存失效
+     *
+     * @param databaseName 数据库名,为null时使所有数据库中同名的表失效
+     * @param tableName    表名
+     */
+    public void invalidate (String databaseName, String tableName) {
+        generation.incrementAndGet();
+        if (Objects.isNull(databaseName)) {
+            String suffix = "." + tableName;
+            tables.keySet().removeIf(key -> key.endsWith(suffix));
+        } else {
+            tables.remove(key(databaseName, tableName));
+        }
+    }
+
+    /**
+     * 使一个数据库中所有表的缓存失效
+     *
+     * @param databaseName 数据库名
+     */
+    public void invalidateDatabase (String databaseName) {
+        generation.incrementAndGet();
+        String prefix = databaseName + ".";
+        tables.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear ( ) {
+        generation.incrementAndGet();
+        tables.clear();
+    }
+
+    /**
+     * 获取缓存的表的个数
+     *
+     * @return 返回缓存的表的个数
+     */
+    public int size ( ) {
+        return tables.size();
+    }
+
+    /**
+     * 通过DatabaseMetaData读取表结构
+     *
+     * @param metaData     数据库元数据
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @return 返回表结构, 表不存在时返回null
+     * @throws SQLException 读取失败
+     */
+    private static TableMetadata load (DatabaseMetaData metaData, String databaseName, String tableName) throws SQLException {
+        List<ColumnMetadata> columns = new ArrayList<>();
+        // MySQL的数据库对应JDBC的catalog;表名参数是LIKE模式,表名中的 _ 和 % 需要转义
+        try (ResultSet resultSet = metaData.getColumns(databaseName, null, escape(metaData, tableName), "%")) {
+            while (resultSet.next()) {
+                if (!sameTable(resultSet, tableName)) {
+                    continue;
+                }
+                columns.add(new ColumnMetadata(
+                        resultSet.getString("COLUMN_NAME"),
+                        resultSet.getInt("ORDINAL_POSITION"),
+                        resultSet.getInt("DATA_TYPE"),
+                        resultSet.getString("TYPE_NAME"),
+                        resultSet.getInt("COLUMN_SIZE"),
+                        resultSet.getInt("DECIMAL_DIGITS"),
+                        resultSet.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls,
+                        resultSet.getString("COLUMN_DEF"),
+                        "YES".equalsIgnoreCase(resultSet.getString("IS_AUTOINCREMENT"))));
+            }
+        }
+        if (columns.isEmpty()) {
+            return null;
+        }
+        columns.sort((a, b) -> Integer.compare(a.getPosition(), b.getPosition()));
+        return new TableMetadata(databaseName, tableName, columns, primaryKey(metaData, databaseName, tableName),
+                uniqueColumns(metaData, databaseName, tableName));
+    }
+
+    /**
+     * 读取表的主键
+     *
+     * @param metaData     数据库元数据
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @return 返回按照在主键中的顺序排列的列名, 没有主键时返回空列表
+     * @throws SQLException 读取失败
+     */
+    private static List<String> primaryKey (DatabaseMetaData metaData, String databaseName, String tableName) throws SQLException {
+        TreeMap<Integer, String> columns = new TreeMap<>();
+        try (ResultSet resultSet = metaData.getPrimaryKeys(databaseName, null, tableName)) {
+            while (resultSet.next()) {
+                if (!sameTable(resultSet, tableName)) {
+                    continue;
+                }
+                columns.put(resultSet.getInt("KEY_SEQ"), resultSet.getString("COLUMN_NAME"));
+            }
+        }
+        return new ArrayList<>(columns.values());
+    }
+
+    /**
+     * 读取只包含一列的唯一索引,不包括主键
+     *
+     * @param metaData     数据库元数据
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @return 返回有单列唯一索引的列名
+     * @throws SQLException 读取失败
+     */
+    private static Set<String> uniqueColumns (DatabaseMetaData metaData, String databaseName, String tableName) throws SQLException {
+        // 索引名对应索引中的列
+        Map<String, List<String>> indexes = new HashMap<>();
+        try (ResultSet resultSet = metaData.getIndexInfo(databaseName, null, tableName, true, true)) {
+            while (resultSet.next()) {
+                String index = resultSet.getString("INDEX_NAME");
+                String column = resultSet.getString("COLUMN_NAME");
+                if (Objects.isNull(index) || Objects.isNull(column) || "PRIMARY".equalsIgnoreCase(index) || !sameTable(resultSet, tableName)) {
+                    continue;
+                }
+                indexes.computeIfAbsent(index, key -> new ArrayList<>()).add(column);
+            }
+        }
+        Set<String> columns = new HashSet<>();
+        for (List<String> index : indexes.values()) {
+            if (index.size() == 1) {
+                columns.add(index.get(0));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 转义LIKE模式中的 _ 和 %,使表名只匹配它自己
+     *
+     * @param metaData  数据库元数据
+     * @param tableName 表名
+     * @return 返回转义后的表名, 驱动不支持转义时返回原来的表名
+     * @throws SQLException 读取转义字符失败
+     */
+    private static String escape (DatabaseMetaData metaData, String tableName) throws SQLException {
+        String escape = metaData.getSearchStringEscape();
+        if (Objects.isNull(escape) || escape.isEmpty()) {
+            return tableName;
+        }
+        StringBuilder builder = new StringBuilder(tableName.length() + 8);
+        for (int i = 0; i < tableName.length(); i++) {
+            char c = tableName.charAt(i);
+            if (c == '_' || c == '%' || escape.indexOf(c) >= 0) {
+                builder.append(escape);
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 判断元数据中的一行是否属于要读取的表,防止驱动把表名当作模式匹配到其它表
+     *
+     * @param resultSet 元数据结果集
+     * @param tableName 表名
+     * @return 返回true属于要读取的表
+     * @throws SQLException 读取失败
+     */
+    private static boolean sameTable (ResultSet resultSet, String tableName) throws SQLException {
+        String table = resultSet.getString("TABLE_NAME");
+        // lower_case_table_names不为0时返回的表名大小写可能不同
+        return Objects.isNull(table) || table.equalsIgnoreCase(tableName);
+    }
+
+    /**
+     * 拼接缓存的key
+     *
+     * @param databaseName 数据库名
+     * @param tableName    表名
+     * @return 返回 数据库名.表名
+     */
+    private static String key (String databaseName, String tableName) {
+        return databaseName + "." + tableName;
+    }
+}
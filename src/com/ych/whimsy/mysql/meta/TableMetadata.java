@@ -0,0 +1,126 @@
+package src.com.ych.whimsy.mysql.meta;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一张数据表的结构信息,创建后不再改变
+ */
+public class TableMetadata {
+
+    /**
+     * 数据库名
+     */
+    private final String databaseName;
+
+    /**
+     * 表名
+     */
+    private final String tableName;
+
+    /**
+     * 按照位置排列的列
+     */
+    private final List<ColumnMetadata> columns;
+
+    /**
+     * 按照小写列名查找列
+     */
+    private final Map<String, ColumnMetadata> byName;
+
+    /**
+     * 主键中的列名,按照在主键中的顺序排列,没有主键时为空
+     */
+    private final List<String> primaryKey;
+
+    /**
+     * 有单列唯一索引的小写列名,不包括主键
+     */
+    private final Set<String> uniqueColumns;
+
+    /**
+     * 读取结构信息的时间
+     */
+    private final long loadTime = System.currentTimeMillis();
+
+    TableMetadata (String databaseName, String tableName, List<ColumnMetadata> columns, List<String> primaryKey, Set<String> uniqueColumns) {
+        this.databaseName = databaseName;
+        this.tableName = tableName;
+        this.columns = Collections.unmodifiableList(columns);
+        this.primaryKey = Collections.unmodifiableList(primaryKey);
+        Set<String> unique = new HashSet<>();
+        for (String column : uniqueColumns) {
+            unique.add(column.toLowerCase(Locale.ROOT));
+        }
+        this.uniqueColumns = unique;
+        Map<String, ColumnMetadata> byName = new HashMap<>(columns.size() * 2);
+        for (ColumnMetadata column : columns) {
+            byName.put(column.getName().toLowerCase(Locale.ROOT), column);
+        }
+        this.byName = byName;
+    }
+
+    public String getDatabaseName ( ) {
+        return databaseName;
+    }
+
+    public String getTableName ( ) {
+        return tableName;
+    }
+
+    /**
+     * 获取所有列
+     *
+     * @return 返回按照位置排列的列, 不能修改
+     */
+    public List<ColumnMetadata> getColumns ( ) {
+        return columns;
+    }
+
+    public int getColumnCount ( ) {
+        return columns.size();
+    }
+
+    /**
+     * 按照列名查找列,不区分大小写
+     *
+     * @param name 列名
+     * @return 返回列, 没有该列时返回null
+     */
+    public ColumnMetadata getColumn (String name) {
+        return byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 获取主键中的列
+     *
+     * @return 返回按照在主键中的顺序排列的列名, 没有主键时返回空列表
+     */
+    public List<String> getPrimaryKey ( ) {
+        return primaryKey;
+    }
+
+    /**
+     * 判断一列是否有单列唯一索引,不包括主键
+     *
+     * @param name 列名,不区分大小写
+     * @return 返回true有单列唯一索引
+     */
+    public boolean isUnique (String name) {
+        return uniqueColumns.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    public long getLoadTime ( ) {
+        return loadTime;
+    }
+
+    @Override
+    public String toString ( ) {
+        return databaseName + "." + tableName + columns;
+    }
+}
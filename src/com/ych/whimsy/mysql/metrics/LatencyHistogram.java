@@ -0,0 +1,163 @@
+package src.com.ych.whimsy.mysql.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图,单位纳秒<br/>
+ * 1.耗时按照对数-线性的方式分桶:小于16纳秒每纳秒一个桶,之后每个2的幂区间再平分成8个桶,分位数的相对误差不超过12.5%.<br/>
+ * 2.每个桶是一个LongAdder,多线程同时记录时分散到不同的Cell上,不会在同一个变量上竞争.<br/>
+ * 3.记录一次耗时只有几次加法和位运算,不分配对象.
+ */
+public class LatencyHistogram {
+
+    /**
+     * 每个2的幂区间平分成的桶数,取2的对数
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * 线性桶的个数,小于该值的耗时每纳秒一个桶
+     */
+    private static final int LINEAR = 1 << (SUB_BUCKET_BITS + 1);
+
+    /**
+     * 桶的总数,覆盖到Long.MAX_VALUE
+     */
+    private static final int BUCKETS = LINEAR + (63 - SUB_BUCKET_BITS - 1) * (1 << SUB_BUCKET_BITS);
+
+    /**
+     * 每个桶的计数
+     */
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    /**
+     * 耗时总和
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 最大耗时
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * 创建一个空的直方图
+     */
+    public LatencyHistogram ( ) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时,单位纳秒,小于0时按0记录
+     */
+    public void record (long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[bucket(nanos)].increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * 读取所有桶的计数
+     *
+     * @return 返回每个桶的计数
+     */
+    long[] counts ( ) {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取耗时总和
+     *
+     * @return 返回耗时总和, 单位纳秒
+     */
+    long sum ( ) {
+        return sum.sum();
+    }
+
+    /**
+     * 获取最大耗时
+     *
+     * @return 返回最大耗时, 单位纳秒
+     */
+    long max ( ) {
+        return max.get();
+    }
+
+    /**
+     * 清空直方图
+     */
+    void reset ( ) {
+        for (LongAdder count : counts) {
+            count.reset();
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * 从桶的计数中计算分位数
+     *
+     * @param counts   每个桶的计数
+     * @param total    计数总和
+     * @param quantile 分位数,例如0.99
+     * @return 返回分位数所在桶的上界, 单位纳秒;没有记录时返回0
+     */
+    static long quantile (long[] counts, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * 计算耗时所在的桶
+     *
+     * @param nanos 耗时,单位纳秒
+     * @return 返回桶的下标
+     */
+    static int bucket (long nanos) {
+        if (nanos < LINEAR) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & ((1 << SUB_BUCKET_BITS) - 1);
+        return LINEAR + ((exponent - SUB_BUCKET_BITS - 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    /**
+     * 计算桶能容纳的最大耗时
+     *
+     * @param bucket 桶的下标
+     * @return 返回桶的上界, 单位纳秒
+     */
+    static long upperBound (int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exponent = ((bucket - LINEAR) >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS + 1;
+        long sub = (bucket - LINEAR) & ((1 << SUB_BUCKET_BITS) - 1);
+        long lower = (1L << exponent) + (sub << (exponent - SUB_BUCKET_BITS));
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return lower > Long.MAX_VALUE - width ? Long.MAX_VALUE : lower + width - 1;
+    }
+}
@@ -0,0 +1,190 @@
+package src.com.ych.whimsy.mysql.metrics;
+
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个LoadDatabase对象的统计数据,按照操作类型和表名分别统计耗时和成功/失败次数<br/>
+ * 1.记录时按操作类型找到对应的表,再按表名找到统计数据,不拼接字符串,除第一次外不分配对象.<br/>
+ * 2.可以通过snapshot ( )方法主动拉取快照,也可以通过registerMBean (String name)方法注册到JMX.<br/>
+ * 3.executeUpdate(...)方法统计为EXECUTE_UPDATE;executePreparedUpdate(...)、executeUpdateCount(...)和executeBatch(...)<br/>
+ * 是底层方法,本身不统计,由调用它们的InsertInto、Update、Delete按照INSERT、UPDATE、DELETE统计.
+ */
+public class LoadDatabaseMetrics implements LoadDatabaseMetricsMXBean {
+
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(LoadDatabaseMetrics.class);
+
+    /**
+     * 不针对某一张表的操作使用的表名
+     */
+    public static final String NO_TABLE = "-";
+
+    /**
+     * 注册到JMX时使用的域名
+     */
+    private static final String DOMAIN = "src.com.ych.whimsy.mysql";
+
+    /**
+     * 每种操作类型对应的统计数据,key为表名
+     */
+    private final Map<Operation, ConcurrentHashMap<String, OperationMetrics>> metrics = new EnumMap<>(Operation.class);
+
+    /**
+     * 是否正在统计
+     */
+    private volatile boolean enabled = true;
+
+    /**
+     * 注册到JMX时的名称,未注册时为null
+     */
+    private ObjectName objectName;
+
+    /**
+     * 创建一个空的统计对象
+     */
+    public LoadDatabaseMetrics ( ) {
+        for (Operation operation : Operation.values()) {
+            metrics.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * 获取当前时间,作为record(...)方法的开始时间
+     *
+     * @return 返回当前时间, 单位纳秒;未开启统计时返回0
+     */
+    public long start ( ) {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 记录一次操作,耗时为从开始时间到现在
+     *
+     * @param operation 操作类型
+     * @param table     表名,为空时使用NO_TABLE
+     * @param start     start ( )方法返回的开始时间
+     * @param success   操作是否成功
+     */
+    public void record (Operation operation, String table, long start, boolean success) {
+        if (!enabled || start == 0L) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+        get(operation, table).record(nanos, success);
+    }
+
+    /**
+     * 获取一种操作在一张表上的统计数据,不存在时创建
+     *
+     * @param operation 操作类型
+     * @param table     表名,为空时使用NO_TABLE
+     * @return 返回统计数据
+     */
+    public OperationMetrics get (Operation operation, String table) {
+        if (Objects.isNull(table) || table.isEmpty()) {
+            table = NO_TABLE;
+        }
+        ConcurrentHashMap<String, OperationMetrics> tables = metrics.get(operation);
+        OperationMetrics operationMetrics = tables.get(table);
+        if (Objects.isNull(operationMetrics)) {
+            String key = table;
+            operationMetrics = tables.computeIfAbsent(key, k -> new OperationMetrics(operation, key));
+        }
+        return operationMetrics;
+    }
+
+    /**
+     * 获取所有操作的统计数据快照
+     *
+     * @return 返回统计数据快照, 按操作类型排列
+     */
+    public List<MetricsSnapshot> snapshot ( ) {
+        List<MetricsSnapshot> snapshots = new ArrayList<>();
+        for (ConcurrentHashMap<String, OperationMetrics> tables : metrics.values()) {
+            for (OperationMetrics operationMetrics : tables.values()) {
+                snapshots.add(operationMetrics.snapshot());
+            }
+        }
+        return snapshots;
+    }
+
+    @Override
+    public MetricsSnapshot[] getSnapshots ( ) {
+        List<MetricsSnapshot> snapshots = snapshot();
+        return snapshots.toArray(new MetricsSnapshot[0]);
+    }
+
+    @Override
+    public boolean isEnabled ( ) {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled (boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void reset ( ) {
+        for (ConcurrentHashMap<String, OperationMetrics> tables : metrics.values()) {
+            for (OperationMetrics operationMetrics : tables.values()) {
+                operationMetrics.reset();
+            }
+        }
+    }
+
+    /**
+     * 注册到平台MBeanServer,名称为src.com.ych.whimsy.mysql:type=LoadDatabase,name=name
+     *
+     * @param name 名称,区分同一进程中的多个LoadDatabase对象
+     * @return 返回true注册成功
+     */
+    public synchronized boolean registerMBean (String name) {
+        unregisterMBean();
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=LoadDatabase,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+            return true;
+        } catch (InstanceAlreadyExistsException e) {
+            LOGGER.error("--> registerMBean (String name): 名称{}已经被注册了", name);
+            return false;
+        } catch (JMException e) {
+            LOGGER.error("--> registerMBean (String name): {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 从平台MBeanServer注销
+     */
+    public synchronized void unregisterMBean ( ) {
+        if (Objects.isNull(objectName)) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException ignored) {
+            // 已经被其他地方注销了
+        }
+        objectName = null;
+    }
+}
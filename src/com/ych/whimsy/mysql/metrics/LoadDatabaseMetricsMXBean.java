@@ -0,0 +1,33 @@
+package src.com.ych.whimsy.mysql.metrics;
+
+/**
+ * LoadDatabase统计数据的JMX接口,可以通过JConsole、VisualVM等工具查看
+ */
+public interface LoadDatabaseMetricsMXBean {
+
+    /**
+     * 获取所有操作的统计数据快照
+     *
+     * @return 返回统计数据快照
+     */
+    MetricsSnapshot[] getSnapshots ( );
+
+    /**
+     * 是否正在统计
+     *
+     * @return 返回true正在统计
+     */
+    boolean isEnabled ( );
+
+    /**
+     * 开启或者关闭统计
+     *
+     * @param enabled 为true时开启统计
+     */
+    void setEnabled (boolean enabled);
+
+    /**
+     * 清空所有统计数据
+     */
+    void reset ( );
+}
@@ -0,0 +1,134 @@
+package src.com.ych.whimsy.mysql.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 一种操作在一张表上的统计数据快照,耗时单位均为纳秒<br/>
+ * 分位数是所在分桶的上界,相对误差不超过12.5%.
+ */
+public class MetricsSnapshot {
+
+    /**
+     * 操作类型
+     */
+    private final String operation;
+
+    /**
+     * 表名
+     */
+    private final String table;
+
+    /**
+     * 成功次数
+     */
+    private final long successes;
+
+    /**
+     * 失败次数
+     */
+    private final long failures;
+
+    /**
+     * 平均耗时
+     */
+    private final long mean;
+
+    /**
+     * 50分位耗时
+     */
+    private final long p50;
+
+    /**
+     * 99分位耗时
+     */
+    private final long p99;
+
+    /**
+     * 99.9分位耗时
+     */
+    private final long p999;
+
+    /**
+     * 最大耗时
+     */
+    private final long max;
+
+    /**
+     * 创建统计数据快照
+     *
+     * @param operation 操作类型
+     * @param table     表名
+     * @param successes 成功次数
+     * @param failures  失败次数
+     * @param mean      平均耗时
+     * @param p50       50分位耗时
+     * @param p99       99分位耗时
+     * @param p999      99.9分位耗时
+     * @param max       最大耗时
+     */
+    @ConstructorProperties({"operation", "table", "successes", "failures", "mean", "p50", "p99", "p999", "max"})
+    public MetricsSnapshot (String operation, String table, long successes, long failures,
+                            long mean, long p50, long p99, long p999, long max) {
+        this.operation = operation;
+        this.table = table;
+        this.successes = successes;
+        this.failures = failures;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getOperation ( ) {
+        return operation;
+    }
+
+    public String getTable ( ) {
+        return table;
+    }
+
+    public long getSuccesses ( ) {
+        return successes;
+    }
+
+    public long getFailures ( ) {
+        return failures;
+    }
+
+    /**
+     * 获取操作总次数
+     *
+     * @return 返回成功次数与失败次数之和
+     */
+    public long getCount ( ) {
+        return successes + failures;
+    }
+
+    public long getMean ( ) {
+        return mean;
+    }
+
+    public long getP50 ( ) {
+        return p50;
+    }
+
+    public long getP99 ( ) {
+        return p99;
+    }
+
+    public long getP999 ( ) {
+        return p999;
+    }
+
+    public long getMax ( ) {
+        return max;
+    }
+
+    @Override
+    public String toString ( ) {
+        return operation + " " + table + ": count = " + getCount() + ", failures = " + failures
+                + ", mean = " + mean / 1000 + "us, p50 = " + p50 / 1000 + "us, p99 = " + p99 / 1000
+                + "us, p999 = " + p999 / 1000 + "us, max = " + max / 1000 + "us";
+    }
+}
@@ -0,0 +1,39 @@
+package src.com.ych.whimsy.mysql.metrics;
+
+/**
+ * LoadDatabase统计耗时的操作类型
+ */
+public enum Operation {
+    /**
+     * LoadDatabase.executeUpdate(...)直接执行的DDL语句或者DML语句
+     */
+    EXECUTE_UPDATE,
+    /**
+     * 查询,包括inquireTable、inquireResultSet、inquireTableMessage和forEachRow
+     */
+    QUERY,
+    /**
+     * 创建表
+     */
+    CREATE_TABLE,
+    /**
+     * 删除表
+     */
+    DROP_TABLE,
+    /**
+     * 按列定义修改已有的表
+     */
+    ALTER_TABLE,
+    /**
+     * InsertInto提交,包括批量提交
+     */
+    INSERT,
+    /**
+     * Update提交
+     */
+    UPDATE,
+    /**
+     * Delete提交
+     */
+    DELETE
+}
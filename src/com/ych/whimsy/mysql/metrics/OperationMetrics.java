@@ -0,0 +1,90 @@
+package src.com.ych.whimsy.mysql.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一种操作在一张表上的统计数据,包括耗时直方图和成功/失败次数
+ */
+public class OperationMetrics {
+
+    /**
+     * 操作类型
+     */
+    private final Operation operation;
+
+    /**
+     * 表名
+     */
+    private final String table;
+
+    /**
+     * 耗时直方图
+     */
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * 成功次数
+     */
+    private final LongAdder successes = new LongAdder();
+
+    /**
+     * 失败次数
+     */
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * 创建一种操作在一张表上的统计数据
+     *
+     * @param operation 操作类型
+     * @param table     表名
+     */
+    OperationMetrics (Operation operation, String table) {
+        this.operation = operation;
+        this.table = table;
+    }
+
+    /**
+     * 记录一次操作
+     *
+     * @param nanos   耗时,单位纳秒
+     * @param success 操作是否成功
+     */
+    public void record (long nanos, boolean success) {
+        histogram.record(nanos);
+        if (success) {
+            successes.increment();
+        } else {
+            failures.increment();
+        }
+    }
+
+    /**
+     * 获取当前统计数据的快照
+     *
+     * @return 返回快照
+     */
+    public MetricsSnapshot snapshot ( ) {
+        long[] counts = histogram.counts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long max = histogram.max();
+        // 分位数取的是分桶的上界,不能超过实际的最大耗时
+        return new MetricsSnapshot(operation.name(), table, successes.sum(), failures.sum(),
+                total == 0 ? 0 : histogram.sum() / total,
+                Math.min(max, LatencyHistogram.quantile(counts, total, 0.5)),
+                Math.min(max, LatencyHistogram.quantile(counts, total, 0.99)),
+                Math.min(max, LatencyHistogram.quantile(counts, total, 0.999)),
+                max);
+    }
+
+    /**
+     * 清空统计数据
+     */
+    void reset ( ) {
+        histogram.reset();
+        successes.reset();
+        failures.reset();
+    }
+}
@@ -1,17 +1,57 @@
 package src.com.ych.whimsy.mysql.operation;
 
+import com.alibaba.fastjson.JSONObject;
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
 import src.com.ych.whimsy.mysql.Field;
 import src.com.ych.whimsy.mysql.LoadDatabase;
 import src.com.ych.whimsy.mysql.Restriction;
+import src.com.ych.whimsy.mysql.metrics.Operation;
+import src.com.ych.whimsy.mysql.pool.ConnectionPool;
+import src.com.ych.whimsy.mysql.pool.PooledConnection;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- *
+ * 创建数据表,可以逐个字段设置约束,也可以按照JSON格式的数据库结构文件批量创建<br/>
+ * 按数据库结构文件创建时:<br/>
+ * 1.表按依赖关系分成多层,被依赖的表所在的层先创建,同一层的表分配到多个连接上同时创建.<br/>
+ * 2.数据库URL中加上allowMultiQueries=true时,同一个连接上的建表语句每PIPELINE_SIZE条一起发送,减少往返次数.<br/>
+ * 3.依赖的表创建失败时不再创建该表,每张表的结果和耗时通过SchemaResult返回.
  */
 public class CreateTable implements Restriction {
 
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(CreateTable.class);
+
+    /**
+     * 允许多条语句一起发送时,一次最多发送的建表语句数
+     */
+    private static final int PIPELINE_SIZE = 16;
+
     /**
      * 数据库对象
      */
@@ -179,4 +219,303 @@ public class CreateTable implements Restriction {
     }
 
 
+    /**
+     * 按数据库结构文件创建表
+     *
+     * @param file        数据库结构文件,UTF-8编码
+     * @param connections 同时使用的连接数,超过连接池的最大连接数时使用最大连接数
+     * @return 返回按文件中顺序排列的每张表的结果, 文件读取失败、格式错误或者表之间循环依赖时返回null
+     */
+    public List<SchemaResult> applySchema (Path file, int connections) {
+        String json;
+        try {
+            json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.error("--> applySchema (Path file, int connections): 数据库结构文件 \"{}\" 读取失败 {}", file, e);
+            return null;
+        }
+        return applySchema(json, connections);
+    }
+
+    /**
+     * 按数据库结构文件的内容创建表
+     *
+     * @param json        数据库结构文件的内容
+     * @param connections 同时使用的连接数,超过连接池的最大连接数时使用最大连接数
+     * @return 返回按文件中顺序排列的每张表的结果, 格式错误或者表之间循环依赖时返回null
+     */
+    public List<SchemaResult> applySchema (String json, int connections) {
+        String databaseName;
+        List<TableSchema> schemas;
+        try {
+            JSONObject root = TableSchema.parseRoot(json);
+            databaseName = root.getString("database");
+            schemas = TableSchema.parse(root);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("--> applySchema (String json, int connections): {}", e.getMessage());
+            return null;
+        }
+        if (Objects.isNull(databaseName) || databaseName.isEmpty()) {
+            databaseName = loadDatabase.getDatabaseName();
+        }
+        return applySchema(databaseName, schemas, connections);
+    }
+
+    /**
+     * 在指定的数据库上创建一组表
+     *
+     * @param databaseName 数据库名,为空时使用useDatabase (String dbName)方法设置的数据库
+     * @param schemas      表定义
+     * @param connections  同时使用的连接数,超过连接池的最大连接数时使用最大连接数
+     * @return 返回和表定义顺序相同的每张表的结果, 表之间循环依赖时返回null
+     */
+    public List<SchemaResult> applySchema (String databaseName, List<TableSchema> schemas, int connections) {
+        List<List<TableSchema>> levels = levels(schemas);
+        if (Objects.isNull(levels)) {
+            return null;
+        }
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < schemas.size(); i++) {
+            index.put(schemas.get(i).getName(), i);
+        }
+        SchemaResult[] results = new SchemaResult[schemas.size()];
+        ConnectionPool pool = loadDatabase.getConnectionPool();
+        int threads = Math.max(1, Objects.isNull(pool) ? connections : Math.min(connections, pool.getMaxSize()));
+        ExecutorService executor = newExecutor(threads);
+        long start = System.nanoTime();
+        try {
+            for (List<TableSchema> level : levels) {
+                // 依赖的表没有创建成功时跳过
+                List<TableSchema> runnable = new ArrayList<>(level.size());
+                for (TableSchema schema : level) {
+                    String failed = failedDependency(schema, index, results);
+                    if (Objects.isNull(failed)) {
+                        runnable.add(schema);
+                    } else {
+                        results[index.get(schema.getName())] = new SchemaResult(schema.getName(), false, true, false, 0L, "依赖的表 \"" + failed + "\" 没有创建成功");
+                    }
+                }
+                // 同一层的表按轮询分配到各个连接上
+                int groups = Math.min(threads, runnable.size());
+                CompletableFuture<?>[] futures = new CompletableFuture<?>[groups];
+                for (int g = 0; g < groups; g++) {
+                    List<TableSchema> group = new ArrayList<>();
+                    for (int i = g; i < runnable.size(); i += groups) {
+                        group.add(runnable.get(i));
+                    }
+                    futures[g] = CompletableFuture.runAsync(() -> createGroup(databaseName, group, index, results), executor);
+                }
+                try {
+                    CompletableFuture.allOf(futures).join();
+                } catch (CompletionException e) {
+                    LOGGER.error("--> applySchema (...): 建表线程出现异常 {}", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        int failed = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (Objects.isNull(results[i])) {
+                results[i] = new SchemaResult(schemas.get(i).getName(), false, false, false, 0L, "建表线程出现异常");
+            }
+            if (!results[i].isSuccess()) {
+                failed++;
+            }
+        }
+        LOGGER.info("--> applySchema (...): 数据库 \"{}\" 创建了{}张表,失败{}张", databaseName, results.length - failed, failed);
+        LOGGER.info("--> applySchema (...): {}层,{}个连接,耗时{}ms", levels.size(), threads, (System.nanoTime() - start) / 1_000_000);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 在一个连接上依次创建一组表,允许多条语句一起发送时每PIPELINE_SIZE条一起发送
+     *
+     * @param databaseName 数据库名
+     * @param group        要创建的表
+     * @param index        表名对应的结果下标
+     * @param results      每张表的结果
+     */
+    private void createGroup (String databaseName, List<TableSchema> group, Map<String, Integer> index, SchemaResult[] results) {
+        PooledConnection pooled;
+        try {
+            pooled = loadDatabase.borrowConnection(databaseName);
+        } catch (SQLException e) {
+            LOGGER.error("--> createGroup (...): 借出连接失败 {}", e.getMessage());
+            for (TableSchema schema : group) {
+                results[index.get(schema.getName())] = new SchemaResult(schema.getName(), false, false, false, 0L, e.getMessage());
+            }
+            return;
+        }
+        try {
+            boolean multiStatements = supportsMultiStatements(pooled);
+            int i = 0;
+            while (i < group.size()) {
+                int end = multiStatements ? Math.min(group.size(), i + PIPELINE_SIZE) : i + 1;
+                i = execute(databaseName, pooled, group, i, end, index, results);
+            }
+        } finally {
+            pooled.release();
+        }
+    }
+
+    /**
+     * 把一组建表语句一起发送并按顺序读取每条语句的结果<br/>
+     * 某条语句失败时数据库不再执行后面的语句,返回失败语句的下一条的下标,后面的语句由调用方重新发送.
+     *
+     * @param databaseName 数据库名
+     * @param pooled       连接
+     * @param group        要创建的表
+     * @param from         第一条语句的下标
+     * @param to           最后一条语句的下一个下标
+     * @param index        表名对应的结果下标
+     * @param results      每张表的结果
+     * @return 返回下一条要发送的语句的下标
+     */
+    private int execute (String databaseName, PooledConnection pooled, List<TableSchema> group, int from, int to,
+                         Map<String, Integer> index, SchemaResult[] results) {
+        boolean pipelined = to - from > 1;
+        StringBuilder sql = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sql.append(i == from ? "" : ";").append(group.get(i).toSql());
+        }
+        int current = from;
+        long start = System.nanoTime();
+        try (Statement statement = pooled.getConnection().createStatement()) {
+            boolean hasResultSet = statement.execute(sql.toString());
+            while (current < to && (hasResultSet || statement.getUpdateCount() != -1)) {
+                start = finish(databaseName, group.get(current), index, results, pipelined, start, null);
+                current++;
+                hasResultSet = statement.getMoreResults();
+            }
+        } catch (SQLException e) {
+            pooled.checkFailure(e);
+            if (current < to) {
+                LOGGER.error("--> execute (...): 表 \"{}\" 创建失败 {}", group.get(current).getName(), e.getMessage());
+                finish(databaseName, group.get(current), index, results, pipelined, start, e.getMessage());
+                return current + 1;
+            }
+            LOGGER.error("--> execute (...): 读取建表结果失败 {}", e.getMessage());
+        }
+        for (; current < to; current++) {
+            finish(databaseName, group.get(current), index, results, pipelined, start, "没有返回执行结果");
+        }
+        return to;
+    }
+
+    /**
+     * 记录一张表的结果并清除该表的缓存
+     *
+     * @param databaseName 数据库名
+     * @param schema       表定义
+     * @param index        表名对应的结果下标
+     * @param results      每张表的结果
+     * @param pipelined    是否和其它建表语句一起发送
+     * @param start        开始时间,单位纳秒
+     * @param error        失败原因,成功时为null
+     * @return 返回当前时间, 作为下一条语句的开始时间
+     */
+    private long finish (String databaseName, TableSchema schema, Map<String, Integer> index, SchemaResult[] results,
+                         boolean pipelined, long start, String error) {
+        long now = System.nanoTime();
+        boolean success = Objects.isNull(error);
+        results[index.get(schema.getName())] = new SchemaResult(schema.getName(), success, false, pipelined, now - start, error);
+        loadDatabase.getMetrics().record(Operation.CREATE_TABLE, schema.getName(), loadDatabase.getMetrics().isEnabled() ? start : 0L, success);
+        loadDatabase.getMetadataCache().invalidate(databaseName, schema.getName());
+        loadDatabase.invalidateResultCache(databaseName, schema.getName());
+        return now;
+    }
+
+    /**
+     * 查找没有创建成功的依赖表
+     *
+     * @param schema  表定义
+     * @param index   表名对应的结果下标
+     * @param results 每张表的结果
+     * @return 返回第一个没有创建成功的依赖表, 都创建成功或者不在本次创建的表中时返回null
+     */
+    private static String failedDependency (TableSchema schema, Map<String, Integer> index, SchemaResult[] results) {
+        for (String dependency : schema.getDependencies()) {
+            Integer i = index.get(dependency);
+            if (!Objects.isNull(i) && (Objects.isNull(results[i]) || !results[i].isSuccess())) {
+                return dependency;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按依赖关系把表分层,每一层的表只依赖前面各层的表或者不在本次创建的表
+     *
+     * @param schemas 表定义
+     * @return 返回分好的层, 表之间循环依赖时返回null
+     */
+    private static List<List<TableSchema>> levels (List<TableSchema> schemas) {
+        Set<String> names = new HashSet<>();
+        for (TableSchema schema : schemas) {
+            names.add(schema.getName());
+        }
+        List<List<TableSchema>> levels = new ArrayList<>();
+        Set<String> created = new HashSet<>();
+        List<TableSchema> remaining = new ArrayList<>(schemas);
+        while (!remaining.isEmpty()) {
+            List<TableSchema> level = new ArrayList<>();
+            for (TableSchema schema : remaining) {
+                boolean ready = true;
+                for (String dependency : schema.getDependencies()) {
+                    if (names.contains(dependency) && !created.contains(dependency)) {
+                        ready = false;
+                        break;
+                    }
+                }
+                if (ready) {
+                    level.add(schema);
+                }
+            }
+            if (level.isEmpty()) {
+                List<String> cycle = new ArrayList<>();
+                for (TableSchema schema : remaining) {
+                    cycle.add(schema.getName());
+                }
+                LOGGER.error("--> levels (...): 表之间存在循环依赖 {}", cycle);
+                return null;
+            }
+            remaining.removeAll(level);
+            for (TableSchema schema : level) {
+                created.add(schema.getName());
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    /**
+     * 判断连接是否允许一次发送多条语句,需要在数据库URL中加上allowMultiQueries=true
+     *
+     * @param pooled 连接
+     * @return 返回true允许
+     */
+    private static boolean supportsMultiStatements (PooledConnection pooled) {
+        try {
+            String url = pooled.getConnection().getMetaData().getURL();
+            return !Objects.isNull(url) && url.toLowerCase(Locale.ROOT).contains("allowmultiqueries=true");
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 创建建表使用的线程池
+     *
+     * @param threads 线程数
+     * @return 返回线程池
+     */
+    private static ExecutorService newExecutor (int threads) {
+        AtomicInteger number = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "whimsy-schema-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
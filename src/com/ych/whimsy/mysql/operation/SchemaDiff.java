@@ -0,0 +1,202 @@
+package src.com.ych.whimsy.mysql.operation;
+
+import src.com.ych.whimsy.mysql.Field;
+import src.com.ych.whimsy.mysql.Restriction;
+import src.com.ych.whimsy.mysql.TypeDescriptor;
+import src.com.ych.whimsy.mysql.meta.ColumnMetadata;
+import src.com.ych.whimsy.mysql.meta.TableMetadata;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 比较列定义和数据库中已有的表结构,生成把表修改成列定义所需的最少的修改<br/>
+ * 1.缺少的列使用add column,类型、长度、默认值、非空或者自动增长不同的列使用modify column,其它列不修改.<br/>
+ * 2.主键不同时先drop primary key再add primary key;缺少的单列唯一索引使用add unique,已有的唯一索引不删除.<br/>
+ * 3.int的显示宽度在MySQL8中已经废弃,只比较类型不比较宽度;varchar比较长度.<br/>
+ * 4.列定义中没有的列默认不删除,需要删除时使用dropColumns参数.<br/>
+ * 5.Field只能设置一个约束,主键列已经是自动增长时保留自动增长.<br/>
+ * 所有修改合并成一条alter table语句,MySQL只需要重建一次表,能够原地修改时不会复制数据.
+ */
+public final class SchemaDiff {
+
+    /**
+     * 该类不允许有实例
+     */
+    private SchemaDiff ( ) {
+    }
+
+    /**
+     * 生成把表修改成列定义的SQL语句
+     *
+     * @param live        数据库中已有的表结构,为null说明表不存在
+     * @param tableName   表名
+     * @param fields      列定义
+     * @param dropColumns 是否删除列定义中没有的列
+     * @return 返回合并后的alter table语句, 表不存在时返回建表语句,不需要修改时返回null
+     */
+    public static String diff (TableMetadata live, String tableName, Field[] fields, boolean dropColumns) {
+        if (Objects.isNull(live)) {
+            return Field.createTableSql(tableName, fields);
+        }
+        List<String> changes = changes(live, fields, dropColumns);
+        if (changes.isEmpty()) {
+            return null;
+        }
+        StringBuilder sql = new StringBuilder("alter table ").append(tableName).append(" ");
+        for (int i = 0; i < changes.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(changes.get(i));
+        }
+        return sql.append(";").toString();
+    }
+
+    /**
+     * 生成把表修改成列定义所需的每一项修改
+     *
+     * @param live        数据库中已有的表结构
+     * @param fields      列定义
+     * @param dropColumns 是否删除列定义中没有的列
+     * @return 返回alter table语句中的每一项修改, 不需要修改时返回空列表
+     */
+    public static List<String> changes (TableMetadata live, Field[] fields, boolean dropColumns) {
+        List<String> changes = new ArrayList<>();
+        List<String> primaryKey = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Field field : fields) {
+            names.add(field.getName().toLowerCase(Locale.ROOT));
+            if (Restriction.PRIMARY_KEY.equals(field.getRestriction())) {
+                primaryKey.add(field.getName());
+            }
+        }
+        boolean primaryKeyChanged = !sameColumns(primaryKey, live.getPrimaryKey());
+        if (primaryKeyChanged && !live.getPrimaryKey().isEmpty()) {
+            changes.add("drop primary key");
+        }
+        if (dropColumns) {
+            for (ColumnMetadata column : live.getColumns()) {
+                if (!names.contains(column.getName().toLowerCase(Locale.ROOT))) {
+                    changes.add("drop column " + column.getName());
+                }
+            }
+        }
+        for (Field field : fields) {
+            ColumnMetadata column = live.getColumn(field.getName());
+            if (Objects.isNull(column)) {
+                changes.add("add column " + definition(field, false));
+            } else if (!matches(field, column)) {
+                changes.add("modify column " + definition(field, isAutoIncrement(field, column)));
+            }
+        }
+        if (primaryKeyChanged && !primaryKey.isEmpty()) {
+            changes.add("add primary key (" + String.join(",", primaryKey) + ")");
+        }
+        for (Field field : fields) {
+            if (Restriction.UNIQUE.equals(field.getRestriction()) && !live.isUnique(field.getName())) {
+                changes.add("add unique (" + field.getName() + ")");
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 拼接add column和modify column使用的列定义,主键和唯一索引单独修改,不拼接到列定义中
+     *
+     * @param field         列定义
+     * @param autoIncrement 是否自动增长
+     * @return 返回列定义, 例如"name varchar(20) default 'abc' not null"
+     */
+    private static String definition (Field field, boolean autoIncrement) {
+        StringBuilder definition = new StringBuilder(field.getName()).append(" ").append(field.getType());
+        if (isNotNull(field)) {
+            definition.append(" not null");
+        }
+        if (autoIncrement || Restriction.AUTO_INCREMENT.equals(field.getRestriction())) {
+            definition.append(" auto_increment");
+        }
+        return definition.toString();
+    }
+
+    /**
+     * 判断已有的列是否和列定义一致
+     *
+     * @param field  列定义
+     * @param column 已有的列
+     * @return 返回true一致, 不需要修改
+     */
+    private static boolean matches (Field field, ColumnMetadata column) {
+        TypeDescriptor type = field.getType();
+        switch (type.getBase()) {
+            case INT:
+                if (column.getSqlType() != Types.INTEGER || column.getTypeName().toUpperCase(Locale.ROOT).contains("UNSIGNED")) {
+                    return false;
+                }
+                break;
+            case VARCHAR:
+                if (column.getSqlType() != Types.VARCHAR || column.getPrecision() != type.getWidth()) {
+                    return false;
+                }
+                break;
+            default:
+                return false;
+        }
+        if (isNotNull(field) == column.isNullable()) {
+            return false;
+        }
+        if (isAutoIncrement(field, column) != column.isAutoIncrement()) {
+            return false;
+        }
+        // 默认值为null和没有默认值相同
+        String desired = type.getDefaultLiteral();
+        if ("null".equals(desired)) {
+            desired = null;
+        }
+        String current = Objects.isNull(column.getDefaultValue()) ? null : type.toLiteral(column.getDefaultValue());
+        return Objects.equals(desired, current);
+    }
+
+    /**
+     * 判断修改后的列是否自动增长,主键列已经是自动增长时保留
+     *
+     * @param field  列定义
+     * @param column 已有的列
+     * @return 返回true自动增长
+     */
+    private static boolean isAutoIncrement (Field field, ColumnMetadata column) {
+        String restriction = field.getRestriction();
+        return Restriction.AUTO_INCREMENT.equals(restriction) || (Restriction.PRIMARY_KEY.equals(restriction) && column.isAutoIncrement());
+    }
+
+    /**
+     * 判断列定义是否不允许为null,主键也不允许为null
+     *
+     * @param field 列定义
+     * @return 返回true不允许为null
+     */
+    private static boolean isNotNull (Field field) {
+        return Restriction.NOT_NULL.equals(field.getRestriction()) || Restriction.PRIMARY_KEY.equals(field.getRestriction());
+    }
+
+    /**
+     * 判断两组列名是否相同,顺序相关,不区分大小写
+     *
+     * @param a 列名
+     * @param b 列名
+     * @return 返回true相同
+     */
+    private static boolean sameColumns (List<String> a, List<String> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).equalsIgnoreCase(b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,117 @@
+package src.com.ych.whimsy.mysql.operation;
+
+/**
+ * 按数据库结构文件创建一张表的结果,由CreateTable的applySchema(...)方法返回<br/>
+ * 耗时是该表的建表语句执行的时间;多条语句一起发送时,是从上一条语句的结果返回到该语句的结果返回之间的时间.
+ */
+public final class SchemaResult {
+
+    /**
+     * 表名
+     */
+    private final String tableName;
+
+    /**
+     * 是否创建成功
+     */
+    private final boolean success;
+
+    /**
+     * 是否因为依赖的表创建失败而没有执行
+     */
+    private final boolean skipped;
+
+    /**
+     * 是否和其它建表语句一起发送
+     */
+    private final boolean pipelined;
+
+    /**
+     * 耗时,单位纳秒
+     */
+    private final long elapsedNanos;
+
+    /**
+     * 失败原因,成功时为null
+     */
+    private final String error;
+
+    /**
+     * 创建结果
+     *
+     * @param tableName    表名
+     * @param success      是否创建成功
+     * @param skipped      是否因为依赖的表创建失败而没有执行
+     * @param pipelined    是否和其它建表语句一起发送
+     * @param elapsedNanos 耗时,单位纳秒
+     * @param error        失败原因
+     */
+    SchemaResult (String tableName, boolean success, boolean skipped, boolean pipelined, long elapsedNanos, String error) {
+        this.tableName = tableName;
+        this.success = success;
+        this.skipped = skipped;
+        this.pipelined = pipelined;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    /**
+     * 获取表名
+     *
+     * @return 返回表名
+     */
+    public String getTableName ( ) {
+        return tableName;
+    }
+
+    /**
+     * 是否创建成功
+     *
+     * @return 返回true创建成功
+     */
+    public boolean isSuccess ( ) {
+        return success;
+    }
+
+    /**
+     * 是否因为依赖的表创建失败而没有执行
+     *
+     * @return 返回true没有执行
+     */
+    public boolean isSkipped ( ) {
+        return skipped;
+    }
+
+    /**
+     * 是否和其它建表语句一起发送
+     *
+     * @return 返回true一起发送
+     */
+    public boolean isPipelined ( ) {
+        return pipelined;
+    }
+
+    /**
+     * 获取耗时
+     *
+     * @return 返回耗时, 单位纳秒
+     */
+    public long getElapsedNanos ( ) {
+        return elapsedNanos;
+    }
+
+    /**
+     * 获取失败原因
+     *
+     * @return 返回失败原因, 成功时返回null
+     */
+    public String getError ( ) {
+        return error;
+    }
+
+    @Override
+    public String toString ( ) {
+        String state = success ? "ok" : skipped ? "skipped" : "failed: " + error;
+        return tableName + " " + String.format("%.3f", elapsedNanos / 1_000_000.0) + "ms" + (pipelined ? " pipelined " : " ") + state;
+    }
+}
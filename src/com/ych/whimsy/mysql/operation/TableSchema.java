@@ -0,0 +1,284 @@
+package src.com.ych.whimsy.mysql.operation;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+import src.com.ych.whimsy.mysql.Field;
+import src.com.ych.whimsy.mysql.Restriction;
+import src.com.ych.whimsy.mysql.Type;
+import src.com.ych.whimsy.mysql.TypeDescriptor;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 从JSON格式的数据库结构文件中读取的一张表的定义,创建后不能修改<br/>
+ * 文件格式如下,database可以省略,省略时使用LoadDatabase当前的数据库:<br/>
+ * <pre>
+ * {
+ *   "database": "tenant_1",
+ *   "tables": [
+ *     {"name": "dept", "fields": [
+ *       {"name": "id", "type": "int", "width": 10, "restriction": "primary_key"},
+ *       {"name": "title", "type": "varchar", "width": 64, "default": ""}
+ *     ]},
+ *     {"name": "user", "dependsOn": ["dept"], "fields": [
+ *       {"name": "id", "type": "int", "restriction": "auto_increment"},
+ *       {"name": "dept_id", "type": "int", "references": "dept(id)"}
+ *     ]}
+ *   ]
+ * }
+ * </pre>
+ * 1.type是Type的枚举名,不区分大小写;width省略时使用该类型的默认宽度;default可以为null.<br/>
+ * 2.restriction是Restriction中的约束,例如auto_increment、not_null、unique、primary_key.<br/>
+ * 3.references生成外键约束,被引用的表和dependsOn中的表会先于该表创建.
+ */
+public final class TableSchema {
+
+    /**
+     * 表名
+     */
+    private final String name;
+
+    /**
+     * 列定义
+     */
+    private final Field[] fields;
+
+    /**
+     * 外键约束,例如"foreign key (dept_id) references dept(id)"
+     */
+    private final List<String> foreignKeys;
+
+    /**
+     * 必须先于该表创建的表
+     */
+    private final Set<String> dependencies;
+
+    /**
+     * 创建表定义
+     *
+     * @param name         表名
+     * @param fields       列定义
+     * @param foreignKeys  外键约束
+     * @param dependencies 必须先于该表创建的表
+     */
+    TableSchema (String name, Field[] fields, List<String> foreignKeys, Set<String> dependencies) {
+        this.name = name;
+        this.fields = fields;
+        this.foreignKeys = Collections.unmodifiableList(foreignKeys);
+        this.dependencies = Collections.unmodifiableSet(dependencies);
+    }
+
+    /**
+     * 解析数据库结构文件中的所有表
+     *
+     * @param root 数据库结构文件的根对象
+     * @return 返回按文件中的顺序排列的表定义
+     * @throws IllegalArgumentException 文件格式错误
+     */
+    static List<TableSchema> parse (JSONObject root) throws IllegalArgumentException {
+        JSONArray tables = root.getJSONArray("tables");
+        if (Objects.isNull(tables) || tables.isEmpty()) {
+            throw new IllegalArgumentException("数据库结构文件中没有tables");
+        }
+        List<TableSchema> schemas = new ArrayList<>(tables.size());
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < tables.size(); i++) {
+            TableSchema schema = parseTable(tables.getJSONObject(i));
+            if (!names.add(schema.name)) {
+                throw new IllegalArgumentException("表 \"" + schema.name + "\" 重复定义");
+            }
+            schemas.add(schema);
+        }
+        return schemas;
+    }
+
+    /**
+     * 解析数据库结构文件
+     *
+     * @param json 数据库结构文件的内容
+     * @return 返回文件的根对象
+     * @throws IllegalArgumentException 不是JSON对象
+     */
+    static JSONObject parseRoot (String json) throws IllegalArgumentException {
+        try {
+            JSONObject root = JSON.parseObject(json);
+            if (Objects.isNull(root)) {
+                throw new IllegalArgumentException("数据库结构文件为空");
+            }
+            return root;
+        } catch (JSONException | ClassCastException e) {
+            throw new IllegalArgumentException("数据库结构文件不是JSON对象: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解析一张表
+     *
+     * @param table 表的JSON对象
+     * @return 返回表定义
+     * @throws IllegalArgumentException 表定义格式错误
+     */
+    private static TableSchema parseTable (JSONObject table) throws IllegalArgumentException {
+        String name = requireString(table, "name", "表名");
+        JSONArray columns = table.getJSONArray("fields");
+        if (Objects.isNull(columns) || columns.isEmpty()) {
+            throw new IllegalArgumentException("表 \"" + name + "\" 没有fields");
+        }
+        Field[] fields = new Field[columns.size()];
+        List<String> foreignKeys = new ArrayList<>();
+        Set<String> dependencies = new LinkedHashSet<>();
+        for (int i = 0; i < fields.length; i++) {
+            JSONObject column = columns.getJSONObject(i);
+            fields[i] = parseField(name, column);
+            String references = column.getString("references");
+            if (!Objects.isNull(references)) {
+                int open = references.indexOf('(');
+                if (open <= 0 || !references.endsWith(")")) {
+                    throw new IllegalArgumentException("表 \"" + name + "\" 的references格式应为 表名(列名): " + references);
+                }
+                foreignKeys.add("foreign key (" + fields[i].getName() + ") references " + references);
+                dependencies.add(references.substring(0, open).trim());
+            }
+        }
+        JSONArray dependsOn = table.getJSONArray("dependsOn");
+        if (!Objects.isNull(dependsOn)) {
+            for (int i = 0; i < dependsOn.size(); i++) {
+                dependencies.add(dependsOn.getString(i));
+            }
+        }
+        // 引用自身的外键不影响创建顺序
+        dependencies.remove(name);
+        return new TableSchema(name, fields, foreignKeys, dependencies);
+    }
+
+    /**
+     * 解析一个列定义
+     *
+     * @param tableName 表名
+     * @param column    列的JSON对象
+     * @return 返回列定义
+     * @throws IllegalArgumentException 列定义格式错误
+     */
+    private static Field parseField (String tableName, JSONObject column) throws IllegalArgumentException {
+        String name = requireString(column, "name", "表 \"" + tableName + "\" 的列名");
+        String typeName = requireString(column, "type", "列 \"" + tableName + "." + name + "\" 的类型");
+        Type type;
+        try {
+            type = Type.valueOf(typeName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("列 \"" + tableName + "." + name + "\" 的类型 \"" + typeName + "\" 不支持");
+        }
+        TypeDescriptor descriptor;
+        try {
+            Integer width = column.getInteger("width");
+            int w = Objects.isNull(width) ? type.getType().getWidth() : width;
+            descriptor = column.containsKey("default") ? type.getType(w, column.get("default")) : type.getType(w);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("列 \"" + tableName + "." + name + "\" 的宽度或默认值错误: " + e.getMessage(), e);
+        }
+        Field field = new Field(name, descriptor);
+        String restriction = column.getString("restriction");
+        if (!Objects.isNull(restriction)) {
+            try {
+                field.setRestriction(restriction(restriction));
+            } catch (SQLException e) {
+                throw new IllegalArgumentException("列 \"" + tableName + "." + name + "\" 的约束 \"" + restriction + "\" 不支持");
+            }
+        }
+        return field;
+    }
+
+    /**
+     * 把文件中的约束名转换成Restriction中的约束,下划线当作空格,不区分大小写
+     *
+     * @param restriction 文件中的约束名
+     * @return 返回Restriction中的约束, 不支持时返回原来的约束名
+     */
+    private static String restriction (String restriction) {
+        String normalized = restriction.replace('_', ' ').trim().toLowerCase(Locale.ROOT);
+        for (String candidate : new String[]{Restriction.AUTO_INCREMENT, Restriction.NOT_NULL, Restriction.UNIQUE, Restriction.PRIMARY_KEY}) {
+            if (candidate.trim().equals(normalized)) {
+                return candidate;
+            }
+        }
+        return restriction;
+    }
+
+    /**
+     * 获取不能为空的字符串属性
+     *
+     * @param object      JSON对象
+     * @param key         属性名
+     * @param description 属性说明,用于错误信息
+     * @return 返回属性值
+     * @throws IllegalArgumentException 属性不存在或者为空
+     */
+    private static String requireString (JSONObject object, String key, String description) throws IllegalArgumentException {
+        String value = Objects.isNull(object) ? null : object.getString(key);
+        if (Objects.isNull(value) || value.isEmpty()) {
+            throw new IllegalArgumentException(description + "为空了");
+        }
+        return value;
+    }
+
+    /**
+     * 拼接创建表的SQL语句,不带结尾的分号
+     *
+     * @return 返回创建表的SQL语句
+     */
+    String toSql ( ) {
+        StringBuilder sql = new StringBuilder("create table if not exists ").append(name).append("(");
+        for (int i = 0; i < fields.length; i++) {
+            sql.append(i == 0 ? "" : ",").append(fields[i]);
+        }
+        for (String foreignKey : foreignKeys) {
+            sql.append(",").append(foreignKey);
+        }
+        return sql.append(")").toString();
+    }
+
+    /**
+     * 获取表名
+     *
+     * @return 返回表名
+     */
+    public String getName ( ) {
+        return name;
+    }
+
+    /**
+     * 获取列定义
+     *
+     * @return 返回列定义的副本
+     */
+    public Field[] getFields ( ) {
+        return fields.clone();
+    }
+
+    /**
+     * 获取外键约束
+     *
+     * @return 返回不可修改的外键约束列表
+     */
+    public List<String> getForeignKeys ( ) {
+        return foreignKeys;
+    }
+
+    /**
+     * 获取必须先于该表创建的表
+     *
+     * @return 返回不可修改的表名集合
+     */
+    public Set<String> getDependencies ( ) {
+        return dependencies;
+    }
+}
@@ -0,0 +1,595 @@
+package src.com.ych.whimsy.mysql.pool;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 有界的数据库连接池<br/>
+ * 1.连接池最少保持minSize个连接,最多同时存在maxSize个连接.<br/>
+ * 2.借出连接时最多等待borrowTimeout毫秒,超时抛出SQLTimeoutException.<br/>
+ * 3.空闲超过idleTimeout毫秒的连接会被后台线程关闭,但连接数不会低于minSize.<br/>
+ * 4.借出空闲过久的连接前会先校验连接是否可用,不可用的连接直接丢弃.<br/>
+ * 5.后台线程定期校验空闲超过keepaliveInterval毫秒的连接,保持连接不被数据库或者网络设备断开.<br/>
+ * 6.执行语句出现连接错误(SQLState以08开头)时丢弃该连接并在后台校验所有空闲连接;<br/>
+ * 数据库重启或者切换期间创建连接失败时,按照带随机抖动的指数退避重试,直到借出连接超时.
+ */
+public class ConnectionPool {
+
+    /**
+     * 数据库URL
+     */
+    private final String sqlUrl;
+
+    /**
+     * 数据库用户名,为null时说明用户名和密码已经拼接在URL中
+     */
+    private final String userName;
+
+    /**
+     * 数据库用户名密码
+     */
+    private final String password;
+
+    /**
+     * 最小连接数
+     */
+    private int minSize = 1;
+
+    /**
+     * 最大连接数
+     */
+    private int maxSize = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * 借出连接的最长等待时间,单位毫秒
+     */
+    private long borrowTimeout = 30_000L;
+
+    /**
+     * 连接的最长空闲时间,单位毫秒
+     */
+    private long idleTimeout = 600_000L;
+
+    /**
+     * 连接空闲超过该时间后,借出前需要校验,单位毫秒
+     */
+    private long validationInterval = 500L;
+
+    /**
+     * 每个连接的PreparedStatement缓存容量
+     */
+    private int statementCacheSize = 64;
+
+    /**
+     * 校验连接的超时时间,单位秒
+     */
+    private int validationTimeout = 5;
+
+    /**
+     * 空闲连接的保活间隔,单位毫秒,为0时不保活
+     */
+    private long keepaliveInterval = 60_000L;
+
+    /**
+     * 创建连接失败后第一次重试前的等待时间,单位毫秒
+     */
+    private long reconnectBackoff = 100L;
+
+    /**
+     * 创建连接失败后两次重试之间的最长等待时间,单位毫秒
+     */
+    private long maxReconnectBackoff = 5_000L;
+
+    /**
+     * 是否已经提交了校验所有空闲连接的任务,避免连续的连接错误重复提交
+     */
+    private final AtomicBoolean validating = new AtomicBoolean(false);
+
+    /**
+     * 空闲连接队列,归还的连接放在队头,优先借出最近使用过的连接
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * 借出许可,许可数等于最大连接数
+     */
+    private Semaphore permits;
+
+    /**
+     * 当前连接池持有的连接总数(空闲 + 借出)
+     */
+    private final AtomicInteger total = new AtomicInteger();
+
+    /**
+     * 空闲连接回收线程
+     */
+    private ScheduledExecutorService evictor;
+
+    /**
+     * 连接池是否已经关闭
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * 通过数据库URL、数据库用户名、数据库用户名密码创建一个连接池
+     *
+     * @param sqlUrl   数据库URL
+     * @param userName 数据库用户名,为null时直接使用完整的数据库URL连接
+     * @param password 数据库用户名密码
+     * @throws NullPointerException 数据库URL为空了
+     */
+    public ConnectionPool (String sqlUrl, String userName, String password) throws NullPointerException {
+        if (Objects.isNull(sqlUrl) || sqlUrl.isEmpty()) {
+            throw new NullPointerException("MySQL数据库URL为空了.\n");
+        }
+        this.sqlUrl = sqlUrl;
+        this.userName = userName;
+        this.password = password;
+    }
+
+    /**
+     * 设置连接池的最小连接数和最大连接数,必须在start ( )之前调用
+     *
+     * @param minSize 最小连接数
+     * @param maxSize 最大连接数
+     * @throws IllegalArgumentException 连接数不合法
+     */
+    public void setSize (int minSize, int maxSize) throws IllegalArgumentException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("连接数不合法: minSize = " + minSize + ", maxSize = " + maxSize);
+        }
+        checkNotStarted();
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 设置借出连接的最长等待时间
+     *
+     * @param borrowTimeout 最长等待时间,单位毫秒
+     */
+    public void setBorrowTimeout (long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    /**
+     * 设置连接的最长空闲时间,空闲超过该时间的连接会被回收
+     *
+     * @param idleTimeout 最长空闲时间,单位毫秒
+     */
+    public void setIdleTimeout (long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * 设置连接空闲多久之后借出前需要校验
+     *
+     * @param validationInterval 空闲时间,单位毫秒,为0时每次借出都校验
+     */
+    public void setValidationInterval (long validationInterval) {
+        this.validationInterval = validationInterval;
+    }
+
+    /**
+     * 设置每个连接的PreparedStatement缓存容量,必须在start ( )之前调用
+     *
+     * @param statementCacheSize 缓存容量,最少为1
+     * @throws IllegalArgumentException 缓存容量小于1
+     */
+    public void setStatementCacheSize (int statementCacheSize) throws IllegalArgumentException {
+        if (statementCacheSize < 1) {
+            throw new IllegalArgumentException("PreparedStatement缓存容量不能小于1");
+        }
+        checkNotStarted();
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    /**
+     * 设置空闲连接的保活间隔,必须在start ( )之前调用
+     *
+     * @param keepaliveInterval 保活间隔,单位毫秒,为0时不保活
+     * @throws IllegalArgumentException 保活间隔小于0
+     */
+    public void setKeepaliveInterval (long keepaliveInterval) throws IllegalArgumentException {
+        if (keepaliveInterval < 0) {
+            throw new IllegalArgumentException("保活间隔不能小于0");
+        }
+        checkNotStarted();
+        this.keepaliveInterval = keepaliveInterval;
+    }
+
+    /**
+     * 设置创建连接失败后重试的等待时间,每次重试等待时间翻倍,实际等待时间在一半到全部之间随机
+     *
+     * @param reconnectBackoff    第一次重试前的等待时间,单位毫秒
+     * @param maxReconnectBackoff 两次重试之间的最长等待时间,单位毫秒
+     * @throws IllegalArgumentException 等待时间不合法
+     */
+    public void setReconnectBackoff (long reconnectBackoff, long maxReconnectBackoff) throws IllegalArgumentException {
+        if (reconnectBackoff < 1 || maxReconnectBackoff < reconnectBackoff) {
+            throw new IllegalArgumentException("等待时间不合法: reconnectBackoff = " + reconnectBackoff + ", maxReconnectBackoff = " + maxReconnectBackoff);
+        }
+        this.reconnectBackoff = reconnectBackoff;
+        this.maxReconnectBackoff = maxReconnectBackoff;
+    }
+
+    /**
+     * 启动连接池,创建最小连接数个连接并启动空闲连接回收线程
+     *
+     * @throws SQLException 创建连接失败
+     */
+    public synchronized void start ( ) throws SQLException {
+        checkNotStarted();
+        permits = new Semaphore(maxSize, true);
+        try {
+            for (int i = 0; i < minSize; i++) {
+                idle.offerLast(create());
+            }
+        } catch (SQLException e) {
+            closeIdle();
+            throw e;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "whimsy-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.min(idleTimeout / 2, 30_000L);
+        if (keepaliveInterval > 0) {
+            period = Math.min(period, keepaliveInterval / 2);
+        }
+        period = Math.max(1_000L, period);
+        evictor.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 从连接池借出一个连接,没有空闲连接且连接数未达到上限时创建新连接
+     *
+     * @return 返回借出的连接
+     * @throws SQLException 1.连接池已经关闭.<br/>
+     *                      2.等待超时.<br/>
+     *                      3.创建连接失败.
+     */
+    public PooledConnection borrow ( ) throws SQLException {
+        if (closed || Objects.isNull(permits)) {
+            throw new SQLException("连接池未启动或者已经关闭");
+        }
+        long deadline = System.currentTimeMillis() + borrowTimeout;
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("在" + borrowTimeout + "毫秒内没有借到连接,连接池已满: maxSize = " + maxSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待连接时线程被中断", e);
+        }
+        try {
+            PooledConnection pooled;
+            while (!Objects.isNull(pooled = idle.pollFirst())) {
+                if (validate(pooled)) {
+                    pooled.touch();
+                    return pooled;
+                }
+                destroy(pooled);
+            }
+            return createWithRetry(deadline);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 将连接归还到连接池,损坏的连接或者连接池已经关闭时直接关闭该连接<br/>
+     * 归还前恢复连接的自动提交和事务隔离级别,恢复失败的连接视为损坏.
+     *
+     * @param pooled 要归还的连接
+     */
+    void release (PooledConnection pooled) {
+        // 驱动在连接出错后会关闭连接,这样的连接不能再放回空闲队列
+        if (!closed && !pooled.isBroken() && isClosed(pooled)) {
+            pooled.markBroken();
+            validateIdleAsync();
+        }
+        if (!closed && !pooled.isBroken()) {
+            pooled.resetSession();
+        }
+        if (closed || pooled.isBroken()) {
+            destroy(pooled);
+        } else {
+            pooled.touch();
+            idle.offerFirst(pooled);
+        }
+        permits.release();
+        // 归还期间连接池被关闭时,保证该连接也被关闭
+        if (closed && idle.remove(pooled)) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * 获取数据库URL
+     *
+     * @return 返回数据库URL
+     */
+    public String getSqlUrl ( ) {
+        return sqlUrl;
+    }
+
+    /**
+     * 获取连接池当前持有的连接总数
+     *
+     * @return 返回连接总数
+     */
+    public int getTotal ( ) {
+        return total.get();
+    }
+
+    /**
+     * 获取连接池当前的空闲连接数
+     *
+     * @return 返回空闲连接数
+     */
+    public int getIdle ( ) {
+        return idle.size();
+    }
+
+    /**
+     * 获取连接池的最大连接数
+     *
+     * @return 返回最大连接数
+     */
+    public int getMaxSize ( ) {
+        return maxSize;
+    }
+
+    /**
+     * 关闭连接池,关闭所有空闲连接,借出的连接会在归还时关闭
+     */
+    public synchronized void close ( ) {
+        closed = true;
+        if (!Objects.isNull(evictor)) {
+            evictor.shutdownNow();
+        }
+        closeIdle();
+    }
+
+    /**
+     * 创建一个新的连接
+     *
+     * @return 返回新创建的连接
+     * @throws SQLException 数据库URL有误或者数据库用户名/密码有误
+     */
+    private PooledConnection create ( ) throws SQLException {
+        Connection connection = Objects.isNull(userName)
+                ? DriverManager.getConnection(sqlUrl)
+                : DriverManager.getConnection(sqlUrl, userName, password);
+        total.incrementAndGet();
+        return new PooledConnection(this, connection, statementCacheSize);
+    }
+
+    /**
+     * 创建一个新的连接,连接错误时按照带随机抖动的指数退避重试,直到超过截止时间
+     *
+     * @param deadline 截止时间,单位毫秒
+     * @return 返回新创建的连接
+     * @throws SQLException 不是连接错误,或者超过截止时间仍然创建失败
+     */
+    private PooledConnection createWithRetry (long deadline) throws SQLException {
+        long backoff = reconnectBackoff;
+        while (true) {
+            try {
+                return create();
+            } catch (SQLException e) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (closed || !isConnectionFailure(e) || remaining <= 0) {
+                    throw e;
+                }
+                // 等待时间在backoff的一半到全部之间随机,避免多个线程同时重连
+                long sleep = Math.min(remaining, backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoff = Math.min(maxReconnectBackoff, backoff * 2);
+            }
+        }
+    }
+
+    /**
+     * 判断异常是否是连接错误,包括SQLState以08开头的异常和JDBC定义的连接异常,会检查异常链中的所有异常
+     *
+     * @param e 执行语句或者创建连接时出现的异常
+     * @return 返回true是连接错误, 连接已经不能再使用
+     */
+    public static boolean isConnectionFailure (SQLException e) {
+        Throwable cause = e;
+        // 避免异常链中出现循环
+        for (int depth = 0; !Objects.isNull(cause) && depth < 16; depth++) {
+            if (cause instanceof SQLNonTransientConnectionException || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (!Objects.isNull(state) && state.startsWith("08")) {
+                    return true;
+                }
+                SQLException next = ((SQLException) cause).getNextException();
+                cause = Objects.isNull(next) ? cause.getCause() : next;
+            } else {
+                cause = cause.getCause();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 在后台校验所有空闲连接,出现连接错误时调用,已经提交过时不重复提交
+     */
+    void validateIdleAsync ( ) {
+        ScheduledExecutorService executor = evictor;
+        if (closed || Objects.isNull(executor) || !validating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(( ) -> {
+                validating.set(false);
+                checkIdle(0L);
+            });
+        } catch (RejectedExecutionException e) {
+            validating.set(false);
+        }
+    }
+
+    /**
+     * 校验空闲超过指定时间的空闲连接,不可用的连接关闭,可用的连接放回空闲队列的队尾<br/>
+     * 校验期间连接从空闲队列中取出,不会被其它线程借出.
+     *
+     * @param minIdle 只校验空闲超过该时间的连接,单位毫秒,为0时校验所有空闲连接
+     */
+    private void checkIdle (long minIdle) {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : idle.toArray(new PooledConnection[0])) {
+            if (closed) {
+                return;
+            }
+            if (now - pooled.getLastCheckedTime() < minIdle || !idle.remove(pooled)) {
+                continue;
+            }
+            boolean valid;
+            try {
+                valid = pooled.getConnection().isValid(validationTimeout);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (valid && !closed) {
+                pooled.checked();
+                idle.offerLast(pooled);
+            } else {
+                destroy(pooled);
+            }
+        }
+    }
+
+    /**
+     * 判断驱动是否已经关闭了连接
+     *
+     * @param pooled 连接
+     * @return 返回true已经关闭
+     */
+    private static boolean isClosed (PooledConnection pooled) {
+        try {
+            return pooled.getConnection().isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 校验连接是否可用,最近使用过的连接不校验
+     *
+     * @param pooled 要校验的连接
+     * @return 返回true连接可用
+     */
+    private boolean validate (PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.getLastUsedTime() < validationInterval) {
+            return true;
+        }
+        try {
+            return pooled.getConnection().isValid(validationTimeout);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 关闭一个连接
+     *
+     * @param pooled 要关闭的连接
+     */
+    private void destroy (PooledConnection pooled) {
+        total.decrementAndGet();
+        try {
+            pooled.close();
+        } catch (SQLException ignored) {
+            // 连接已经不可用,忽略关闭时的异常
+        }
+    }
+
+    /**
+     * 关闭所有空闲连接
+     */
+    private void closeIdle ( ) {
+        PooledConnection pooled;
+        while (!Objects.isNull(pooled = idle.pollFirst())) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * 回收空闲过久的连接,并把连接数补充到最小连接数
+     */
+    private void evict ( ) {
+        long now = System.currentTimeMillis();
+        // 从队尾开始遍历,队尾是空闲最久的连接
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && total.get() > minSize) {
+            PooledConnection pooled = iterator.next();
+            if (now - pooled.getLastUsedTime() >= idleTimeout && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+        // 保活:校验空闲过久的连接,数据库或者网络设备断开的连接在这里被发现并补充
+        if (keepaliveInterval > 0) {
+            checkIdle(keepaliveInterval);
+        }
+        while (!closed && total.get() < minSize) {
+            // 补充连接时和借出一样占用一个许可,避免和正在创建连接的借出线程一起超过最大连接数
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                // 获取许可期间借出线程可能已经创建了连接
+                if (total.get() >= minSize) {
+                    return;
+                }
+                idle.offerLast(create());
+            } catch (SQLException e) {
+                // 数据库暂时不可用,等待下一次回收时再补充
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 检查连接池是否还未启动
+     *
+     * @throws IllegalStateException 连接池已经启动
+     */
+    private void checkNotStarted ( ) throws IllegalStateException {
+        if (!Objects.isNull(permits)) {
+            throw new IllegalStateException("连接池已经启动,不能再修改配置");
+        }
+    }
+}
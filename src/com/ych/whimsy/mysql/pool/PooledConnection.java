@@ -0,0 +1,428 @@
+package src.com.ych.whimsy.mysql.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 连接池中的一个连接<br/>
+ * 该类包装了一个真实的Connection连接,并记录该连接的创建时间和最后一次使用时间.<br/>
+ * 连接从ConnectionPool借出后只会被一个线程使用,使用完毕后调用release ( )方法归还到连接池.<br/>
+ * 该类记录连接当前的数据库、自动提交和事务隔离级别,设置成相同的值时不会访问数据库;<br/>
+ * 归还时自动提交和事务隔离级别会恢复成默认值,数据库保持不变,下一次借出切换到同一个数据库时不需要再切换.
+ */
+public class PooledConnection {
+
+    /**
+     * 该连接所属的连接池
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * 真实的Connection连接
+     */
+    private final Connection connection;
+
+    /**
+     * 该连接私有的PreparedStatement缓存
+     */
+    private final StatementCache statementCache;
+
+    /**
+     * 连接的创建时间,单位毫秒
+     */
+    private final long createTime;
+
+    /**
+     * 连接最后一次被借出或者归还的时间,单位毫秒
+     */
+    private volatile long lastUsedTime;
+
+    /**
+     * 连接最后一次被保活或者出错后校验的时间,单位毫秒
+     */
+    private volatile long lastCheckedTime;
+
+    /**
+     * 连接是否已经损坏,损坏的连接归还时会被直接关闭
+     */
+    private volatile boolean broken;
+
+    /**
+     * 连接当前的数据库,为null时说明未知,下一次切换数据库时一定会访问数据库
+     */
+    private String catalog;
+
+    /**
+     * 连接当前是否自动提交,新建的连接默认自动提交
+     */
+    private boolean autoCommit = true;
+
+    /**
+     * 连接当前的事务隔离级别,为-1时说明没有修改过
+     */
+    private int isolation = -1;
+
+    /**
+     * 第一次修改事务隔离级别之前的隔离级别,归还时恢复成该值
+     */
+    private int defaultIsolation = -1;
+
+    /**
+     * 创建一个连接池连接
+     *
+     * @param pool               连接所属的连接池
+     * @param connection         真实的Connection连接
+     * @param statementCacheSize PreparedStatement缓存容量
+     */
+    PooledConnection (ConnectionPool pool, Connection connection, int statementCacheSize) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = new StatementCache(statementCacheSize);
+        this.createTime = System.currentTimeMillis();
+        this.lastUsedTime = this.createTime;
+    }
+
+    /**
+     * 获取真实的Connection连接,该连接不能调用close ( )方法关闭,使用完毕后请调用release ( )方法
+     *
+     * @return 返回真实的Connection连接
+     */
+    public Connection getConnection ( ) {
+        return connection;
+    }
+
+    /**
+     * 获取SQL模板对应的PreparedStatement,同一个连接上相同的SQL模板只会预编译一次
+     *
+     * @param sql SQL模板,参数使用 ? 占位
+     * @return 返回缓存的PreparedStatement对象, 不能调用close ( )方法关闭
+     * @throws SQLException 预编译失败
+     */
+    public PreparedStatement prepareStatement (String sql) throws SQLException {
+        return statementCache.prepare(connection, sql);
+    }
+
+    /**
+     * 移除并关闭SQL模板对应的PreparedStatement,执行出错后调用,避免复用状态异常的PreparedStatement
+     *
+     * @param sql SQL模板
+     */
+    public void evictStatement (String sql) {
+        statementCache.evict(sql);
+    }
+
+    /**
+     * 获取该连接的PreparedStatement缓存
+     *
+     * @return 返回PreparedStatement缓存
+     */
+    public StatementCache getStatementCache ( ) {
+        return statementCache;
+    }
+
+    /**
+     * 切换连接的数据库,已经是该数据库时不访问数据库
+     *
+     * @param catalog 数据库名
+     * @return 返回true确实切换了数据库
+     * @throws SQLException 数据库不存在
+     */
+    public boolean setCatalog (String catalog) throws SQLException {
+        if (catalog.equals(this.catalog)) {
+            return false;
+        }
+        // 切换失败时连接当前的数据库未知
+        this.catalog = null;
+        connection.setCatalog(catalog);
+        this.catalog = catalog;
+        return true;
+    }
+
+    /**
+     * 获取记录的连接当前的数据库
+     *
+     * @return 返回数据库名, 未知时返回null
+     */
+    public String getCatalog ( ) {
+        return catalog;
+    }
+
+    /**
+     * 通过SQL语句(例如use xxx)修改了连接的数据库后调用,下一次切换数据库时一定会访问数据库
+     */
+    public void forgetCatalog ( ) {
+        this.catalog = null;
+    }
+
+    /**
+     * 在该连接上执行了普通SQL语句后调用,语句是use xxx时忘记记录的数据库
+     *
+     * @param sql 执行的SQL语句
+     */
+    public void afterExecute (String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        if (sql.regionMatches(true, i, "use", 0, 3) && sql.length() > i + 3
+                && (Character.isWhitespace(sql.charAt(i + 3)) || sql.charAt(i + 3) == '`')) {
+            forgetCatalog();
+        }
+    }
+
+    /**
+     * 设置是否自动提交,和当前的值相同时不访问数据库
+     *
+     * @param autoCommit 是否自动提交
+     * @throws SQLException 设置失败
+     */
+    public void setAutoCommit (boolean autoCommit) throws SQLException {
+        if (this.autoCommit != autoCommit) {
+            connection.setAutoCommit(autoCommit);
+            this.autoCommit = autoCommit;
+        }
+    }
+
+    /**
+     * 获取记录的是否自动提交
+     *
+     * @return 返回true自动提交
+     */
+    public boolean getAutoCommit ( ) {
+        return autoCommit;
+    }
+
+    /**
+     * 设置事务隔离级别,和当前的值相同时不访问数据库
+     *
+     * @param level Connection.TRANSACTION_*中的一个
+     * @throws SQLException 设置失败
+     */
+    public void setTransactionIsolation (int level) throws SQLException {
+        if (isolation == level) {
+            return;
+        }
+        if (defaultIsolation == -1) {
+            defaultIsolation = connection.getTransactionIsolation();
+            isolation = defaultIsolation;
+            if (isolation == level) {
+                return;
+            }
+        }
+        connection.setTransactionIsolation(level);
+        isolation = level;
+    }
+
+    /**
+     * 获取事务隔离级别
+     *
+     * @return 返回事务隔离级别
+     * @throws SQLException 读取失败
+     */
+    public int getTransactionIsolation ( ) throws SQLException {
+        return isolation == -1 ? connection.getTransactionIsolation() : isolation;
+    }
+
+    /**
+     * 归还前恢复自动提交和事务隔离级别,未提交的事务会被回滚;恢复失败时标记连接已经损坏
+     */
+    void resetSession ( ) {
+        try {
+            if (!autoCommit) {
+                connection.rollback();
+                setAutoCommit(true);
+            }
+            if (isolation != defaultIsolation) {
+                connection.setTransactionIsolation(defaultIsolation);
+                isolation = defaultIsolation;
+            }
+        } catch (SQLException e) {
+            markBroken();
+        }
+    }
+
+    /**
+     * 关闭PreparedStatement缓存和真实的Connection连接
+     *
+     * @throws SQLException 关闭连接失败
+     */
+    void close ( ) throws SQLException {
+        statementCache.close();
+        connection.close();
+    }
+
+    /**
+     * 将该连接归还到连接池
+     */
+    public void release ( ) {
+        pool.release(this);
+    }
+
+    /**
+     * 标记该连接已经损坏,归还时连接池会关闭该连接而不是放回空闲队列
+     */
+    public void markBroken ( ) {
+        this.broken = true;
+    }
+
+    /**
+     * 检查执行语句时出现的异常,是连接错误时标记该连接已经损坏,并让连接池在后台校验其它空闲连接<br/>
+     * 数据库重启或者网络断开时,空闲队列中的连接通常也已经断开.
+     *
+     * @param e 执行语句时出现的异常
+     * @return 返回true是连接错误
+     */
+    public boolean checkFailure (SQLException e) {
+        if (!ConnectionPool.isConnectionFailure(e)) {
+            return false;
+        }
+        markBroken();
+        pool.validateIdleAsync();
+        return true;
+    }
+
+    /**
+     * 连接是否已经损坏
+     *
+     * @return 返回true表示连接已经损坏
+     */
+    public boolean isBroken ( ) {
+        return broken;
+    }
+
+    /**
+     * 获取连接的创建时间
+     *
+     * @return 返回连接的创建时间,单位毫秒
+     */
+    public long getCreateTime ( ) {
+        return createTime;
+    }
+
+    /**
+     * 获取连接最后一次被使用的时间
+     *
+     * @return 返回连接最后一次被使用的时间,单位毫秒
+     */
+    public long getLastUsedTime ( ) {
+        return lastUsedTime;
+    }
+
+    /**
+     * 获取连接最后一次被使用或者被校验的时间
+     *
+     * @return 返回连接最后一次被使用或者被校验的时间,单位毫秒
+     */
+    long getLastCheckedTime ( ) {
+        return Math.max(lastUsedTime, lastCheckedTime);
+    }
+
+    /**
+     * 记录连接刚刚被校验过
+     */
+    void checked ( ) {
+        this.lastCheckedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 刷新连接的最后使用时间
+     */
+    void touch ( ) {
+        this.lastUsedTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 获取一个Connection代理对象,调用代理对象的close ( )方法会把连接归还到连接池而不是关闭连接
+     *
+     * @return 返回Connection代理对象
+     */
+    public Connection asConnection ( ) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ReleaseOnClose(connection));
+    }
+
+    /**
+     * 获取一个Statement代理对象,调用代理对象的close ( )方法会关闭Statement并把连接归还到连接池
+     *
+     * @param statement 通过该连接创建的Statement对象
+     * @return 返回Statement代理对象
+     */
+    public Statement asStatement (Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new ReleaseOnClose(statement));
+    }
+
+    /**
+     * 代理对象的调用处理器,拦截close ( )和isClosed ( )方法,保证连接只归还一次
+     */
+    private class ReleaseOnClose implements InvocationHandler {
+
+        /**
+         * 被代理的Connection或者Statement对象
+         */
+        private final Object target;
+
+        /**
+         * 代理对象是否已经关闭
+         */
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        ReleaseOnClose (Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke (Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name) && method.getParameterCount() == 0) {
+                if (closed.compareAndSet(false, true)) {
+                    // 代理对象可能执行过任意语句,不再信任记录的数据库
+                    forgetCatalog();
+                    try {
+                        // 代理的是Statement时先关闭Statement,连接本身不关闭
+                        if (target != connection) {
+                            ((Statement) target).close();
+                        }
+                    } finally {
+                        release();
+                    }
+                }
+                return null;
+            }
+            if ("isClosed".equals(name) && method.getParameterCount() == 0) {
+                return closed.get() || (Boolean) method.invoke(target);
+            }
+            if (closed.get()) {
+                throw new SQLException("连接已经归还到连接池,不能再使用");
+            }
+            // 修改会话状态的方法经过记录,保证记录的状态和连接一致
+            if (target == connection && args != null && args.length == 1) {
+                switch (name) {
+                    case "setCatalog":
+                        setCatalog((String) args[0]);
+                        return null;
+                    case "setAutoCommit":
+                        setAutoCommit((Boolean) args[0]);
+                        return null;
+                    case "setTransactionIsolation":
+                        setTransactionIsolation((Integer) args[0]);
+                        return null;
+                    default:
+                        break;
+                }
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
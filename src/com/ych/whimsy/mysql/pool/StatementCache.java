@@ -0,0 +1,111 @@
+package src.com.ych.whimsy.mysql.pool;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 一个连接私有的PreparedStatement缓存,以SQL模板为键,按照LRU顺序淘汰<br/>
+ * 连接同一时刻只会被一个线程借出,所以该缓存不需要加锁.
+ */
+public class StatementCache {
+
+    /**
+     * 缓存容量,最少为1
+     */
+    private final int capacity;
+
+    /**
+     * 按访问顺序排列的缓存,超出容量时关闭并移除最久未使用的PreparedStatement
+     */
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * 创建一个PreparedStatement缓存
+     *
+     * @param capacity 缓存容量
+     */
+    StatementCache (int capacity) {
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+
+            /**
+             * 序列化版本号
+             */
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry (Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取SQL模板对应的PreparedStatement,缓存中没有时通过连接创建并放入缓存
+     *
+     * @param connection 连接
+     * @param sql        SQL模板
+     * @return 返回PreparedStatement对象, 不能调用close ( )方法关闭
+     * @throws SQLException 创建PreparedStatement失败
+     */
+    PreparedStatement prepare (Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (Objects.isNull(statement)) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * 从缓存中移除并关闭SQL模板对应的PreparedStatement,执行出错的PreparedStatement需要移除
+     *
+     * @param sql SQL模板
+     */
+    void evict (String sql) {
+        closeQuietly(statements.remove(sql));
+    }
+
+    /**
+     * 获取缓存中PreparedStatement的数量
+     *
+     * @return 返回缓存中PreparedStatement的数量
+     */
+    public int size ( ) {
+        return statements.size();
+    }
+
+    /**
+     * 关闭并清空缓存中所有的PreparedStatement
+     */
+    void close ( ) {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    /**
+     * 关闭PreparedStatement并忽略异常
+     *
+     * @param statement 要关闭的PreparedStatement
+     */
+    private static void closeQuietly (PreparedStatement statement) {
+        if (Objects.isNull(statement)) {
+            return;
+        }
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // 连接可能已经不可用,忽略关闭时的异常
+        }
+    }
+}
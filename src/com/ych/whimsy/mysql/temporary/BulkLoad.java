@@ -0,0 +1,362 @@
+package src.com.ych.whimsy.mysql.temporary;
+
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+import src.com.ych.whimsy.mysql.LoadDatabase;
+import src.com.ych.whimsy.mysql.metrics.Operation;
+import src.com.ych.whimsy.mysql.pool.PooledConnection;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * BulkLoad 类用于向指定数据表中批量导入大量数据<br/>
+ * 1.使用MySQL Connector/J时,数据即时编码成制表符分隔的字节流,通过 load data local infile 导入,不写临时文件;<br/>
+ * 数据库URL中需要加上allowLoadLocalInfile=true,服务端需要开启local_infile.<br/>
+ * 2.驱动或者服务端不支持时,改为每批batchSize行的多行 insert into ... values (...),(...) 语句导入.
+ */
+public class BulkLoad {
+
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(BulkLoad.class);
+
+    /**
+     * 一条PreparedStatement最多能使用的参数个数
+     */
+    private static final int MAX_PARAMETERS = 65535;
+
+    /**
+     * loadLocalInfile(...)的返回值,表示不支持 load data local infile 并且还没有读取任何一行
+     */
+    private static final long NOT_SUPPORTED = -2;
+
+    /**
+     * Connector/J的Statement接口,不存在时说明不是Connector/J驱动
+     */
+    private static final String MYSQL_STATEMENT = "com.mysql.cj.jdbc.JdbcStatement";
+
+    /**
+     * Connector/J的setLocalInfileInputStream方法,为null时还未查找
+     */
+    private static volatile Method setLocalInfileInputStream;
+
+    /**
+     * 该方法是否已经查找过
+     */
+    private static volatile boolean lookedUp;
+
+    private final LoadDatabase loadDatabase;
+
+    /**
+     * 数据库名,为空时使用LoadDatabase当前的数据库
+     */
+    private String databaseName;
+
+    /**
+     * 表名
+     */
+    private String tableName;
+
+    /**
+     * 列名
+     */
+    private String[] columns;
+
+    /**
+     * 改为多行插入时每一批的行数
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 是否尝试使用 load data local infile
+     */
+    private boolean localInfile = true;
+
+    /**
+     * 最近一次导入已经写入数据库的行数,导入失败时是失败之前已经写入的行数
+     */
+    private long loadedRows;
+
+    public BulkLoad (LoadDatabase loadDatabase) {
+        this.loadDatabase = loadDatabase;
+    }
+
+    /**
+     * 设置数据库
+     *
+     * @param databaseName 数据库名
+     */
+    public void setDatabase (String databaseName) {
+        this.databaseName = databaseName;
+    }
+
+    /**
+     * 设置表名
+     *
+     * @param tableName 表名
+     * @return 返回false设置失败, 返回true设置成功
+     */
+    public boolean setTable (String tableName) {
+        if (Objects.isNull(tableName) || tableName.isEmpty()) {
+            LOGGER.error("--> setTable (String tableName): 表名不能为空, 请重新设置");
+            return false;
+        }
+        this.tableName = tableName;
+        return true;
+    }
+
+    /**
+     * 设置要导入的列,每一行数据的顺序和列的顺序一致
+     *
+     * @param columns 列名
+     * @return 返回false设置失败, 返回true设置成功
+     */
+    public boolean setColumns (String... columns) {
+        if (Objects.isNull(columns) || columns.length == 0) {
+            LOGGER.error("--> setColumns (String... columns): 列名不能为空,请重新设置");
+            return false;
+        }
+        this.columns = columns.clone();
+        return true;
+    }
+
+    /**
+     * 设置改为多行插入时每一批的行数
+     *
+     * @param batchSize 每一批的行数
+     * @return 返回false设置失败, 返回true设置成功
+     */
+    public boolean setBatchSize (int batchSize) {
+        if (batchSize < 1) {
+            LOGGER.error("--> setBatchSize (int batchSize): 每一批的行数不能小于1,请重新设置");
+            return false;
+        }
+        this.batchSize = batchSize;
+        return true;
+    }
+
+    /**
+     * 设置是否尝试使用 load data local infile,为false时直接使用多行插入
+     *
+     * @param localInfile 是否尝试使用 load data local infile
+     */
+    public void setLocalInfile (boolean localInfile) {
+        this.localInfile = localInfile;
+    }
+
+    /**
+     * 获取最近一次导入已经写入数据库的行数<br/>
+     * 多行插入时每一批单独提交,导入失败时返回失败之前已经写入的行数,这些行不会被回滚.
+     *
+     * @return 返回已经写入的行数
+     */
+    public long getLoadedRows ( ) {
+        return loadedRows;
+    }
+
+    /**
+     * 导入一个流中的所有行,导入完成后关闭该流
+     *
+     * @param rows 每一行是和列名顺序一致的值,值可以是null、String、数字、Boolean等
+     * @return 返回导入的行数, 导入失败返回-1,已经写入的行数通过getLoadedRows ( )获取
+     */
+    public long load (Stream<? extends Object[]> rows) {
+        try (Stream<? extends Object[]> stream = rows) {
+            return load(stream.iterator());
+        }
+    }
+
+    /**
+     * 导入迭代器中的所有行
+     *
+     * @param rows 每一行是和列名顺序一致的值,值可以是null、String、数字、Boolean等
+     * @return 返回导入的行数, 导入失败返回-1,已经写入的行数通过getLoadedRows ( )获取
+     */
+    public long load (Iterator<? extends Object[]> rows) {
+        loadedRows = 0;
+        if (Objects.isNull(tableName) || Objects.isNull(columns)) {
+            LOGGER.error("--> load (Iterator<? extends Object[]> rows): 请先调用setTable和setColumns设置表名和列");
+            return -1;
+        }
+        long start = loadDatabase.getMetrics().start();
+        long loaded = NOT_SUPPORTED;
+        try {
+            if (localInfile) {
+                PooledConnection pooled = loadDatabase.borrowConnection(databaseName);
+                try {
+                    loaded = loadLocalInfile(pooled, rows);
+                } finally {
+                    pooled.release();
+                }
+            }
+            if (loaded == NOT_SUPPORTED) {
+                // 还没有读取任何一行,可以改为多行插入
+                loaded = insertMultiRow(rows);
+            }
+        } catch (SQLException throwables) {
+            LOGGER.error("--> load (Iterator<? extends Object[]> rows): 向 \"{}\" 数据表导入数据失败: {}", tableName, throwables.getMessage());
+            loaded = -1;
+        }
+        if (loaded >= 0) {
+            loadedRows = loaded;
+        } else if (loadedRows > 0) {
+            LOGGER.error("--> load (Iterator<? extends Object[]> rows): 导入失败之前已经向 \"{}\" 数据表写入了{}行", tableName, loadedRows);
+        }
+        loadDatabase.getMetrics().record(Operation.INSERT, tableName, start, loaded >= 0);
+        loadDatabase.invalidateResultCache(databaseName, tableName);
+        return loaded;
+    }
+
+    /**
+     * 通过 load data local infile 导入
+     *
+     * @param pooled 借出的连接
+     * @param rows   要导入的行
+     * @return 返回导入的行数;不支持并且还没有读取任何一行时返回NOT_SUPPORTED
+     * @throws SQLException 已经读取了部分行之后导入失败
+     */
+    private long loadLocalInfile (PooledConnection pooled, Iterator<? extends Object[]> rows) throws SQLException {
+        TsvInputStream input = new TsvInputStream(rows, columns.length);
+        try (Statement statement = pooled.getConnection().createStatement()) {
+            if (!setInputStream(statement, input)) {
+                return NOT_SUPPORTED;
+            }
+            try {
+                return statement.executeUpdate(loadDataSql());
+            } catch (SQLException e) {
+                pooled.checkFailure(e);
+                // 客户端没有开启allowLoadLocalInfile或者服务端没有开启local_infile时,驱动不会读取数据
+                if (input.getRowCount() == 0) {
+                    LOGGER.warn("--> loadLocalInfile (PooledConnection pooled, Iterator<? extends Object[]> rows): 不支持 load data local infile,改为多行插入: {}", e.getMessage());
+                    return NOT_SUPPORTED;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 拼接导入语句
+     *
+     * @return 返回 load data local infile 语句
+     */
+    private String loadDataSql ( ) {
+        StringBuilder sql = new StringBuilder("load data local infile 'stream' into table ");
+        sql.append(tableName).append(" character set utf8mb4 fields terminated by '\\t' escaped by '\\\\'")
+                .append(" lines terminated by '\\n' (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns[i]);
+        }
+        return sql.append(")").toString();
+    }
+
+    /**
+     * 每批batchSize行,拼接成多行插入语句导入
+     *
+     * @param rows 要导入的行
+     * @return 返回导入的行数, 有一批失败时返回-1,之前的批次已经写入的行数记录在loadedRows中
+     */
+    private long insertMultiRow (Iterator<? extends Object[]> rows) {
+        int rowsPerBatch = Math.min(batchSize, MAX_PARAMETERS / columns.length);
+        Object[] parameters = new Object[rowsPerBatch * columns.length];
+        String template = null;
+        int templateRows = 0;
+        while (rows.hasNext()) {
+            int count = 0;
+            while (count < rowsPerBatch && rows.hasNext()) {
+                Object[] row = rows.next();
+                if (Objects.isNull(row) || row.length != columns.length) {
+                    LOGGER.error("--> insertMultiRow (Iterator<? extends Object[]> rows): 第{}行的列数和列名的个数不一致", loadedRows + count + 1);
+                    return -1;
+                }
+                System.arraycopy(row, 0, parameters, count * columns.length, columns.length);
+                count++;
+            }
+            Object[] batch = parameters;
+            if (count < rowsPerBatch) {
+                batch = new Object[count * columns.length];
+                System.arraycopy(parameters, 0, batch, 0, batch.length);
+            }
+            if (count != templateRows) {
+                template = insertTemplate(count);
+                templateRows = count;
+            }
+            int inserted = loadDatabase.executeUpdateCount(databaseName, template, batch);
+            if (inserted == Statement.EXECUTE_FAILED) {
+                return -1;
+            }
+            loadedRows += inserted;
+        }
+        return loadedRows;
+    }
+
+    /**
+     * 拼接多行插入语句的SQL模板,例如: insert into table_name (a, b) values (?, ?),(?, ?)
+     *
+     * @param rowCount 行数
+     * @return 返回SQL模板
+     */
+    private String insertTemplate (int rowCount) {
+        StringBuilder template = new StringBuilder("insert into ");
+        template.append(tableName).append(" (");
+        StringBuilder row = new StringBuilder("(");
+        for (int i = 0; i < columns.length; i++) {
+            template.append(i == 0 ? "" : ", ").append(columns[i]);
+            row.append(i == 0 ? "?" : ", ?");
+        }
+        row.append(")");
+        template.append(") values ");
+        for (int i = 0; i < rowCount; i++) {
+            template.append(i == 0 ? "" : ",").append(row);
+        }
+        return template.toString();
+    }
+
+    /**
+     * 通过反射调用Connector/J的setLocalInfileInputStream方法,项目编译时不依赖驱动的类
+     *
+     * @param statement 要执行导入语句的Statement
+     * @param input     数据流
+     * @return 返回false不是Connector/J驱动
+     */
+    private static boolean setInputStream (Statement statement, InputStream input) {
+        Method method = lookup();
+        if (Objects.isNull(method)) {
+            return false;
+        }
+        try {
+            Class<?> type = method.getDeclaringClass();
+            if (!statement.isWrapperFor(type)) {
+                return false;
+            }
+            method.invoke(statement.unwrap(type), input);
+            return true;
+        } catch (ReflectiveOperationException | SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 查找Connector/J的setLocalInfileInputStream方法
+     *
+     * @return 返回该方法, 找不到时返回null
+     */
+    private static Method lookup ( ) {
+        if (!lookedUp) {
+            try {
+                setLocalInfileInputStream = Class.forName(MYSQL_STATEMENT).getMethod("setLocalInfileInputStream", InputStream.class);
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                setLocalInfileInputStream = null;
+            }
+            lookedUp = true;
+        }
+        return setLocalInfileInputStream;
+    }
+}
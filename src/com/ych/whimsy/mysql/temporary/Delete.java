@@ -0,0 +1,170 @@
+package src.com.ych.whimsy.mysql.temporary;
+
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
+import src.com.ych.whimsy.mysql.Field;
+import src.com.ych.whimsy.mysql.LoadDatabase;
+import src.com.ych.whimsy.mysql.metrics.Operation;
+
+import java.sql.Statement;
+import java.util.Objects;
+
+/**
+ * Delete 类是LoadDatabase类的内部类,该类的作用是删除数据表中的数据<br/>
+ * 必须先设置where限定,不支持删除整张表的数据.
+ */
+public class Delete extends Property {
+    /**
+     * 本类的Logger
+     */
+    private static final Logger LOGGER = Log.getLogger(Delete.class);
+
+    /**
+     * where限定语句
+     */
+    private String where;
+
+    /**
+     * where限定的列名
+     */
+    private String whereColumn;
+
+    /**
+     * where限定的比较运算符
+     */
+    private String whereOperator;
+
+    /**
+     * where限定的值
+     */
+    private String whereValue;
+
+    /**
+     * 最近一次提交删除的行数
+     */
+    private int count;
+
+    public Delete (LoadDatabase loadDatabase) {
+        super(loadDatabase);
+    }
+
+    /**
+     * 设置Where限定用于删除指定的行
+     *
+     * @param column  指定列名
+     * @param compare 判断模式 -1小于;0等于;1大于,-10小于等于,10大于等于
+     * @param value   列对应的值
+     * @return 返回false设置失败, 返回true设置成功
+     */
+    public boolean setWhere (String column, int compare, String value) {
+        if (Objects.isNull(column) || column.isEmpty()) {
+            LOGGER.error("--> setWhere (String column, int compare, String value) : 列定义不能为空,请重新输入");
+            return false;
+        }
+        if (Objects.isNull(value) || value.isEmpty()) {
+            LOGGER.error("--> setWhere (String column, int compare, String value) : 列定义的值不能为空,请重新输入");
+            return false;
+        }
+        String operator = Update.operator(compare);
+        if (Objects.isNull(operator)) {
+            LOGGER.error("--> setWhere (String column, int compare, String value) : 比较模式不能为空");
+            return false;
+        }
+        this.where = " where " + column + operator + value;
+        this.whereColumn = column;
+        this.whereOperator = operator;
+        this.whereValue = value;
+        this.sqlTemplate = null;
+        return true;
+    }
+
+    /**
+     * 设置Where限定用于删除指定的行
+     *
+     * @param field   指定字段
+     * @param compare 判断模式 -1小于;0等于;1大于,-10小于等于,10大于等于
+     * @return 返回false设置失败, 返回true设置成功
+     */
+    public boolean setWhere (Field field, int compare) {
+        if (Objects.isNull(field)) {
+            LOGGER.error("--> setWhere (Field field) : 字段列定义不能为空,请重新输入");
+            return false;
+        }
+        return setWhere(field.getName(), compare, field.getType().toLiteral(field.getValue()));
+    }
+
+    /**
+     * 提交删除<br/>
+     * where限定的值是字面量时,使用缓存的PreparedStatement并把值作为参数绑定;<br/>
+     * 值中含有函数调用或者表达式时,拼接完整的SQL语句执行;没有匹配的行也是提交成功.
+     *
+     * @return 返回false提交失败, 返回true提交成功
+     */
+    @Override
+    public boolean commit ( ) {
+        count = 0;
+        if (Objects.isNull(tableName)) {
+            LOGGER.error("--> commit ( ) : 表名不能为空,请先调用setTable设置");
+            return false;
+        }
+        if (Objects.isNull(where)) {
+            LOGGER.error("--> commit ( ) : where限定不能为空,请先调用setWhere设置");
+            return false;
+        }
+        long start = loadDatabase.getMetrics().start();
+        Object parameter = SqlLiteral.toParameter(whereValue);
+        int deleted = parameter != SqlLiteral.UNBINDABLE
+                ? executeDmlCount(Operation.DELETE, start, deleteTemplate(), new Object[]{parameter})
+                : executeDmlCount(Operation.DELETE, start, getSql(), null);
+        if (deleted == Statement.EXECUTE_FAILED) {
+            return false;
+        }
+        count = deleted;
+        return true;
+    }
+
+    /**
+     * 获取最近一次提交删除的行数
+     *
+     * @return 返回删除的行数, 提交失败时返回0;在写会话中执行时,这一组被回滚后该行数作废
+     */
+    public int getCount ( ) {
+        return count;
+    }
+
+    /**
+     * 获取值直接拼接在语句中的删除语句,提交时值无法作为参数绑定时执行该语句
+     *
+     * @return 返回删除语句
+     */
+    public String getSql ( ) {
+        // delete from table_name where condition;
+        return "delete from " + tableName + where + ";";
+    }
+
+    /**
+     * 获取删除语句的SQL模板,例如: delete from table_name where id = ?
+     *
+     * @return 返回删除语句的SQL模板
+     */
+    private String deleteTemplate ( ) {
+        if (Objects.isNull(sqlTemplate)) {
+            sqlTemplate = "delete from " + tableName + " where " + whereColumn + whereOperator + "?";
+        }
+        return sqlTemplate;
+    }
+
+    /**
+     * 按字段提交删除,只能设置一个字段,删除该列等于字段值的行
+     *
+     * @return 返回false提交失败, 返回true提交成功
+     */
+    @Override
+    public boolean commitFields ( ) {
+        if (Objects.isNull(fields) || fields.length != 1) {
+            LOGGER.error("--> commitFields ( ) : 删除时只能设置一个字段作为where限定,请重新输入");
+            return false;
+        }
+        return setWhere(fields[0], 0) && commit();
+    }
+}
@@ -1,27 +1,55 @@
 package src.com.ych.whimsy.mysql.temporary;
 
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
 import src.com.ych.whimsy.mysql.LoadDatabase;
+import src.com.ych.whimsy.mysql.metrics.Operation;
 
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
-import static src.com.ych.whimsy.mysql.LoadDatabase.loadDatabaseName;
-
 /**
  * InsertInto  类是LoadDatabase的内部类,该类的实例用户向指定数据表中添加数据
  */
 public class InsertInto extends Property {
     /**
-     * 当前类的类名
-     */
-    private final String insertintoName = InsertInto.class.getSimpleName();
-    /**
-     * 当前类的信息
+     * 本类的Logger
      */
-    private final String insertintoLog = loadDatabaseName + ":\n" + insertintoName + ":\n";
+    private static final Logger LOGGER = Log.getLogger(InsertInto.class);
     /**
      * 插入数据语法
      */
     private static final String SQL_INSER_INTO = "insert into ";
+    /**
+     * 一条PreparedStatement最多能使用的参数个数
+     */
+    private static final int MAX_PARAMETERS = 65535;
+    /**
+     * 通过addRow (String... values)方法暂存的多行数据
+     */
+    private final List<String[]> rows = new ArrayList<>();
+    /**
+     * 批量提交时每一批的行数
+     */
+    private int batchSize = 1000;
+    /**
+     * 批量提交时是否使用多行 values (...),(...) 语句,为false时使用JDBC批处理
+     */
+    private boolean multiRowValues = false;
+    /**
+     * 缓存的多行插入语句的SQL模板,对应batchTemplateRows行
+     */
+    private String batchTemplate;
+    /**
+     * 缓存的多行插入语句的SQL模板的行数
+     */
+    private int batchTemplateRows;
+    /**
+     * 生成batchTemplate时使用的单行插入语句的SQL模板,用来判断表名或者列是否改变
+     */
+    private String batchTemplateSource;
 
     public InsertInto (LoadDatabase loadDatabase) {
         super(loadDatabase);
@@ -29,7 +57,9 @@ public class InsertInto extends Property {
 
 
     /**
-     * 将要添加的数据提交到数据库
+     * 将要添加的数据提交到数据库<br/>
+     * 要插入的值都是字面量时,使用缓存的PreparedStatement并把值作为参数绑定;<br/>
+     * 值中含有函数调用或者表达式时,拼接完整的SQL语句执行.
      *
      * @return 返回false提交失败, 返回true提交成功.
      */
@@ -37,12 +67,205 @@ public class InsertInto extends Property {
     public boolean commit ( ) {
         // 判断插入的数据是否为空,为空结束插入并提示
         if (Objects.isNull(values) || values.isEmpty()) {
-            System.err.println(insertintoLog + "commot ( ): 要插入的数据不能为空,请设置要插入的数据");
+            LOGGER.error("--> commot ( ): 要插入的数据不能为空,请设置要插入的数据");
             return false;
         }
+        long start = loadDatabase.getMetrics().start();
+        if (!Objects.isNull(columnsArrays) && columnsArrays.length == valuesArrays.length) {
+            Object[] parameters = SqlLiteral.toParameters(valuesArrays);
+            if (!Objects.isNull(parameters)) {
+                return executeDml(Operation.INSERT, start, insertTemplate(), parameters);
+            }
+        }
         // 拼接插入语句
         String sql_insert_into = SQL_INSER_INTO + tableName + " (" + columns + ") values(" + values + ");";
-        return loadDatabase.executeUpdate(sql_insert_into, "dml");
+        return executeDml(Operation.INSERT, start, sql_insert_into, null);
+    }
+
+    /**
+     * 获取插入语句的SQL模板,例如: insert into table_name (a ,b ) values (?, ?)
+     *
+     * @return 返回插入语句的SQL模板
+     */
+    private String insertTemplate ( ) {
+        if (Objects.isNull(sqlTemplate)) {
+            StringBuilder template = new StringBuilder(SQL_INSER_INTO);
+            template.append(tableName).append(" (").append(columns).append(") values (");
+            for (int i = 0; i < columnsArrays.length; i++) {
+                template.append(i == 0 ? "?" : ", ?");
+            }
+            template.append(")");
+            sqlTemplate = template.toString();
+        }
+        return sqlTemplate;
+    }
+
+    /**
+     * 设置批量提交时每一批的行数
+     *
+     * @param batchSize 每一批的行数
+     * @return 返回false设置失败, 返回true设置成功
+     */
+    public boolean setBatchSize (int batchSize) {
+        if (batchSize < 1) {
+            LOGGER.error("--> setBatchSize (int batchSize): 每一批的行数不能小于1,请重新设置");
+            return false;
+        }
+        this.batchSize = batchSize;
+        return true;
+    }
+
+    /**
+     * 设置批量提交的方式
+     *
+     * @param multiRowValues 为true时每一批拼接成一条 insert into ... values (...),(...) 语句;<br/>
+     *                       为false时使用JDBC批处理,每一批一次网络往返
+     */
+    public void setMultiRowValues (boolean multiRowValues) {
+        this.multiRowValues = multiRowValues;
+    }
+
+    /**
+     * 暂存一行要插入的数据,调用commitBatch ( )时批量提交
+     *
+     * @param values 每一列的要插入的值,格式和setValues (String... values)相同,顺序和setColumns (String... columns)设置的列一致
+     * @return 返回false暂存失败, 返回true暂存成功
+     */
+    public boolean addRow (String... values) {
+        if (Objects.isNull(values) || values.length == 0) {
+            LOGGER.error("--> addRow (String... values): 要插入的数据不能为空,请重新输入");
+            return false;
+        }
+        if (Objects.isNull(columnsArrays) || columnsArrays.length != values.length) {
+            LOGGER.error("--> addRow (String... values): 要插入的数据和列的个数不一致,请先调用setColumns设置列");
+            return false;
+        }
+        rows.add(values.clone());
+        return true;
+    }
+
+    /**
+     * 获取暂存的行数
+     *
+     * @return 返回暂存的行数
+     */
+    public int getRowCount ( ) {
+        return rows.size();
+    }
+
+    /**
+     * 把addRow (String... values)暂存的数据按照每批batchSize行批量提交到数据库,提交后清空暂存的数据<br/>
+     * 所有的值都是字面量时作为参数绑定,否则拼接成完整的SQL语句执行.
+     *
+     * @return 返回每一批插入的行数, 执行失败的批次为Statement.EXECUTE_FAILED;没有暂存数据时返回空数组
+     */
+    public int[] commitBatch ( ) {
+        if (rows.isEmpty()) {
+            LOGGER.error("--> commitBatch ( ): 没有要插入的数据,请先调用addRow添加数据");
+            return new int[0];
+        }
+        long start = loadDatabase.getMetrics().start();
+        List<Object[]> parameters = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            Object[] parameter = SqlLiteral.toParameters(row);
+            if (Objects.isNull(parameter)) {
+                parameters = null;
+                break;
+            }
+            parameters.add(parameter);
+        }
+        int[] counts;
+        if (multiRowValues) {
+            counts = commitMultiRow(parameters);
+        } else if (!Objects.isNull(parameters)) {
+            counts = loadDatabase.executeBatch(databaseName, insertTemplate(), parameters, batchSize);
+        } else {
+            List<String> sqls = new ArrayList<>(rows.size());
+            for (String[] row : rows) {
+                sqls.add(SQL_INSER_INTO + tableName + " (" + columns + ") values" + literalRow(row));
+            }
+            counts = loadDatabase.executeBatch(databaseName, sqls, batchSize);
+        }
+        rows.clear();
+        boolean success = true;
+        for (int count : counts) {
+            success &= count != Statement.EXECUTE_FAILED;
+        }
+        record(Operation.INSERT, start, success);
+        return counts;
+    }
+
+    /**
+     * 把暂存的数据拼接成多行 insert into ... values (...),(...) 语句,每一批执行一条语句
+     *
+     * @param parameters 每一行的参数,为null时说明有值无法作为参数绑定,需要拼接字面量
+     * @return 返回每一批插入的行数
+     */
+    private int[] commitMultiRow (List<Object[]> parameters) {
+        int rowsPerBatch = batchSize;
+        if (!Objects.isNull(parameters)) {
+            // 一条PreparedStatement的参数个数有上限
+            rowsPerBatch = Math.min(batchSize, MAX_PARAMETERS / columnsArrays.length);
+        }
+        int[] counts = new int[(rows.size() + rowsPerBatch - 1) / rowsPerBatch];
+        for (int batch = 0; batch < counts.length; batch++) {
+            int start = batch * rowsPerBatch;
+            int end = Math.min(rows.size(), start + rowsPerBatch);
+            if (Objects.isNull(parameters)) {
+                StringBuilder sql = new StringBuilder(SQL_INSER_INTO);
+                sql.append(tableName).append(" (").append(columns).append(") values ");
+                for (int row = start; row < end; row++) {
+                    sql.append(row == start ? "" : ",").append(literalRow(rows.get(row)));
+                }
+                counts[batch] = loadDatabase.executeUpdateCount(databaseName, sql.toString(), null);
+            } else {
+                Object[] batchParameters = new Object[(end - start) * columnsArrays.length];
+                for (int row = start; row < end; row++) {
+                    Object[] parameter = parameters.get(row);
+                    System.arraycopy(parameter, 0, batchParameters, (row - start) * parameter.length, parameter.length);
+                }
+                counts[batch] = loadDatabase.executeUpdateCount(databaseName, batchTemplate(end - start), batchParameters);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 获取多行插入语句的SQL模板,例如: insert into table_name (a ,b ) values (?, ?),(?, ?)<br/>
+     * 除最后一批外每一批的行数相同,所以只缓存最近一次使用的模板.
+     *
+     * @param rowCount 行数
+     * @return 返回多行插入语句的SQL模板
+     */
+    private String batchTemplate (int rowCount) {
+        String single = insertTemplate();
+        // insertTemplate ( )在表名或者列改变之前返回同一个对象
+        if (single != batchTemplateSource || rowCount != batchTemplateRows) {
+            String row = single.substring(single.lastIndexOf(" values ") + " values ".length());
+            StringBuilder template = new StringBuilder(single.length() + rowCount * (row.length() + 1));
+            template.append(single);
+            for (int i = 1; i < rowCount; i++) {
+                template.append(",").append(row);
+            }
+            batchTemplate = template.toString();
+            batchTemplateRows = rowCount;
+            batchTemplateSource = single;
+        }
+        return batchTemplate;
+    }
+
+    /**
+     * 把一行字面量拼接成 (a ,b ) 的形式
+     *
+     * @param row 一行字面量
+     * @return 返回拼接好的一行
+     */
+    private static String literalRow (String[] row) {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < row.length; i++) {
+            builder.append(i == 0 ? "" : " ,").append(row[i]);
+        }
+        return builder.append(")").toString();
     }
 
     /**
@@ -54,33 +277,24 @@ public class InsertInto extends Property {
     public boolean commitFields ( ) {
         // 判断插入的数据是否为空,为空结束插入并提示
         if (Objects.isNull(fields) || fields.length == 0) {
-            System.err.println(insertintoLog + "commotFields ( ): 要插入的字段集不能为空,请设置字段集");
+            LOGGER.error("--> commotFields ( ): 要插入的字段集不能为空,请设置字段集");
             return false;
         }
         // 拼接 insert into 插入语句
         StringBuilder columns = new StringBuilder();
         StringBuilder values = new StringBuilder();
         // 遍历Field集
-        int num = 1;
-//            for (Field field : fields) {
-//                columns.append(field.getName());
-//                switch (field.getType()) {
-//                    case Field.INT:
-//                        values.append(field.getValue() + " ");
-//                        break;
-//                    case Field.STRING_255:
-//                        values.append("\'" + field.getValue() + "\'");
-//                        break;
-//                }
-//                if (num == fields.length) {
-//                    continue;
-//                }
-//                columns.append(",");
-//                values.append(",");
-//                num++;
-//            }
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                columns.append(",");
+                values.append(",");
+            }
+            columns.append(fields[i].getName());
+            values.append(fields[i].getType().toLiteral(fields[i].getValue()));
+        }
         // 拼接插入语句
         String sql_insert_into = SQL_INSER_INTO + tableName + " (" + columns + ") values(" + values + ");";
-        return loadDatabase.executeUpdate(sql_insert_into, "dml");
+        long start = loadDatabase.getMetrics().start();
+        return executeDml(Operation.INSERT, start, sql_insert_into, null);
     }
 }
\ No newline at end of file
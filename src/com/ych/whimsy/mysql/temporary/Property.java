@@ -1,9 +1,14 @@
 package src.com.ych.whimsy.mysql.temporary;
 
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
 import src.com.ych.whimsy.mysql.Field;
 import src.com.ych.whimsy.mysql.LoadDatabase;
+import src.com.ych.whimsy.mysql.WriteSession;
+import src.com.ych.whimsy.mysql.metrics.Operation;
 
 import java.awt.*;
+import java.sql.Statement;
 import java.util.Objects;
 
 /**
@@ -11,13 +16,9 @@ import java.util.Objects;
  */
 public abstract class Property {
     /**
-     * 当前类的类名
+     * 本类的Logger
      */
-    private final String propertyName = Property.class.getSimpleName();
-    /**
-     * 当前类的信息
-     */
-    private final String propertyLog = LoadDatabase.loadDatabaseName + ":\n" + propertyName + ":\n";
+    private static final Logger LOGGER = Log.getLogger(Property.class);
     /**
      * 数据库名
      */
@@ -48,9 +49,18 @@ public abstract class Property {
      * 每个数据列对应的值
      */
     protected String[] valuesArrays;
+    /**
+     * 缓存的SQL模板,参数使用 ? 占位,表名或者列改变时清空
+     */
+    protected String sqlTemplate;
 
     protected LoadDatabase loadDatabase;
 
+    /**
+     * 组提交的写会话,不为null时提交在会话中执行
+     */
+    protected WriteSession writeSession;
+
     public Property (LoadDatabase loadDatabase) {
         this.loadDatabase = loadDatabase;
     }
@@ -63,14 +73,12 @@ public abstract class Property {
      */
     public boolean setDatabase (String databaseName) {
         if (Objects.isNull(databaseName) || databaseName.isEmpty()) {
-            System.err.println(propertyLog + "setDatabaseName (String databaseName): 数据库名不能为空,请重新设置");
+            LOGGER.error("--> setDatabaseName (String databaseName): 数据库名不能为空,请重新设置");
             return false;
         }
         this.databaseName = databaseName;
-        // 使用哪个数据库
-        String sql_user = "use " + databaseName + ";";
-        // 执行使用哪个数据库指令
-        return loadDatabase.executeUpdate(sql_user, "ddl");
+        // 使用哪个数据库,提交时会在该数据库上执行
+        return loadDatabase.useDatabase(databaseName);
     }
 
     /**
@@ -81,10 +89,11 @@ public abstract class Property {
      */
     public boolean setTable (String tableName) {
         if (Objects.isNull(tableName) || tableName.isEmpty()) {
-            System.err.println(propertyLog + "setTableName (String tableName): 表名不能为空, 请重新设置");
+            LOGGER.error("--> setTableName (String tableName): 表名不能为空, 请重新设置");
             return false;
         }
         this.tableName = tableName;
+        this.sqlTemplate = null;
         return true;
     }
 
@@ -96,7 +105,7 @@ public abstract class Property {
      */
     public boolean setFields (Field... fields) {
         if (Objects.isNull(fields) || fields.length == 0) {
-            System.err.println(propertyLog + "setFields (Field... fields): 字段不能为空,请重新设置");
+            LOGGER.error("--> setFields (Field... fields): 字段不能为空,请重新设置");
             return false;
         }
         this.fields = fields;
@@ -116,21 +125,12 @@ public abstract class Property {
      */
     public boolean setColumns (String... columns) {
         if (Objects.isNull(columns) || columns.length == 0) {
-            System.err.println(propertyLog + "setFields (Field... fields): 字段不能为空,请重新设置");
+            LOGGER.error("--> setFields (Field... fields): 字段不能为空,请重新设置");
             return false;
         }
-        StringBuilder columns2 = new StringBuilder();
-        int num = 1;
-        for (String column : columns) {
-            columns2.append(column + " ");
-            if (num == columns.length) {
-                continue;
-            }
-            columns2.append(",");
-            num++;
-        }
-        this.columns = columns2.toString();
+        this.columns = SqlClause.list(columns);
         this.columnsArrays = columns;
+        this.sqlTemplate = null;
         return true;
     }
 
@@ -143,25 +143,74 @@ public abstract class Property {
      */
     public boolean setValues (String... values) {
         if (Objects.isNull(values) || values.length == 0) {
-            System.err.println(propertyLog + "setValue (String.. values): 要插入的数据不能为空,请重新输入");
+            LOGGER.error("--> setValue (String.. values): 要插入的数据不能为空,请重新输入");
             return false;
         }
-        StringBuilder vs = new StringBuilder();
-        int num = 1;
-        for (String value : values) {
-            vs.append(value + " ");
-            if (num == values.length) {
-                continue;
-            }
-            vs.append(",");
-            num++;
-        }
-        this.values = vs.toString();
+        this.values = SqlClause.list(values);
         this.valuesArrays = values;
         return true;
     }
 
 
+    /**
+     * 设置组提交的写会话,之后的commit ( )在会话中执行,由会话决定何时提交事务
+     *
+     * @param writeSession 写会话,为null时恢复自动提交
+     */
+    public void setWriteSession (WriteSession writeSession) {
+        this.writeSession = writeSession;
+    }
+
+    /**
+     * 执行一条DML语句并记录耗时和结果,设置了写会话时在会话中执行,<br/>
+     * 由会话在这一组提交或者回滚之后记录耗时和结果,并使该表缓存的查询结果失效.
+     *
+     * @param operation  操作类型
+     * @param start      LoadDatabaseMetrics.start ( )方法返回的开始时间
+     * @param sql        SQL模板,参数使用 ? 占位;参数为null时按照普通SQL语句执行
+     * @param parameters 参数,为null时说明SQL语句中没有参数
+     * @return 返回false执行失败, 返回true执行成功;在写会话中执行时,这一组被回滚后由会话的回滚监听器报告
+     */
+    protected boolean executeDml (Operation operation, long start, String sql, Object[] parameters) {
+        if (Objects.isNull(writeSession)) {
+            return record(operation, start, loadDatabase.executePreparedUpdate(databaseName, sql, parameters, "dml"));
+        }
+        return writeSession.executeUpdate(operation, databaseName, tableName, sql, parameters) == 1;
+    }
+
+    /**
+     * 执行一条DML语句并返回受影响的行数,用于可能影响任意行数的语句;其它和executeDml (...)相同
+     *
+     * @param operation  操作类型
+     * @param start      LoadDatabaseMetrics.start ( )方法返回的开始时间
+     * @param sql        SQL模板,参数使用 ? 占位;参数为null时按照普通SQL语句执行
+     * @param parameters 参数,为null时说明SQL语句中没有参数
+     * @return 返回受影响的行数, 执行失败返回Statement.EXECUTE_FAILED;在写会话中执行时,这一组被回滚后由会话的回滚监听器报告
+     */
+    protected int executeDmlCount (Operation operation, long start, String sql, Object[] parameters) {
+        if (Objects.isNull(writeSession)) {
+            int count = loadDatabase.executeUpdateCount(databaseName, sql, parameters);
+            record(operation, start, count != Statement.EXECUTE_FAILED);
+            return count;
+        }
+        return writeSession.executeUpdate(operation, databaseName, tableName, sql, parameters);
+    }
+
+    /**
+     * 记录一次提交的耗时和结果,并使该表缓存的查询结果失效
+     *
+     * @param operation 操作类型
+     * @param start     LoadDatabaseMetrics.start ( )方法返回的开始时间
+     * @param success   提交是否成功
+     * @return 返回success
+     */
+    protected boolean record (Operation operation, long start, boolean success) {
+        loadDatabase.getMetrics().record(operation, tableName, start, success);
+        // 提交失败时也可能已经修改了部分数据
+        loadDatabase.invalidateResultCache(databaseName, tableName);
+        return success;
+    }
+
     public abstract boolean commit ( );
 
     public abstract boolean commitFields ( );
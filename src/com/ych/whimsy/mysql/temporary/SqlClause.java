@@ -0,0 +1,65 @@
+package src.com.ych.whimsy.mysql.temporary;
+
+import java.util.Objects;
+
+/**
+ * 该类用于拼接InsertInto、Update使用的SQL子句,只做字符串拼接,不依赖LoadDatabase<br/>
+ * 1.list (String... items)拼接setColumns (String... columns)和setValues (String... values)保存的列表.<br/>
+ * 2.assignments (String[] columns, String[] values)拼接update语句的set子句.
+ */
+public final class SqlClause {
+
+    /**
+     * 该类不允许有实例
+     */
+    private SqlClause ( ) {
+    }
+
+    /**
+     * 拼接列名或者值的列表,每一项后面加一个空格,项之间用逗号分隔,例如: id ,name ,age
+     *
+     * @param items 列名或者值
+     * @return 返回拼接后的列表
+     */
+    public static String list (String... items) {
+        int length = items.length * 2;
+        for (String item : items) {
+            length += String.valueOf(item).length();
+        }
+        StringBuilder list = new StringBuilder(length);
+        for (int i = 0; i < items.length; i++) {
+            if (i > 0) {
+                list.append(',');
+            }
+            list.append(items[i]).append(' ');
+        }
+        return list.toString();
+    }
+
+    /**
+     * 拼接update语句的set子句,例如: a = 1 , b = 'x'
+     *
+     * @param columns 列名
+     * @param values  每一列的值,顺序和列名一致;为null时每一列的值都是 ? 占位符
+     * @return 返回拼接后的set子句, 不包括set关键字
+     */
+    public static String assignments (String[] columns, String[] values) {
+        int length = columns.length * 6;
+        for (int i = 0; i < columns.length; i++) {
+            length += columns[i].length() + (Objects.isNull(values) ? 1 : String.valueOf(values[i]).length());
+        }
+        StringBuilder assignments = new StringBuilder(length);
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                assignments.append(" , ");
+            }
+            assignments.append(columns[i]).append(" = ");
+            if (Objects.isNull(values)) {
+                assignments.append('?');
+            } else {
+                assignments.append(values[i]);
+            }
+        }
+        return assignments.toString();
+    }
+}
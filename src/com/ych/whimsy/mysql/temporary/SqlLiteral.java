@@ -0,0 +1,179 @@
+package src.com.ych.whimsy.mysql.temporary;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * 该类用于把setValues (String... values)传入的SQL字面量转换成可以绑定到PreparedStatement的参数<br/>
+ * 1.null或者"null"转换成null.<br/>
+ * 2.'xxx'或者"xxx"转换成去掉引号并处理转义后的String.<br/>
+ * 3.整数转换成Long,超出Long范围的整数和小数转换成BigDecimal.<br/>
+ * 其它的值(函数调用、表达式等)无法转换,需要拼接到SQL语句中执行.
+ */
+public final class SqlLiteral {
+
+    /**
+     * 无法转换成参数的字面量
+     */
+    public static final Object UNBINDABLE = new Object();
+
+    /**
+     * 该类不允许有实例
+     */
+    private SqlLiteral ( ) {
+    }
+
+    /**
+     * 把一组SQL字面量转换成参数
+     *
+     * @param values SQL字面量
+     * @return 返回参数数组, 只要有一个字面量无法转换就返回null
+     */
+    public static Object[] toParameters (String... values) {
+        Object[] parameters = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Object parameter = toParameter(values[i]);
+            if (parameter == UNBINDABLE) {
+                return null;
+            }
+            parameters[i] = parameter;
+        }
+        return parameters;
+    }
+
+    /**
+     * 把一个SQL字面量转换成参数
+     *
+     * @param value SQL字面量
+     * @return 返回参数, 无法转换时返回UNBINDABLE
+     */
+    public static Object toParameter (String value) {
+        if (Objects.isNull(value)) {
+            return null;
+        }
+        String literal = value.trim();
+        if (literal.isEmpty()) {
+            return UNBINDABLE;
+        }
+        if ("null".equalsIgnoreCase(literal)) {
+            return null;
+        }
+        char first = literal.charAt(0);
+        if (first == '\'' || first == '"') {
+            return unquote(literal, first);
+        }
+        return toNumber(literal);
+    }
+
+    /**
+     * 去掉字符串字面量的引号并处理转义字符
+     *
+     * @param literal 字符串字面量
+     * @param quote   引号
+     * @return 返回字符串, 引号不匹配时返回UNBINDABLE
+     */
+    private static Object unquote (String literal, char quote) {
+        int end = literal.length() - 1;
+        if (end < 1 || literal.charAt(end) != quote) {
+            return UNBINDABLE;
+        }
+        StringBuilder builder = null;
+        for (int i = 1; i < end; i++) {
+            char c = literal.charAt(i);
+            if (c == quote) {
+                // 两个连续的引号表示一个引号,单独的引号说明这不是一个完整的字面量
+                if (i + 1 < end && literal.charAt(i + 1) == quote) {
+                    builder = copy(builder, literal, i);
+                    builder.append(quote);
+                    i++;
+                    continue;
+                }
+                return UNBINDABLE;
+            }
+            if (c == '\\') {
+                if (i + 1 >= end) {
+                    return UNBINDABLE;
+                }
+                builder = copy(builder, literal, i);
+                builder.append(escape(literal.charAt(++i)));
+                continue;
+            }
+            if (!Objects.isNull(builder)) {
+                builder.append(c);
+            }
+        }
+        return Objects.isNull(builder) ? literal.substring(1, end) : builder.toString();
+    }
+
+    /**
+     * 第一次遇到转义字符时把之前的内容复制到StringBuilder中
+     *
+     * @param builder 已经创建的StringBuilder,为null时创建
+     * @param literal 字符串字面量
+     * @param index   转义字符的位置
+     * @return 返回StringBuilder
+     */
+    private static StringBuilder copy (StringBuilder builder, String literal, int index) {
+        if (Objects.isNull(builder)) {
+            builder = new StringBuilder(literal.length());
+            builder.append(literal, 1, index);
+        }
+        return builder;
+    }
+
+    /**
+     * MySQL字符串中的转义字符
+     *
+     * @param c 反斜杠后面的字符
+     * @return 返回转义后的字符
+     */
+    private static char escape (char c) {
+        switch (c) {
+            case '0':
+                return '\0';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'Z':
+                return '\032';
+            default:
+                return c;
+        }
+    }
+
+    /**
+     * 把数字字面量转换成Long或者BigDecimal
+     *
+     * @param literal 数字字面量
+     * @return 返回Long或者BigDecimal, 不是数字时返回UNBINDABLE
+     */
+    private static Object toNumber (String literal) {
+        int start = literal.charAt(0) == '-' || literal.charAt(0) == '+' ? 1 : 0;
+        if (start == literal.length()) {
+            return UNBINDABLE;
+        }
+        boolean integral = true;
+        for (int i = start; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (c < '0' || c > '9') {
+                if (c != '.' && c != 'e' && c != 'E' && c != '-' && c != '+') {
+                    return UNBINDABLE;
+                }
+                integral = false;
+            }
+        }
+        try {
+            if (integral && literal.length() - start < 19) {
+                return Long.parseLong(literal);
+            }
+            return new BigDecimal(literal);
+        } catch (NumberFormatException e) {
+            return UNBINDABLE;
+        }
+    }
+}
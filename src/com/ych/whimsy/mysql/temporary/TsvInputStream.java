@@ -0,0 +1,194 @@
+package src.com.ych.whimsy.mysql.temporary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * 把一行一行的数据即时编码成LOAD DATA默认格式的UTF-8字节流<br/>
+ * 1.列之间用制表符分隔,行之间用换行符分隔,null写成 \N.<br/>
+ * 2.反斜杠、制表符、换行符、回车符和0字符用反斜杠转义.<br/>
+ * 3.每次只编码一行,编码用的字节数组一直复用,不会把所有数据放进内存.
+ */
+final class TsvInputStream extends InputStream {
+
+    /**
+     * 要编码的行
+     */
+    private final Iterator<? extends Object[]> rows;
+
+    /**
+     * 每一行的列数
+     */
+    private final int columnCount;
+
+    /**
+     * 当前行编码后的字节
+     */
+    private byte[] buffer = new byte[8192];
+
+    /**
+     * 下一个要读取的字节位置
+     */
+    private int position;
+
+    /**
+     * 当前行编码后的字节数
+     */
+    private int limit;
+
+    /**
+     * 已经编码的行数
+     */
+    private long rowCount;
+
+    TsvInputStream (Iterator<? extends Object[]> rows, int columnCount) {
+        this.rows = rows;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * 获取已经编码的行数
+     *
+     * @return 返回已经编码的行数, 为0时说明还没有从行迭代器中取过数据
+     */
+    long getRowCount ( ) {
+        return rowCount;
+    }
+
+    @Override
+    public int read ( ) throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read (byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        while (read < len) {
+            if (position == limit && !fill()) {
+                break;
+            }
+            int n = Math.min(len - read, limit - position);
+            System.arraycopy(buffer, position, b, off + read, n);
+            position += n;
+            read += n;
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    /**
+     * 编码下一行
+     *
+     * @return 返回false没有更多的行了
+     * @throws IOException 行的列数和列名的个数不一致
+     */
+    private boolean fill ( ) throws IOException {
+        if (!rows.hasNext()) {
+            return false;
+        }
+        Object[] row = rows.next();
+        if (Objects.isNull(row) || row.length != columnCount) {
+            throw new IOException("第" + (rowCount + 1) + "行的列数和列名的个数不一致");
+        }
+        limit = 0;
+        position = 0;
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                put((byte) '\t');
+            }
+            encode(row[i]);
+        }
+        put((byte) '\n');
+        rowCount++;
+        return true;
+    }
+
+    /**
+     * 编码一个值
+     *
+     * @param value 值
+     */
+    private void encode (Object value) {
+        if (Objects.isNull(value)) {
+            put((byte) '\\');
+            put((byte) 'N');
+            return;
+        }
+        if (value instanceof Boolean) {
+            put((byte) ((Boolean) value ? '1' : '0'));
+            return;
+        }
+        String text = value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    escape('\\');
+                    break;
+                case '\t':
+                    escape('t');
+                    break;
+                case '\n':
+                    escape('n');
+                    break;
+                case '\r':
+                    escape('r');
+                    break;
+                case '\0':
+                    escape('0');
+                    break;
+                default:
+                    if (c < 0x80) {
+                        put((byte) c);
+                    } else if (c < 0x800) {
+                        put((byte) (0xC0 | c >> 6));
+                        put((byte) (0x80 | c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                        put((byte) (0xF0 | codePoint >> 18));
+                        put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                        put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                        put((byte) (0x80 | codePoint & 0x3F));
+                    } else if (Character.isSurrogate(c)) {
+                        // 不成对的代理字符和String.getBytes一样替换成 ?
+                        put((byte) '?');
+                    } else {
+                        put((byte) (0xE0 | c >> 12));
+                        put((byte) (0x80 | c >> 6 & 0x3F));
+                        put((byte) (0x80 | c & 0x3F));
+                    }
+            }
+        }
+    }
+
+    /**
+     * 写入反斜杠转义的字符
+     *
+     * @param c 反斜杠后面的字符
+     */
+    private void escape (char c) {
+        put((byte) '\\');
+        put((byte) c);
+    }
+
+    /**
+     * 写入一个字节,空间不够时扩容
+     *
+     * @param b 字节
+     */
+    private void put (byte b) {
+        if (limit == buffer.length) {
+            byte[] bigger = new byte[buffer.length << 1];
+            System.arraycopy(buffer, 0, bigger, 0, limit);
+            buffer = bigger;
+        }
+        buffer[limit++] = b;
+    }
+}
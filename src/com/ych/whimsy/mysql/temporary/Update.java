@@ -1,30 +1,42 @@
 package src.com.ych.whimsy.mysql.temporary;
 
+import src.com.ych.whimsy.log.Log;
+import src.com.ych.whimsy.log.Logger;
 import src.com.ych.whimsy.mysql.Field;
 import src.com.ych.whimsy.mysql.LoadDatabase;
+import src.com.ych.whimsy.mysql.metrics.Operation;
 
 import java.util.Objects;
 
-import static src.com.ych.whimsy.mysql.LoadDatabase.loadDatabaseName;
-
 /**
  * Uptade 类是LoadDatabase类的内部类,该类的作用是修改数据表中的数据
  */
 public class Update extends Property {
     /**
-     * 当前类的类名
-     */
-    private final String updateName = Update.class.getSimpleName();
-    /**
-     * 当前类的信息
+     * 本类的Logger
      */
-    private final String updateLog = loadDatabaseName + ":\n" + updateName + ":\n";
+    private static final Logger LOGGER = Log.getLogger(Update.class);
 
     /**
      * where限定语句
      */
     private String where;
 
+    /**
+     * where限定的列名
+     */
+    private String whereColumn;
+
+    /**
+     * where限定的比较运算符
+     */
+    private String whereOperator;
+
+    /**
+     * where限定的值
+     */
+    private String whereValue;
+
     public Update (LoadDatabase loadDatabase) {
         super(loadDatabase);
     }
@@ -45,35 +57,47 @@ public class Update extends Property {
     public boolean setWhere (String column, int compare, String value) {
 
         if (Objects.isNull(column) || column.isEmpty()) {
-            System.err.println(updateLog + "setWhere (String column, int compare, String value) : 列定义不能为空,请重新输入");
+            LOGGER.error("--> setWhere (String column, int compare, String value) : 列定义不能为空,请重新输入");
             return false;
         }
         if (Objects.isNull(value) || value.isEmpty()) {
-            System.err.println(updateLog + "setWhere (String column, int compare, String value) : 列定义的值不能为空,请重新输入");
+            LOGGER.error("--> setWhere (String column, int compare, String value) : 列定义的值不能为空,请重新输入");
             return false;
         }
+        String operator = operator(compare);
+        if (Objects.isNull(operator)) {
+            LOGGER.error("--> setWhere (String column, int compare, String value) : 比较模式不能为空");
+            return false;
+        }
+        this.where = " where " + column + operator + value;
+        this.whereColumn = column;
+        this.whereOperator = operator;
+        this.whereValue = value;
+        this.sqlTemplate = null;
+        return true;
+    }
+
+    /**
+     * 把判断模式转换成比较运算符,Delete也使用该方法
+     *
+     * @param compare 判断模式 -1小于;0等于;1大于,-10小于等于,10大于等于
+     * @return 返回两边带空格的比较运算符, 判断模式不正确时返回null
+     */
+    static String operator (int compare) {
         switch (compare) {
             case -1:
-                this.where = " where " + column + " < " + value;
-                break;
+                return " < ";
             case 0:
-                this.where = " where " + column + " = " + value;
-                break;
+                return " = ";
             case 1:
-                this.where = " where " + column + " > " + value;
-                break;
+                return " > ";
             case -10:
-                this.where = " where " + column + " <= " + value;
-                break;
+                return " <= ";
             case 10:
-                this.where = " where " + column + " >=" + value;
-                break;
-            default: {
-                System.err.println(updateLog + "setWhere (String column, int compare, String value) : 比较模式不能为空");
-                return false;
-            }
+                return " >=";
+            default:
+                return null;
         }
-        return true;
     }
 
     /**
@@ -85,51 +109,86 @@ public class Update extends Property {
      */
     public boolean setWhere (Field field, int compare) {
         if (Objects.isNull(field)) {
-            System.err.println(updateLog + "setWhere (Field field) : 字段列定义不能为空,请重新输入");
+            LOGGER.error("--> setWhere (Field field) : 字段列定义不能为空,请重新输入");
             return false;
         }
         // 取出字段值
-        String v = null;
-        switch (field.getType()) {
-//                case Field.INT:
-//                    v = field.getValue();
-//                    break;
-//                case Field.STRING_255:
-//                    v = "\'" + field.getValue() + "\'";
-//                    break;
-        }
+        String v = field.getType().toLiteral(field.getValue());
         // 拼接where限定子句
         return setWhere(field.getName(), compare, v);
     }
 
     /**
-     * 提交修改
+     * 提交修改<br/>
+     * 要修改的值和where限定的值都是字面量时,使用缓存的PreparedStatement并把值作为参数绑定;<br/>
+     * 值中含有函数调用或者表达式时,拼接完整的SQL语句执行.
      *
      * @return 返回false提交失败, 返回true提交成功
      */
     @Override
     public boolean commit ( ) {
         if (Objects.isNull(columnsArrays) || columnsArrays.length == 0) {
-            System.err.println(updateLog + "isNull ( ) : 列定义数组不能为空,请重新输入");
+            LOGGER.error("--> isNull ( ) : 列定义数组不能为空,请重新输入");
             return false;
         }
         if (Objects.isNull(valuesArrays) || valuesArrays.length == 0) {
-            System.err.println(updateLog + "isNull ( ) : 列定义的值数组不能为空,请重新输入");
+            LOGGER.error("--> isNull ( ) : 列定义的值数组不能为空,请重新输入");
+            return false;
+        }
+        if (Objects.isNull(where)) {
+            LOGGER.error("--> commit ( ) : where限定不能为空,请先调用setWhere设置");
             return false;
         }
+        long start = loadDatabase.getMetrics().start();
+        if (columnsArrays.length == valuesArrays.length) {
+            Object[] parameters = toParameters();
+            if (!Objects.isNull(parameters)) {
+                return executeDml(Operation.UPDATE, start, updateTemplate(), parameters);
+            }
+        }
+        // 执行更新语句
+        return executeDml(Operation.UPDATE, start, getSql(), null);
+    }
+
+    /**
+     * 获取值直接拼接在语句中的更新语句,提交时值无法作为参数绑定时执行该语句
+     *
+     * @return 返回更新语句
+     */
+    public String getSql ( ) {
         // 拼接更新语句如下格式
         // update table_name set column1=value1[,column2=value2]... [where condition];
-        StringBuilder sql_update_set = new StringBuilder();
-        for (int i = 0; i < columnsArrays.length; i++) {
-            sql_update_set.append(columnsArrays[i] + " = " + valuesArrays[i]);
-            if (i == columnsArrays.length - 1) {
-                continue;
+        return "update " + tableName + " set " + SqlClause.assignments(columnsArrays, valuesArrays) + where + ";";
+    }
+
+    /**
+     * 把要修改的值和where限定的值转换成参数
+     *
+     * @return 返回参数数组, 有值无法转换时返回null
+     */
+    private Object[] toParameters ( ) {
+        Object[] parameters = new Object[valuesArrays.length + 1];
+        for (int i = 0; i <= valuesArrays.length; i++) {
+            Object parameter = SqlLiteral.toParameter(i < valuesArrays.length ? valuesArrays[i] : whereValue);
+            if (parameter == SqlLiteral.UNBINDABLE) {
+                return null;
             }
-            sql_update_set.append(" , ");
+            parameters[i] = parameter;
         }
-        String sql_update = "update " + tableName + " set " + sql_update_set + where + ";";
-        // 执行更新语句
-        return loadDatabase.executeUpdate(sql_update, "dml");
+        return parameters;
+    }
+
+    /**
+     * 获取更新语句的SQL模板,例如: update table_name set a = ? , b = ? where id = ?
+     *
+     * @return 返回更新语句的SQL模板
+     */
+    private String updateTemplate ( ) {
+        if (Objects.isNull(sqlTemplate)) {
+            sqlTemplate = "update " + tableName + " set " + SqlClause.assignments(columnsArrays, null)
+                    + " where " + whereColumn + whereOperator + "?";
+        }
+        return sqlTemplate;
     }
 
     /**
@@ -140,7 +199,7 @@ public class Update extends Property {
     @Override
     public boolean commitFields ( ) {
         if (Objects.isNull(fields) || fields.length == 0) {
-            System.err.println(updateLog + "commitFields ( ) : 列定义数组不能为空,请重新输入");
+            LOGGER.error("--> commitFields ( ) : 列定义数组不能为空,请重新输入");
             return true;
         }
         // 拼接 insert into 插入语句
@@ -150,14 +209,7 @@ public class Update extends Property {
         int index = 0;
         for (Field field : fields) {
             columns[index] = field.getName();
-            switch (field.getType()) {
-//                    case Field.Type.INT:
-//                        values[index] = field.getValue() + " ";
-//                        break;
-//                    case Field.Type.VARCHAR:
-//                        values[index] = "\'" + field.getValue() + "\'";
-//                        break;
-            }
+            values[index] = field.getType().toLiteral(field.getValue());
             index++;
         }
         // 设置列定义
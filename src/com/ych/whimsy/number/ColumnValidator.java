@@ -0,0 +1,200 @@
+package src.com.ych.whimsy.number;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Number.validateColumn(...)方法的实现类，批量判断一整列数据是否符合判断模式。
+ * <p>
+ * 1.大的列按64的整数倍切分成多段，交给ForkJoinPool并行判断，每一段只写结果数组中属于自己的long，不需要加锁。<br>
+ * 2.字节数组形式的列一次读取8个字节，用一个long同时判断8个字节是否都是数字(SWAR)，<br>
+ * 只有含有符号、小数点或者非法字符的8个字节才逐个判断。
+ *
+ * @author QAQ
+ */
+final class ColumnValidator extends RecursiveAction {
+
+	/**
+	 * 序列化版本号
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * 每一段最少的值的个数，必须是64的整数倍
+	 */
+	static final int SEGMENT = 4096;
+
+	/**
+	 * 每个字节的最高位
+	 */
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	/**
+	 * 字符串形式的列，和bytes只有一个不为null
+	 */
+	private final CharSequence[] values;
+
+	/**
+	 * 字节数组形式的列数据
+	 */
+	private final byte[] bytes;
+
+	/**
+	 * 字节数组形式的列中每个值的开始位置，第i个值是bytes[offsets[i], offsets[i + 1])
+	 */
+	private final int[] offsets;
+
+	/**
+	 * 判断模式
+	 */
+	private final int flag;
+
+	/**
+	 * 判断结果，每个long保存64个值的结果
+	 */
+	private final long[] words;
+
+	/**
+	 * 当前段的开始下标，包含
+	 */
+	private final int from;
+
+	/**
+	 * 当前段的结束下标，不包含
+	 */
+	private final int to;
+
+	private ColumnValidator(CharSequence[] values, byte[] bytes, int[] offsets, int flag, long[] words, int from, int to) {
+		this.values = values;
+		this.bytes = bytes;
+		this.offsets = offsets;
+		this.flag = flag;
+		this.words = words;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * 判断字符串形式的一列数据
+	 *
+	 * @param values 列数据，null元素判断为不符合
+	 * @param flag   判断模式
+	 * @return 返回判断结果，第i位为true表示第i个值符合判断模式
+	 */
+	static BitSet validate(CharSequence[] values, int flag) {
+		return run(new ColumnValidator(values, null, null, flag, new long[(values.length + 63) >>> 6], 0, values.length));
+	}
+
+	/**
+	 * 判断字节数组形式的一列数据
+	 *
+	 * @param bytes   列数据
+	 * @param offsets 每个值的开始位置，长度是值的个数加1
+	 * @param flag    判断模式
+	 * @return 返回判断结果，第i位为true表示第i个值符合判断模式
+	 */
+	static BitSet validate(byte[] bytes, int[] offsets, int flag) {
+		int count = offsets.length - 1;
+		return run(new ColumnValidator(null, bytes, offsets, flag, new long[(count + 63) >>> 6], 0, count));
+	}
+
+	/**
+	 * 执行判断，小的列直接在当前线程判断
+	 *
+	 * @param task 整列的判断任务
+	 * @return 返回判断结果
+	 */
+	private static BitSet run(ColumnValidator task) {
+		if (task.to - task.from <= SEGMENT) {
+			task.compute();
+		} else {
+			ForkJoinPool.commonPool().invoke(task);
+		}
+		return BitSet.valueOf(task.words);
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from > SEGMENT) {
+			// 从64的整数倍处切分，两段不会写同一个long
+			int middle = ((from + to) >>> 1) & ~63;
+			if (middle <= from) {
+				middle = from + SEGMENT;
+			}
+			invokeAll(new ColumnValidator(values, bytes, offsets, flag, words, from, middle),
+					new ColumnValidator(values, bytes, offsets, flag, words, middle, to));
+			return;
+		}
+		if (values != null) {
+			for (int i = from; i < to; i++) {
+				CharSequence value = values[i];
+				if (value != null && Number.parse(value, 0, value.length(), flag, null)) {
+					words[i >>> 6] |= 1L << i;
+				}
+			}
+		} else {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			for (int i = from; i < to; i++) {
+				if (isNumber(buffer, offsets[i], offsets[i + 1])) {
+					words[i >>> 6] |= 1L << i;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 判断字节数组的[start, end)区间是否符合判断模式，判断规则和Number.parse(...)相同
+	 *
+	 * @param buffer 包装了字节数组的ByteBuffer，用来一次读取8个字节
+	 * @param start  开始位置，包含
+	 * @param end    结束位置，不包含
+	 * @return 符合判断模式返回true反之false
+	 */
+	private boolean isNumber(ByteBuffer buffer, int start, int end) {
+		int i = start;
+		boolean negative = i < end && bytes[i] == '-';
+		if (negative) {
+			i++;
+		}
+		if (!(flag == 0 || (flag > 0 ? !negative : negative))) {
+			return false;
+		}
+		boolean pointAllowed = flag == 2 || flag == -2 || flag == 0;
+		boolean point = false;
+		int digits = 0;
+		while (i < end) {
+			if (end - i >= 8 && isAllDigits(buffer.getLong(i))) {
+				digits += 8;
+				i += 8;
+				continue;
+			}
+			// 剩余不足8个字节，或者这8个字节里有非数字，逐个判断
+			int limit = Math.min(end, i + 8);
+			for (; i < limit; i++) {
+				byte c = bytes[i];
+				if (c >= '0' && c <= '9') {
+					digits++;
+				} else if (c == '.' && pointAllowed && !point) {
+					point = true;
+				} else {
+					return false;
+				}
+			}
+		}
+		return digits > 0;
+	}
+
+	/**
+	 * 判断一个long中的8个字节是否都是'0'到'9'。<br>
+	 * 字节加上0x46后最高位为1说明大于'9'；字节先把最高位置1再减去0x30，最高位变成0说明小于'0'；<br>
+	 * 字节本身最高位为1说明不是ASCII字符。三种情况都不存在时8个字节都是数字。
+	 *
+	 * @param word 8个字节
+	 * @return 都是数字返回true反之false
+	 */
+	static boolean isAllDigits(long word) {
+		return ((word | (word + 0x4646464646464646L) | ~((word | HIGH_BITS) - 0x3030303030303030L)) & HIGH_BITS) == 0;
+	}
+}
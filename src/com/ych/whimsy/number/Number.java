@@ -1,5 +1,8 @@
 package src.com.ych.whimsy.number;
 
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
 /**
  * 2020年1月5日下午7:10:40<br>
  * 
@@ -10,6 +13,17 @@ package src.com.ych.whimsy.number;
  */
 public final class Number {
 
+	/**
+	 * 以负数形式累加时，累加值小于该值再乘以10就会溢出
+	 */
+	private static final long MULTIPLY_LIMIT = Long.MIN_VALUE / 10;
+
+	/**
+	 * 能精确表示成double的10的幂
+	 */
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
 	/**
 	 * 该类不允许有实例所以该类的构造为空
 	 */
@@ -34,19 +48,8 @@ public final class Number {
 		// 判断字符串是否为空
 		if (message != null && !message.equals("")) {
 			if (flag >= -2 && flag <= 2) {
-				// 选择判断条件
-				switch (flag) {
-				case -2:// 判断是否是负数
-					return isNegative(message, flag);
-				case -1:// 判断是否是负整数
-					return isNegative(message, flag);
-				case 0:// 判断是否是数
-					return isNegative(message, flag) || isPositive(message, flag) ? true : false;
-				case 1:// 判断是是否时正整数
-					return isPositive(message, flag);
-				case 2:// 判断是否是整数
-					return isPositive(message, flag);
-				}
+				// 只扫描一遍字符串，不需要解析出数值
+				return parse(message, 0, message.length(), flag, null);
 			} else
 				System.out.println("判断模式出错 ! ! !");
 		} else
@@ -56,97 +59,237 @@ public final class Number {
 	}
 
 	/**
-	 * 这个方法时isNumber(String message, int flag);的工具方法，这个方法用于作为<br>
-	 * isNumber(String message, int flag);方法的返回值。<br>
-	 * 该方法主要用于判断传进来的字符串是否是正方向的整数或小数。
+	 * 只扫描一遍字符序列的[start, end)区间，判断它是否符合判断模式，并解析出它的数值。<br>
+	 * 扫描和解析都不会产生新的对象，只有超出long范围或者有效位数超过双精度浮点数精度的小数<br>
+	 * 才会借助Double.parseDouble(String s)解析double值。
 	 * <p>
-	 * 我们首先把字符串message转成一个char类型的数组，然后分别判断数组 的<br>
-	 * 每个元素是否是数字，是否是小数点然后把他们统计起来，然后把统计起来<br>
-	 * 的数据交给辅助方法returnValue(int nums, int points, int mesggLegth, int flag)<br>
-	 * 处理。
-	 * 
-	 * @param message 外部传进来的，被判断处理的字符串。
-	 * @param flag    判断模式。
-	 * @return 返回值是一个boolean类型的值<br>
-	 *         该返回值是returnValue(int nums, int points, int mesggLegth, int flag);<br>
-	 *         方法的返回值。
-	 * 
+	 * 至少要有一位数字；判断模式允许小数时最多只能有一个小数点；负数以"-"开头，不支持"+"号。
+	 *
+	 * @param message 被判断的字符序列
+	 * @param start   开始位置，包含
+	 * @param end     结束位置，不包含
+	 * @param flag    判断模式，取值和isNumber(String message, int flag)相同
+	 * @param value   保存解析出来的数值，为null时只判断不解析
+	 * @return 符合判断模式返回true反之false，返回false时value的值无效
+	 * @throws IllegalArgumentException 判断模式出错
 	 */
-	private static boolean isPositive(String message, int flag) {
-		// 是数字的个数
-		int nums = 0;
-		// 小数点的个数
-		int points = 0;
-		// 讲传进来的字符串转换换成它对应元素组成的字符数组
-		char[] numbers = message.toCharArray();
-		// 遍历数字字符数组
-		for (char num : numbers) {
-			// 判断该数组的每一位元素是否是数字
-			if (num >= 48 && num <= 57) {
-				// 如果是数字,数字(nums)的数量加1
-				nums++;
+	public static boolean parse(CharSequence message, int start, int end, int flag, NumberValue value) {
+		checkFlag(flag);
+		int i = start;
+		boolean negative = i < end && message.charAt(i) == '-';
+		if (negative) {
+			i++;
+		}
+		if (!isSignAllowed(negative, flag)) {
+			return false;
+		}
+		boolean pointAllowed = flag == 2 || flag == -2 || flag == 0;
+		// 以负数的形式累加，这样可以表示Long.MIN_VALUE
+		long accumulator = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		boolean overflow = false;
+		for (; i < end; i++) {
+			char c = message.charAt(i);
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (point) {
+					scale++;
+				}
+				if (!overflow) {
+					if (accumulator < MULTIPLY_LIMIT || (accumulator *= 10) < Long.MIN_VALUE + (c - '0')) {
+						overflow = true;
+					} else {
+						accumulator -= c - '0';
+					}
+				}
+			} else if (c == '.' && pointAllowed && !point) {
+				point = true;
+			} else {
+				return false;
 			}
-			// 判断该数组的每一位元素是否是"."
-			if (num == 46) {
-				// 如果是点(points)的数量加1
-				points++;
+		}
+		if (digits == 0) {
+			return false;
+		}
+		if (value != null) {
+			double exact = exactDouble(accumulator, negative, point, scale, overflow);
+			if (exact != exact) {
+				exact = Double.parseDouble(message.subSequence(start, end).toString());
 			}
+			fill(value, accumulator, negative, point, overflow, exact);
 		}
-		return returnValue(nums, points, message.length(), flag);
+		return true;
 	}
 
 	/**
-	 * 该方法是isPositive(String message, int flag);方法的工具方法。<br>
-	 * 当前方法用于作为isPositive(String message, int flag);方法的返回值。
-	 * 
-	 * @param nums       数字的数量
-	 * @param points     小数点的数量
-	 * @param mesggLegth 字符串的长度
-	 * @param flag       判断模式
-	 * @return 返回值是一个boolean类型的值:<br>
-	 *         当判断模式flag为1或者-1时，这个时候说明数字的数量nums和传进 来的 字<br>
-	 *         符串的元素个数mesgLength相同，这个时候返回nums==mesgLength的值。
-	 *         <p>
-	 *         当判断模式flag为-2、2、0时，这个时候说明只要合法的数字即可；是一个<br>
-	 *         合法的数字需要具备小数的点的个数points小于等于1，然后小数点的个数加<br>
-	 *         数字的个数nums等于字符串的长度，如果符合这个条件返回true反之false。
+	 * 只扫描一遍字节数组的[start, end)区间，判断它是否符合判断模式，并解析出它的数值。<br>
+	 * 字节按ASCII编码解释，适合直接处理从文件或者网络读取的数据，不需要先转换成字符串。
+	 *
+	 * @param message 被判断的字节数组
+	 * @param start   开始位置，包含
+	 * @param end     结束位置，不包含
+	 * @param flag    判断模式，取值和isNumber(String message, int flag)相同
+	 * @param value   保存解析出来的数值，为null时只判断不解析
+	 * @return 符合判断模式返回true反之false，返回false时value的值无效
+	 * @throws IllegalArgumentException 判断模式出错
 	 */
-	private static boolean returnValue(int nums, int points, int mesggLegth, int flag) {
-		// 判断查询条件
-		if (flag == 1 || flag == -1) {
-			// 如果查询条件等于1或者-1表示数字的个数等于字符串的长度
-			return nums == mesggLegth;
-		} else if (flag == 2 || flag == -2 || flag == 0) {
-			// 如果查询条件 等于2,-2或者0表示字符串中的小数点的个数大于小于1,其他字符必须都是数字,且数字数量加小数点数量等于字符串的长度
-			return points <= 1 && (nums + points) == mesggLegth;
+	public static boolean parse(byte[] message, int start, int end, int flag, NumberValue value) {
+		checkFlag(flag);
+		int i = start;
+		boolean negative = i < end && message[i] == '-';
+		if (negative) {
+			i++;
 		}
-		return false;
+		if (!isSignAllowed(negative, flag)) {
+			return false;
+		}
+		boolean pointAllowed = flag == 2 || flag == -2 || flag == 0;
+		long accumulator = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		boolean overflow = false;
+		for (; i < end; i++) {
+			byte c = message[i];
+			if (c >= '0' && c <= '9') {
+				digits++;
+				if (point) {
+					scale++;
+				}
+				if (!overflow) {
+					if (accumulator < MULTIPLY_LIMIT || (accumulator *= 10) < Long.MIN_VALUE + (c - '0')) {
+						overflow = true;
+					} else {
+						accumulator -= c - '0';
+					}
+				}
+			} else if (c == '.' && pointAllowed && !point) {
+				point = true;
+			} else {
+				return false;
+			}
+		}
+		if (digits == 0) {
+			return false;
+		}
+		if (value != null) {
+			double exact = exactDouble(accumulator, negative, point, scale, overflow);
+			if (exact != exact) {
+				exact = Double.parseDouble(new String(message, start, end - start, StandardCharsets.ISO_8859_1));
+			}
+			fill(value, accumulator, negative, point, overflow, exact);
+		}
+		return true;
 	}
 
 	/**
-	 * 这个方法时isNumber(String message, int flag);的工具方法，这个方法用于作为<br>
-	 * isNumber(String message, int flag);方法的返回值。该方法是判断传进来的字符<br>
-	 * 串是否是负数或负整数。
-	 * 
-	 * @param message 外部传进来的，被判断处理的字符串。
-	 * @param flag    判断模式。
-	 * @return 返回值一个boolean值:<br>
-	 *         当我们被判断的字符串元素第一位是"-"号是，说明它是一个负数，然后对<br>
-	 *         "-" 后的所有字符元素进行判断，是否是小数是否是整数,如果是返回true<br>
-	 *         反之false。
-	 *         <p>
-	 *         如果字符串的元素第一位不是"-"号，直接返回false。
+	 * 批量判断一整列字符串是否符合判断模式，判断规则和parse(...)方法相同。<br>
+	 * 超过4096个值的列会切分成多段，在ForkJoinPool.commonPool()中并行判断。
+	 *
+	 * @param column 一列字符串，null元素判断为不符合
+	 * @param flag   判断模式，取值和isNumber(String message, int flag)相同
+	 * @return 返回判断结果，第i位为true表示第i个值符合判断模式
+	 * @throws IllegalArgumentException 判断模式出错
 	 */
-	private static boolean isNegative(String message, int flag) {
-		// 不为空，判断第一位字符是否是‘-’号
-		if (message.startsWith("-")) {
-			// 第一位是‘-’号，拿到‘-’好后一位到结束的所有字符
-			String numbers = message.substring(message.indexOf('-') + 1);
-			// 判断拿到的字符集是否是数字组成或是小数组成的部分
-			// 是小数或是数字组成返回true
-			return isPositive(numbers, flag);
+	public static BitSet validateColumn(CharSequence[] column, int flag) {
+		checkFlag(flag);
+		return ColumnValidator.validate(column, flag);
+	}
+
+	/**
+	 * 批量判断一整列按字节存储的数据是否符合判断模式，判断规则和parse(...)方法相同。<br>
+	 * 所有值连续存放在一个字节数组中，第i个值是data[offsets[i], offsets[i + 1])，<br>
+	 * 判断时一次检查8个字节是否都是数字，超过4096个值的列会切分成多段并行判断。
+	 *
+	 * @param data    所有值连续存放的字节数组，按ASCII编码解释
+	 * @param offsets 每个值的开始位置，长度是值的个数加1，最后一个元素是最后一个值的结束位置
+	 * @param flag    判断模式，取值和isNumber(String message, int flag)相同
+	 * @return 返回判断结果，第i位为true表示第i个值符合判断模式
+	 * @throws IllegalArgumentException 判断模式出错，或者offsets为空
+	 */
+	public static BitSet validateColumn(byte[] data, int[] offsets, int flag) {
+		checkFlag(flag);
+		if (offsets == null || offsets.length == 0) {
+			throw new IllegalArgumentException("offsets不能为空，长度是值的个数加1");
+		}
+		return ColumnValidator.validate(data, offsets, flag);
+	}
+
+	/**
+	 * 检查判断模式是否在-2到2之间
+	 *
+	 * @param flag 判断模式
+	 * @throws IllegalArgumentException 判断模式出错
+	 */
+	private static void checkFlag(int flag) {
+		if (flag < -2 || flag > 2) {
+			throw new IllegalArgumentException("判断模式出错: " + flag);
+		}
+	}
+
+	/**
+	 * 判断模式是否允许当前的符号：0允许正负数，1和2只允许正数，-1和-2只允许负数
+	 *
+	 * @param negative 是否以"-"开头
+	 * @param flag     判断模式
+	 * @return 允许返回true反之false
+	 */
+	private static boolean isSignAllowed(boolean negative, int flag) {
+		return flag == 0 || (flag > 0 ? !negative : negative);
+	}
+
+	/**
+	 * 不借助字符串，直接从累加值算出精确的double值。<br>
+	 * 整数转换成double本身就是正确舍入的；小数在有效数字不超过2的53次方并且小数位数不超过22位时，<br>
+	 * 有效数字和10的幂都能精确表示成double，一次除法的结果也是正确舍入的。
+	 *
+	 * @param accumulator 以负数形式累加的所有数字
+	 * @param negative    是否是负数
+	 * @param point       是否有小数点
+	 * @param scale       小数位数
+	 * @param overflow    累加时是否溢出
+	 * @return 返回double值，无法精确算出时返回NaN
+	 */
+	private static double exactDouble(long accumulator, boolean negative, boolean point, int scale, boolean overflow) {
+		if (overflow) {
+			return Double.NaN;
+		}
+		if (!point) {
+			if (!negative && accumulator == Long.MIN_VALUE) {
+				return Double.NaN;
+			}
+			return negative ? (double) accumulator : (double) -accumulator;
+		}
+		if (scale >= POWERS_OF_TEN.length || accumulator < -(1L << 53)) {
+			return Double.NaN;
+		}
+		double result = -(double) accumulator / POWERS_OF_TEN[scale];
+		return negative ? -result : result;
+	}
+
+	/**
+	 * 把解析结果保存到NumberValue中
+	 *
+	 * @param value       保存解析结果的对象
+	 * @param accumulator 以负数形式累加的所有数字
+	 * @param negative    是否是负数
+	 * @param point       是否有小数点
+	 * @param overflow    累加时是否溢出
+	 * @param exact       double值
+	 */
+	private static void fill(NumberValue value, long accumulator, boolean negative, boolean point, boolean overflow, double exact) {
+		value.negative = negative;
+		value.integral = !point;
+		value.doubleValue = exact;
+		if (!point) {
+			value.overflow = overflow || (!negative && accumulator == Long.MIN_VALUE);
+			value.longValue = value.overflow ? (long) exact : (negative ? accumulator : -accumulator);
+		} else {
+			value.overflow = Math.abs(exact) >= 0x1p63;
+			value.longValue = (long) exact;
 		}
-		return false;
 	}
 
 }
@@ -0,0 +1,85 @@
+package src.com.ych.whimsy.number;
+
+/**
+ * 保存Number.parse(...)方法解析出来的数值<br>
+ * 该对象可以反复传给Number.parse(...)方法复用，解析时不会产生新的对象。
+ *
+ * @author QAQ
+ */
+public final class NumberValue {
+
+	/**
+	 * 是否是负数
+	 */
+	boolean negative;
+
+	/**
+	 * 是否是整数，也就是没有小数点
+	 */
+	boolean integral;
+
+	/**
+	 * 数字是否超出了long的范围，超出时longValue无效
+	 */
+	boolean overflow;
+
+	/**
+	 * long值，小数时是截掉小数部分后的值
+	 */
+	long longValue;
+
+	/**
+	 * double值
+	 */
+	double doubleValue;
+
+	/**
+	 * 是否是负数
+	 *
+	 * @return 返回true表示是负数
+	 */
+	public boolean isNegative() {
+		return negative;
+	}
+
+	/**
+	 * 是否是整数
+	 *
+	 * @return 返回true表示没有小数点
+	 */
+	public boolean isIntegral() {
+		return integral;
+	}
+
+	/**
+	 * 数字是否超出了long的范围
+	 *
+	 * @return 返回true表示超出了long的范围，此时只有getDouble()的值有效
+	 */
+	public boolean isOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * 获取long值
+	 *
+	 * @return 返回long值，小数返回截掉小数部分后的值
+	 */
+	public long getLong() {
+		return longValue;
+	}
+
+	/**
+	 * 获取double值
+	 *
+	 * @return 返回double值
+	 */
+	public double getDouble() {
+		return doubleValue;
+	}
+
+	@Override
+	public String toString() {
+		return integral && !overflow ? String.valueOf(longValue) : String.valueOf(doubleValue);
+	}
+}
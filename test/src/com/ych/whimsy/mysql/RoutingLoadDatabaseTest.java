@@ -0,0 +1,288 @@
+package src.com.ych.whimsy.mysql;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import src.com.ych.whimsy.mysql.cache.ResultCache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoutingLoadDatabase在内嵌H2数据库上的测试<br/>
+ * 主库和两个从库是三个独立的内存数据库,node表中只有一行,内容是数据库的名字,查询结果就能说明读操作发送到了哪个库.
+ */
+public class RoutingLoadDatabaseTest {
+
+    /**
+     * H2内存数据库的默认schema
+     */
+    private static final String SCHEMA = "PUBLIC";
+
+    /**
+     * 第一个从库的URL,用于绕过LoadDatabase模拟复制
+     */
+    private String replica1Url;
+
+    /**
+     * 主库
+     */
+    private LoadDatabase primary;
+
+    /**
+     * 第一个从库
+     */
+    private LoadDatabase replica1;
+
+    /**
+     * 第二个从库
+     */
+    private LoadDatabase replica2;
+
+    /**
+     * 被测试的读写分离门面
+     */
+    private RoutingLoadDatabase routing;
+
+    /**
+     * 模拟另一个线程的读操作,不受当前线程读自己的写的影响
+     */
+    private ExecutorService other;
+
+    /**
+     * 创建主库和两个从库
+     *
+     * @throws Exception 创建失败
+     */
+    @Before
+    public void setUp ( ) throws Exception {
+        long suffix = System.nanoTime();
+        primary = open("primary_" + suffix, "primary");
+        replica1Url = url("replica1_" + suffix);
+        replica1 = open("replica1_" + suffix, "replica1");
+        replica2 = open("replica2_" + suffix, "replica2");
+        routing = new RoutingLoadDatabase(primary, replica1, replica2);
+        other = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * 关闭所有数据库
+     */
+    @After
+    public void tearDown ( ) {
+        other.shutdownNow();
+        routing.close();
+    }
+
+    /**
+     * 从库都空闲时轮流选择
+     */
+    @Test
+    public void alternatesBetweenIdleReplicas ( ) {
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(node());
+        }
+
+        Assert.assertEquals(2, count(nodes, "replica1"));
+        Assert.assertEquals(2, count(nodes, "replica2"));
+        Assert.assertEquals(4, routing.getReplicaReads());
+        Assert.assertEquals(0, routing.getPrimaryReads());
+    }
+
+    /**
+     * 一个从库有未完成的请求时,读操作都发送到另一个从库
+     *
+     * @throws Exception 等待失败
+     */
+    @Test
+    public void prefersReplicaWithFewestOutstandingRequests ( ) throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> busy = new ArrayList<>();
+        Future<Long> blocked = other.submit(( ) -> routing.forEachRow(SCHEMA, "node", row -> {
+            busy.add(row.getString(1));
+            started.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }));
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(node());
+        }
+        release.countDown();
+
+        Assert.assertEquals(1L, (long) blocked.get(10, TimeUnit.SECONDS));
+        String idle = "replica1".equals(busy.get(0)) ? "replica2" : "replica1";
+        Assert.assertEquals(4, count(nodes, idle));
+    }
+
+    /**
+     * 写主库之后stickyWindow毫秒内,当前线程读主库,其它线程仍然读从库
+     *
+     * @throws Exception 等待失败
+     */
+    @Test
+    public void readsOwnWritesWithinStickyWindow ( ) throws Exception {
+        routing.setStickyWindow(300);
+        Assert.assertTrue(routing.executeUpdate("insert into other_table values (1)", "dml"));
+
+        Assert.assertEquals("primary", node());
+        Assert.assertNotEquals("primary", other.submit(( ) -> node()).get(10, TimeUnit.SECONDS));
+
+        Thread.sleep(400);
+        Assert.assertNotEquals("primary", node());
+    }
+
+    /**
+     * 从库故障时改为查询主库,该从库暂时不再被选择
+     */
+    @Test
+    public void fallsBackToPrimaryWhenReplicaFails ( ) {
+        replica1.close();
+
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(node());
+        }
+
+        Assert.assertEquals(0, count(nodes, "replica1"));
+        Assert.assertEquals(1, count(nodes, "primary"));
+        Assert.assertEquals(3, count(nodes, "replica2"));
+        Assert.assertEquals(1, routing.getPrimaryReads());
+    }
+
+    /**
+     * 表结构从主库读取,从库还没有执行主库上的DDL时也能读到,而且不会把从库当成故障
+     */
+    @Test
+    public void readsMetadataFromPrimary ( ) {
+        Assert.assertTrue(primary.executeUpdate("create table \"only_primary\" (id int primary key)", "ddl"));
+
+        Assert.assertNotNull(routing.getTableMetadata(null, "only_primary"));
+        Assert.assertNull(routing.getTableMetadata(null, "missing_table"));
+
+        List<String> nodes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(node());
+        }
+        Assert.assertEquals(0, count(nodes, "primary"));
+    }
+
+    /**
+     * 从库在复制完成之前缓存的旧数据,在stickyWindow毫秒后失效
+     *
+     * @throws Exception 等待失败
+     */
+    @Test
+    public void invalidatesReplicaCacheAgainAfterStickyWindow ( ) throws Exception {
+        RoutingLoadDatabase single = new RoutingLoadDatabase(primary, replica1);
+        single.setStickyWindow(200);
+        replica1.setResultCache(new ResultCache(1 << 20, 60_000));
+
+        Assert.assertTrue(single.executeUpdate("update node set name = 'primary2'", "dml"));
+        // 从库还没有复制这次修改,其它线程读到并缓存了旧数据
+        Assert.assertEquals("replica1", other.submit(( ) -> cachedNode(single)).get(10, TimeUnit.SECONDS));
+        try (Connection connection = DriverManager.getConnection(replica1Url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("update node set name = 'primary2'");
+        }
+        Assert.assertEquals("replica1", other.submit(( ) -> cachedNode(single)).get(10, TimeUnit.SECONDS));
+
+        Thread.sleep(400);
+        Assert.assertEquals("primary2", other.submit(( ) -> cachedNode(single)).get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 创建内存数据库,node表中保存数据库的名字
+     *
+     * @param database 内存数据库名
+     * @param name     node表中保存的名字
+     * @return 返回连接该数据库的LoadDatabase
+     * @throws Exception 创建失败
+     */
+    private static LoadDatabase open (String database, String name) throws Exception {
+        LoadDatabase loadDatabase = new LoadDatabase("org.h2.Driver", url(database), "sa", "");
+        Assert.assertTrue(loadDatabase.executeUpdate("create table node (name varchar(32))", "ddl"));
+        Assert.assertTrue(loadDatabase.executeUpdate("create table other_table (id int)", "ddl"));
+        Assert.assertTrue(loadDatabase.executeUpdate("insert into node values ('" + name + "')", "dml"));
+        return loadDatabase;
+    }
+
+    /**
+     * 内存数据库的URL
+     *
+     * @param database 内存数据库名
+     * @return 返回URL
+     */
+    private static String url (String database) {
+        return "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * 通过指定的门面以使用查询结果缓存的方式查询node表
+     *
+     * @param routing 读写分离门面
+     * @return 返回node表中的名字
+     * @throws Exception 查询失败
+     */
+    private static String cachedNode (RoutingLoadDatabase routing) throws Exception {
+        ResultSet resultSet = routing.inquireResultSet(SCHEMA, "node");
+        Assert.assertNotNull(resultSet);
+        Assert.assertTrue(resultSet.next());
+        return resultSet.getString(1);
+    }
+
+    /**
+     * 通过被测试的门面查询node表
+     *
+     * @return 返回处理这次读操作的数据库的名字, 查询失败返回null
+     */
+    private String node ( ) {
+        return node(routing);
+    }
+
+    /**
+     * 通过指定的门面查询node表
+     *
+     * @param routing 读写分离门面
+     * @return 返回处理这次读操作的数据库的名字, 查询失败返回null
+     */
+    private static String node (RoutingLoadDatabase routing) {
+        List<String> names = routing.inquireList(SCHEMA, "node", row -> row.getString(1));
+        return Objects.isNull(names) ? null : names.get(0);
+    }
+
+    /**
+     * 统计列表中等于指定值的元素个数
+     *
+     * @param nodes 数据库的名字
+     * @param name  指定值
+     * @return 返回个数
+     */
+    private static int count (List<String> nodes, String name) {
+        int count = 0;
+        for (String node : nodes) {
+            if (name.equals(node)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
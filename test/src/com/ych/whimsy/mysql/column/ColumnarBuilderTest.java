@@ -0,0 +1,99 @@
+package src.com.ych.whimsy.mysql.column;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import src.com.ych.whimsy.mysql.LoadDatabase;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ColumnarBuilder在内嵌H2数据库上的测试
+ */
+public class ColumnarBuilderTest {
+
+    /**
+     * H2内存数据库的默认schema
+     */
+    private static final String SCHEMA = "PUBLIC";
+
+    /**
+     * 被测试的数据库连接
+     */
+    private LoadDatabase loadDatabase;
+
+    /**
+     * 创建内存数据库和sparse数据表
+     *
+     * @throws Exception 创建失败
+     */
+    @Before
+    public void setUp ( ) throws Exception {
+        loadDatabase = new LoadDatabase("org.h2.Driver", "jdbc:h2:mem:columnar_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Assert.assertTrue(loadDatabase.executeUpdate("create table sparse (id int primary key, amount int)", "ddl"));
+    }
+
+    /**
+     * 关闭数据库连接
+     */
+    @After
+    public void tearDown ( ) {
+        loadDatabase.close();
+    }
+
+    /**
+     * 两个NULL之间相隔超过1024行时,NULL位图一次扩容到足够的大小
+     */
+    @Test
+    public void keepsNullsFarApart ( ) {
+        insert(3000, 0, 2999);
+
+        ColumnarResult result = loadDatabase.inquireColumnar(SCHEMA, "sparse");
+
+        Assert.assertNotNull(result);
+        Assert.assertEquals(3000, result.getRowCount());
+        IntColumn amount = result.getIntColumn("AMOUNT");
+        Assert.assertEquals(2, amount.getNullCount());
+        Assert.assertTrue(amount.isNull(0));
+        Assert.assertTrue(amount.isNull(2999));
+        Assert.assertFalse(amount.isNull(1500));
+        Assert.assertEquals(1500, amount.getInt(1500));
+        Assert.assertEquals(2, amount.filterNull().cardinality());
+    }
+
+    /**
+     * 只有开头一行是NULL时,位图缩小后仍然覆盖所有行
+     */
+    @Test
+    public void keepsLeadingNullOnly ( ) {
+        insert(2000, 0);
+
+        IntColumn amount = loadDatabase.inquireColumnar(SCHEMA, "sparse").getIntColumn("AMOUNT");
+
+        Assert.assertEquals(1, amount.getNullCount());
+        Assert.assertTrue(amount.isNull(0));
+        Assert.assertFalse(amount.isNull(1999));
+    }
+
+    /**
+     * 插入id从0到rows - 1的行,amount等于id,指定的行为NULL
+     *
+     * @param rows  行数
+     * @param nulls amount为NULL的行
+     */
+    private void insert (int rows, int... nulls) {
+        List<Object[]> values = new ArrayList<>();
+        for (int id = 0; id < rows; id++) {
+            values.add(new Object[]{id, id});
+        }
+        for (int id : nulls) {
+            values.get(id)[1] = null;
+        }
+        for (int count : loadDatabase.executeBatch(null, "insert into sparse values (?, ?)", values, 500)) {
+            Assert.assertNotEquals(Statement.EXECUTE_FAILED, count);
+        }
+    }
+}
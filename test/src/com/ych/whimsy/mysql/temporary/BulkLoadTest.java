@@ -0,0 +1,158 @@
+package src.com.ych.whimsy.mysql.temporary;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import src.com.ych.whimsy.mysql.LoadDatabase;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BulkLoad在内嵌H2数据库上的测试,H2不是Connector/J,load data local infile会退回到多行插入
+ */
+public class BulkLoadTest {
+
+    /**
+     * 每个测试使用自己的内存数据库
+     */
+    private String url;
+
+    /**
+     * 被测试的数据库连接
+     */
+    private LoadDatabase loadDatabase;
+
+    /**
+     * 创建内存数据库和bulk_user数据表
+     *
+     * @throws Exception 创建失败
+     */
+    @Before
+    public void setUp ( ) throws Exception {
+        url = "jdbc:h2:mem:bulk_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+        loadDatabase = new LoadDatabase("org.h2.Driver", url, "sa", "");
+        execute("create table bulk_user (id int primary key, name varchar(32))");
+    }
+
+    /**
+     * 关闭数据库连接并删除内存数据库
+     *
+     * @throws Exception 关闭失败
+     */
+    @After
+    public void tearDown ( ) throws Exception {
+        loadDatabase.close();
+        execute("drop all objects");
+    }
+
+    /**
+     * 开启load data local infile时退回到多行插入,返回写入的行数
+     *
+     * @throws Exception 查询失败
+     */
+    @Test
+    public void fallsBackToMultiRowInsert ( ) throws Exception {
+        BulkLoad bulkLoad = newBulkLoad();
+        bulkLoad.setLocalInfile(true);
+
+        Assert.assertEquals(250, bulkLoad.load(rows(1, 250).iterator()));
+        Assert.assertEquals(250, bulkLoad.getLoadedRows());
+        Assert.assertEquals(250, count());
+    }
+
+    /**
+     * 后面的批次失败时返回-1,getLoadedRows ( )返回失败之前已经写入的行数
+     *
+     * @throws Exception 查询失败
+     */
+    @Test
+    public void reportsRowsWrittenBeforeFailure ( ) throws Exception {
+        BulkLoad bulkLoad = newBulkLoad();
+        List<Object[]> rows = rows(1, 250);
+        // 第三批中出现重复的主键
+        rows.set(220, new Object[]{1, "duplicate"});
+
+        Assert.assertEquals(-1, bulkLoad.load(rows.iterator()));
+        Assert.assertEquals(200, bulkLoad.getLoadedRows());
+        Assert.assertEquals(200, count());
+    }
+
+    /**
+     * 某一行的列数不对时停止导入,getLoadedRows ( )返回前面批次写入的行数
+     *
+     * @throws Exception 查询失败
+     */
+    @Test
+    public void stopsAtRowWithWrongColumnCount ( ) throws Exception {
+        BulkLoad bulkLoad = newBulkLoad();
+        List<Object[]> rows = rows(1, 250);
+        rows.set(150, new Object[]{151});
+
+        Assert.assertEquals(-1, bulkLoad.load(rows.iterator()));
+        Assert.assertEquals(100, bulkLoad.getLoadedRows());
+        Assert.assertEquals(100, count());
+    }
+
+    /**
+     * 创建向bulk_user数据表导入数据的BulkLoad,每一批100行
+     *
+     * @return 返回BulkLoad
+     */
+    private BulkLoad newBulkLoad ( ) {
+        BulkLoad bulkLoad = new BulkLoad(loadDatabase);
+        Assert.assertTrue(bulkLoad.setTable("bulk_user"));
+        Assert.assertTrue(bulkLoad.setColumns("id", "name"));
+        Assert.assertTrue(bulkLoad.setBatchSize(100));
+        return bulkLoad;
+    }
+
+    /**
+     * 生成id从from到to的行
+     *
+     * @param from 第一行的id
+     * @param to   最后一行的id
+     * @return 返回生成的行
+     */
+    private static List<Object[]> rows (int from, int to) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = from; id <= to; id++) {
+            rows.add(new Object[]{id, "user" + id});
+        }
+        return rows;
+    }
+
+    /**
+     * 绕过LoadDatabase查询bulk_user数据表的行数
+     *
+     * @return 返回行数
+     * @throws SQLException 查询失败
+     */
+    private int count ( ) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from bulk_user")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * 绕过LoadDatabase执行SQL语句
+     *
+     * @param sql SQL语句
+     * @throws SQLException 执行失败
+     */
+    private void execute (String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package src.com.ych.whimsy.mysql.temporary;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import src.com.ych.whimsy.mysql.LoadDatabase;
+
+import java.util.List;
+
+/**
+ * Delete在内嵌H2数据库上的测试
+ */
+public class DeleteTest {
+
+    /**
+     * 被测试的数据库连接
+     */
+    private LoadDatabase loadDatabase;
+
+    /**
+     * 创建内存数据库和delete_user数据表,id从1到5
+     *
+     * @throws Exception 创建失败
+     */
+    @Before
+    public void setUp ( ) throws Exception {
+        loadDatabase = new LoadDatabase("org.h2.Driver", "jdbc:h2:mem:delete_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Assert.assertTrue(loadDatabase.executeUpdate("create table delete_user (id int primary key, name varchar(32))", "ddl"));
+        for (int id = 1; id <= 5; id++) {
+            Assert.assertTrue(loadDatabase.executeUpdate("insert into delete_user values (" + id + ", 'user" + id + "')", "dml"));
+        }
+    }
+
+    /**
+     * 关闭数据库连接
+     */
+    @After
+    public void tearDown ( ) {
+        loadDatabase.close();
+    }
+
+    /**
+     * 按where限定删除,值作为参数绑定
+     */
+    @Test
+    public void deletesMatchingRows ( ) {
+        Delete delete = loadDatabase.createDelete();
+        Assert.assertTrue(delete.setTable("delete_user"));
+        Assert.assertTrue(delete.setWhere("id", 10, "4"));
+
+        Assert.assertTrue(delete.commit());
+        Assert.assertEquals(2, delete.getCount());
+        Assert.assertEquals("[1, 2, 3]", ids().toString());
+
+        Assert.assertTrue(delete.setWhere("id", 0, "9"));
+        Assert.assertTrue(delete.commit());
+        Assert.assertEquals(0, delete.getCount());
+    }
+
+    /**
+     * 没有设置where限定时不删除任何数据
+     */
+    @Test
+    public void refusesToDeleteWithoutWhere ( ) {
+        Delete delete = loadDatabase.createDelete();
+        Assert.assertTrue(delete.setTable("delete_user"));
+
+        Assert.assertFalse(delete.commit());
+        Assert.assertFalse(delete.setWhere("id", 2, "1"));
+        Assert.assertEquals(5, ids().size());
+    }
+
+    /**
+     * 查询剩下的id
+     *
+     * @return 返回按id排序的剩下的id
+     */
+    private List<Integer> ids ( ) {
+        List<Integer> ids = loadDatabase.inquireList("PUBLIC", "delete_user", row -> row.getInt(1));
+        ids.sort(null);
+        return ids;
+    }
+}